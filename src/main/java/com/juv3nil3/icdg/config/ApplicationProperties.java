@@ -1,5 +1,6 @@
 package com.juv3nil3.icdg.config;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -13,12 +14,66 @@ public class ApplicationProperties {
 
     private final Liquibase liquibase = new Liquibase();
 
+    private final Github github = new Github();
+
+    private final Ingestion ingestion = new Ingestion();
+
+    private final ParseCache parseCache = new ParseCache();
+
+    private final ExportCache exportCache = new ExportCache();
+
+    private final Jobs jobs = new Jobs();
+
+    private final GenerationLease generationLease = new GenerationLease();
+
+    private final Http http = new Http();
+
+    private final TokenCache tokenCache = new TokenCache();
+
+    private final SymbolSearch symbolSearch = new SymbolSearch();
+
     // jhipster-needle-application-properties-property
 
     public Liquibase getLiquibase() {
         return liquibase;
     }
 
+    public Github getGithub() {
+        return github;
+    }
+
+    public Ingestion getIngestion() {
+        return ingestion;
+    }
+
+    public ParseCache getParseCache() {
+        return parseCache;
+    }
+
+    public ExportCache getExportCache() {
+        return exportCache;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public GenerationLease getGenerationLease() {
+        return generationLease;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public TokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    public SymbolSearch getSymbolSearch() {
+        return symbolSearch;
+    }
+
     // jhipster-needle-application-properties-property-getter
 
     public static class Liquibase {
@@ -33,5 +88,615 @@ public class ApplicationProperties {
             this.asyncStart = asyncStart;
         }
     }
+
+    public static class Github {
+
+        private String apiUrl = "https://api.github.com";
+
+        /**
+         * List repository files with a single recursive Git Trees API call instead of walking the contents API directory by directory.
+         */
+        private boolean treeListing = true;
+
+        /**
+         * How long the head commit of a repository is trusted after it was checked, before GitHub is asked again.
+         */
+        private Duration freshnessWindow = Duration.ofMinutes(1);
+
+        /**
+         * How long whether a token can read a repository is remembered, before its stored documentation is served again.
+         */
+        private Duration accessCacheTtl = Duration.ofMinutes(5);
+
+        /**
+         * Keycloak endpoint handing out the GitHub token brokered for the user of a Keycloak access token.
+         */
+        private String brokerTokenUrl = "http://localhost:9080/realms/jhipster/broker/github/token";
+
+        /**
+         * Share of the hourly rate limit of a token kept for interactive requests, background requests waiting for the reset
+         * instead of using it.
+         */
+        private double rateLimitReserve = 0.1;
+
+        /**
+         * Longest a request waits for the rate limit of its token to reset, failing right away when it would have to wait longer.
+         */
+        private Duration rateLimitMaxWait = Duration.ofMinutes(5);
+
+        /**
+         * Retries of a request rejected by a secondary rate limit.
+         */
+        private int rateLimitMaxRetries = 5;
+
+        public String getApiUrl() {
+            return apiUrl;
+        }
+
+        public void setApiUrl(String apiUrl) {
+            this.apiUrl = apiUrl;
+        }
+
+        public boolean isTreeListing() {
+            return treeListing;
+        }
+
+        public void setTreeListing(boolean treeListing) {
+            this.treeListing = treeListing;
+        }
+
+        public String getBrokerTokenUrl() {
+            return brokerTokenUrl;
+        }
+
+        public void setBrokerTokenUrl(String brokerTokenUrl) {
+            this.brokerTokenUrl = brokerTokenUrl;
+        }
+
+        public double getRateLimitReserve() {
+            return rateLimitReserve;
+        }
+
+        public void setRateLimitReserve(double rateLimitReserve) {
+            this.rateLimitReserve = rateLimitReserve;
+        }
+
+        public Duration getRateLimitMaxWait() {
+            return rateLimitMaxWait;
+        }
+
+        public void setRateLimitMaxWait(Duration rateLimitMaxWait) {
+            this.rateLimitMaxWait = rateLimitMaxWait;
+        }
+
+        public int getRateLimitMaxRetries() {
+            return rateLimitMaxRetries;
+        }
+
+        public void setRateLimitMaxRetries(int rateLimitMaxRetries) {
+            this.rateLimitMaxRetries = rateLimitMaxRetries;
+        }
+
+        public Duration getFreshnessWindow() {
+            return freshnessWindow;
+        }
+
+        public void setFreshnessWindow(Duration freshnessWindow) {
+            this.freshnessWindow = freshnessWindow;
+        }
+
+        public Duration getAccessCacheTtl() {
+            return accessCacheTtl;
+        }
+
+        public void setAccessCacheTtl(Duration accessCacheTtl) {
+            this.accessCacheTtl = accessCacheTtl;
+        }
+    }
+
+    public static class Ingestion {
+
+        public enum Mode {
+            /**
+             * Fetch every Java file on its own through the contents API.
+             */
+            CONTENTS,
+            /**
+             * Download the repository archive for the commit once and stream its entries.
+             */
+            ARCHIVE,
+        }
+
+        public enum Source {
+            /**
+             * Read repositories from the GitHub API.
+             */
+            GITHUB,
+            /**
+             * Read repositories from directories or bare repositories under the local root.
+             */
+            LOCAL,
+        }
+
+        public enum ParseMode {
+            /**
+             * Parse every statement and expression of a file.
+             */
+            FULL,
+            /**
+             * Parse the declarations of a file only, with the bodies of its methods, constructors and initializers left out.
+             */
+            DECLARATIONS,
+        }
+
+        private Source source = Source.GITHUB;
+
+        /**
+         * Directory holding the {@code {owner}/{repo}} directories or {@code {owner}/{repo}.git} bare repositories of the local
+         * source.
+         */
+        private String localRoot = ".";
+
+        /**
+         * Revision bare repositories of the local source are read at.
+         */
+        private String localRef = "HEAD";
+
+        private Mode mode = Mode.CONTENTS;
+
+        private ParseMode parseMode = ParseMode.DECLARATIONS;
+
+        /**
+         * Maximum number of file contents requests in flight against GitHub.
+         */
+        private int maxConcurrentRequests = 8;
+
+        /**
+         * Number of parser threads, 0 to use one per available processor.
+         */
+        private int parseParallelism = 0;
+
+        /**
+         * Number of parsed files written per persistence transaction.
+         */
+        private int persistBatchSize = 50;
+
+        /**
+         * Maximum number of files held between submission and persistence, bounding the memory of a run.
+         */
+        private int maxInFlightFiles = 256;
+
+        /**
+         * Write parsed rows with PostgreSQL {@code COPY} through staging tables instead of JDBC batches. Ignored on other databases.
+         */
+        private boolean copyWrites = false;
+
+        public Source getSource() {
+            return source;
+        }
+
+        public void setSource(Source source) {
+            this.source = source;
+        }
+
+        public String getLocalRoot() {
+            return localRoot;
+        }
+
+        public void setLocalRoot(String localRoot) {
+            this.localRoot = localRoot;
+        }
+
+        public String getLocalRef() {
+            return localRef;
+        }
+
+        public void setLocalRef(String localRef) {
+            this.localRef = localRef;
+        }
+
+        public ParseMode getParseMode() {
+            return parseMode;
+        }
+
+        public void setParseMode(ParseMode parseMode) {
+            this.parseMode = parseMode;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+        }
+
+        public int getParseParallelism() {
+            return parseParallelism;
+        }
+
+        public void setParseParallelism(int parseParallelism) {
+            this.parseParallelism = parseParallelism;
+        }
+
+        public int getPersistBatchSize() {
+            return persistBatchSize;
+        }
+
+        public void setPersistBatchSize(int persistBatchSize) {
+            this.persistBatchSize = persistBatchSize;
+        }
+
+        public int getMaxInFlightFiles() {
+            return maxInFlightFiles;
+        }
+
+        public void setMaxInFlightFiles(int maxInFlightFiles) {
+            this.maxInFlightFiles = maxInFlightFiles;
+        }
+
+        public boolean isCopyWrites() {
+            return copyWrites;
+        }
+
+        public void setCopyWrites(boolean copyWrites) {
+            this.copyWrites = copyWrites;
+        }
+    }
+
+    public static class ParseCache {
+
+        private boolean enabled = true;
+
+        /**
+         * Directory of the on-disk tier, kept across restarts.
+         */
+        private String directory = System.getProperty("java.io.tmpdir") + "/icdg-parse-cache";
+
+        private long maxHeapBytes = 64L * 1024 * 1024;
+
+        private long maxDiskBytes = 1024L * 1024 * 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getMaxHeapBytes() {
+            return maxHeapBytes;
+        }
+
+        public void setMaxHeapBytes(long maxHeapBytes) {
+            this.maxHeapBytes = maxHeapBytes;
+        }
+
+        public long getMaxDiskBytes() {
+            return maxDiskBytes;
+        }
+
+        public void setMaxDiskBytes(long maxDiskBytes) {
+            this.maxDiskBytes = maxDiskBytes;
+        }
+    }
+
+    public static class ExportCache {
+
+        private boolean enabled = true;
+
+        /**
+         * Directory of the rendered exports too large to be kept in heap.
+         */
+        private String directory = System.getProperty("java.io.tmpdir") + "/icdg-export-cache";
+
+        /**
+         * Maximum number of exports in heap.
+         */
+        private long heapEntries = 100;
+
+        /**
+         * Exports larger than this are kept on disk, the heap entry only referencing the file.
+         */
+        private int maxInlineBytes = 1024 * 1024;
+
+        /**
+         * Maximum total size of the exports on disk.
+         */
+        private long maxDiskBytes = 1024L * 1024 * 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getHeapEntries() {
+            return heapEntries;
+        }
+
+        public void setHeapEntries(long heapEntries) {
+            this.heapEntries = heapEntries;
+        }
+
+        public int getMaxInlineBytes() {
+            return maxInlineBytes;
+        }
+
+        public void setMaxInlineBytes(int maxInlineBytes) {
+            this.maxInlineBytes = maxInlineBytes;
+        }
+
+        public long getMaxDiskBytes() {
+            return maxDiskBytes;
+        }
+
+        public void setMaxDiskBytes(long maxDiskBytes) {
+            this.maxDiskBytes = maxDiskBytes;
+        }
+    }
+
+    public static class Jobs {
+
+        /**
+         * How long a finished generation job, and the documentation it points to, can still be polled for.
+         */
+        private Duration retention = Duration.ofHours(1);
+
+        /**
+         * Interval at which the progress of running jobs is pushed to their subscribers.
+         */
+        private Duration progressInterval = Duration.ofSeconds(1);
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public Duration getProgressInterval() {
+            return progressInterval;
+        }
+
+        public void setProgressInterval(Duration progressInterval) {
+            this.progressInterval = progressInterval;
+        }
+    }
+
+    public static class GenerationLease {
+
+        /**
+         * How long the lease on a repository outlives a node that stopped renewing it.
+         */
+        private Duration duration = Duration.ofMinutes(2);
+
+        /**
+         * Interval at which a node waiting for the lease on a repository checks whether it was released.
+         */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /**
+         * How long a node waits for the lease on a repository before failing the generation.
+         */
+        private Duration acquireTimeout = Duration.ofMinutes(10);
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public void setDuration(Duration duration) {
+            this.duration = duration;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getAcquireTimeout() {
+            return acquireTimeout;
+        }
+
+        public void setAcquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+    }
+
+    public static class Http {
+
+        /**
+         * Maximum number of pooled connections over all hosts.
+         */
+        private int maxConnections = 100;
+
+        /**
+         * Maximum number of pooled connections to a single host, GitHub or Keycloak.
+         */
+        private int maxConnectionsPerHost = 32;
+
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Maximum time without data on an open connection, archives being streamed over a single response.
+         */
+        private Duration readTimeout = Duration.ofSeconds(60);
+
+        /**
+         * Idle connections are closed after this long instead of being kept alive in the pool.
+         */
+        private Duration idleTimeout = Duration.ofSeconds(30);
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getMaxConnectionsPerHost() {
+            return maxConnectionsPerHost;
+        }
+
+        public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+    }
+
+    public static class TokenCache {
+
+        private boolean enabled = true;
+
+        private long maxEntries = 10_000;
+
+        /**
+         * Lifetime of a brokered GitHub token that comes without {@code expires_in}, as classic OAuth app tokens do.
+         */
+        private Duration defaultTtl = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getDefaultTtl() {
+            return defaultTtl;
+        }
+
+        public void setDefaultTtl(Duration defaultTtl) {
+            this.defaultTtl = defaultTtl;
+        }
+    }
+
+    public static class SymbolSearch {
+
+        public enum Engine {
+            /**
+             * Keep an embedded Lucene index of every searched repository on the disk of each node, indexed again from the database
+             * once behind the latest generation.
+             */
+            LUCENE,
+            /**
+             * Keep the index in Elasticsearch, shared by every node.
+             */
+            ELASTICSEARCH,
+        }
+
+        private Engine engine = Engine.LUCENE;
+
+        /**
+         * Directory of the Lucene indexes, one per repository, local to each node.
+         */
+        private String directory = System.getProperty("java.io.tmpdir") + "/icdg-symbol-index";
+
+        /**
+         * Largest number of Lucene indexes open at a time, each holding a writer, its lock and buffers.
+         */
+        private int maxOpenIndexes = 32;
+
+        /**
+         * Largest number of symbols returned by a search, whatever the number asked for.
+         */
+        private int maxResults = 100;
+
+        public Engine getEngine() {
+            return engine;
+        }
+
+        public void setEngine(Engine engine) {
+            this.engine = engine;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getMaxOpenIndexes() {
+            return maxOpenIndexes;
+        }
+
+        public void setMaxOpenIndexes(int maxOpenIndexes) {
+            this.maxOpenIndexes = maxOpenIndexes;
+        }
+
+        public int getMaxResults() {
+            return maxResults;
+        }
+
+        public void setMaxResults(int maxResults) {
+            this.maxResults = maxResults;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
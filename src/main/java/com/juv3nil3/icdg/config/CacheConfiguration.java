@@ -1,5 +1,6 @@
 package com.juv3nil3.icdg.config;
 
+import com.juv3nil3.icdg.service.RenderedExportCache;
 import java.time.Duration;
 import org.ehcache.config.builders.*;
 import org.ehcache.jsr107.Eh107Configuration;
@@ -43,18 +44,38 @@ public class CacheConfiguration {
     }
 
     @Bean
-    public JCacheManagerCustomizer cacheManagerCustomizer() {
+    public JCacheManagerCustomizer cacheManagerCustomizer(ApplicationProperties applicationProperties) {
         return cm -> {
+            // Exports of a commit never change, so entries are evicted least recently used first rather than expiring
+            createCache(
+                cm,
+                RenderedExportCache.CACHE_NAME,
+                Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                        String.class,
+                        RenderedExportCache.RenderedExport.class,
+                        ResourcePoolsBuilder.heap(applicationProperties.getExportCache().getHeapEntries())
+                    ).build()
+                )
+            );
             // jhipster-needle-ehcache-add-entry
         };
     }
 
     private void createCache(javax.cache.CacheManager cm, String cacheName) {
-        javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
+        createCache(cm, cacheName, jcacheConfiguration);
+    }
+
+    private <K, V> void createCache(
+        javax.cache.CacheManager cm,
+        String cacheName,
+        javax.cache.configuration.Configuration<K, V> configuration
+    ) {
+        javax.cache.Cache<K, V> cache = cm.getCache(cacheName, configuration.getKeyType(), configuration.getValueType());
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            cm.createCache(cacheName, configuration);
         }
     }
 
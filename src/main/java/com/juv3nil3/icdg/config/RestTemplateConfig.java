@@ -1,15 +1,78 @@
 package com.juv3nil3.icdg.config;
 
+import com.juv3nil3.icdg.service.GithubRequestScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * The outbound HTTP client shared by the GitHub and Keycloak calls: one pool of kept-alive connections with per-host limits,
+ * timeouts and transparent gzip.
+ * <p>
+ * Pool utilization is published as the {@code httpcomponents.httpclient.pool.*} meters, and the latency of each endpoint as
+ * {@code http.client.requests} by the observation customizer of the {@link RestTemplateBuilder}, tagged with the URI template of
+ * the call. Requests to the GitHub API go through the {@link GithubRequestScheduler}, which paces them by their rate limit.
+ */
 @Configuration
 public class RestTemplateConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public PoolingHttpClientConnectionManager outboundConnectionManager(
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Http properties = applicationProperties.getHttp();
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(properties.getMaxConnections())
+            .setMaxConnPerRoute(properties.getMaxConnectionsPerHost())
+            .setDefaultConnectionConfig(
+                ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                    .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                    .build()
+            )
+            .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "outbound").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient outboundHttpClient(
+        PoolingHttpClientConnectionManager outboundConnectionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.Http properties = applicationProperties.getHttp();
+        // Content compression is on by default, responses being asked for and inflated as gzip or deflate
+        return HttpClients.custom()
+            .setConnectionManager(outboundConnectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom().setResponseTimeout(Timeout.of(properties.getReadTimeout())).build())
+            .evictIdleConnections(TimeValue.of(properties.getIdleTimeout()))
+            .evictExpiredConnections()
+            .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(
+        RestTemplateBuilder restTemplateBuilder,
+        CloseableHttpClient outboundHttpClient,
+        GithubRequestScheduler githubRequestScheduler
+    ) {
+        // The scheduler resends requests rejected by a rate limit, so it has to be the last interceptor
+        return restTemplateBuilder
+            .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(outboundHttpClient))
+            .additionalInterceptors(githubRequestScheduler)
+            .build();
     }
 }
@@ -7,7 +7,8 @@ import java.util.List;
 @Entity
 public class ClassData{
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
     private String name;
@@ -18,13 +19,13 @@ public class ClassData{
     @Column(name = "annotation")
     private List<String> annotations = new ArrayList<>();
 
-    @OneToMany(mappedBy = "classData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "classData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<MethodData> methods = new ArrayList<>();
 
-    @OneToMany(mappedBy = "classData", cascade = CascadeType.ALL, orphanRemoval = true,fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "classData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<FieldData> fields = new ArrayList<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "file_id", nullable = false)
     private FileData fileData;
 
@@ -38,6 +39,10 @@ public class ClassData{
         return id;
     }
 
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
@@ -20,7 +20,7 @@ public class Documentation {
     private LocalDateTime createdAt; // Timestamp when the documentation was created
     private LocalDateTime updatedAt; // Timestamp when the documentation was last updated
 
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinTable(
         name = "documentation_packages", // Join table name
         joinColumns = @JoinColumn(name = "documentation_id"), // Foreign key to Documentation
@@ -30,6 +30,10 @@ public class Documentation {
 
     // Getters and Setters
 
+    public Long getId() {
+        return id;
+    }
+
     public RepositoryMetadata getRepositoryMetadata() {
         return repositoryMetadata;
     }
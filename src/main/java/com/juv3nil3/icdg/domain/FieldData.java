@@ -9,7 +9,8 @@ import java.util.List;
 public class FieldData {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
     @Column(nullable = false)
@@ -23,7 +24,7 @@ public class FieldData {
     @Column
     private String comment; // Optional field comment
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "class_id")
     private ClassData classData; // Reference to the parent class
 
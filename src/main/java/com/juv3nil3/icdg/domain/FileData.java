@@ -8,17 +8,20 @@ import java.util.List;
 public class FileData {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
     private String fileName;
+    private String owner;
     private String repoName;
     private String filePath; // Full path including the file name
+    private String blobSha; // Git blob SHA of the content, shared by the snapshots the file is unchanged in
 
-    @OneToMany(mappedBy = "fileData", cascade = CascadeType.ALL, orphanRemoval = true,fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "fileData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<ClassData> classes = new ArrayList<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "package_id")
     private PackageData packageData;
 
@@ -56,6 +59,14 @@ public class FileData {
         this.fileName = fileName;
     }
 
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
     public String getRepoName() {
         return repoName;
     }
@@ -72,6 +83,14 @@ public class FileData {
         this.filePath = filePath;
     }
 
+    public String getBlobSha() {
+        return blobSha;
+    }
+
+    public void setBlobSha(String blobSha) {
+        this.blobSha = blobSha;
+    }
+
     public List<ClassData> getClasses() {
         return classes;
     }
@@ -85,6 +104,7 @@ public class FileData {
         return "FileData{" +
             "id=" + id +
             ", fileName='" + fileName + '\'' +
+            ", owner='" + owner + '\'' +
             ", repoName='" + repoName + '\'' +
             ", filePath='" + filePath + '\'' +
             ", numberOfClasses=" + (classes != null ? classes.size() : 0) +
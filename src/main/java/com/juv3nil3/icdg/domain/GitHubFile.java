@@ -7,6 +7,7 @@ public class GitHubFile {
     private String type;
     private String download_url;
     private String sha;
+    private Long size;
 
     public String getName() {
         return name;
@@ -48,6 +49,14 @@ public class GitHubFile {
         this.sha = sha;
     }
 
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
     @Override
     public String toString() {
         return "GitHubFile{" +
@@ -56,6 +65,7 @@ public class GitHubFile {
             ", type='" + type + '\'' +
             ", download_url='" + download_url + '\'' +
             ", sha='" + sha + '\'' +
+            ", size=" + size +
             '}';
     }
 }
@@ -0,0 +1,70 @@
+package com.juv3nil3.icdg.domain;
+
+/**
+ * A file changed between two commits, as listed by the GitHub compare API.
+ */
+public class GitHubFileChange {
+
+    private String path;
+    private String previousPath;
+    private String status;
+    private String sha;
+
+    public GitHubFileChange() {}
+
+    public GitHubFileChange(String path, String previousPath, String status, String sha) {
+        this.path = path;
+        this.previousPath = previousPath;
+        this.status = status;
+        this.sha = sha;
+    }
+
+    /**
+     * @return true if the file no longer exists at {@link #getPath()} in the new commit.
+     */
+    public boolean isRemoved() {
+        return "removed".equals(status);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getPreviousPath() {
+        return previousPath;
+    }
+
+    public void setPreviousPath(String previousPath) {
+        this.previousPath = previousPath;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getSha() {
+        return sha;
+    }
+
+    public void setSha(String sha) {
+        this.sha = sha;
+    }
+
+    @Override
+    public String toString() {
+        return "GitHubFileChange{" +
+            "path='" + path + '\'' +
+            ", previousPath='" + previousPath + '\'' +
+            ", status='" + status + '\'' +
+            ", sha='" + sha + '\'' +
+            '}';
+    }
+}
@@ -9,7 +9,8 @@ import java.util.List;
 public class MethodData {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
     private String name;
@@ -20,7 +21,7 @@ public class MethodData {
     @Column(name = "annotation")
     private List<String> annotations = new ArrayList<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "class_id")
     private ClassData classData;
 
@@ -3,27 +3,33 @@ package com.juv3nil3.icdg.domain;
 import jakarta.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.annotations.SQLRestriction;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = { "owner", "repo_name", "package_name" }))
 public class PackageData {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
-    @Column(nullable = false, unique = true)
-    private String packageName; // Fully qualified package name
+    @Column(nullable = false)
+    private String packageName; // Fully qualified package name, unique within its repository
 
+    private String owner;
     private String repoName;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_package_id")
     private PackageData parentPackage; // Reference to the parent package (null for top-level)
 
-    @OneToMany(mappedBy = "parentPackage", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "parentPackage", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<PackageData> subPackages = new ArrayList<>(); // Sub-packages of this package
 
-    @OneToMany(mappedBy = "packageData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    // The files of the latest snapshot, retired files are only kept for earlier ones
+    @OneToMany(mappedBy = "packageData", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @SQLRestriction("removed_in IS NULL")
     private List<FileData> files = new ArrayList<>();
 
     public PackageData() {}
@@ -49,6 +55,14 @@ public class PackageData {
         this.packageName = packageName;
     }
 
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
     public String getRepoName() {
         return repoName;
     }
@@ -0,0 +1,238 @@
+package com.juv3nil3.icdg.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Read side of documentation browsing: the packages of a documentation snapshot, the files and classes of a package and the
+ * members of a class, each read a page at a time from a cursor.
+ * <p>
+ * Every query is a range scan of the index on the parent of its rows, see {@code create-browse-indexes.xml}, so a page costs the
+ * same whatever the size of the repository. Files outside the snapshot are filtered out of the same scan, see
+ * {@link DocumentationSnapshotRepository#FILE_IN_SNAPSHOT}, so any snapshot costs the same as the latest one.
+ */
+@Repository
+public class DocumentationBrowseRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public DocumentationBrowseRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Find a page of the packages of a snapshot, ordered by name.
+     *
+     * @param owner      the owner of the repository.
+     * @param repoName   the name of the repository.
+     * @param generation the generation of the snapshot.
+     * @param after      the name of the last package of the previous page, or null for the first page.
+     * @param size       the maximum number of packages to return.
+     * @return the packages, with the cursor of the next page if there is one.
+     */
+    public CursorPage<PackageSummary> findPackages(String owner, String repoName, long generation, String after, int size) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+            .addValue("owner", owner)
+            .addValue("repoName", repoName)
+            .addValue("generation", generation)
+            .addValue("after", after == null ? "" : after)
+            .addValue("limit", size + 1);
+        List<PackageSummary> packages = jdbcTemplate.query(
+            "SELECT id, package_name FROM package_data WHERE owner = :owner AND repo_name = :repoName " +
+            "AND package_name > :after AND added_in <= :generation ORDER BY package_name LIMIT :limit",
+            parameters,
+            (resultSet, rowNum) -> new PackageSummary(resultSet.getLong(1), resultSet.getString(2))
+        );
+        return CursorPage.of(packages, size, PackageSummary::packageName);
+    }
+
+    /**
+     * Find the id of a package of a snapshot.
+     */
+    public Optional<Long> findPackageId(String owner, String repoName, long generation, String packageName) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+            .addValue("owner", owner)
+            .addValue("repoName", repoName)
+            .addValue("generation", generation)
+            .addValue("packageName", packageName);
+        return jdbcTemplate
+            .queryForList(
+                "SELECT id FROM package_data WHERE owner = :owner AND repo_name = :repoName AND package_name = :packageName " +
+                "AND added_in <= :generation",
+                parameters,
+                Long.class
+            )
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * Find a page of the files of a package in a snapshot, in the order they were stored, with the names of their classes.
+     *
+     * @param packageId  the id of the package.
+     * @param generation the generation of the snapshot.
+     * @param after      the id of the last file of the previous page, or null for the first page.
+     * @param size       the maximum number of files to return.
+     * @return the files, with the cursor of the next page if there is one.
+     */
+    public CursorPage<FileSummary> findFiles(long packageId, long generation, Long after, int size) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+            .addValue("packageId", packageId)
+            .addValue("generation", generation)
+            .addValue("after", after == null ? 0L : after)
+            .addValue("limit", size + 1);
+        // The classes are read for the files of the page in a second query
+        List<FileSummary> fileRows = jdbcTemplate.query(
+            "SELECT f.id, f.file_name, f.file_path FROM file_data f WHERE f.package_id = :packageId AND f.id > :after AND " +
+            DocumentationSnapshotRepository.FILE_IN_SNAPSHOT +
+            " ORDER BY f.id LIMIT :limit",
+            parameters,
+            (resultSet, rowNum) -> new FileSummary(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3), List.of())
+        );
+        if (fileRows.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        Map<Long, List<ClassSummary>> classes = new HashMap<>();
+        jdbcTemplate.query(
+            "SELECT id, file_id, name FROM class_data WHERE file_id IN (:fileIds) ORDER BY id",
+            new MapSqlParameterSource("fileIds", fileRows.stream().map(FileSummary::id).toList()),
+            resultSet -> {
+                classes
+                    .computeIfAbsent(resultSet.getLong(2), fileId -> new ArrayList<>())
+                    .add(new ClassSummary(resultSet.getLong(1), resultSet.getString(3)));
+            }
+        );
+        List<FileSummary> files = fileRows
+            .stream()
+            .map(file -> new FileSummary(file.id(), file.fileName(), file.filePath(), classes.getOrDefault(file.id(), List.of())))
+            .toList();
+        return CursorPage.of(files, size, file -> String.valueOf(file.id()));
+    }
+
+    /**
+     * Find a class of a snapshot with its annotations, methods and fields.
+     *
+     * @param owner      the owner of the repository.
+     * @param repoName   the name of the repository.
+     * @param generation the generation of the snapshot.
+     * @param classId    the id of the class.
+     * @return the class, or empty if the snapshot has no such class.
+     */
+    public Optional<ClassDetail> findClass(String owner, String repoName, long generation, long classId) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+            .addValue("owner", owner)
+            .addValue("repoName", repoName)
+            .addValue("generation", generation)
+            .addValue("classId", classId);
+        // Annotations and members are read once the class is known to belong to the snapshot
+        List<ClassDetail> found = jdbcTemplate.query(
+            "SELECT c.id, c.name, c.comment, p.package_name, f.file_name, f.file_path FROM class_data c " +
+            "JOIN file_data f ON c.file_id = f.id LEFT JOIN package_data p ON f.package_id = p.id " +
+            "WHERE c.id = :classId AND f.owner = :owner AND f.repo_name = :repoName AND " +
+            DocumentationSnapshotRepository.FILE_IN_SNAPSHOT,
+            parameters,
+            (resultSet, rowNum) ->
+                new ClassDetail(
+                    resultSet.getLong(1),
+                    resultSet.getString(2),
+                    resultSet.getString(3),
+                    List.of(),
+                    resultSet.getString(4),
+                    resultSet.getString(5),
+                    resultSet.getString(6),
+                    List.of(),
+                    List.of()
+                )
+        );
+        return found
+            .stream()
+            .findFirst()
+            .map(clazz ->
+                new ClassDetail(
+                    clazz.id(),
+                    clazz.name(),
+                    clazz.comment(),
+                    jdbcTemplate.queryForList(
+                        "SELECT annotation FROM class_data_annotations WHERE class_data_id = :classId",
+                        parameters,
+                        String.class
+                    ),
+                    clazz.packageName(),
+                    clazz.fileName(),
+                    clazz.filePath(),
+                    findMembers("method_data", "method_data_annotations", "method_data_id", parameters),
+                    findMembers("field_data", "field_data_annotations", "field_data_id", parameters)
+                )
+            );
+    }
+
+    private List<MemberDetail> findMembers(
+        String table,
+        String annotationTable,
+        String annotationColumn,
+        MapSqlParameterSource classId
+    ) {
+        Map<Long, List<String>> annotations = new HashMap<>();
+        jdbcTemplate.query(
+            "SELECT a." + annotationColumn + ", a.annotation FROM " + annotationTable + " a JOIN " + table + " m ON a." +
+            annotationColumn + " = m.id WHERE m.class_id = :classId",
+            classId,
+            resultSet -> {
+                annotations.computeIfAbsent(resultSet.getLong(1), memberId -> new ArrayList<>()).add(resultSet.getString(2));
+            }
+        );
+        return jdbcTemplate.query(
+            "SELECT id, name, comment FROM " + table + " WHERE class_id = :classId ORDER BY id",
+            classId,
+            (resultSet, rowNum) ->
+                new MemberDetail(resultSet.getString(2), resultSet.getString(3), annotations.getOrDefault(resultSet.getLong(1), List.of()))
+        );
+    }
+
+    /**
+     * A page of items, with the cursor to pass as {@code after} for the next page, null on the last page.
+     */
+    public record CursorPage<T>(List<T> items, String next) {
+        /**
+         * Make a page from a query for one more item than its size, that item telling whether there is a next page.
+         */
+        static <T> CursorPage<T> of(List<T> items, int size, Function<T, String> cursor) {
+            if (items.size() <= size) {
+                return new CursorPage<>(items, null);
+            }
+            List<T> page = items.subList(0, size);
+            return new CursorPage<>(List.copyOf(page), cursor.apply(page.get(size - 1)));
+        }
+    }
+
+    public record PackageSummary(long id, String packageName) {}
+
+    public record FileSummary(long id, String fileName, String filePath, List<ClassSummary> classes) {}
+
+    public record ClassSummary(long id, String name) {}
+
+    public record ClassDetail(
+        long id,
+        String name,
+        String comment,
+        List<String> annotations,
+        String packageName,
+        String fileName,
+        String filePath,
+        List<MemberDetail> methods,
+        List<MemberDetail> fields
+    ) {}
+
+    public record MemberDetail(String name, String comment, List<String> annotations) {}
+}
@@ -0,0 +1,154 @@
+package com.juv3nil3.icdg.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Read side of the documentation export, loading the packages of a documentation snapshot a page at a time with only the columns
+ * the export prints, instead of the eagerly fetched entity graph.
+ * <p>
+ * Every query reads the files of the snapshot only, see {@link DocumentationSnapshotRepository#FILE_IN_SNAPSHOT}.
+ */
+@Repository
+public class DocumentationExportRepository {
+
+    private static final String IN_SNAPSHOT = DocumentationSnapshotRepository.FILE_IN_SNAPSHOT;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public DocumentationExportRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Find a page of the packages of a documentation snapshot, ordered by name.
+     *
+     * @param owner      the owner of the repository.
+     * @param repoName   the name of the repository.
+     * @param generation the generation of the snapshot.
+     * @param after      the name of the last package of the previous page, or null for the first page.
+     * @param size       the maximum number of packages to return.
+     * @return the packages with their files, classes, methods and fields.
+     */
+    public List<PackageView> findPackagePage(String owner, String repoName, long generation, String after, int size) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+            .addValue("owner", owner)
+            .addValue("repoName", repoName)
+            .addValue("generation", generation)
+            .addValue("after", after == null ? "" : after)
+            .addValue("size", size);
+        Map<Long, String> packageNames = new LinkedHashMap<>();
+        jdbcTemplate.query(
+            "SELECT p.id, p.package_name FROM package_data p WHERE p.owner = :owner AND p.repo_name = :repoName " +
+            "AND p.added_in <= :generation AND p.package_name > :after ORDER BY p.package_name LIMIT :size",
+            parameters,
+            resultSet -> {
+                packageNames.put(resultSet.getLong(1), resultSet.getString(2));
+            }
+        );
+        if (packageNames.isEmpty()) {
+            return List.of();
+        }
+
+        MapSqlParameterSource packageIds = new MapSqlParameterSource()
+            .addValue("packageIds", packageNames.keySet())
+            .addValue("generation", generation);
+        Map<Long, List<MemberView>> methods = findMembers("method_data", "method_data_annotations", "method_data_id", packageIds);
+        Map<Long, List<MemberView>> fields = findMembers("field_data", "field_data_annotations", "field_data_id", packageIds);
+        Map<Long, List<String>> classAnnotations = findAnnotations(
+            "SELECT a.class_data_id, a.annotation FROM class_data_annotations a JOIN class_data c ON a.class_data_id = c.id " +
+            "JOIN file_data f ON c.file_id = f.id WHERE f.package_id IN (:packageIds) AND " + IN_SNAPSHOT,
+            packageIds
+        );
+
+        Map<Long, List<ClassView>> classes = new HashMap<>();
+        jdbcTemplate.query(
+            "SELECT c.id, c.file_id, c.name FROM class_data c JOIN file_data f ON c.file_id = f.id " +
+            "WHERE f.package_id IN (:packageIds) AND " + IN_SNAPSHOT + " ORDER BY c.id",
+            packageIds,
+            resultSet -> {
+                long classId = resultSet.getLong(1);
+                classes
+                    .computeIfAbsent(resultSet.getLong(2), fileId -> new ArrayList<>())
+                    .add(
+                        new ClassView(
+                            resultSet.getString(3),
+                            classAnnotations.getOrDefault(classId, List.of()),
+                            methods.getOrDefault(classId, List.of()),
+                            fields.getOrDefault(classId, List.of())
+                        )
+                    );
+            }
+        );
+
+        Map<Long, List<FileView>> files = new HashMap<>();
+        jdbcTemplate.query(
+            "SELECT f.id, f.package_id, f.file_name FROM file_data f WHERE f.package_id IN (:packageIds) AND " + IN_SNAPSHOT +
+            " ORDER BY f.id",
+            packageIds,
+            resultSet -> {
+                files
+                    .computeIfAbsent(resultSet.getLong(2), packageId -> new ArrayList<>())
+                    .add(new FileView(resultSet.getString(3), classes.getOrDefault(resultSet.getLong(1), List.of())));
+            }
+        );
+
+        return packageNames
+            .entrySet()
+            .stream()
+            .map(entry -> new PackageView(entry.getValue(), files.getOrDefault(entry.getKey(), List.of())))
+            .collect(Collectors.toList());
+    }
+
+    private Map<Long, List<MemberView>> findMembers(
+        String table,
+        String annotationTable,
+        String annotationColumn,
+        MapSqlParameterSource packageIds
+    ) {
+        Map<Long, List<String>> annotations = findAnnotations(
+            "SELECT a." + annotationColumn + ", a.annotation FROM " + annotationTable + " a JOIN " + table + " m ON a." +
+            annotationColumn + " = m.id JOIN class_data c ON m.class_id = c.id JOIN file_data f ON c.file_id = f.id " +
+            "WHERE f.package_id IN (:packageIds) AND " + IN_SNAPSHOT,
+            packageIds
+        );
+        Map<Long, List<MemberView>> members = new HashMap<>();
+        jdbcTemplate.query(
+            "SELECT m.id, m.class_id, m.name FROM " + table + " m JOIN class_data c ON m.class_id = c.id " +
+            "JOIN file_data f ON c.file_id = f.id WHERE f.package_id IN (:packageIds) AND " + IN_SNAPSHOT + " ORDER BY m.id",
+            packageIds,
+            resultSet -> {
+                members
+                    .computeIfAbsent(resultSet.getLong(2), classId -> new ArrayList<>())
+                    .add(new MemberView(resultSet.getString(3), annotations.getOrDefault(resultSet.getLong(1), List.of())));
+            }
+        );
+        return members;
+    }
+
+    private Map<Long, List<String>> findAnnotations(String sql, MapSqlParameterSource packageIds) {
+        Map<Long, List<String>> annotations = new HashMap<>();
+        jdbcTemplate.query(sql, packageIds, resultSet -> {
+            annotations.computeIfAbsent(resultSet.getLong(1), ownerId -> new ArrayList<>()).add(resultSet.getString(2));
+        });
+        return annotations;
+    }
+
+    public record PackageView(String packageName, List<FileView> files) {}
+
+    public record FileView(String fileName, List<ClassView> classes) {}
+
+    public record ClassView(String name, List<String> annotations, List<MemberView> methods, List<MemberView> fields) {}
+
+    public record MemberView(String name, List<String> annotations) {}
+}
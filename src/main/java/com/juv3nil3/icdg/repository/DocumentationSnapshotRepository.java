@@ -0,0 +1,129 @@
+package com.juv3nil3.icdg.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The snapshots of the documentation of a repository, one per generated commit, in the {@code documentation_snapshot} table.
+ * <p>
+ * Every generation of a repository writes its files and packages with the next generation number, see
+ * {@link FileDataBatchRepository}, and a file row stays alive until a later generation replaces or removes it. The snapshot of a
+ * generation is the rows alive at that generation, {@link #FILE_IN_SNAPSHOT}, so reading an old snapshot goes through the same
+ * indexes and rows as reading the latest one.
+ */
+@Repository
+public class DocumentationSnapshotRepository {
+
+    /**
+     * Condition on a {@code file_data f} row being part of the snapshot of the {@code :generation} parameter.
+     */
+    static final String FILE_IN_SNAPSHOT = "f.added_in <= :generation AND (f.removed_in IS NULL OR f.removed_in > :generation)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public DocumentationSnapshotRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Find the generation number the next generation of a repository writes its rows with. A generation that failed before
+     * being saved is retried with the same number, once the rows it wrote are discarded, see
+     * {@link FileDataBatchRepository#discardGeneration(String, String, long)}.
+     */
+    public long nextGeneration(String owner, String repoName) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COALESCE(MAX(generation), 0) + 1 FROM documentation_snapshot WHERE owner = ? AND repo_name = ?",
+            Long.class,
+            owner,
+            repoName
+        );
+    }
+
+    /**
+     * Save the snapshot of a generation, once all of its rows are written.
+     */
+    public Snapshot save(String owner, String repoName, long generation, String commitHash) {
+        Snapshot snapshot = new Snapshot(owner, repoName, generation, commitHash, Instant.now());
+        jdbcTemplate.update(
+            "INSERT INTO documentation_snapshot (owner, repo_name, generation, commit_hash, created_at) VALUES (?, ?, ?, ?, ?)",
+            owner,
+            repoName,
+            generation,
+            commitHash,
+            Timestamp.from(snapshot.createdAt())
+        );
+        return snapshot;
+    }
+
+    /**
+     * Find the latest snapshot of a repository.
+     */
+    public Optional<Snapshot> findLatest(String owner, String repoName) {
+        return jdbcTemplate
+            .query(
+                "SELECT owner, repo_name, generation, commit_hash, created_at FROM documentation_snapshot " +
+                "WHERE owner = ? AND repo_name = ? ORDER BY generation DESC LIMIT 1",
+                DocumentationSnapshotRepository::mapSnapshot,
+                owner,
+                repoName
+            )
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * Find the snapshot of a commit of a repository, the latest one if the commit was generated more than once.
+     */
+    public Optional<Snapshot> findByCommit(String owner, String repoName, String commitHash) {
+        return jdbcTemplate
+            .query(
+                "SELECT owner, repo_name, generation, commit_hash, created_at FROM documentation_snapshot " +
+                "WHERE owner = ? AND repo_name = ? AND commit_hash = ? ORDER BY generation DESC LIMIT 1",
+                DocumentationSnapshotRepository::mapSnapshot,
+                owner,
+                repoName,
+                commitHash
+            )
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * Find the snapshots of a repository, latest first.
+     */
+    public List<Snapshot> findAll(String owner, String repoName) {
+        return jdbcTemplate.query(
+            "SELECT owner, repo_name, generation, commit_hash, created_at FROM documentation_snapshot " +
+            "WHERE owner = ? AND repo_name = ? ORDER BY generation DESC",
+            DocumentationSnapshotRepository::mapSnapshot,
+            owner,
+            repoName
+        );
+    }
+
+    private static Snapshot mapSnapshot(ResultSet resultSet, int rowNum) throws SQLException {
+        return new Snapshot(
+            resultSet.getString(1),
+            resultSet.getString(2),
+            resultSet.getLong(3),
+            resultSet.getString(4),
+            resultSet.getTimestamp(5).toInstant()
+        );
+    }
+
+    /**
+     * The documentation of a repository as of a commit.
+     *
+     * @param generation the generation the commit was stored by.
+     */
+    public record Snapshot(String owner, String repoName, long generation, String commitHash, Instant createdAt) {}
+}
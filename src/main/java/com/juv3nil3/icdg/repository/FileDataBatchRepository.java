@@ -0,0 +1,460 @@
+package com.juv3nil3.icdg.repository;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import com.juv3nil3.icdg.domain.PackageData;
+import java.sql.DatabaseMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Bulk insert of parsed files with their classes, methods, fields and annotations, written as one JDBC batch per table, and of the
+ * packages they belong to.
+ * <p>
+ * Rows are written with the generation they are added in, and files are retired rather than deleted when a later generation
+ * replaces or removes them, so the snapshots of earlier generations keep them, see {@link DocumentationSnapshotRepository}.
+ * <p>
+ * Ids are taken from {@code sequence_generator} in blocks, the same way Hibernate's pooled optimizer does for the entities, so
+ * rows written here and rows saved through JPA never collide.
+ * <p>
+ * With {@code application.ingestion.copy-writes} on PostgreSQL, the rows are streamed with {@code COPY} instead, see
+ * {@link PostgresCopyWriter}. Other databases keep the JDBC batches.
+ */
+@Repository
+public class FileDataBatchRepository {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileDataBatchRepository.class);
+
+    /**
+     * Must match the {@code incrementBy} of {@code sequence_generator} and the allocation size of the entities.
+     */
+    static final int SEQUENCE_INCREMENT = 50;
+
+    private static final String SEQUENCE_NAME = "sequence_generator";
+
+    private static final int[] MEMBER_TYPES = { Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.BIGINT };
+    private static final int[] ANNOTATION_TYPES = { Types.BIGINT, Types.VARCHAR };
+
+    static final Table PACKAGE_DATA = new Table(
+        "package_data",
+        List.of("id", "package_name", "owner", "repo_name", "parent_package_id", "added_in"),
+        new int[] { Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.BIGINT }
+    );
+
+    // Parents before children, for the foreign keys
+    static final Table FILE_DATA = new Table(
+        "file_data",
+        List.of("id", "file_name", "owner", "repo_name", "file_path", "package_id", "blob_sha", "added_in"),
+        new int[] { Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.BIGINT }
+    );
+    static final Table CLASS_DATA = new Table("class_data", List.of("id", "name", "comment", "file_id"), MEMBER_TYPES);
+    static final Table CLASS_DATA_ANNOTATIONS = new Table("class_data_annotations", List.of("class_data_id", "annotation"), ANNOTATION_TYPES);
+    static final Table METHOD_DATA = new Table("method_data", List.of("id", "name", "comment", "class_id"), MEMBER_TYPES);
+    static final Table METHOD_DATA_ANNOTATIONS = new Table("method_data_annotations", List.of("method_data_id", "annotation"), ANNOTATION_TYPES);
+    static final Table FIELD_DATA = new Table("field_data", List.of("id", "name", "comment", "class_id"), MEMBER_TYPES);
+    static final Table FIELD_DATA_ANNOTATIONS = new Table("field_data_annotations", List.of("field_data_id", "annotation"), ANNOTATION_TYPES);
+
+    private static final List<Table> TABLES = List.of(
+        FILE_DATA,
+        CLASS_DATA,
+        CLASS_DATA_ANNOTATIONS,
+        METHOD_DATA,
+        METHOD_DATA_ANNOTATIONS,
+        FIELD_DATA,
+        FIELD_DATA_ANNOTATIONS
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private final String sequenceBlocksQuery;
+
+    private final boolean copyWrites;
+
+    @Autowired
+    public FileDataBatchRepository(DataSource dataSource, ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        String database = commonDatabaseName(dataSource);
+        this.sequenceBlocksQuery = sequenceBlocksQuery(database);
+        this.copyWrites = applicationProperties.getIngestion().isCopyWrites() && "PostgreSQL".equals(database);
+        if (applicationProperties.getIngestion().isCopyWrites() && !copyWrites) {
+            LOG.info("COPY writes need PostgreSQL, writing JDBC batches on {}", database);
+        }
+    }
+
+    /**
+     * Create a repository writing JDBC batches.
+     */
+    public FileDataBatchRepository(DataSource dataSource) {
+        this(dataSource, new ApplicationProperties());
+    }
+
+    /**
+     * Find the ids of the stored packages of a repository, without loading their entities and files.
+     *
+     * @param owner    the owner of the repository.
+     * @param repoName the name of the repository.
+     * @return the package ids by package name.
+     */
+    public Map<String, Long> findPackageIds(String owner, String repoName) {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(
+            "SELECT package_name, id FROM package_data WHERE owner = ? AND repo_name = ?",
+            resultSet -> {
+                ids.put(resultSet.getString(1), resultSet.getLong(2));
+            },
+            owner,
+            repoName
+        );
+        return ids;
+    }
+
+    /**
+     * Insert new packages in one batch, assigning their ids. Each package must come after its parent, or have a saved parent.
+     *
+     * @param packages   the packages to insert.
+     * @param generation the generation adding them.
+     * @return the number of rows inserted.
+     */
+    public int insertPackages(List<PackageData> packages, long generation) {
+        if (packages.isEmpty()) {
+            return 0;
+        }
+        IdBlocks ids = allocateIds(packages.size());
+        List<Object[]> rows = new ArrayList<>(packages.size());
+        for (PackageData packageData : packages) {
+            packageData.setId(ids.next());
+            PackageData parent = packageData.getParentPackage();
+            rows.add(
+                new Object[] {
+                    packageData.getId(),
+                    packageData.getPackageName(),
+                    packageData.getOwner(),
+                    packageData.getRepoName(),
+                    parent != null ? parent.getId() : null,
+                    generation,
+                }
+            );
+        }
+        return batchInsert(PACKAGE_DATA, rows);
+    }
+
+    /**
+     * Insert files and everything they contain. Each file must already reference a saved package, and its classes get the ids
+     * they are inserted with.
+     *
+     * @param files      the files to insert.
+     * @param generation the generation adding them.
+     * @return the number of rows inserted across all tables.
+     */
+    public int insertAll(List<FileData> files, long generation) {
+        Map<Table, List<Object[]>> rows = new LinkedHashMap<>();
+        TABLES.forEach(table -> rows.put(table, new ArrayList<>()));
+
+        IdBlocks ids = allocateIds(countEntities(files));
+        for (FileData file : files) {
+            long fileId = ids.next();
+            rows
+                .get(FILE_DATA)
+                .add(
+                    new Object[] {
+                        fileId,
+                        file.getFileName(),
+                        file.getOwner(),
+                        file.getRepoName(),
+                        file.getFilePath(),
+                        file.getPackageData().getId(),
+                        file.getBlobSha(),
+                        generation,
+                    }
+                );
+            for (ClassData clazz : file.getClasses()) {
+                long classId = ids.next();
+                clazz.setId(classId);
+                rows.get(CLASS_DATA).add(new Object[] { classId, clazz.getName(), clazz.getComment(), fileId });
+                addAnnotations(rows.get(CLASS_DATA_ANNOTATIONS), classId, clazz.getAnnotations());
+                for (MethodData method : clazz.getMethods()) {
+                    long methodId = ids.next();
+                    rows.get(METHOD_DATA).add(new Object[] { methodId, method.getName(), method.getComment(), classId });
+                    addAnnotations(rows.get(METHOD_DATA_ANNOTATIONS), methodId, method.getAnnotations());
+                }
+                for (FieldData field : clazz.getFields()) {
+                    long fieldId = ids.next();
+                    rows.get(FIELD_DATA).add(new Object[] { fieldId, field.getName(), field.getComment(), classId });
+                    addAnnotations(rows.get(FIELD_DATA_ANNOTATIONS), fieldId, field.getAnnotations());
+                }
+            }
+        }
+
+        if (copyWrites) {
+            return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> PostgresCopyWriter.write(connection, rows));
+        }
+        int inserted = 0;
+        for (Map.Entry<Table, List<Object[]>> table : rows.entrySet()) {
+            inserted += batchInsert(table.getKey(), table.getValue());
+        }
+        return inserted;
+    }
+
+    /**
+     * Find the files of a repository alive in the latest generation among the given paths.
+     *
+     * @param owner     the owner of the repository.
+     * @param repoName  the name of the repository.
+     * @param filePaths the paths of the files to find.
+     * @return the stored files by path.
+     */
+    public Map<String, StoredFile> findCurrentFiles(String owner, String repoName, Collection<String> filePaths) {
+        Map<String, StoredFile> files = new HashMap<>();
+        if (filePaths.isEmpty()) {
+            return files;
+        }
+        namedJdbcTemplate.query(
+            "SELECT file_path, id, blob_sha FROM file_data WHERE owner = :owner AND repo_name = :repoName " +
+            "AND file_path IN (:filePaths) AND removed_in IS NULL",
+            new MapSqlParameterSource().addValue("owner", owner).addValue("repoName", repoName).addValue("filePaths", filePaths),
+            resultSet -> {
+                files.put(resultSet.getString(1), new StoredFile(resultSet.getLong(2), resultSet.getString(3)));
+            }
+        );
+        return files;
+    }
+
+    /**
+     * Retire files replaced by a generation, keeping them and everything they contain for the snapshots of earlier generations.
+     *
+     * @param fileIds    the ids of the files.
+     * @param generation the generation replacing them.
+     * @return the number of files retired.
+     */
+    public int retireFiles(Collection<Long> fileIds, long generation) {
+        if (fileIds.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = fileIds.stream().map(fileId -> new Object[] { generation, fileId }).toList();
+        return sum(
+            jdbcTemplate.batchUpdate(
+                "UPDATE file_data SET removed_in = ? WHERE id = ? AND removed_in IS NULL",
+                rows,
+                new int[] { Types.BIGINT, Types.BIGINT }
+            )
+        );
+    }
+
+    /**
+     * Retire the files of a repository at the given paths in one batch, see {@link #retireFiles(Collection, long)}.
+     *
+     * @param owner      the owner of the repository.
+     * @param repoName   the name of the repository.
+     * @param filePaths  the paths of the files to retire.
+     * @param generation the generation removing or replacing them.
+     * @return the number of files retired.
+     */
+    public int retireFiles(String owner, String repoName, Collection<String> filePaths, long generation) {
+        if (filePaths.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = filePaths.stream().map(filePath -> new Object[] { generation, owner, repoName, filePath }).toList();
+        return sum(
+            jdbcTemplate.batchUpdate(
+                "UPDATE file_data SET removed_in = ? WHERE owner = ? AND repo_name = ? AND file_path = ? AND removed_in IS NULL",
+                rows,
+                new int[] { Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR }
+            )
+        );
+    }
+
+    /**
+     * Retire every file of a repository but the given ones, for a generation that listed the whole repository.
+     *
+     * @param owner      the owner of the repository.
+     * @param repoName   the name of the repository.
+     * @param keptPaths  the paths of the files the generation stored or kept.
+     * @param generation the generation removing the others.
+     * @return the paths of the files retired.
+     */
+    public List<String> retireOtherFiles(String owner, String repoName, Set<String> keptPaths, long generation) {
+        List<String> removedPaths = jdbcTemplate
+            .queryForList(
+                "SELECT file_path FROM file_data WHERE owner = ? AND repo_name = ? AND removed_in IS NULL",
+                String.class,
+                owner,
+                repoName
+            )
+            .stream()
+            .filter(filePath -> !keptPaths.contains(filePath))
+            .toList();
+        retireFiles(owner, repoName, removedPaths, generation);
+        return removedPaths;
+    }
+
+    /**
+     * Discard the rows a generation that was never saved wrote, before its number is used again: the files and packages it added,
+     * with everything they contain, are deleted, and the files it retired are alive again.
+     *
+     * @param owner      the owner of the repository.
+     * @param repoName   the name of the repository.
+     * @param generation the generation to discard, following the latest snapshot of the repository.
+     * @return the number of files and packages deleted or restored.
+     */
+    public int discardGeneration(String owner, String repoName, long generation) {
+        int discarded = jdbcTemplate.update(
+            "DELETE FROM file_data WHERE owner = ? AND repo_name = ? AND added_in = ?",
+            owner,
+            repoName,
+            generation
+        );
+        discarded += jdbcTemplate.update(
+            "UPDATE file_data SET removed_in = NULL WHERE owner = ? AND repo_name = ? AND removed_in = ?",
+            owner,
+            repoName,
+            generation
+        );
+        jdbcTemplate.update(
+            "DELETE FROM documentation_packages WHERE package_data_id IN " +
+            "(SELECT id FROM package_data WHERE owner = ? AND repo_name = ? AND added_in = ?)",
+            owner,
+            repoName,
+            generation
+        );
+        // Packages of the generation may be the parents of one another
+        jdbcTemplate.update(
+            "UPDATE package_data SET parent_package_id = NULL WHERE owner = ? AND repo_name = ? AND added_in = ?",
+            owner,
+            repoName,
+            generation
+        );
+        discarded += jdbcTemplate.update(
+            "DELETE FROM package_data WHERE owner = ? AND repo_name = ? AND added_in = ?",
+            owner,
+            repoName,
+            generation
+        );
+        return discarded;
+    }
+
+    private int batchInsert(Table table, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        // Explicit types, so null comments don't cost a parameter metadata lookup each
+        jdbcTemplate.batchUpdate(table.insertSql(), rows, table.types());
+        return rows.size();
+    }
+
+    private static int sum(int[] counts) {
+        return Arrays.stream(counts).map(count -> Math.max(count, 0)).sum();
+    }
+
+    private static void addAnnotations(List<Object[]> rows, long ownerId, List<String> annotations) {
+        for (String annotation : annotations) {
+            rows.add(new Object[] { ownerId, annotation });
+        }
+    }
+
+    private static int countEntities(List<FileData> files) {
+        int count = files.size();
+        for (FileData file : files) {
+            count += file.getClasses().size();
+            for (ClassData clazz : file.getClasses()) {
+                count += clazz.getMethods().size() + clazz.getFields().size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reserve enough blocks of {@code sequence_generator} for the given number of ids, in a single query.
+     */
+    private IdBlocks allocateIds(int count) {
+        int blocks = (count + SEQUENCE_INCREMENT - 1) / SEQUENCE_INCREMENT;
+        return new IdBlocks(jdbcTemplate.queryForList(sequenceBlocksQuery, Long.class, blocks));
+    }
+
+    private static String commonDatabaseName(DataSource dataSource) {
+        try {
+            return JdbcUtils.commonDatabaseName(JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Could not determine the database product", e);
+        }
+    }
+
+    private static String sequenceBlocksQuery(String database) {
+        return switch (database) {
+            case "PostgreSQL" -> "SELECT nextval('" + SEQUENCE_NAME + "') FROM generate_series(1, ?)";
+            case "H2" -> "SELECT NEXT VALUE FOR " + SEQUENCE_NAME + " FROM SYSTEM_RANGE(1, ?)";
+            default -> throw new IllegalStateException("Unsupported database for batch inserts: " + database);
+        };
+    }
+
+    /**
+     * A file alive in the latest generation of its repository.
+     *
+     * @param blobSha Git blob SHA of its content, null if it was stored without one.
+     */
+    public record StoredFile(long id, String blobSha) {}
+
+    /**
+     * A table written by this repository, with the columns of its rows in order.
+     */
+    record Table(String name, List<String> columns, int[] types) {
+        String insertSql() {
+            return (
+                "INSERT INTO " +
+                name +
+                " (" +
+                String.join(", ", columns) +
+                ") VALUES (" +
+                String.join(", ", columns.stream().map(column -> "?").toList()) +
+                ")"
+            );
+        }
+    }
+
+    /**
+     * Hands out ids from reserved blocks of {@code sequence_generator}. Like Hibernate's pooled optimizer, a sequence value is the
+     * last id of its block.
+     */
+    private static class IdBlocks {
+
+        private final List<Long> blockEnds;
+        private int block = -1;
+        private long next;
+        private long last = -1;
+
+        IdBlocks(List<Long> blockEnds) {
+            this.blockEnds = blockEnds;
+        }
+
+        long next() {
+            if (next > last) {
+                last = blockEnds.get(++block);
+                next = last - SEQUENCE_INCREMENT + 1;
+            }
+            return next++;
+        }
+    }
+}
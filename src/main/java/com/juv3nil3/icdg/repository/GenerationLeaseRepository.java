@@ -0,0 +1,110 @@
+package com.juv3nil3.icdg.repository;
+
+import java.sql.DatabaseMetaData;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Leases on the generation of a repository, shared by every node of the application through the {@code generation_lease} table.
+ * <p>
+ * Each operation commits on its own, so a lease is visible to other nodes as soon as it is taken and whatever transaction the
+ * caller is in. Expiries are computed and compared with the clock of the database rather than the one of each node.
+ */
+@Repository
+public class GenerationLeaseRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String acquireSql;
+
+    private final String renewSql;
+
+    @Autowired
+    public GenerationLeaseRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        String database = commonDatabaseName(dataSource);
+        this.acquireSql = acquireSql(database);
+        this.renewSql =
+            "UPDATE generation_lease SET expires_at = " + expiresAt(database) + " WHERE owner = ? AND repo_name = ? AND holder = ?";
+    }
+
+    /**
+     * Take the lease on a repository if nobody holds it, or if it has expired, in a single statement.
+     *
+     * @param holder   identifies this attempt, unique across nodes.
+     * @param duration how long the lease lasts unless renewed.
+     * @return whether the lease was taken.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean tryAcquire(String owner, String repoName, String holder, String commitHash, Duration duration) {
+        return jdbcTemplate.update(acquireSql, owner, repoName, holder, commitHash, duration.toMillis()) > 0;
+    }
+
+    /**
+     * Extend a lease.
+     *
+     * @param duration how long the lease lasts from now unless renewed again.
+     * @return whether the holder still held the lease.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean renew(String owner, String repoName, String holder, Duration duration) {
+        return jdbcTemplate.update(renewSql, duration.toMillis(), owner, repoName, holder) > 0;
+    }
+
+    /**
+     * Give up a lease, if the holder still holds it.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(String owner, String repoName, String holder) {
+        jdbcTemplate.update("DELETE FROM generation_lease WHERE owner = ? AND repo_name = ? AND holder = ?", owner, repoName, holder);
+    }
+
+    private static String commonDatabaseName(DataSource dataSource) {
+        try {
+            return JdbcUtils.commonDatabaseName(JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Could not determine the database product", e);
+        }
+    }
+
+    // Inserts the lease, or takes over an expired one, but leaves a live lease of another holder alone
+    private static String acquireSql(String database) {
+        return switch (database) {
+            case "PostgreSQL" -> (
+                "INSERT INTO generation_lease (owner, repo_name, holder, commit_hash, expires_at) VALUES (?, ?, ?, ?, " +
+                expiresAt(database) +
+                ") ON CONFLICT (owner, repo_name) DO UPDATE " +
+                "SET holder = EXCLUDED.holder, commit_hash = EXCLUDED.commit_hash, expires_at = EXCLUDED.expires_at " +
+                "WHERE generation_lease.expires_at < CURRENT_TIMESTAMP"
+            );
+            case "H2" -> (
+                "MERGE INTO generation_lease l " +
+                "USING (VALUES (CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS VARCHAR), " +
+                expiresAt(database) +
+                ")) AS s (owner, repo_name, holder, commit_hash, expires_at) " +
+                "ON l.owner = s.owner AND l.repo_name = s.repo_name " +
+                "WHEN MATCHED AND l.expires_at < CURRENT_TIMESTAMP THEN " +
+                "UPDATE SET holder = s.holder, commit_hash = s.commit_hash, expires_at = s.expires_at " +
+                "WHEN NOT MATCHED THEN INSERT (owner, repo_name, holder, commit_hash, expires_at) " +
+                "VALUES (s.owner, s.repo_name, s.holder, s.commit_hash, s.expires_at)"
+            );
+            default -> throw new IllegalStateException("Unsupported database for generation leases: " + database);
+        };
+    }
+
+    // The database time a number of milliseconds from now
+    private static String expiresAt(String database) {
+        return switch (database) {
+            case "PostgreSQL" -> "CURRENT_TIMESTAMP + CAST(? AS BIGINT) * INTERVAL '1 millisecond'";
+            case "H2" -> "DATEADD(MILLISECOND, CAST(? AS BIGINT), CURRENT_TIMESTAMP)";
+            default -> throw new IllegalStateException("Unsupported database for generation leases: " + database);
+        };
+    }
+}
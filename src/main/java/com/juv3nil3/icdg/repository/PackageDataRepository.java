@@ -8,6 +8,6 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface PackageDataRepository extends JpaRepository<PackageData, Long> {
     PackageData findByPackageName(String packageName);
-    List<PackageData> findByRepoName(String repoName);
-    PackageData findByRepoNameAndPackageName(String repoName, String packageName);
+    List<PackageData> findByOwnerAndRepoName(String owner, String repoName);
+    PackageData findByOwnerAndRepoNameAndPackageName(String owner, String repoName, String packageName);
 }
@@ -0,0 +1,86 @@
+package com.juv3nil3.icdg.repository;
+
+import com.juv3nil3.icdg.repository.FileDataBatchRepository.Table;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+/**
+ * Writes rows with PostgreSQL {@code COPY FROM STDIN} in CSV format.
+ * <p>
+ * Each table is first copied into a temporary staging table created {@code LIKE} the real one, so it follows whatever the Liquibase
+ * changelog made of it, then merged with a single {@code INSERT ... SELECT}. A failed or partial copy never reaches the real tables,
+ * and the foreign keys are checked once per table instead of once per row.
+ */
+final class PostgresCopyWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private PostgresCopyWriter() {}
+
+    /**
+     * Copy the rows of each table, in the order of the map, within the current transaction of the connection.
+     *
+     * @return the number of rows merged into the real tables.
+     */
+    static int write(Connection connection, Map<Table, List<Object[]>> rows) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        int merged = 0;
+        try (Statement statement = connection.createStatement()) {
+            for (Map.Entry<Table, List<Object[]>> entry : rows.entrySet()) {
+                Table table = entry.getKey();
+                if (entry.getValue().isEmpty()) {
+                    continue;
+                }
+                String staging = "staging_" + table.name();
+                String columns = String.join(", ", table.columns());
+
+                // Kept for the rest of the transaction and emptied after each merge, in case several batches share it
+                statement.execute("CREATE TEMPORARY TABLE IF NOT EXISTS " + staging + " (LIKE " + table.name() + ") ON COMMIT DROP");
+                copy(pgConnection, "COPY " + staging + " (" + columns + ") FROM STDIN WITH (FORMAT csv)", entry.getValue());
+                merged += statement.executeUpdate("INSERT INTO " + table.name() + " (" + columns + ") SELECT " + columns + " FROM " + staging);
+                statement.execute("TRUNCATE " + staging);
+            }
+        }
+        return merged;
+    }
+
+    private static void copy(PGConnection connection, String sql, List<Object[]> rows) throws SQLException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new PGCopyOutputStream(connection, sql, BUFFER_SIZE), StandardCharsets.UTF_8))) {
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(csvValue(row[i]));
+                }
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not copy rows: " + sql, e);
+        }
+    }
+
+    /**
+     * Format a value as a CSV field. Strings are always quoted, telling an empty string apart from the unquoted empty field COPY
+     * reads as null.
+     */
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Number) {
+            return value.toString();
+        }
+        return '"' + value.toString().replace("\"", "\"\"") + '"';
+    }
+}
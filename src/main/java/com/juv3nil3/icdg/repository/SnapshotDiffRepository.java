@@ -0,0 +1,197 @@
+package com.juv3nil3.icdg.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Read side of the diff between two documentation snapshots of a repository.
+ * <p>
+ * Two snapshots only differ by the files added or retired by the generations in between, see
+ * {@link DocumentationSnapshotRepository}, which are found through the indexes on those generations, see
+ * {@code create-snapshot-diff-indexes.xml}. A diff therefore reads the changed files only, whatever the size of the repository.
+ */
+@Repository
+public class SnapshotDiffRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SnapshotDiffRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Find a page of the paths whose file differs between two snapshots, ordered by path.
+     * <p>
+     * A path is listed when a file added or retired between the two generations was alive in one of the snapshots. Its content
+     * may still be identical in both, if it was changed and changed back in between.
+     *
+     * @param owner    the owner of the repository.
+     * @param repoName the name of the repository.
+     * @param from     the generation of one snapshot.
+     * @param to       the generation of the other snapshot, before or after {@code from}.
+     * @param after    the last path of the previous page, or null for the first page.
+     * @param size     the maximum number of paths to return.
+     */
+    public List<String> findChangedPaths(String owner, String repoName, long from, long to, String after, int size) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+            .addValue("owner", owner)
+            .addValue("repoName", repoName)
+            .addValue("older", Math.min(from, to))
+            .addValue("newer", Math.max(from, to))
+            .addValue("after", after == null ? "" : after)
+            .addValue("size", size);
+        // Files of the newer snapshot added since the older one, then files of the older one retired since
+        return jdbcTemplate.queryForList(
+            "SELECT file_path FROM file_data WHERE owner = :owner AND repo_name = :repoName " +
+            "AND added_in > :older AND added_in <= :newer AND (removed_in IS NULL OR removed_in > :newer) AND file_path > :after " +
+            "UNION " +
+            "SELECT file_path FROM file_data WHERE owner = :owner AND repo_name = :repoName " +
+            "AND removed_in > :older AND removed_in <= :newer AND added_in <= :older AND file_path > :after " +
+            "ORDER BY file_path LIMIT :size",
+            parameters,
+            String.class
+        );
+    }
+
+    /**
+     * Find the files of a snapshot at the given paths.
+     *
+     * @param owner      the owner of the repository.
+     * @param repoName   the name of the repository.
+     * @param generation the generation of the snapshot.
+     * @param filePaths  the paths of the files.
+     * @return the files by path, without the paths the snapshot has no file at.
+     */
+    public Map<String, FileVersion> findFiles(String owner, String repoName, long generation, Collection<String> filePaths) {
+        Map<String, FileVersion> files = new HashMap<>();
+        if (filePaths.isEmpty()) {
+            return files;
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+            .addValue("owner", owner)
+            .addValue("repoName", repoName)
+            .addValue("generation", generation)
+            .addValue("filePaths", filePaths);
+        jdbcTemplate.query(
+            "SELECT f.id, f.file_path, f.blob_sha, p.package_name FROM file_data f LEFT JOIN package_data p ON f.package_id = p.id " +
+            "WHERE f.owner = :owner AND f.repo_name = :repoName AND f.file_path IN (:filePaths) AND " +
+            DocumentationSnapshotRepository.FILE_IN_SNAPSHOT,
+            parameters,
+            resultSet -> {
+                FileVersion file = new FileVersion(
+                    resultSet.getLong(1),
+                    resultSet.getString(2),
+                    resultSet.getString(3),
+                    resultSet.getString(4)
+                );
+                files.put(file.filePath(), file);
+            }
+        );
+        return files;
+    }
+
+    /**
+     * Load the classes of files with their annotations, methods and fields, in the order they were stored.
+     *
+     * @param fileIds the ids of the files.
+     * @return the classes by file id, without the files that have none.
+     */
+    public Map<Long, List<ClassContent>> findClasses(Collection<Long> fileIds) {
+        Map<Long, List<ClassContent>> classes = new HashMap<>();
+        if (fileIds.isEmpty()) {
+            return classes;
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource("fileIds", fileIds);
+        Map<Long, List<MemberContent>> methods = findMembers("method_data", "method_data_annotations", "method_data_id", parameters);
+        Map<Long, List<MemberContent>> fields = findMembers("field_data", "field_data_annotations", "field_data_id", parameters);
+        Map<Long, List<String>> annotations = findAnnotations(
+            "SELECT a.class_data_id, a.annotation FROM class_data_annotations a JOIN class_data c ON a.class_data_id = c.id " +
+            "WHERE c.file_id IN (:fileIds)",
+            parameters
+        );
+        jdbcTemplate.query(
+            "SELECT id, file_id, name, comment FROM class_data WHERE file_id IN (:fileIds) ORDER BY id",
+            parameters,
+            resultSet -> {
+                long classId = resultSet.getLong(1);
+                classes
+                    .computeIfAbsent(resultSet.getLong(2), fileId -> new ArrayList<>())
+                    .add(
+                        new ClassContent(
+                            resultSet.getString(3),
+                            resultSet.getString(4),
+                            annotations.getOrDefault(classId, List.of()),
+                            methods.getOrDefault(classId, List.of()),
+                            fields.getOrDefault(classId, List.of())
+                        )
+                    );
+            }
+        );
+        return classes;
+    }
+
+    private Map<Long, List<MemberContent>> findMembers(
+        String table,
+        String annotationTable,
+        String annotationColumn,
+        MapSqlParameterSource fileIds
+    ) {
+        Map<Long, List<String>> annotations = findAnnotations(
+            "SELECT a." + annotationColumn + ", a.annotation FROM " + annotationTable + " a JOIN " + table + " m ON a." +
+            annotationColumn + " = m.id JOIN class_data c ON m.class_id = c.id WHERE c.file_id IN (:fileIds)",
+            fileIds
+        );
+        Map<Long, List<MemberContent>> members = new HashMap<>();
+        jdbcTemplate.query(
+            "SELECT m.id, m.class_id, m.name, m.comment FROM " + table + " m JOIN class_data c ON m.class_id = c.id " +
+            "WHERE c.file_id IN (:fileIds) ORDER BY m.id",
+            fileIds,
+            resultSet -> {
+                members
+                    .computeIfAbsent(resultSet.getLong(2), classId -> new ArrayList<>())
+                    .add(
+                        new MemberContent(
+                            resultSet.getString(3),
+                            resultSet.getString(4),
+                            annotations.getOrDefault(resultSet.getLong(1), List.of())
+                        )
+                    );
+            }
+        );
+        return members;
+    }
+
+    private Map<Long, List<String>> findAnnotations(String sql, MapSqlParameterSource fileIds) {
+        Map<Long, List<String>> annotations = new HashMap<>();
+        jdbcTemplate.query(sql, fileIds, resultSet -> {
+            annotations.computeIfAbsent(resultSet.getLong(1), ownerId -> new ArrayList<>()).add(resultSet.getString(2));
+        });
+        return annotations;
+    }
+
+    /**
+     * A file as stored in a snapshot.
+     *
+     * @param blobSha Git blob SHA of its content, null if it was stored without one.
+     */
+    public record FileVersion(long id, String filePath, String blobSha, String packageName) {}
+
+    public record ClassContent(
+        String name,
+        String comment,
+        List<String> annotations,
+        List<MemberContent> methods,
+        List<MemberContent> fields
+    ) {}
+
+    public record MemberContent(String name, String comment, List<String> annotations) {}
+}
@@ -0,0 +1,162 @@
+package com.juv3nil3.icdg.repository;
+
+import com.juv3nil3.icdg.repository.search.Symbol;
+import com.juv3nil3.icdg.repository.search.Symbol.Kind;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads the symbols of the stored files of a repository, to build its search index from, see
+ * {@link com.juv3nil3.icdg.repository.search.SymbolSearchRepository}.
+ */
+@Repository
+public class SymbolSourceRepository {
+
+    /**
+     * Number of files whose symbols are read at a time.
+     */
+    static final int FILE_PAGE_SIZE = 500;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SymbolSourceRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Read the symbols of the current files of a repository, those of the latest generation, a page of files at a time.
+     *
+     * @param consumer the consumer of the path and the symbols of each file, in path order.
+     */
+    public void forEachFile(String owner, String repoName, BiConsumer<String, List<Symbol>> consumer) {
+        String lastPath = "";
+        int read;
+        do {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("owner", owner)
+                .addValue("repoName", repoName)
+                .addValue("after", lastPath)
+                .addValue("size", FILE_PAGE_SIZE);
+            Map<Long, FileRow> files = new LinkedHashMap<>();
+            jdbcTemplate.query(
+                "SELECT f.id, f.file_path, p.package_name FROM file_data f LEFT JOIN package_data p ON f.package_id = p.id " +
+                "WHERE f.owner = :owner AND f.repo_name = :repoName AND f.removed_in IS NULL AND f.file_path > :after " +
+                "ORDER BY f.file_path LIMIT :size",
+                parameters,
+                resultSet -> {
+                    files.put(resultSet.getLong(1), new FileRow(resultSet.getString(2), resultSet.getString(3), new ArrayList<>()));
+                }
+            );
+            read = files.size();
+            if (read == 0) {
+                break;
+            }
+            readSymbols(owner, repoName, files);
+            for (FileRow file : files.values()) {
+                consumer.accept(file.filePath(), file.symbols());
+                lastPath = file.filePath();
+            }
+        } while (read == FILE_PAGE_SIZE);
+    }
+
+    /**
+     * Read the symbols of a page of files, each class followed by its methods and fields.
+     */
+    private void readSymbols(String owner, String repoName, Map<Long, FileRow> files) {
+        MapSqlParameterSource fileIds = new MapSqlParameterSource("fileIds", files.keySet());
+        Map<Long, List<String>> classAnnotations = findAnnotations(
+            "SELECT a.class_data_id, a.annotation FROM class_data_annotations a JOIN class_data c ON a.class_data_id = c.id " +
+            "WHERE c.file_id IN (:fileIds)",
+            fileIds
+        );
+        Map<Long, List<MemberRow>> methods = findMembers("method_data", "method_data_annotations", "method_data_id", fileIds);
+        Map<Long, List<MemberRow>> fields = findMembers("field_data", "field_data_annotations", "field_data_id", fileIds);
+        jdbcTemplate.query(
+            "SELECT id, file_id, name, comment FROM class_data WHERE file_id IN (:fileIds) ORDER BY id",
+            fileIds,
+            resultSet -> {
+                long classId = resultSet.getLong(1);
+                FileRow file = files.get(resultSet.getLong(2));
+                String className = resultSet.getString(3);
+                List<Symbol> symbols = file.symbols();
+                symbols.add(
+                    new Symbol(
+                        owner,
+                        repoName,
+                        file.filePath(),
+                        file.packageName(),
+                        classId,
+                        className,
+                        Kind.CLASS,
+                        className,
+                        classAnnotations.getOrDefault(classId, List.of()),
+                        resultSet.getString(4)
+                    )
+                );
+                for (MemberRow method : methods.getOrDefault(classId, List.of())) {
+                    symbols.add(method.toSymbol(owner, repoName, file, classId, className, Kind.METHOD));
+                }
+                for (MemberRow field : fields.getOrDefault(classId, List.of())) {
+                    symbols.add(field.toSymbol(owner, repoName, file, classId, className, Kind.FIELD));
+                }
+            }
+        );
+    }
+
+    private Map<Long, List<MemberRow>> findMembers(
+        String table,
+        String annotationTable,
+        String annotationColumn,
+        MapSqlParameterSource fileIds
+    ) {
+        Map<Long, List<String>> annotations = findAnnotations(
+            "SELECT a." + annotationColumn + ", a.annotation FROM " + annotationTable + " a JOIN " + table + " m ON a." +
+            annotationColumn + " = m.id JOIN class_data c ON m.class_id = c.id WHERE c.file_id IN (:fileIds)",
+            fileIds
+        );
+        Map<Long, List<MemberRow>> members = new HashMap<>();
+        jdbcTemplate.query(
+            "SELECT m.id, m.class_id, m.name, m.comment FROM " + table + " m JOIN class_data c ON m.class_id = c.id " +
+            "WHERE c.file_id IN (:fileIds) ORDER BY m.id",
+            fileIds,
+            resultSet -> {
+                members
+                    .computeIfAbsent(resultSet.getLong(2), classId -> new ArrayList<>())
+                    .add(
+                        new MemberRow(
+                            resultSet.getString(3),
+                            resultSet.getString(4),
+                            annotations.getOrDefault(resultSet.getLong(1), List.of())
+                        )
+                    );
+            }
+        );
+        return members;
+    }
+
+    private Map<Long, List<String>> findAnnotations(String sql, MapSqlParameterSource fileIds) {
+        Map<Long, List<String>> annotations = new HashMap<>();
+        jdbcTemplate.query(sql, fileIds, resultSet -> {
+            annotations.computeIfAbsent(resultSet.getLong(1), ownerId -> new ArrayList<>()).add(resultSet.getString(2));
+        });
+        return annotations;
+    }
+
+    private record FileRow(String filePath, String packageName, List<Symbol> symbols) {}
+
+    private record MemberRow(String name, String comment, List<String> annotations) {
+        Symbol toSymbol(String owner, String repoName, FileRow file, long classId, String className, Kind kind) {
+            return new Symbol(owner, repoName, file.filePath(), file.packageName(), classId, className, kind, name, annotations, comment);
+        }
+    }
+}
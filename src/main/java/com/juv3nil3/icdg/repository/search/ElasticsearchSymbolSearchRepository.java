@@ -0,0 +1,186 @@
+package com.juv3nil3.icdg.repository.search;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.OptionalLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link SymbolSearchRepository} in the {@code symbol} index of Elasticsearch, one {@link SymbolDocument} per symbol and a
+ * marker document per fully indexed repository.
+ * <p>
+ * A search is a {@code bool_prefix} multi-match over the names, annotations and comments of the symbols of a repository: every
+ * word has to match, the last one as a prefix, the others with the {@code AUTO} fuzziness.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "application.symbol-search", name = "engine", havingValue = "elasticsearch")
+public class ElasticsearchSymbolSearchRepository implements SymbolSearchRepository {
+
+    private static final String INDEXED_MARKER = "REPOSITORY";
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    private volatile boolean indexCreated;
+
+    @Autowired
+    public ElasticsearchSymbolSearchRepository(ElasticsearchOperations elasticsearchOperations) {
+        this.elasticsearchOperations = elasticsearchOperations;
+    }
+
+    @Override
+    public OptionalLong indexedGeneration(String owner, String repoName) {
+        createIndex();
+        SymbolDocument marker = elasticsearchOperations.get(markerId(owner, repoName), SymbolDocument.class);
+        return marker == null || marker.getGeneration() == null ? OptionalLong.empty() : OptionalLong.of(marker.getGeneration());
+    }
+
+    @Override
+    public void markIndexed(String owner, String repoName, long generation) {
+        createIndex();
+        SymbolDocument marker = new SymbolDocument();
+        marker.setId(markerId(owner, repoName));
+        marker.setOwner(owner);
+        marker.setRepoName(repoName);
+        marker.setKind(INDEXED_MARKER);
+        marker.setGeneration(generation);
+        elasticsearchOperations.save(marker);
+    }
+
+    @Override
+    public void indexFile(String owner, String repoName, String filePath, List<Symbol> symbols) {
+        removeFiles(owner, repoName, List.of(filePath));
+        List<SymbolDocument> documents = new ArrayList<>(symbols.size());
+        for (Symbol symbol : symbols) {
+            documents.add(toDocument(symbol, owner + "/" + repoName + ":" + filePath + ":" + documents.size()));
+        }
+        if (!documents.isEmpty()) {
+            elasticsearchOperations.save(documents);
+        }
+    }
+
+    @Override
+    public void removeFiles(String owner, String repoName, Collection<String> filePaths) {
+        if (filePaths.isEmpty()) {
+            return;
+        }
+        createIndex();
+        List<FieldValue> paths = filePaths.stream().map(FieldValue::of).toList();
+        NativeQuery query = NativeQuery.builder()
+            .withQuery(q ->
+                q.bool(b ->
+                    b
+                        .filter(f -> f.term(t -> t.field("owner").value(owner)))
+                        .filter(f -> f.term(t -> t.field("repoName").value(repoName)))
+                        .filter(f -> f.terms(t -> t.field("filePath").terms(v -> v.value(paths))))
+                )
+            )
+            .build();
+        elasticsearchOperations.delete(query, SymbolDocument.class);
+    }
+
+    @Override
+    public void removeRepository(String owner, String repoName) {
+        createIndex();
+        NativeQuery query = NativeQuery.builder()
+            .withQuery(q ->
+                q.bool(b ->
+                    b
+                        .filter(f -> f.term(t -> t.field("owner").value(owner)))
+                        .filter(f -> f.term(t -> t.field("repoName").value(repoName)))
+                )
+            )
+            .build();
+        elasticsearchOperations.delete(query, SymbolDocument.class);
+    }
+
+    @Override
+    public List<SymbolHit> search(String owner, String repoName, String query, int limit) {
+        if (query.isBlank() || limit <= 0) {
+            return List.of();
+        }
+        createIndex();
+        NativeQuery search = NativeQuery.builder()
+            .withQuery(q ->
+                q.bool(b ->
+                    b
+                        .filter(f -> f.term(t -> t.field("owner").value(owner)))
+                        .filter(f -> f.term(t -> t.field("repoName").value(repoName)))
+                        .mustNot(n -> n.term(t -> t.field("kind").value(INDEXED_MARKER)))
+                        .must(m ->
+                            m.multiMatch(mm ->
+                                mm
+                                    .query(query)
+                                    .type(TextQueryType.BoolPrefix)
+                                    .fields("name^3", "annotations^1.5", "comment")
+                                    .operator(Operator.And)
+                                    .fuzziness("AUTO")
+                            )
+                        )
+                )
+            )
+            .withMaxResults(limit)
+            .build();
+        return elasticsearchOperations
+            .search(search, SymbolDocument.class)
+            .stream()
+            .map(hit -> new SymbolHit(toSymbol(hit), hit.getScore()))
+            .toList();
+    }
+
+    private void createIndex() {
+        if (indexCreated) {
+            return;
+        }
+        IndexOperations indexOperations = elasticsearchOperations.indexOps(SymbolDocument.class);
+        if (!indexOperations.exists()) {
+            indexOperations.createWithMapping();
+        }
+        indexCreated = true;
+    }
+
+    private static String markerId(String owner, String repoName) {
+        return "repository:" + owner + "/" + repoName;
+    }
+
+    private static SymbolDocument toDocument(Symbol symbol, String id) {
+        SymbolDocument document = new SymbolDocument();
+        document.setId(id);
+        document.setOwner(symbol.owner());
+        document.setRepoName(symbol.repoName());
+        document.setFilePath(symbol.filePath());
+        document.setPackageName(symbol.packageName());
+        document.setClassId(symbol.classId());
+        document.setClassName(symbol.className());
+        document.setKind(symbol.kind().name());
+        document.setName(symbol.name());
+        document.setAnnotations(symbol.annotations());
+        document.setComment(symbol.comment());
+        return document;
+    }
+
+    private static Symbol toSymbol(SearchHit<SymbolDocument> hit) {
+        SymbolDocument document = hit.getContent();
+        return new Symbol(
+            document.getOwner(),
+            document.getRepoName(),
+            document.getFilePath(),
+            document.getPackageName(),
+            document.getClassId(),
+            document.getClassName(),
+            Symbol.Kind.valueOf(document.getKind()),
+            document.getName(),
+            document.getAnnotations() == null ? List.of() : document.getAnnotations(),
+            document.getComment()
+        );
+    }
+}
@@ -0,0 +1,496 @@
+package com.juv3nil3.icdg.repository.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.StringHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link SymbolSearchRepository} in embedded Lucene indexes, one directory per repository under
+ * {@code application.symbol-search.directory}, one document per symbol.
+ * <p>
+ * Symbols are indexed by the words {@link SymbolTokenizer} splits their names, annotations and comments into. A search word
+ * matches a word of a field exactly or as a prefix, or, when no word of the field starts with it, within one or two edits of a
+ * word sharing its first letter. Each field is weighted, and a symbol scores the best of its matches for each word, plus a bonus
+ * when its name is or starts with the whole search.
+ * <p>
+ * The generation a repository is indexed at is stored with each commit of its index, so the index is kept across restarts and
+ * is known to be stale once another node generated the repository. Files indexed since are only committed with the next
+ * generation, and are lost with a restart along with the generation they belong to.
+ * <p>
+ * At most {@code application.symbol-search.max-open-indexes} indexes are open at a time, the least recently used being closed
+ * once its searches and updates are done and opened again on its next use. An index closed with files of the next generation is
+ * committed without a generation, which is only remembered until it is opened again, so a restart still indexes it again.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "application.symbol-search", name = "engine", havingValue = "lucene", matchIfMissing = true)
+public class LuceneSymbolSearchRepository implements SymbolSearchRepository {
+
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MIN_TWO_EDITS_LENGTH = 8;
+
+    private static final float EXACT = 1f;
+    private static final float PREFIX = 0.75f;
+    private static final float FUZZY = 0.5f;
+
+    private static final String FILE_PATH = "filePath";
+    private static final String JOINED_NAME = "joinedName";
+    private static final String NAME_LENGTH = "nameLength";
+    private static final String NAME_ORDER = "nameOrder";
+    private static final String PACKAGE_NAME = "packageName";
+    private static final String CLASS_ID = "classId";
+    private static final String CLASS_NAME = "className";
+    private static final String KIND = "kind";
+    private static final String STORED_NAME = "storedName";
+    private static final String STORED_ANNOTATION = "storedAnnotation";
+    private static final String STORED_COMMENT = "storedComment";
+    private static final String GENERATION = "generation";
+
+    // Words are only matched, never scored by their frequency
+    private static final FieldType WORDS = new FieldType();
+
+    static {
+        WORDS.setIndexOptions(IndexOptions.DOCS);
+        WORDS.setTokenized(true);
+        WORDS.setOmitNorms(true);
+        WORDS.freeze();
+    }
+
+    private static final Sort BEST_FIRST = new Sort(
+        SortField.FIELD_SCORE,
+        new SortField(NAME_LENGTH, SortField.Type.INT),
+        new SortField(NAME_ORDER, SortField.Type.STRING)
+    );
+
+    private final Path directory;
+
+    /**
+     * The open indexes, evicting one closing it.
+     */
+    private final Cache<String, RepositoryIndex> repositories;
+
+    /**
+     * Generation of the indexes closed with files of the next one, until they are opened again.
+     */
+    private final Map<String, Long> closedGenerations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LuceneSymbolSearchRepository(ApplicationProperties applicationProperties) {
+        this(
+            Paths.get(applicationProperties.getSymbolSearch().getDirectory()),
+            applicationProperties.getSymbolSearch().getMaxOpenIndexes()
+        );
+    }
+
+    public LuceneSymbolSearchRepository(Path directory, int maxOpenIndexes) {
+        this.directory = directory;
+        // Closed while evicted, so the index is not opened again before its writer released its lock
+        this.repositories = Caffeine.newBuilder()
+            .maximumSize(maxOpenIndexes)
+            .executor(Runnable::run)
+            .evictionListener((String key, RepositoryIndex index, RemovalCause cause) -> {
+                if (index != null) {
+                    index.close(true);
+                }
+            })
+            .build();
+    }
+
+    @Override
+    public OptionalLong indexedGeneration(String owner, String repoName) {
+        RepositoryIndex index = existing(owner, repoName);
+        return index == null || index.generation < 0 ? OptionalLong.empty() : OptionalLong.of(index.generation);
+    }
+
+    @Override
+    public void markIndexed(String owner, String repoName, long generation) {
+        use(owner, repoName, true, null, index -> {
+            index.dirty = false;
+            index.writer.setLiveCommitData(Map.of(GENERATION, Long.toString(generation)).entrySet());
+            index.writer.commit();
+            index.generation = generation;
+            return null;
+        });
+    }
+
+    @Override
+    public void indexFile(String owner, String repoName, String filePath, List<Symbol> symbols) {
+        List<Document> documents = symbols.stream().map(symbol -> toDocument(filePath, symbol)).toList();
+        use(owner, repoName, true, null, index -> {
+            index.dirty = true;
+            index.writer.updateDocuments(new Term(FILE_PATH, filePath), documents);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeFiles(String owner, String repoName, Collection<String> filePaths) {
+        if (filePaths.isEmpty()) {
+            return;
+        }
+        use(owner, repoName, false, null, index -> {
+            index.dirty = true;
+            index.writer.deleteDocuments(filePaths.stream().map(filePath -> new Term(FILE_PATH, filePath)).toArray(Term[]::new));
+            return null;
+        });
+    }
+
+    @Override
+    public void removeRepository(String owner, String repoName) {
+        closedGenerations.remove(key(owner, repoName));
+        use(owner, repoName, false, null, index -> {
+            index.generation = -1;
+            index.dirty = false;
+            index.writer.deleteAll();
+            index.writer.setLiveCommitData(Map.<String, String>of().entrySet());
+            index.writer.commit();
+            return null;
+        });
+    }
+
+    @Override
+    public List<SymbolHit> search(String owner, String repoName, String query, int limit) {
+        List<String> words = List.copyOf(new LinkedHashSet<>(SymbolTokenizer.words(query)));
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return use(owner, repoName, false, List.of(), index -> {
+            // Picks up the files indexed since the last search, if any
+            index.searchers.maybeRefresh();
+            IndexSearcher searcher = index.searchers.acquire();
+            try {
+                Query symbolQuery = toQuery(searcher.getIndexReader(), words);
+                if (symbolQuery == null) {
+                    return List.of();
+                }
+                StoredFields storedFields = searcher.storedFields();
+                List<SymbolHit> hits = new ArrayList<>();
+                for (ScoreDoc scoreDoc : searcher.search(symbolQuery, limit, BEST_FIRST, true).scoreDocs) {
+                    Document document = storedFields.document(scoreDoc.doc);
+                    hits.add(new SymbolHit(toSymbol(owner, repoName, document), ((FieldDoc) scoreDoc).score));
+                }
+                return hits;
+            } finally {
+                index.searchers.release(searcher);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        // Files indexed since the last generation are dropped, not committed under its number
+        for (RepositoryIndex index : repositories.asMap().values()) {
+            index.close(false);
+        }
+        repositories.invalidateAll();
+        closedGenerations.clear();
+    }
+
+    /**
+     * Use the index of a repository, open meanwhile.
+     *
+     * @param create  whether to create the index of a repository that has none.
+     * @param absent  the result if the repository has no index.
+     */
+    private <T> T use(String owner, String repoName, boolean create, T absent, IndexUse<T> use) {
+        while (true) {
+            RepositoryIndex index = create ? open(owner, repoName) : existing(owner, repoName);
+            if (index == null) {
+                return absent;
+            }
+            index.lock.readLock().lock();
+            try {
+                if (index.closed) {
+                    // Evicted since it was looked up
+                    continue;
+                }
+                return use.apply(index);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                index.lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * The index of a repository, opened or created.
+     */
+    private RepositoryIndex open(String owner, String repoName) {
+        return repositories.get(key(owner, repoName), key -> new RepositoryIndex(key, directory.resolve(directoryName(key))));
+    }
+
+    /**
+     * The index of a repository, opened if it exists, or null.
+     */
+    private RepositoryIndex existing(String owner, String repoName) {
+        String key = key(owner, repoName);
+        RepositoryIndex index = repositories.getIfPresent(key);
+        if (index != null || !Files.isDirectory(directory.resolve(directoryName(key)))) {
+            return index;
+        }
+        return open(owner, repoName);
+    }
+
+    private static String key(String owner, String repoName) {
+        return owner + '/' + repoName;
+    }
+
+    // A single directory per repository, whatever characters its owner and name hold
+    private static String directoryName(String key) {
+        return URLEncoder.encode(key, StandardCharsets.UTF_8);
+    }
+
+    private enum WordField {
+        NAME("name", 3f),
+        ANNOTATION("annotation", 1.5f),
+        COMMENT("comment", 1f);
+
+        private final String name;
+        private final float weight;
+
+        WordField(String name, float weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * The query of a search: every word has to match a field, the best of its matches counting. Null if a word can't match.
+     */
+    private static Query toQuery(IndexReader reader, List<String> words) throws IOException {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String word : words) {
+            List<Query> matches = new ArrayList<>();
+            for (WordField field : WordField.values()) {
+                Term term = new Term(field.name, word);
+                if (hasPrefix(reader, term)) {
+                    matches.add(scored(new TermQuery(term), field.weight * EXACT));
+                    matches.add(scored(new PrefixQuery(term), field.weight * PREFIX));
+                } else if (word.length() >= MIN_FUZZY_LENGTH) {
+                    // Typos, among the words starting with the same letter only. Every typo scores the same, so the words
+                    // within the edits are not ranked by their frequency.
+                    int maxEdits = word.length() < MIN_TWO_EDITS_LENGTH ? 1 : 2;
+                    FuzzyQuery typos = new FuzzyQuery(
+                        term,
+                        maxEdits,
+                        1,
+                        FuzzyQuery.defaultMaxExpansions,
+                        FuzzyQuery.defaultTranspositions,
+                        MultiTermQuery.CONSTANT_SCORE_BLENDED_REWRITE
+                    );
+                    matches.add(scored(typos, field.weight * FUZZY));
+                }
+            }
+            if (matches.isEmpty()) {
+                return null;
+            }
+            query.add(new DisjunctionMaxQuery(matches, 0), Occur.MUST);
+        }
+        String joinedQuery = String.join("", words);
+        Term joinedName = new Term(JOINED_NAME, joinedQuery);
+        // Names that are or start with the whole search rank first
+        List<Query> nameMatches = List.of(
+            scored(new TermQuery(joinedName), 2 * WordField.NAME.weight),
+            scored(new PrefixQuery(joinedName), WordField.NAME.weight / 2)
+        );
+        query.add(new DisjunctionMaxQuery(nameMatches, 0), Occur.SHOULD);
+        return query.build();
+    }
+
+    private static Query scored(Query query, float score) {
+        return new BoostQuery(new ConstantScoreQuery(query), score);
+    }
+
+    /**
+     * Whether a word of the field of a term starts with the text of the term.
+     */
+    private static boolean hasPrefix(IndexReader reader, Term term) throws IOException {
+        Terms terms = MultiTerms.getTerms(reader, term.field());
+        if (terms == null) {
+            return false;
+        }
+        TermsEnum termsEnum = terms.iterator();
+        return termsEnum.seekCeil(term.bytes()) != TermsEnum.SeekStatus.END && StringHelper.startsWith(termsEnum.term(), term.bytes());
+    }
+
+    private static Document toDocument(String filePath, Symbol symbol) {
+        Document document = new Document();
+        document.add(new StringField(FILE_PATH, filePath, Store.YES));
+
+        Set<String> annotationWords = new LinkedHashSet<>();
+        for (String annotation : symbol.annotations()) {
+            int arguments = annotation.indexOf('(');
+            annotationWords.addAll(SymbolTokenizer.identifierWords(arguments < 0 ? annotation : annotation.substring(0, arguments)));
+        }
+        document.add(new Field(WordField.NAME.name, joined(SymbolTokenizer.identifierWords(symbol.name())), WORDS));
+        document.add(new Field(WordField.ANNOTATION.name, joined(annotationWords), WORDS));
+        document.add(new Field(WordField.COMMENT.name, joined(SymbolTokenizer.words(symbol.comment())), WORDS));
+        document.add(new StringField(JOINED_NAME, String.join("", SymbolTokenizer.words(symbol.name())), Store.NO));
+        document.add(new NumericDocValuesField(NAME_LENGTH, symbol.name().length()));
+        document.add(new SortedDocValuesField(NAME_ORDER, new BytesRef(symbol.name())));
+
+        if (symbol.packageName() != null) {
+            document.add(new StoredField(PACKAGE_NAME, symbol.packageName()));
+        }
+        document.add(new StoredField(CLASS_ID, symbol.classId()));
+        document.add(new StoredField(CLASS_NAME, symbol.className()));
+        document.add(new StoredField(KIND, symbol.kind().name()));
+        document.add(new StoredField(STORED_NAME, symbol.name()));
+        for (String annotation : symbol.annotations()) {
+            document.add(new StoredField(STORED_ANNOTATION, annotation));
+        }
+        if (symbol.comment() != null) {
+            document.add(new StoredField(STORED_COMMENT, symbol.comment()));
+        }
+        return document;
+    }
+
+    // Words of a field, split back by the whitespace analyzer
+    private static String joined(Collection<String> words) {
+        return String.join(" ", words);
+    }
+
+    private static Symbol toSymbol(String owner, String repoName, Document document) {
+        return new Symbol(
+            owner,
+            repoName,
+            document.get(FILE_PATH),
+            document.get(PACKAGE_NAME),
+            document.getField(CLASS_ID).numericValue().longValue(),
+            document.get(CLASS_NAME),
+            Symbol.Kind.valueOf(document.get(KIND)),
+            document.get(STORED_NAME),
+            List.of(document.getValues(STORED_ANNOTATION)),
+            document.get(STORED_COMMENT)
+        );
+    }
+
+    @FunctionalInterface
+    private interface IndexUse<T> {
+        T apply(RepositoryIndex index) throws IOException;
+    }
+
+    private final class RepositoryIndex {
+
+        private final String key;
+        private final IndexWriter writer;
+        private final SearcherManager searchers;
+        // Held while the index is used, and exclusively to close it
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile long generation = -1;
+        // Whether files were indexed or removed since the last commit
+        private volatile boolean dirty;
+        private boolean closed;
+
+        private RepositoryIndex(String key, Path path) {
+            this.key = key;
+            try {
+                IndexWriterConfig config = new IndexWriterConfig(new WhitespaceAnalyzer())
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                    .setCommitOnClose(false);
+                this.writer = new IndexWriter(FSDirectory.open(path), config);
+                this.searchers = new SearcherManager(writer, null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+            if (commitData != null) {
+                for (Map.Entry<String, String> entry : commitData) {
+                    if (GENERATION.equals(entry.getKey())) {
+                        generation = Long.parseLong(entry.getValue());
+                    }
+                }
+            }
+            Long closedGeneration = closedGenerations.remove(key);
+            if (closedGeneration != null) {
+                generation = closedGeneration;
+                dirty = true;
+            }
+        }
+
+        /**
+         * Close the index once it is no longer used, committing the files indexed since the last generation if asked to.
+         */
+        private void close(boolean commit) {
+            lock.writeLock().lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                if (commit && dirty) {
+                    writer.setLiveCommitData(Map.<String, String>of().entrySet());
+                    writer.commit();
+                    if (generation >= 0) {
+                        closedGenerations.put(key, generation);
+                    }
+                }
+                searchers.close();
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
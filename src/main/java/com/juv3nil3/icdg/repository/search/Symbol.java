@@ -0,0 +1,29 @@
+package com.juv3nil3.icdg.repository.search;
+
+import java.util.List;
+
+/**
+ * A searchable class, method or field of a documented file.
+ *
+ * @param classId   the id of the class, or of the class declaring the method or field, to read with the browsing endpoints.
+ * @param className the name of that class.
+ * @param name      the name of the class, method or field itself.
+ */
+public record Symbol(
+    String owner,
+    String repoName,
+    String filePath,
+    String packageName,
+    long classId,
+    String className,
+    Kind kind,
+    String name,
+    List<String> annotations,
+    String comment
+) {
+    public enum Kind {
+        CLASS,
+        METHOD,
+        FIELD,
+    }
+}
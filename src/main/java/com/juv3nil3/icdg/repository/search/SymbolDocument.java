@@ -0,0 +1,154 @@
+package com.juv3nil3.icdg.repository.search;
+
+import java.util.List;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.Setting;
+
+/**
+ * A {@link Symbol} as stored in Elasticsearch, see {@link ElasticsearchSymbolSearchRepository}.
+ * <p>
+ * Names and annotations are indexed by their words and as written, through the {@code symbol} analyzer of
+ * {@code config/elasticsearch/symbol-settings.json}, and searched by their words only.
+ */
+@Document(indexName = "symbol")
+@Setting(settingPath = "config/elasticsearch/symbol-settings.json")
+public class SymbolDocument {
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Keyword)
+    private String owner;
+
+    @Field(type = FieldType.Keyword)
+    private String repoName;
+
+    @Field(type = FieldType.Keyword)
+    private String filePath;
+
+    @Field(type = FieldType.Keyword)
+    private String packageName;
+
+    @Field(type = FieldType.Long)
+    private long classId;
+
+    @Field(type = FieldType.Keyword)
+    private String className;
+
+    @Field(type = FieldType.Keyword)
+    private String kind;
+
+    @Field(type = FieldType.Text, analyzer = "symbol", searchAnalyzer = "symbol_search")
+    private String name;
+
+    @Field(type = FieldType.Text, analyzer = "symbol", searchAnalyzer = "symbol_search")
+    private List<String> annotations;
+
+    @Field(type = FieldType.Text, analyzer = "symbol_search")
+    private String comment;
+
+    /**
+     * Generation of the repository indexed, on its marker document only.
+     */
+    @Field(type = FieldType.Long)
+    private Long generation;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getRepoName() {
+        return repoName;
+    }
+
+    public void setRepoName(String repoName) {
+        this.repoName = repoName;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public void setPackageName(String packageName) {
+        this.packageName = packageName;
+    }
+
+    public long getClassId() {
+        return classId;
+    }
+
+    public void setClassId(long classId) {
+        this.classId = classId;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public void setClassName(String className) {
+        this.className = className;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<String> getAnnotations() {
+        return annotations;
+    }
+
+    public void setAnnotations(List<String> annotations) {
+        this.annotations = annotations;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public void setComment(String comment) {
+        this.comment = comment;
+    }
+
+    public Long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(Long generation) {
+        this.generation = generation;
+    }
+}
@@ -0,0 +1,6 @@
+package com.juv3nil3.icdg.repository.search;
+
+/**
+ * A symbol matching a search, with its relevance: higher is better, comparable within one search only.
+ */
+public record SymbolHit(Symbol symbol, float score) {}
@@ -0,0 +1,60 @@
+package com.juv3nil3.icdg.repository.search;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Full-text index of the symbols of documented repositories, chosen by {@code application.symbol-search.engine}.
+ * <p>
+ * The index is kept a file at a time: the symbols of a file replace those it had, so a generation only touches the files it
+ * stored or retired. Names and annotations are split on case changes, digits and punctuation, so {@code parseHttpResponse} is
+ * found by {@code http}, {@code parse resp} or {@code ParseHTTP}, and every word of a search has to match a word of the symbol,
+ * exactly, as a prefix or within a small edit distance.
+ * <p>
+ * A fully indexed repository records the generation it was indexed at, see
+ * {@link com.juv3nil3.icdg.repository.DocumentationSnapshotRepository}, so an index left behind by a generation that ran on
+ * another node is known to be stale.
+ *
+ * @see LuceneSymbolSearchRepository
+ * @see ElasticsearchSymbolSearchRepository
+ */
+public interface SymbolSearchRepository {
+    /**
+     * The generation the index holds every file of a repository at, as opposed to none or some of them.
+     *
+     * @return the generation, or empty if the repository is not fully indexed.
+     */
+    OptionalLong indexedGeneration(String owner, String repoName);
+
+    /**
+     * Mark a repository as fully indexed at a generation, once every file of it has been indexed.
+     */
+    void markIndexed(String owner, String repoName, long generation);
+
+    /**
+     * Replace the symbols of a file.
+     *
+     * @param symbols the symbols of the file, empty to only remove the ones it had.
+     */
+    void indexFile(String owner, String repoName, String filePath, List<Symbol> symbols);
+
+    /**
+     * Remove the symbols of files.
+     */
+    void removeFiles(String owner, String repoName, Collection<String> filePaths);
+
+    /**
+     * Remove every symbol of a repository, leaving it not indexed.
+     */
+    void removeRepository(String owner, String repoName);
+
+    /**
+     * Search the symbols of a repository.
+     *
+     * @param query the words to search for.
+     * @param limit the maximum number of symbols to return.
+     * @return the best matching symbols, best first.
+     */
+    List<SymbolHit> search(String owner, String repoName, String query, int limit);
+}
@@ -0,0 +1,70 @@
+package com.juv3nil3.icdg.repository.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits identifiers and text into lower-case words on case changes, digits and anything but letters and digits:
+ * {@code parseHTTPResponse2} gives {@code parse}, {@code http}, {@code response} and {@code 2}.
+ */
+final class SymbolTokenizer {
+
+    private SymbolTokenizer() {}
+
+    /**
+     * Split a text into words, in order, with duplicates.
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                if (start >= 0) {
+                    words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                    start = -1;
+                }
+                continue;
+            }
+            if (start >= 0 && isBoundary(text.charAt(i - 1), c, i + 1 < length ? text.charAt(i + 1) : ' ')) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = i;
+            }
+            if (start < 0) {
+                start = i;
+            }
+        }
+        if (start >= 0) {
+            words.add(text.substring(start).toLowerCase(Locale.ROOT));
+        }
+        return words;
+    }
+
+    /**
+     * Split an identifier into its words, along with the whole identifier when it has more than one, so it can be searched as
+     * written as well as by its words.
+     */
+    static List<String> identifierWords(String identifier) {
+        List<String> words = words(identifier);
+        if (words.size() > 1) {
+            words.add(String.join("", words));
+        }
+        return words;
+    }
+
+    private static boolean isBoundary(char previous, char current, char next) {
+        if (Character.isDigit(previous) != Character.isDigit(current)) {
+            return true;
+        }
+        if (Character.isLowerCase(previous) && Character.isUpperCase(current)) {
+            return true;
+        }
+        // The last capital of an acronym starts the next word, as in HTTPResponse
+        return Character.isUpperCase(previous) && Character.isUpperCase(current) && Character.isLowerCase(next);
+    }
+}
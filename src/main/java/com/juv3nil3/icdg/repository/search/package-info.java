@@ -0,0 +1,4 @@
+/**
+ * Search repositories, over embedded Lucene indexes or Elasticsearch.
+ */
+package com.juv3nil3.icdg.repository.search;
@@ -0,0 +1,264 @@
+package com.juv3nil3.icdg.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Empties the bodies of the methods, constructors and initializers of a Java source, which hold most of its tokens and none of
+ * what {@link JavaCodeParser} extracts.
+ * <p>
+ * The source is only lexed, not parsed: a body is a brace block opening a member of a type whose header ends with a parameter list
+ * or a {@code throws} clause, or has no header at all. Bodies declaring a class or interface are kept, since those classes are
+ * extracted too, as are field initializers, annotation values and enum constant bodies. The emptied characters are replaced with
+ * spaces, line breaks aside, so everything else keeps its position.
+ */
+final class BodyStripper {
+
+    private enum Block {
+        TYPE,
+        // An enum body up to the semicolon ending its constants
+        ENUM_CONSTANTS,
+    }
+
+    private BodyStripper() {}
+
+    /**
+     * @return the source with its bodies emptied, or the source itself if it has none or its braces do not balance.
+     */
+    static String strip(String source) {
+        char[] stripped = null;
+        Deque<Block> blocks = new ArrayDeque<>();
+        List<String> header = new ArrayList<>();
+        int parens = 0;
+        Lexer lexer = new Lexer(source);
+        for (char token = lexer.next(); token != Lexer.END; token = lexer.next()) {
+            switch (token) {
+                case '(' -> {
+                    parens++;
+                    header.add("(");
+                }
+                case ')' -> {
+                    parens--;
+                    header.add(")");
+                }
+                case '{' -> {
+                    if (parens > 0) {
+                        // A lambda or an annotation array in an argument list
+                        if (!skipBlock(lexer)) {
+                            return source;
+                        }
+                        break;
+                    }
+                    Block type = typeDeclared(header);
+                    boolean body = type == null && blocks.peek() == Block.TYPE && isBodyHeader(header);
+                    header.clear();
+                    if (type != null) {
+                        blocks.push(type);
+                    } else if (body) {
+                        int open = lexer.end;
+                        int declaresType = skipBody(lexer);
+                        if (declaresType < 0) {
+                            return source;
+                        }
+                        if (declaresType == 0) {
+                            if (stripped == null) {
+                                stripped = source.toCharArray();
+                            }
+                            blank(stripped, open, lexer.start);
+                        }
+                    } else if (!skipBlock(lexer)) {
+                        return source;
+                    }
+                }
+                case '}' -> {
+                    if (blocks.poll() == null) {
+                        return source;
+                    }
+                    header.clear();
+                }
+                case ';' -> {
+                    if (parens == 0) {
+                        if (blocks.peek() == Block.ENUM_CONSTANTS) {
+                            blocks.pop();
+                            blocks.push(Block.TYPE);
+                        }
+                        header.clear();
+                    }
+                }
+                default -> {
+                    if (parens == 0) {
+                        header.add(lexer.text());
+                    }
+                }
+            }
+        }
+        return stripped == null || !blocks.isEmpty() ? source : new String(stripped);
+    }
+
+    /**
+     * Find the type declared by a member header, if it declares one.
+     */
+    private static Block typeDeclared(List<String> header) {
+        for (int i = 0; i < header.size(); i++) {
+            String token = header.get(i);
+            boolean keyword = i == 0 || !".".equals(header.get(i - 1));
+            if (keyword && ("class".equals(token) || "interface".equals(token))) {
+                return Block.TYPE;
+            }
+            if (keyword && "enum".equals(token)) {
+                return Block.ENUM_CONSTANTS;
+            }
+            // "record" is only a keyword ahead of a name and its components
+            if (
+                keyword &&
+                "record".equals(token) &&
+                i + 2 < header.size() &&
+                Character.isJavaIdentifierStart(header.get(i + 1).charAt(0)) &&
+                ("(".equals(header.get(i + 2)) || "<".equals(header.get(i + 2)))
+            ) {
+                return Block.TYPE;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether a member header opens a method, constructor or initializer body: it ends with a parameter list or a {@code throws}
+     * clause, or is empty or {@code static}.
+     */
+    private static boolean isBodyHeader(List<String> header) {
+        if (header.isEmpty() || (header.size() == 1 && "static".equals(header.get(0)))) {
+            return true;
+        }
+        if (header.contains("=")) {
+            return false;
+        }
+        return ")".equals(header.get(header.size() - 1)) || header.contains("throws");
+    }
+
+    /**
+     * Skip a brace block, the lexer standing on its opening brace.
+     *
+     * @return false if the block does not end.
+     */
+    private static boolean skipBlock(Lexer lexer) {
+        return skipBody(lexer) >= 0;
+    }
+
+    /**
+     * Skip a brace block, the lexer standing on its opening brace and left on its closing one.
+     *
+     * @return 1 if the block declares a class or interface, 0 if not, -1 if it does not end.
+     */
+    private static int skipBody(Lexer lexer) {
+        int depth = 1;
+        int declaresType = 0;
+        boolean afterDot = false;
+        for (char token = lexer.next(); token != Lexer.END; token = lexer.next()) {
+            if (token == '{') {
+                depth++;
+            } else if (token == '}' && --depth == 0) {
+                return declaresType;
+            } else if (token == Lexer.IDENTIFIER && !afterDot && (lexer.is("class") || lexer.is("interface"))) {
+                declaresType = 1;
+            }
+            afterDot = token == '.';
+        }
+        return -1;
+    }
+
+    private static void blank(char[] source, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (source[i] != '\n' && source[i] != '\r') {
+                source[i] = ' ';
+            }
+        }
+    }
+
+    /**
+     * Splits a Java source into identifiers, literals and single-character symbols, skipping whitespace and comments.
+     */
+    private static final class Lexer {
+
+        static final char END = 0;
+        static final char IDENTIFIER = 'a';
+        static final char LITERAL = '"';
+
+        private final String source;
+        // Offsets of the current token
+        int start;
+        int end;
+
+        Lexer(String source) {
+            this.source = source;
+        }
+
+        char next() {
+            int length = source.length();
+            int pos = end;
+            while (pos < length) {
+                char c = source.charAt(pos);
+                if (Character.isWhitespace(c)) {
+                    pos++;
+                } else if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '/') {
+                    int eol = source.indexOf('\n', pos);
+                    pos = eol < 0 ? length : eol + 1;
+                } else if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '*') {
+                    int close = source.indexOf("*/", pos + 2);
+                    pos = close < 0 ? length : close + 2;
+                } else {
+                    break;
+                }
+            }
+            start = pos;
+            if (pos >= length) {
+                end = length;
+                return END;
+            }
+            char c = source.charAt(pos);
+            if (Character.isJavaIdentifierStart(c)) {
+                pos++;
+                while (pos < length && Character.isJavaIdentifierPart(source.charAt(pos))) {
+                    pos++;
+                }
+                end = pos;
+                return IDENTIFIER;
+            }
+            if (c == '"' && source.startsWith("\"\"\"", pos)) {
+                end = skipQuoted(pos + 3, "\"\"\"");
+                return LITERAL;
+            }
+            if (c == '"' || c == '\'') {
+                end = skipQuoted(pos + 1, String.valueOf(c));
+                return LITERAL;
+            }
+            end = pos + 1;
+            return c;
+        }
+
+        private int skipQuoted(int pos, String quote) {
+            int length = source.length();
+            while (pos < length) {
+                char c = source.charAt(pos);
+                if (c == '\\') {
+                    pos += 2;
+                } else if (source.startsWith(quote, pos)) {
+                    return pos + quote.length();
+                } else {
+                    pos++;
+                }
+            }
+            return length;
+        }
+
+        boolean is(String word) {
+            return end - start == word.length() && source.startsWith(word, start);
+        }
+
+        String text() {
+            return source.substring(start, end);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.juv3nil3.icdg.service;
+
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.ClassDetail;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.CursorPage;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.FileSummary;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.PackageSummary;
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository.Snapshot;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Browsing of the generated documentation of a repository a page at a time: its packages, the files and classes of a package,
+ * and the members of a class.
+ * <p>
+ * Every method reads the snapshot of the given commit, or the latest snapshot without one, and answers empty when the repository
+ * has no documentation or the commit was not generated.
+ */
+@Service
+public class DocumentationBrowseService {
+
+    /**
+     * Largest page returned, whatever the size asked for.
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final DocumentationBrowseRepository browseRepository;
+    private final DocumentationGenerator documentationGenerator;
+
+    @Autowired
+    public DocumentationBrowseService(DocumentationBrowseRepository browseRepository, DocumentationGenerator documentationGenerator) {
+        this.browseRepository = browseRepository;
+        this.documentationGenerator = documentationGenerator;
+    }
+
+    /**
+     * Find a page of the packages of a repository, ordered by name.
+     *
+     * @param commit the commit of the snapshot to read, or null for the latest one.
+     * @param after  the cursor returned with the previous page, or null for the first page.
+     * @param size   the number of packages to return, at most {@link #MAX_PAGE_SIZE}.
+     */
+    public Optional<CursorPage<PackageSummary>> findPackages(String owner, String repo, String commit, String after, int size) {
+        return findSnapshot(owner, repo, commit).map(snapshot ->
+            browseRepository.findPackages(owner, repo, snapshot.generation(), after, pageSize(size))
+        );
+    }
+
+    /**
+     * Find a page of the files of a package, with their classes.
+     *
+     * @param commit the commit of the snapshot to read, or null for the latest one.
+     * @param after  the cursor returned with the previous page, or null for the first page.
+     * @param size   the number of files to return, at most {@link #MAX_PAGE_SIZE}.
+     * @return the files, or empty if the snapshot has no such package.
+     */
+    public Optional<CursorPage<FileSummary>> findFiles(String owner, String repo, String commit, String packageName, Long after, int size) {
+        return findSnapshot(owner, repo, commit).flatMap(snapshot ->
+            browseRepository
+                .findPackageId(owner, repo, snapshot.generation(), packageName)
+                .map(packageId -> browseRepository.findFiles(packageId, snapshot.generation(), after, pageSize(size)))
+        );
+    }
+
+    /**
+     * Find a class with its methods and fields.
+     *
+     * @param commit the commit of the snapshot to read, or null for the latest one.
+     * @return the class, or empty if the snapshot has no such class.
+     */
+    public Optional<ClassDetail> findClass(String owner, String repo, String commit, long classId) {
+        return findSnapshot(owner, repo, commit).flatMap(snapshot ->
+            browseRepository.findClass(owner, repo, snapshot.generation(), classId)
+        );
+    }
+
+    private Optional<Snapshot> findSnapshot(String owner, String repo, String commit) {
+        return documentationGenerator.findSnapshot(owner, repo, commit);
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+}
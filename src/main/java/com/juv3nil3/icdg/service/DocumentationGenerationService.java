@@ -1,11 +1,13 @@
 package com.juv3nil3.icdg.service;
 
 import com.juv3nil3.icdg.domain.Documentation;
-import com.juv3nil3.icdg.domain.GitHubFile;
+import com.juv3nil3.icdg.domain.GitHubFileChange;
 import com.juv3nil3.icdg.domain.RepositoryMetadata;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,7 +18,9 @@ import org.springframework.stereotype.Service;
 public class DocumentationGenerationService {
 
     private final JavaParserService javaParserService;
-    private final GithubService githubService;
+    private final RepositorySource repositorySource;
+    private final IngestionPipeline ingestionPipeline;
+    private final GenerationCoalescer generationCoalescer;
     private final DocumentationGenerator documentationService;
     private final RepositoryMetadataService repositoryMetadataService;
 
@@ -25,115 +29,205 @@ public class DocumentationGenerationService {
     @Autowired
     public DocumentationGenerationService(
         JavaParserService javaParserService,
-        GithubService githubService,
+        RepositorySource repositorySource,
+        IngestionPipeline ingestionPipeline,
+        GenerationCoalescer generationCoalescer,
         DocumentationGenerator documentationService,
         RepositoryMetadataService repositoryMetadataService
     ) {
         this.javaParserService = javaParserService;
-        this.githubService = githubService;
+        this.repositorySource = repositorySource;
+        this.ingestionPipeline = ingestionPipeline;
+        this.generationCoalescer = generationCoalescer;
         this.documentationService = documentationService;
         this.repositoryMetadataService = repositoryMetadataService;
     }
 
     /**
-     * Generate and save documentation for a GitHub repository.
+     * Generate and save documentation for a GitHub repository, or find the stored one if it is up to date.
      *
      * @param owner       GitHub repository owner.
      * @param repo        GitHub repository name.
      * @param accessToken Personal access token for GitHub API.
+     * @return the documentation, to be written out with {@link DocumentationGenerator#exportDocumentation}.
      * @throws Exception if an error occurs during the documentation generation.
      */
-    public String generateDocumentationForRepo(String owner, String repo, String accessToken) throws Exception {
-        // Step 1: Fetch repository metadata
-        RepositoryMetadata metadata = repositoryMetadataService.findOrfetchMetadata(owner, repo, accessToken);
+    public Documentation generateDocumentationForRepo(String owner, String repo, String accessToken) throws Exception {
+        return generateDocumentationForRepo(owner, repo, accessToken, new GenerationProgress());
+    }
 
-        // Step 2: Save or update metadata
-        RepositoryMetadata savedMetadata = repositoryMetadataService.saveOrUpdateMetadata(
-            metadata.getOwner(),
-            metadata.getRepoName(),
-            metadata.getDescription(),
-            metadata.getLatestCommitHash(),
-            metadata.getDefaultBranch()
-        );
+    /**
+     * Generate and save documentation for a GitHub repository, or find the stored one if it is up to date, counting the processed
+     * files in the given progress.
+     * <p>
+     * Concurrent calls for the same commit share one generation, and generations of a repository run one at a time across nodes,
+     * see {@link GenerationCoalescer}.
+     *
+     * @param owner       GitHub repository owner.
+     * @param repo        GitHub repository name.
+     * @param accessToken Personal access token for GitHub API.
+     * @param progress    the progress to report to.
+     * @return the documentation, to be written out with {@link DocumentationGenerator#exportDocumentation}.
+     * @throws Exception if an error occurs during the documentation generation.
+     */
+    public Documentation generateDocumentationForRepo(String owner, String repo, String accessToken, GenerationProgress progress)
+        throws Exception {
+        // Step 1: Find the head commit, with at most one conditional request per freshness window on GitHub
+        String commitHash = repositorySource.resolveCommit(owner, repo, accessToken);
+
+        // Step 2: Return the stored documentation if it is of that commit, without fetching metadata or taking the lease
+        Optional<Documentation> current = documentationService.findDocumentation(owner, repo);
+        if (current.isPresent() && commitHash.equals(findStoredCommitHash(owner, repo))) {
+            progress.expect(0);
+            return current.get();
+        }
 
-        // Step 3: Check and handle documentation
-        Documentation documentation = getOrGenerateDocumentation(owner, repo, savedMetadata, accessToken);
+        // Step 3: Fetch the rest of the repository metadata
+        RepositoryMetadata metadata = repositorySource.fetchMetadata(owner, repo, commitHash, accessToken);
+
+        // Step 4: Check and handle documentation, reading the stored commit again once the lease is held as another run may have
+        // just stored it
+        return generationCoalescer.run(owner, repo, commitHash, progress, () ->
+            getOrGenerateDocumentation(owner, repo, metadata, findStoredCommitHash(owner, repo), accessToken, progress)
+        );
+    }
 
-        // Step 4: Export documentation
-        return documentationService.exportDocumentation(documentation);
+    /**
+     * Find the commit the stored documentation was generated from.
+     */
+    private String findStoredCommitHash(String owner, String repo) {
+        return repositoryMetadataService.findByOwnerAndRepoName(owner, repo).map(RepositoryMetadata::getLatestCommitHash).orElse(null);
     }
 
     /**
      * Get or generate documentation for the repository.
      */
-    private Documentation getOrGenerateDocumentation(String owner, String repo, RepositoryMetadata metadata, String accessToken)
-        throws Exception {
+    private Documentation getOrGenerateDocumentation(
+        String owner,
+        String repo,
+        RepositoryMetadata metadata,
+        String previousCommitHash,
+        String accessToken,
+        GenerationProgress progress
+    ) throws Exception {
         // Use findDocumentation to fetch the documentation if it exists
         Optional<Documentation> existingDocumentationOpt = documentationService.findDocumentation(owner, repo);
 
-        if (existingDocumentationOpt.isPresent()) {
-            Documentation existingDocumentation = existingDocumentationOpt.get();
-            if (isDocumentationOutdated(metadata, existingDocumentation)) {
-                generateDocumentation(owner, repo, accessToken);
-                return documentationService.generateAndSaveDocumentationForRepo(repo, owner, metadata);
-            }
-            return existingDocumentation; // Return existing documentation if not outdated
-        } else {
-            generateDocumentation(owner, repo, accessToken);
-            return documentationService.generateAndSaveDocumentationForRepo(repo, owner, metadata);
+        if (existingDocumentationOpt.isPresent() && !isDocumentationOutdated(metadata, previousCommitHash)) {
+            progress.expect(0);
+            return existingDocumentationOpt.get(); // Return existing documentation if not outdated
+        }
+
+        // The files of the commit are stored as a new generation, the snapshots of earlier commits keeping what it replaces
+        long generation = javaParserService.beginGeneration(owner, repo);
+        if (
+            existingDocumentationOpt.isEmpty() ||
+            !updateChangedFiles(owner, repo, previousCommitHash, metadata.getLatestCommitHash(), generation, accessToken, progress)
+        ) {
+            generateDocumentation(owner, repo, metadata.getLatestCommitHash(), generation, accessToken, progress);
         }
+
+        // Only record the new commit once its files are stored, so a failed run is retried from the same base
+        documentationService.saveSnapshot(owner, repo, generation, metadata.getLatestCommitHash());
+        javaParserService.endGeneration(owner, repo, generation);
+        RepositoryMetadata savedMetadata = repositoryMetadataService.saveOrUpdateMetadata(
+            metadata.getOwner(),
+            metadata.getRepoName(),
+            metadata.getDescription(),
+            metadata.getLatestCommitHash(),
+            metadata.getDefaultBranch()
+        );
+        return documentationService.generateAndSaveDocumentationForRepo(repo, owner, savedMetadata);
     }
 
     /**
      * Check if the documentation is outdated based on commit hash.
      */
-    private boolean isDocumentationOutdated(RepositoryMetadata metadata, Documentation documentation) {
-        return !metadata.getLatestCommitHash().equals(documentation.getRepositoryMetadata().getLatestCommitHash());
-    }
-
-    private void generateDocumentation(String owner, String repo, String accessToken) throws Exception {
-        // Fetch all Java files from the repository
-        List<GitHubFile> javaFiles = fetchJavaFilesFromRepo(owner, repo, accessToken);
-
-        // Generate documentation for the repository
-        for (GitHubFile file : javaFiles) {
-            processJavaFile(owner, repo, file, accessToken);
-        }
+    private boolean isDocumentationOutdated(RepositoryMetadata metadata, String previousCommitHash) {
+        return !metadata.getLatestCommitHash().equals(previousCommitHash);
     }
 
     /**
-     * Process a single Java file to generate and save documentation.
+     * Bring the stored files of a repository from one commit to another by processing only the Java files changed in between,
+     * the files of every other path being shared with the snapshot of the previous commit.
      *
-     * @param owner       GitHub repository owner.
-     * @param repo        GitHub repository name.
-     * @param file        The GitHubFile object representing the Java file.
-     * @param accessToken Personal access token for GitHub API.
-     * @throws Exception if an error occurs during file processing.
+     * @return false if the changes could not be listed and the repository has to be processed in full.
      */
-    private void processJavaFile(String owner, String repo, GitHubFile file, String accessToken) throws Exception {
-        // Fetch file content from GitHub
-        String content = githubService.fetchFileContent(owner, repo, file.getPath(), accessToken);
+    private boolean updateChangedFiles(
+        String owner,
+        String repo,
+        String previousCommitHash,
+        String commitHash,
+        long generation,
+        String accessToken,
+        GenerationProgress progress
+    ) throws Exception {
+        if (previousCommitHash == null) {
+            return false;
+        }
+        Optional<List<GitHubFileChange>> changesOpt = repositorySource.fetchChangedFiles(
+            owner,
+            repo,
+            previousCommitHash,
+            commitHash,
+            accessToken
+        );
+        if (changesOpt.isEmpty()) {
+            return false;
+        }
+        List<GitHubFileChange> changes = changesOpt.get();
+
+        // Retire the stored rows of every removed, renamed or modified file, the latter two are parsed again below
+        Set<String> stalePaths = new HashSet<>();
+        for (GitHubFileChange change : changes) {
+            stalePaths.add(change.getPath());
+            if (change.getPreviousPath() != null) {
+                stalePaths.add(change.getPreviousPath());
+            }
+        }
+        int retired = javaParserService.retireFiles(owner, repo, stalePaths, generation);
 
-        // Parse the Java file content
-        javaParserService.parseAndSaveFileFromContent(repo, file.getPath(), content);
+        List<GitHubFileChange> updatedFiles = changes
+            .stream()
+            .filter(change -> !change.isRemoved() && GithubService.isJavaSource(change.getPath()))
+            .collect(Collectors.toList());
+        progress.expect(updatedFiles.size());
+        try (IngestionPipeline.Run run = ingestionPipeline.start(owner, repo, generation, progress)) {
+            for (GitHubFileChange change : updatedFiles) {
+                run.submitFetch(change.getPath(), change.getSha(), () ->
+                    repositorySource.fetchFileContent(owner, repo, commitHash, change.getPath(), accessToken)
+                );
+            }
+            run.awaitCompletion();
+        }
+        logger.info(
+            "Updated repository: {}/{} from commit: {} to commit: {}, {} files parsed, {} stored files replaced or removed",
+            owner,
+            repo,
+            previousCommitHash,
+            commitHash,
+            updatedFiles.size(),
+            retired
+        );
+        return true;
     }
 
     /**
-     * Fetch all Java files from the GitHub repository.
-     *
-     * @param owner       GitHub repository owner.
-     * @param repo        GitHub repository name.
-     * @param accessToken Personal access token for GitHub API.
-     * @return List of GitHubFile objects representing Java files.
-     * @throws Exception if an error occurs during the fetch.
+     * Process every Java file of a repository at a commit, keeping the stored rows of the files whose content is unchanged and
+     * retiring the files the commit no longer has.
      */
-    private List<GitHubFile> fetchJavaFilesFromRepo(String owner, String repo, String accessToken) throws Exception {
-        List<GitHubFile> files = githubService.fetchRepositoryFiles(owner, repo, accessToken);
-        return files
-            .stream()
-            .filter(file -> "file".equals(file.getType()) && file.getPath().endsWith(".java"))
-            .collect(Collectors.toList());
+    private void generateDocumentation(
+        String owner,
+        String repo,
+        String commitHash,
+        long generation,
+        String accessToken,
+        GenerationProgress progress
+    ) throws Exception {
+        try (IngestionPipeline.Run run = ingestionPipeline.start(owner, repo, generation, progress)) {
+            repositorySource.submitFiles(owner, repo, commitHash, accessToken, run, progress);
+            run.awaitCompletion();
+            run.retireOtherFiles();
+        }
     }
-
-
 }
@@ -1,22 +1,31 @@
 package com.juv3nil3.icdg.service;
 
 import com.juv3nil3.icdg.domain.*;
-import com.juv3nil3.icdg.repository.ClassDataRepository;
+import com.juv3nil3.icdg.repository.DocumentationExportRepository;
+import com.juv3nil3.icdg.repository.DocumentationExportRepository.ClassView;
+import com.juv3nil3.icdg.repository.DocumentationExportRepository.FileView;
+import com.juv3nil3.icdg.repository.DocumentationExportRepository.MemberView;
+import com.juv3nil3.icdg.repository.DocumentationExportRepository.PackageView;
 import com.juv3nil3.icdg.repository.DocumentationRepository;
-import com.juv3nil3.icdg.repository.FileDataRepository;
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository;
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository.Snapshot;
 import com.juv3nil3.icdg.repository.PackageDataRepository;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
-import javax.print.Doc;
 
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Transactional
@@ -25,9 +34,26 @@ public class DocumentationGenerator {
 
     private final DocumentationRepository documentationRepository;
     private final PackageDataRepository packageDataRepository;
-    private final FileDataRepository fileDataRepository;
-    private final ClassDataRepository classRepository;
+    private final DocumentationExportRepository documentationExportRepository;
+    private final DocumentationSnapshotRepository snapshotRepository;
     private final RepositoryMetadataService repositoryMetadataService;
+
+    /**
+     * Format of {@link #exportDocumentation(Documentation, OutputStream)}, for keying rendered exports.
+     */
+    public static final String EXPORT_FORMAT = "markdown";
+
+    /**
+     * Version of the rendering of {@link #EXPORT_FORMAT}, to be increased with any change to its output so exports cached or
+     * tagged by an earlier version are rendered again.
+     */
+    public static final int EXPORT_VERSION = 1;
+
+    /**
+     * Number of packages read per export query, bounding the memory of an export.
+     */
+    private static final int EXPORT_PAGE_SIZE = 20;
+
     private static final Logger logger = LoggerFactory.getLogger(DocumentationGenerator.class);
 
     @PersistenceContext
@@ -36,13 +62,14 @@ public class DocumentationGenerator {
     @Autowired
     public DocumentationGenerator(
         DocumentationRepository documentationRepository,
-        PackageDataRepository packageDataRepository, FileDataRepository fileDataRepository, ClassDataRepository classRepository,
+        PackageDataRepository packageDataRepository, DocumentationExportRepository documentationExportRepository,
+        DocumentationSnapshotRepository snapshotRepository,
         RepositoryMetadataService repositoryMetadataService
     ) {
         this.documentationRepository = documentationRepository;
         this.packageDataRepository = packageDataRepository;
-        this.fileDataRepository = fileDataRepository;
-        this.classRepository = classRepository;
+        this.documentationExportRepository = documentationExportRepository;
+        this.snapshotRepository = snapshotRepository;
         this.repositoryMetadataService = repositoryMetadataService;
     }
 
@@ -66,12 +93,48 @@ public class DocumentationGenerator {
         return documentationRepository.findByRepositoryMetadata(repositoryMetadataOpt.get());
     }
 
+    /**
+     * Find the snapshot of the documentation of a repository as of a commit.
+     *
+     * @param commitHash the commit, or null for the latest snapshot.
+     * @return the snapshot, or empty if the repository has no documentation or the commit was not generated.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Snapshot> findSnapshot(String owner, String repoName, String commitHash) {
+        if (findDocumentation(owner, repoName).isEmpty()) {
+            return Optional.empty();
+        }
+        return commitHash == null
+            ? snapshotRepository.findLatest(owner, repoName)
+            : snapshotRepository.findByCommit(owner, repoName, commitHash);
+    }
+
+    /**
+     * Find the snapshots of the documentation of a repository, latest first.
+     *
+     * @return the snapshots, or empty if the repository has no documentation.
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<Snapshot>> findSnapshots(String owner, String repoName) {
+        if (findDocumentation(owner, repoName).isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshotRepository.findAll(owner, repoName));
+    }
+
+    /**
+     * Save the snapshot of a commit once the generation has stored all of its files.
+     */
+    public Snapshot saveSnapshot(String owner, String repoName, long generation, String commitHash) {
+        return snapshotRepository.save(owner, repoName, generation, commitHash);
+    }
+
     public Documentation generateAndSaveDocumentationForRepo(String repoName, String owner, RepositoryMetadata metadata) throws Exception {
         // Step 1: Retrieve all package data for the repository
-        List<PackageData> packages = packageDataRepository.findByRepoName(repoName);
+        List<PackageData> packages = packageDataRepository.findByOwnerAndRepoName(owner, repoName);
 
         if (packages.isEmpty()) {
-            throw new IllegalArgumentException("No data found for repository: " + repoName);
+            throw new IllegalArgumentException("No data found for repository: " + owner + "/" + repoName);
         }
         // Step 2: Merge detached PackageData entities
         List<PackageData> managedPackages = new ArrayList<>();
@@ -79,12 +142,18 @@ public class DocumentationGenerator {
             managedPackages.add(entityManager.merge(packageData));
         }
 
-        // Step 3: Create a Documentation object
-        Documentation documentation = new Documentation();
-        documentation.setRepositoryMetadata(metadata); // Link the metadata
-        documentation.setExportPath("/path/to/export"); // Example, adjust as needed
-        documentation.setCreatedAt(LocalDateTime.now());
-        documentation.setPackages(managedPackages); // Use the managed packages
+        // Step 3: Create a Documentation object, or refresh the existing one when the repository is regenerated
+        Optional<Documentation> existingDocumentation = documentationRepository.findByRepositoryMetadata(metadata);
+        Documentation documentation = existingDocumentation.orElseGet(Documentation::new);
+        if (existingDocumentation.isPresent()) {
+            documentation.setUpdatedAt(LocalDateTime.now());
+        } else {
+            documentation.setRepositoryMetadata(metadata); // Link the metadata
+            documentation.setExportPath("/path/to/export"); // Example, adjust as needed
+            documentation.setCreatedAt(LocalDateTime.now());
+        }
+        documentation.getPackages().clear();
+        documentation.getPackages().addAll(managedPackages); // Use the managed packages
 
         // Step 4: Save the documentation object to the database
         documentationRepository.save(documentation);
@@ -92,139 +161,94 @@ public class DocumentationGenerator {
         return documentation;
     }
 
-    @Transactional
-    public String exportDocumentation(Documentation documentation) {
-        StringBuilder output = new StringBuilder();
+    /**
+     * Write the documentation of its latest commit as Markdown, see
+     * {@link #exportDocumentation(Documentation, Snapshot, OutputStream)}.
+     *
+     * @param documentation the documentation to export.
+     * @param outputStream  the stream to write to, left open.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportDocumentation(Documentation documentation, OutputStream outputStream) throws IOException {
+        RepositoryMetadata metadata = documentation.getRepositoryMetadata();
+        Snapshot snapshot = snapshotRepository
+            .findByCommit(metadata.getOwner(), metadata.getRepoName(), metadata.getLatestCommitHash())
+            .or(() -> snapshotRepository.findLatest(metadata.getOwner(), metadata.getRepoName()))
+            .orElseThrow(() ->
+                new IllegalStateException("No snapshot of repository " + metadata.getOwner() + "/" + metadata.getRepoName())
+            );
+        exportDocumentation(documentation, snapshot, outputStream);
+    }
 
-        logger.debug("Entering exportDocumentation() with documentation: {}", documentation);
+    /**
+     * Write the documentation as of a snapshot as Markdown, a page of packages at a time, flushing after each package.
+     * <p>
+     * Runs outside a transaction, each page being read on its own, so a slow client doesn't hold a database connection for the
+     * whole download.
+     *
+     * @param documentation the documentation to export.
+     * @param snapshot      the snapshot of the commit to export.
+     * @param outputStream  the stream to write to, left open.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportDocumentation(Documentation documentation, Snapshot snapshot, OutputStream outputStream) throws IOException {
+        logger.debug("Entering exportDocumentation() with documentation: {} as of commit: {}", documentation, snapshot.commitHash());
 
-        // Ensure documentation is eagerly loaded
-        Documentation loadedDocumentation = ensureDocumentationLoaded(documentation);
+        Writer output = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
 
         // Add repository name and description
-        output.append("### Repository: ").append(loadedDocumentation.getRepositoryMetadata().getRepoName()).append("\n\n");
-        output.append("### Owner: ").append(loadedDocumentation.getRepositoryMetadata().getOwner()).append("\n\n");
-        output.append(loadedDocumentation.getRepositoryMetadata().getDescription()).append("\n\n");
+        RepositoryMetadata metadata = documentation.getRepositoryMetadata();
+        output.append("### Repository: ").append(metadata.getRepoName()).append("\n\n");
+        output.append("### Owner: ").append(metadata.getOwner()).append("\n\n");
+        output.append(metadata.getDescription()).append("\n\n");
+        output.flush();
 
         // Traverse and format packages, files, classes, methods, and fields
-        for (PackageData packageData : loadedDocumentation.getPackages()) {
-            output.append("#### Package: ").append(packageData.getPackageName()).append("\n\n");
-            for (FileData file : packageData.getFiles()) {
-                output.append("- **File**: ").append(file.getFileName()).append("\n");
-                for (ClassData clazz : file.getClasses()) {
-                    output.append("  - **Class**: ").append(clazz.getName()).append("\n");
-                    output.append("    - **Annotations**: ").append(clazz.getAnnotations()).append("\n");
-                    clazz.getMethods().forEach(method -> {
-                        output.append("    - **Method**: ").append(method.getName())
-                            .append(" (").append(method.getAnnotations()).append(")\n");
-                    });
-                    clazz.getFields().forEach(field -> {
-                        output.append("    - **Field**: ").append(field.getName())
-                            .append(" (").append(field.getAnnotations()).append(")\n");
-                    });
-                }
+        String lastPackageName = null;
+        List<PackageView> page;
+        do {
+            page = documentationExportRepository.findPackagePage(
+                snapshot.owner(),
+                snapshot.repoName(),
+                snapshot.generation(),
+                lastPackageName,
+                EXPORT_PAGE_SIZE
+            );
+            for (PackageView packageView : page) {
+                writePackage(output, packageView);
+                output.flush();
+                lastPackageName = packageView.packageName();
             }
-            output.append("\n");
-        }
+        } while (page.size() == EXPORT_PAGE_SIZE);
 
         logger.debug("Completed exportDocumentation().");
-        return output.toString();
     }
 
-    // Method to check if the related collections (files, classes, methods, fields) are initialized
-    private boolean isDocumentationFullyInitialized(Documentation documentation) {
-        logger.debug("Checking if documentation is fully initialized...");
-
-        if (documentation.getPackages() == null || documentation.getPackages().isEmpty()) {
-            logger.debug("Packages collection is not initialized or empty.");
-            return false;
-        }
-
-        // Check if the packages and their related entities (files, classes, methods, fields) are initialized
-        for (PackageData packageData : documentation.getPackages()) {
-            if (packageData.getFiles() == null || packageData.getFiles().isEmpty()) {
-                logger.debug("Files collection is not initialized or empty for package: {}", packageData.getPackageName());
-                return false;
-            }
-            for (FileData file : packageData.getFiles()) {
-                if (file.getClasses() == null || file.getClasses().isEmpty()) {
-                    logger.debug("Classes collection is not initialized or empty for file: {}", file.getFileName());
-                    return false;
+    private void writePackage(Writer output, PackageView packageView) throws IOException {
+        output.append("#### Package: ").append(packageView.packageName()).append("\n\n");
+        for (FileView file : packageView.files()) {
+            output.append("- **File**: ").append(file.fileName()).append("\n");
+            for (ClassView clazz : file.classes()) {
+                output.append("  - **Class**: ").append(clazz.name()).append("\n");
+                output.append("    - **Annotations**: ").append(clazz.annotations().toString()).append("\n");
+                for (MemberView method : clazz.methods()) {
+                    output
+                        .append("    - **Method**: ")
+                        .append(method.name())
+                        .append(" (")
+                        .append(method.annotations().toString())
+                        .append(")\n");
                 }
-                for (ClassData clazz : file.getClasses()) {
-                    if (clazz.getMethods() == null || clazz.getMethods().isEmpty()) {
-                        logger.debug("Methods collection is not initialized or empty for class: {}", clazz.getName());
-                        return false;
-                    }
-                    if (clazz.getFields() == null || clazz.getFields().isEmpty()) {
-                        logger.debug("Fields collection is not initialized or empty for class: {}", clazz.getName());
-                        return false;
-                    }
+                for (MemberView field : clazz.fields()) {
+                    output
+                        .append("    - **Field**: ")
+                        .append(field.name())
+                        .append(" (")
+                        .append(field.annotations().toString())
+                        .append(")\n");
                 }
             }
         }
-
-        logger.debug("Documentation and all related entities are fully initialized.");
-        return true;
+        output.append("\n");
     }
-
-
-    @Transactional
-    public Documentation ensureDocumentationLoaded(Documentation documentation) {
-        logger.debug("Ensuring documentation is loaded with all related entities...");
-
-        if (!isDocumentationFullyInitialized(documentation)) {
-            logger.debug("Packages not initialized, loading eagerly...");
-
-            Documentation eagerlyLoadedDoc = loadDocumentationWithPackages(documentation);
-
-            // Load and associate files with packages
-            associateFilesWithPackages(eagerlyLoadedDoc);
-
-            // Fetch methods and fields for classes
-            fetchAndInitializeClassDetails(eagerlyLoadedDoc);
-
-            return eagerlyLoadedDoc;
-        } else {
-            logger.debug("Packages already initialized, proceeding.");
-            return documentation;
-        }
-    }
-
-    private Documentation loadDocumentationWithPackages(Documentation documentation) {
-        Optional<Documentation> docOpt = documentationRepository.findDocumentationWithPackages(documentation.getRepositoryMetadata());
-        if (docOpt.isPresent()) {
-            logger.debug("Eagerly loaded documentation with packages.");
-            Documentation doc = docOpt.get();
-            documentation.setPackages(doc.getPackages());
-            return documentation;
-        } else {
-            logger.error("Documentation not found for repository: {}", documentation.getRepositoryMetadata().getRepoName());
-            throw new EntityNotFoundException("Documentation not found");
-        }
-    }
-
-    private void associateFilesWithPackages(Documentation documentation) {
-        List<FileData> files = fileDataRepository.findFilesWithClasses(documentation.getPackages());
-        Map<String, List<FileData>> filesByPackage = files.stream()
-            .collect(Collectors.groupingBy(file -> file.getPackageData().getPackageName()));
-
-        documentation.getPackages().forEach(packageData -> {
-            List<FileData> filesForPackage = filesByPackage.getOrDefault(packageData.getPackageName(), Collections.emptyList());
-            packageData.getFiles().addAll(filesForPackage);
-            logger.info("Package: {} has {} files", packageData.getPackageName(), filesForPackage.size());
-        });
-    }
-
-    private void fetchAndInitializeClassDetails(Documentation documentation) {
-        List<ClassData> classes = documentation.getPackages().stream()
-            .flatMap(pkg -> pkg.getFiles().stream())
-            .flatMap(file -> file.getClasses().stream())
-            .collect(Collectors.toList());
-
-        classRepository.findClassesWithMethods(classes).forEach(clazz -> clazz.getMethods().size());
-        classRepository.findClassesWithFields(classes).forEach(clazz -> clazz.getFields().size());
-    }
-
-
 }
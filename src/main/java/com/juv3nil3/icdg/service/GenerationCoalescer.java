@@ -0,0 +1,145 @@
+package com.juv3nil3.icdg.service;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.Documentation;
+import com.juv3nil3.icdg.repository.GenerationLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Single-flight execution of documentation generations.
+ * <p>
+ * Concurrent generations of the same (owner, repository, commit) on a node share one run, the callers joining the first one and
+ * getting its result or failure. Across nodes, and for different commits of a repository, runs take turns on the lease of the
+ * repository in the {@code generation_lease} table, so only one of them writes its files at a time. The lease is renewed while
+ * the run is alive and expires when its node is gone. A run gives up with a {@link TimeoutException} after waiting for the lease
+ * longer than the acquire timeout.
+ */
+@Service
+public class GenerationCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationCoalescer.class);
+
+    private final GenerationLeaseRepository leaseRepository;
+    private final ApplicationProperties.GenerationLease properties;
+
+    private final Map<FlightKey, Flight> flights = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService renewExecutor;
+
+    @Autowired
+    public GenerationCoalescer(GenerationLeaseRepository leaseRepository, ApplicationProperties applicationProperties) {
+        this.leaseRepository = leaseRepository;
+        this.properties = applicationProperties.getGenerationLease();
+        this.renewExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("generation-lease-"));
+    }
+
+    /**
+     * Run a generation, or join the one of the same commit already running on this node.
+     *
+     * @param progress   the progress of the caller, following the run it joins if any.
+     * @param generation the generation to run, under the lease of the repository.
+     * @return the documentation generated by whichever caller ran the generation.
+     * @throws Exception the failure of the generation, a timeout waiting for the lease, or an interruption while waiting.
+     */
+    public Documentation run(String owner, String repo, String commitHash, GenerationProgress progress, Callable<Documentation> generation)
+        throws Exception {
+        FlightKey key = new FlightKey(owner, repo, commitHash);
+        Flight flight = new Flight(progress);
+        Flight running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            logger.debug("Joining the generation of {}/{} at commit {} in flight", owner, repo, commitHash);
+            progress.follow(running.progress());
+            return join(running.result());
+        }
+
+        try {
+            Documentation documentation = runLeased(key, generation);
+            flight.result().complete(documentation);
+            return documentation;
+        } catch (Exception e) {
+            flight.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private Documentation runLeased(FlightKey key, Callable<Documentation> generation) throws Exception {
+        String holder = UUID.randomUUID().toString();
+        long pollMillis = properties.getPollInterval().toMillis();
+        long deadline = System.nanoTime() + properties.getAcquireTimeout().toNanos();
+        boolean waited = false;
+        while (!leaseRepository.tryAcquire(key.owner(), key.repo(), holder, key.commitHash(), properties.getDuration())) {
+            if (System.nanoTime() - deadline >= 0) {
+                throw new TimeoutException(
+                    "Timed out after " + properties.getAcquireTimeout() + " waiting for the generation of " + key.owner() + "/" + key.repo()
+                );
+            }
+            if (!waited) {
+                logger.info("Waiting for the generation of {}/{} running elsewhere", key.owner(), key.repo());
+                waited = true;
+            }
+            Thread.sleep(pollMillis);
+        }
+
+        long renewMillis = Math.max(1, properties.getDuration().toMillis() / 3);
+        ScheduledFuture<?> renewal = renewExecutor.scheduleAtFixedRate(
+            () -> renew(key, holder),
+            renewMillis,
+            renewMillis,
+            TimeUnit.MILLISECONDS
+        );
+        try {
+            return generation.call();
+        } finally {
+            renewal.cancel(false);
+            leaseRepository.release(key.owner(), key.repo(), holder);
+        }
+    }
+
+    private void renew(FlightKey key, String holder) {
+        try {
+            if (!leaseRepository.renew(key.owner(), key.repo(), holder, properties.getDuration())) {
+                logger.warn("Lost the generation lease of {}/{}, another node may be writing it too", key.owner(), key.repo());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not renew the generation lease of {}/{}: {}", key.owner(), key.repo(), e.getMessage());
+        }
+    }
+
+    private static Documentation join(CompletableFuture<Documentation> result) throws Exception {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renewExecutor.shutdownNow();
+    }
+
+    private record FlightKey(String owner, String repo, String commitHash) {}
+
+    private record Flight(GenerationProgress progress, CompletableFuture<Documentation> result) {
+        Flight(GenerationProgress progress) {
+            this(progress, new CompletableFuture<>());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.juv3nil3.icdg.service;
+
+import com.juv3nil3.icdg.domain.Documentation;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A documentation generation running in the background, submitted through the {@link GenerationJobService}.
+ * <p>
+ * Subscribers are told about the job when they subscribe, at every progress interval while it runs, and a last time when it is
+ * done.
+ */
+public class GenerationJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED,
+    }
+
+    private final String id;
+    private final String owner;
+    private final String repo;
+    private final String submittedBy;
+    private final Instant submittedAt = Instant.now();
+    private final GenerationProgress progress = new GenerationProgress();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile Documentation documentation;
+
+    GenerationJob(String id, String owner, String repo, String submittedBy) {
+        this.id = id;
+        this.owner = owner;
+        this.repo = repo;
+        this.submittedBy = submittedBy;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getRepo() {
+        return repo;
+    }
+
+    public String getSubmittedBy() {
+        return submittedBy;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public GenerationProgress getProgress() {
+        return progress;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isDone() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return the generated documentation, empty until the job has succeeded.
+     */
+    public Optional<Documentation> getDocumentation() {
+        return Optional.ofNullable(documentation);
+    }
+
+    void running() {
+        status = Status.RUNNING;
+    }
+
+    void succeeded(Documentation documentation) {
+        this.documentation = documentation;
+        this.finishedAt = Instant.now();
+        this.status = Status.SUCCEEDED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+
+    /**
+     * Be told about the job from now on, starting with its current state. A listener is dropped once it has been told about the
+     * job being done, or when it throws.
+     */
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+        notify(listener);
+    }
+
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    void notifyListeners() {
+        listeners.forEach(this::notify);
+    }
+
+    private void notify(Listener listener) {
+        // Only the caller removing a listener gives it the final update, so it gets exactly one
+        if (isDone() && !listeners.remove(listener)) {
+            return;
+        }
+        try {
+            listener.onUpdate(this);
+        } catch (IOException | RuntimeException e) {
+            listeners.remove(listener);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        void onUpdate(GenerationJob job) throws IOException;
+    }
+}
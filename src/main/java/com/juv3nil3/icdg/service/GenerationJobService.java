@@ -0,0 +1,125 @@
+package com.juv3nil3.icdg.service;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.Documentation;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs documentation generations on the {@code taskExecutor} instead of the request thread, keeping each as a
+ * {@link GenerationJob} that can be polled or subscribed to until some time after it is done.
+ */
+@Service
+public class GenerationJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationJobService.class);
+
+    private final DocumentationGenerationService generationService;
+    private final Executor taskExecutor;
+    private final ApplicationProperties.Jobs properties;
+
+    private final Map<String, GenerationJob> jobs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService progressExecutor;
+
+    @Autowired
+    public GenerationJobService(
+        DocumentationGenerationService generationService,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.generationService = generationService;
+        this.taskExecutor = taskExecutor;
+        this.properties = applicationProperties.getJobs();
+
+        long interval = properties.getProgressInterval().toMillis();
+        this.progressExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("generation-job-progress-"));
+        this.progressExecutor.scheduleWithFixedDelay(this::publishProgress, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Submit the generation of the documentation of a repository.
+     *
+     * @param owner       GitHub repository owner.
+     * @param repo        GitHub repository name.
+     * @param accessToken Personal access token for GitHub API.
+     * @param submittedBy login of the user submitting the job, the only one it is found for.
+     * @return the queued job.
+     * @throws IllegalArgumentException if there is no submitting user, whose job no one could find.
+     * @throws java.util.concurrent.RejectedExecutionException if the executor does not take more work.
+     */
+    public GenerationJob submit(String owner, String repo, String accessToken, String submittedBy) {
+        if (submittedBy == null) {
+            throw new IllegalArgumentException("Generation jobs need the login of the user submitting them");
+        }
+        GenerationJob job = new GenerationJob(UUID.randomUUID().toString(), owner, repo, submittedBy);
+        jobs.put(job.getId(), job);
+        try {
+            taskExecutor.execute(() -> run(job, accessToken));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Find a job submitted by the given user, never found without one.
+     */
+    public Optional<GenerationJob> find(String id, String submittedBy) {
+        if (submittedBy == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(jobs.get(id)).filter(job -> submittedBy.equals(job.getSubmittedBy()));
+    }
+
+    private void run(GenerationJob job, String accessToken) {
+        job.running();
+        job.notifyListeners();
+        try {
+            // Jobs run in the background, leaving the rate limit of their token to interactive requests when it runs low
+            Documentation documentation = GithubRequestScheduler.withPriority(GithubRequestScheduler.Priority.BACKGROUND, () ->
+                generationService.generateDocumentationForRepo(job.getOwner(), job.getRepo(), accessToken, job.getProgress())
+            );
+            job.succeeded(documentation);
+        } catch (Exception e) {
+            logger.error("Generation job {} for {}/{} failed", job.getId(), job.getOwner(), job.getRepo(), e);
+            job.failed(e.getMessage());
+        }
+        job.notifyListeners();
+    }
+
+    /**
+     * Tell subscribers about the progress of running jobs, and forget the jobs finished longer ago than the retention.
+     */
+    void publishProgress() {
+        Instant expiry = Instant.now().minus(properties.getRetention());
+        jobs
+            .values()
+            .forEach(job -> {
+                if (!job.isDone()) {
+                    job.notifyListeners();
+                } else if (job.getFinishedAt().isBefore(expiry)) {
+                    jobs.remove(job.getId(), job);
+                }
+            });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        progressExecutor.shutdownNow();
+    }
+}
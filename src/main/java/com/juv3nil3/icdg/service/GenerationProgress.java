@@ -0,0 +1,114 @@
+package com.juv3nil3.icdg.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the files of a generation through the stages of the {@link IngestionPipeline}, for reporting the progress of a
+ * {@link GenerationJob} while it runs.
+ * <p>
+ * The number of files to expect is only known once the repository is listed, or once an archive has been read to the end. A
+ * generation that joins another one in flight reports the progress of that one instead.
+ */
+public class GenerationProgress {
+
+    private final AtomicInteger expected = new AtomicInteger(-1);
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final AtomicInteger fetched = new AtomicInteger();
+    private final AtomicInteger parsed = new AtomicInteger();
+    private final AtomicInteger persisted = new AtomicInteger();
+    private volatile long startNanos;
+    private volatile GenerationProgress followed;
+
+    /**
+     * Record the number of files the generation is going to process.
+     */
+    public void expect(int files) {
+        expected.set(files);
+    }
+
+    void started() {
+        if (startNanos == 0) {
+            startNanos = System.nanoTime();
+        }
+    }
+
+    void submitted() {
+        started();
+        submitted.incrementAndGet();
+    }
+
+    void fetched() {
+        fetched.incrementAndGet();
+    }
+
+    void parsed() {
+        parsed.incrementAndGet();
+    }
+
+    void persisted(int files) {
+        persisted.addAndGet(files);
+    }
+
+    /**
+     * Every file has been submitted, so the ones submitted are all there are.
+     */
+    void submissionCompleted() {
+        expected.compareAndSet(-1, submitted.get());
+    }
+
+    /**
+     * Report the progress of another generation from now on, this one having attached to it.
+     */
+    void follow(GenerationProgress other) {
+        if (other != this) {
+            followed = other;
+        }
+    }
+
+    private GenerationProgress reported() {
+        GenerationProgress other = followed;
+        return other != null ? other.reported() : this;
+    }
+
+    /**
+     * @return the number of files to process, empty while it is not known yet.
+     */
+    public Optional<Integer> getExpected() {
+        int files = reported().expected.get();
+        return files < 0 ? Optional.empty() : Optional.of(files);
+    }
+
+    public int getSubmitted() {
+        return reported().submitted.get();
+    }
+
+    public int getFetched() {
+        return reported().fetched.get();
+    }
+
+    public int getParsed() {
+        return reported().parsed.get();
+    }
+
+    public int getPersisted() {
+        return reported().persisted.get();
+    }
+
+    /**
+     * Estimate the time left from the rate files have been persisted at so far.
+     *
+     * @return the estimate, empty until the number of files is known and some have been persisted.
+     */
+    public Optional<Duration> estimateRemaining() {
+        GenerationProgress progress = reported();
+        int files = progress.expected.get();
+        int done = progress.persisted.get();
+        if (files < 0 || done == 0 || progress.startNanos == 0) {
+            return Optional.empty();
+        }
+        long elapsed = System.nanoTime() - progress.startNanos;
+        return Optional.of(Duration.ofNanos((long) ((double) elapsed / done * Math.max(0, files - done))));
+    }
+}
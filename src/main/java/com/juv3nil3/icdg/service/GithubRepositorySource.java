@@ -0,0 +1,111 @@
+package com.juv3nil3.icdg.service;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.GitHubFile;
+import com.juv3nil3.icdg.domain.GitHubFileChange;
+import com.juv3nil3.icdg.domain.RepositoryMetadata;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads repositories from the GitHub API, with one request per Java file or a single archive download depending on
+ * {@code application.ingestion.mode}.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.ingestion", name = "source", havingValue = "github", matchIfMissing = true)
+public class GithubRepositorySource implements RepositorySource {
+
+    private final GithubService githubService;
+    private final RepositoryFreshnessChecker freshnessChecker;
+    private final ApplicationProperties.Ingestion ingestionProperties;
+
+    @Autowired
+    public GithubRepositorySource(
+        GithubService githubService,
+        RepositoryFreshnessChecker freshnessChecker,
+        ApplicationProperties applicationProperties
+    ) {
+        this.githubService = githubService;
+        this.freshnessChecker = freshnessChecker;
+        this.ingestionProperties = applicationProperties.getIngestion();
+    }
+
+    @Override
+    public String resolveCommit(String owner, String repo, String accessToken) throws Exception {
+        // At most one conditional request per freshness window
+        return freshnessChecker.fetchHeadCommit(owner, repo, accessToken);
+    }
+
+    @Override
+    public RepositoryMetadata fetchMetadata(String owner, String repo, String commitHash, String accessToken) throws Exception {
+        return githubService.fetchRepositoryMetadata(owner, repo, commitHash, accessToken);
+    }
+
+    @Override
+    public Optional<List<GitHubFileChange>> fetchChangedFiles(
+        String owner,
+        String repo,
+        String baseCommit,
+        String headCommit,
+        String accessToken
+    ) throws Exception {
+        return githubService.fetchChangedFiles(owner, repo, baseCommit, headCommit, accessToken);
+    }
+
+    @Override
+    public String fetchFileContent(String owner, String repo, String commitHash, String filePath, String accessToken) throws Exception {
+        return githubService.fetchFileContent(owner, repo, commitHash, filePath, accessToken);
+    }
+
+    @Override
+    public void submitFiles(
+        String owner,
+        String repo,
+        String commitHash,
+        String accessToken,
+        IngestionPipeline.Run run,
+        GenerationProgress progress
+    ) throws Exception {
+        if (ingestionProperties.getMode() == ApplicationProperties.Ingestion.Mode.ARCHIVE) {
+            // Stream the repository archive once and parse each Java entry as it is read
+            githubService.streamRepositoryArchive(owner, repo, commitHash, accessToken, run::submitParse);
+            return;
+        }
+
+        // Fetch all Java files from the repository
+        List<GitHubFile> javaFiles = fetchJavaFilesFromRepo(owner, repo, commitHash, accessToken);
+        progress.expect(javaFiles.size());
+
+        // Fetch, parse and persist the files concurrently
+        for (GitHubFile file : javaFiles) {
+            // At the listed commit, so the content is the blob listed
+            run.submitFetch(
+                file.getPath(),
+                file.getSha(),
+                () -> githubService.fetchFileContent(owner, repo, commitHash, file.getPath(), accessToken)
+            );
+        }
+    }
+
+    /**
+     * Fetch all Java files from the GitHub repository.
+     *
+     * @param owner       GitHub repository owner.
+     * @param repo        GitHub repository name.
+     * @param commitHash  Commit to list the files of.
+     * @param accessToken Personal access token for GitHub API.
+     * @return List of GitHubFile objects representing Java files.
+     * @throws Exception if an error occurs during the fetch.
+     */
+    private List<GitHubFile> fetchJavaFilesFromRepo(String owner, String repo, String commitHash, String accessToken) throws Exception {
+        List<GitHubFile> files = githubService.fetchRepositoryFiles(owner, repo, commitHash, accessToken);
+        return files
+            .stream()
+            .filter(file -> "file".equals(file.getType()) && file.getPath().endsWith(".java"))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,282 @@
+package com.juv3nil3.icdg.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+
+/**
+ * Paces the requests to the GitHub API by the rate limit of the token they are sent with.
+ * <p>
+ * The budget of each token is read from the {@code X-RateLimit-*} headers of its responses. Interactive requests are sent as long
+ * as the budget lasts. Background requests, the ones of generation jobs, are spread over what is left of the hour once half of
+ * the budget is spent, and leave the reserve share of it to interactive requests, waiting for the reset instead. Requests
+ * rejected by a rate limit are retried after the {@code Retry-After} of GitHub or the reset of the budget, and secondary rate
+ * limits without either with jittered exponential backoff. A request that would have to wait longer than the maximum fails
+ * instead.
+ */
+@Service
+public class GithubRequestScheduler implements ClientHttpRequestInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(GithubRequestScheduler.class);
+
+    /**
+     * Which requests yield when the rate limit runs low.
+     */
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND,
+    }
+
+    private static final ThreadLocal<Priority> PRIORITY = ThreadLocal.withInitial(() -> Priority.INTERACTIVE);
+
+    private static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    private static final String RESET_HEADER = "X-RateLimit-Reset";
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+    private static final Duration BUDGET_IDLE_TIME = Duration.ofHours(2);
+    private static final long MAX_TOKENS = 10_000;
+
+    private final ApplicationProperties.Github properties;
+
+    private final Cache<String, Budget> budgets = Caffeine.newBuilder()
+        .maximumSize(MAX_TOKENS)
+        .expireAfterAccess(BUDGET_IDLE_TIME)
+        .build();
+    private final Map<Priority, Timer> waitTimers = new EnumMap<>(Priority.class);
+    private final Counter retries;
+
+    @Autowired
+    public GithubRequestScheduler(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getGithub();
+        for (Priority priority : Priority.values()) {
+            waitTimers.put(
+                priority,
+                Timer.builder("github.requests.wait")
+                    .description("Time GitHub requests waited for the rate limit of their token")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry)
+            );
+        }
+        this.retries = Counter.builder("github.requests.retries")
+            .description("GitHub requests retried after being rejected by a rate limit")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run a task with the GitHub requests of the calling thread sent at the given priority.
+     */
+    public static <T> T withPriority(Priority priority, Callable<T> task) throws Exception {
+        Priority previous = PRIORITY.get();
+        PRIORITY.set(priority);
+        try {
+            return task.call();
+        } finally {
+            PRIORITY.set(previous);
+        }
+    }
+
+    /**
+     * @return the priority the GitHub requests of the calling thread are sent at.
+     */
+    public static Priority currentPriority() {
+        return PRIORITY.get();
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (!request.getURI().toString().startsWith(properties.getApiUrl())) {
+            return execution.execute(request, body);
+        }
+        Priority priority = PRIORITY.get();
+        Budget budget = budgets.get(budgetKey(request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION)), key -> new Budget());
+
+        for (int attempt = 0;; attempt++) {
+            awaitTurn(budget, priority, request);
+            ClientHttpResponse response = execution.execute(request, body);
+            Instant now = Instant.now();
+            budget.update(response.getHeaders(), now);
+
+            Duration backoff = rateLimitBackoff(response, budget, attempt, now);
+            if (
+                backoff == null ||
+                attempt >= properties.getRateLimitMaxRetries() ||
+                backoff.compareTo(properties.getRateLimitMaxWait()) > 0
+            ) {
+                return response;
+            }
+            response.close();
+            budget.block(now.plus(backoff));
+            retries.increment();
+            logger.warn("GitHub rate limit hit on {} {}, retrying in {}s", request.getMethod(), request.getURI(), backoff.toSeconds());
+        }
+    }
+
+    /**
+     * Wait until the budget of the token lets the request through.
+     *
+     * @throws IOException if the wait would be longer than the maximum, or was interrupted.
+     */
+    private void awaitTurn(Budget budget, Priority priority, HttpRequest request) throws IOException {
+        long start = System.nanoTime();
+        Duration wait;
+        while (!(wait = budget.reserve(priority, properties.getRateLimitReserve(), Instant.now())).isZero()) {
+            if (wait.compareTo(properties.getRateLimitMaxWait()) > 0) {
+                throw new IOException(
+                    "GitHub rate limit exhausted, " + request.getMethod() + " " + request.getURI() + " would wait " + wait.toSeconds() + "s"
+                );
+            }
+            try {
+                Thread.sleep(Math.max(1, wait.toMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for the GitHub rate limit");
+            }
+        }
+        waitTimers.get(priority).record(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Find how long to wait before retrying a response rejected by a rate limit.
+     *
+     * @return the time to wait, or null if the response is not a rate limit rejection.
+     */
+    private static Duration rateLimitBackoff(ClientHttpResponse response, Budget budget, int attempt, Instant now) throws IOException {
+        int status = response.getStatusCode().value();
+        if (status != 403 && status != 429) {
+            return null;
+        }
+        String retryAfter = response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter != null) {
+            try {
+                return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.trim())));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring Retry-After: {}", retryAfter);
+            }
+        }
+        Instant reset = budget.exhaustedUntil(now);
+        if (reset != null) {
+            return Duration.between(now, reset);
+        }
+        if (status == 429) {
+            // Full jitter, so the requests held back together do not come back together
+            long cap = Math.min(MAX_BACKOFF.toMillis(), INITIAL_BACKOFF.toMillis() << Math.min(attempt, 16));
+            return Duration.ofMillis(ThreadLocalRandom.current().nextLong(cap + 1));
+        }
+        // A 403 without rate limit headers is a plain refusal
+        return null;
+    }
+
+    private static String budgetKey(String authorization) {
+        if (authorization == null) {
+            return "";
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(authorization.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The rate limit budget of one token, as last reported by GitHub and counted down by the requests sent since.
+     */
+    private static class Budget {
+
+        private long limit = -1;
+        private long remaining = -1;
+        private Instant resetAt;
+        private Instant blockedUntil = Instant.MIN;
+        private Instant nextBackgroundSlot = Instant.MIN;
+
+        /**
+         * Take a request from the budget.
+         *
+         * @return zero if the request can be sent, or how long to wait before asking again.
+         */
+        synchronized Duration reserve(Priority priority, double reserveShare, Instant now) {
+            if (now.isBefore(blockedUntil)) {
+                return Duration.between(now, blockedUntil);
+            }
+            if (resetAt == null || remaining < 0) {
+                // Nothing known about the token until its first response
+                return Duration.ZERO;
+            }
+            if (!now.isBefore(resetAt)) {
+                // A new window has started, its budget is read from the next response
+                remaining = -1;
+                resetAt = null;
+                return Duration.ZERO;
+            }
+            long reserved = priority == Priority.BACKGROUND ? (long) Math.ceil(limit * reserveShare) : 0;
+            if (remaining <= reserved) {
+                return Duration.between(now, resetAt);
+            }
+            if (priority == Priority.BACKGROUND && remaining <= limit / 2) {
+                if (now.isBefore(nextBackgroundSlot)) {
+                    return Duration.between(now, nextBackgroundSlot);
+                }
+                nextBackgroundSlot = now.plus(Duration.between(now, resetAt).dividedBy(remaining - reserved));
+            }
+            remaining--;
+            return Duration.ZERO;
+        }
+
+        synchronized void update(HttpHeaders headers, Instant now) {
+            try {
+                String limitHeader = headers.getFirst(LIMIT_HEADER);
+                String remainingHeader = headers.getFirst(REMAINING_HEADER);
+                String resetHeader = headers.getFirst(RESET_HEADER);
+                if (limitHeader == null || remainingHeader == null || resetHeader == null) {
+                    return;
+                }
+                Instant reset = Instant.ofEpochSecond(Long.parseLong(resetHeader.trim()));
+                long reported = Long.parseLong(remainingHeader.trim());
+                limit = Long.parseLong(limitHeader.trim());
+                // Responses of the same window can come back out of order, the lowest count is the latest
+                remaining = reset.equals(resetAt) && remaining >= 0 ? Math.min(remaining, reported) : reported;
+                resetAt = reset;
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring malformed rate limit headers: {}", e.getMessage());
+            }
+        }
+
+        synchronized void block(Instant until) {
+            if (until.isAfter(blockedUntil)) {
+                blockedUntil = until;
+            }
+        }
+
+        /**
+         * @return the reset of the budget if it is spent, or null.
+         */
+        synchronized Instant exhaustedUntil(Instant now) {
+            return remaining == 0 && resetAt != null && resetAt.isAfter(now) ? resetAt : null;
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package com.juv3nil3.icdg.service;
 
+import com.juv3nil3.icdg.config.ApplicationProperties;
 import com.juv3nil3.icdg.domain.GitHubFile;
+import com.juv3nil3.icdg.domain.GitHubFileChange;
 import com.juv3nil3.icdg.domain.RepositoryMetadata;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -28,24 +37,188 @@ import org.springframework.web.util.UriComponentsBuilder;
 @Service
 public class GithubService {
 
-    @Autowired
-    private RestTemplate restTemplate;
+    private final RestTemplate restTemplate;
+
+    private final ApplicationProperties.Github githubProperties;
 
-    private static final String GITHUB_API_URL = "https://api.github.com/repos/{owner}/{repo}/contents/{path}";
+    private static final String CONTENTS_PATH = "/repos/{owner}/{repo}/contents/{path}";
+    private static final String TREE_PATH = "/repos/{owner}/{repo}/git/trees/{sha}";
+    private static final String ARCHIVE_PATH = "/repos/{owner}/{repo}/zipball/{ref}";
+    private static final String COMPARE_PATH = "/repos/{owner}/{repo}/compare/{base}...{head}";
+    private static final String REPOSITORY_PATH = "/repos/{owner}/{repo}";
+    private static final String COMMITS_PATH = "/repos/{owner}/{repo}/commits";
+    // The compare API lists at most this many files, so a comparison reaching it may be incomplete
+    private static final int COMPARE_FILE_LIMIT = 300;
+    private static final String BASE_PATH = "src/main/java";
     private static final Logger logger = LoggerFactory.getLogger(GithubService.class);
 
+    @Autowired
+    public GithubService(RestTemplate restTemplate, ApplicationProperties applicationProperties) {
+        this.restTemplate = restTemplate;
+        this.githubProperties = applicationProperties.getGithub();
+    }
+
     // Get the list of files in the repository
     public List<GitHubFile> fetchRepositoryFiles(String owner, String repo, String accessToken) throws Exception {
-        String basePath = "src/main/java"; // Start fetching from this directory
-        return fetchRepositoryFilesFromPath(owner, repo, accessToken, basePath);
+        if (!githubProperties.isTreeListing()) {
+            return fetchRepositoryFilesFromPath(owner, repo, null, accessToken, BASE_PATH);
+        }
+        // Resolve the default branch head once, then list the whole tree at that commit
+        return fetchRepositoryFiles(owner, repo, fetchLatestCommitHash(owner, repo, accessToken), accessToken);
+    }
+
+    /**
+     * Get the list of Java files in the repository at the given commit.
+     * <p>
+     * Uses the recursive Git Trees API so the whole listing costs one request. If GitHub truncates the recursive tree, the
+     * {@code src/main/java} subtree is resolved and listed on its own, and only if that is truncated as well do we fall back to
+     * walking the contents API directory by directory.
+     *
+     * @param owner       GitHub repository owner.
+     * @param repo        GitHub repository name.
+     * @param commitHash  Commit (or any tree-ish) to list.
+     * @param accessToken Personal access token for GitHub API.
+     * @return the Java files under {@code src/main/java}, with their blob SHAs and sizes.
+     */
+    public List<GitHubFile> fetchRepositoryFiles(String owner, String repo, String commitHash, String accessToken) throws Exception {
+        if (!githubProperties.isTreeListing()) {
+            return fetchRepositoryFilesFromPath(owner, repo, commitHash, accessToken, BASE_PATH);
+        }
+        logger.info("Fetching Java files for repository: {}/{} from tree: {}", owner, repo, commitHash);
+
+        JSONObject tree = fetchTree(owner, repo, commitHash, true, accessToken);
+        String prefix = "";
+        if (tree.optBoolean("truncated", false)) {
+            logger.warn("Recursive tree for repository: {}/{} is truncated, listing {} on its own", owner, repo, BASE_PATH);
+            String baseTreeSha = resolveSubtreeSha(owner, repo, commitHash, BASE_PATH, accessToken);
+            if (baseTreeSha == null) {
+                logger.warn("No {} directory in repository: {}/{}", BASE_PATH, owner, repo);
+                return new ArrayList<>();
+            }
+            tree = fetchTree(owner, repo, baseTreeSha, true, accessToken);
+            if (tree.optBoolean("truncated", false)) {
+                logger.warn("Tree for {} in repository: {}/{} is truncated, falling back to directory walk", BASE_PATH, owner, repo);
+                return fetchRepositoryFilesFromPath(owner, repo, commitHash, accessToken, BASE_PATH);
+            }
+            prefix = BASE_PATH + "/";
+        }
+
+        List<GitHubFile> javaFiles = new ArrayList<>();
+        JSONArray entries = tree.getJSONArray("tree");
+        for (int i = 0; i < entries.length(); i++) {
+            GitHubFile file = toGitHubFile(entries.getJSONObject(i), prefix);
+            if ("file".equals(file.getType()) && file.getPath().startsWith(BASE_PATH + "/") && file.getPath().endsWith(".java")) {
+                javaFiles.add(file);
+            }
+        }
+
+        if (javaFiles.isEmpty()) {
+            logger.warn("No Java files found in the repository: {}/{}", owner, repo);
+        } else {
+            logger.info("Fetched {} Java files from repository: {}/{}", javaFiles.size(), owner, repo);
+        }
+        return javaFiles;
+    }
+
+    private JSONObject fetchTree(String owner, String repo, String treeSha, boolean recursive, String accessToken) throws Exception {
+        // Requests are made with URI templates, so their latency is recorded per endpoint rather than per URL
+        String url = githubProperties.getApiUrl() + TREE_PATH + (recursive ? "?recursive=1" : "");
+
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                authorizedEntity(accessToken),
+                String.class,
+                owner,
+                repo,
+                treeSha
+            );
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                return new JSONObject(response.getBody());
+            }
+            logger.error("Failed to fetch tree from GitHub API. Status code: {}", response.getStatusCode());
+            throw new Exception("Failed to fetch tree from GitHub API.");
+        } catch (Exception e) {
+            logger.error("Error fetching tree {} for repository: {}/{} - {}", treeSha, owner, repo, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Walks down the given path one non-recursive tree at a time and returns the SHA of the tree it points to, or null if it does not exist.
+     */
+    private String resolveSubtreeSha(String owner, String repo, String rootTreeSha, String path, String accessToken) throws Exception {
+        String treeSha = rootTreeSha;
+        for (String segment : path.split("/")) {
+            JSONArray entries = fetchTree(owner, repo, treeSha, false, accessToken).getJSONArray("tree");
+            String nextSha = null;
+            for (int i = 0; i < entries.length(); i++) {
+                JSONObject entry = entries.getJSONObject(i);
+                if ("tree".equals(entry.optString("type")) && segment.equals(entry.optString("path"))) {
+                    nextSha = entry.getString("sha");
+                    break;
+                }
+            }
+            if (nextSha == null) {
+                return null;
+            }
+            treeSha = nextSha;
+        }
+        return treeSha;
+    }
+
+    /**
+     * Maps a Git Trees API entry onto the same shape the contents API returns.
+     */
+    private GitHubFile toGitHubFile(JSONObject entry, String pathPrefix) {
+        GitHubFile file = new GitHubFile();
+        String path = pathPrefix + entry.getString("path");
+        file.setPath(path);
+        file.setName(path.substring(path.lastIndexOf('/') + 1));
+        file.setSha(entry.optString("sha", null));
+        if (entry.has("size")) {
+            file.setSize(entry.getLong("size"));
+        }
+
+        String mode = entry.optString("mode");
+        if ("120000".equals(mode)) {
+            file.setType("symlink");
+        } else if ("160000".equals(mode)) {
+            file.setType("submodule");
+        } else if ("tree".equals(entry.optString("type"))) {
+            file.setType("dir");
+        } else {
+            file.setType("file");
+        }
+        return file;
+    }
+
+    private HttpEntity<String> authorizedEntity(String accessToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + accessToken);
+        return new HttpEntity<>(headers);
     }
 
-    private List<GitHubFile> fetchRepositoryFilesFromPath(String owner, String repo, String accessToken, String path) throws Exception {
+    /**
+     * The contents URL of a path at a commit, or on the default branch if the commit is null. A URI template variable would
+     * encode the slashes of the path, so the URL is built and the path encoded as a path, which keeps them; these requests are
+     * recorded without the URI template of the endpoint.
+     */
+    private URI contentsUri(String owner, String repo, String ref, String path) {
+        return UriComponentsBuilder.fromHttpUrl(githubProperties.getApiUrl())
+            .path(CONTENTS_PATH)
+            .queryParamIfPresent("ref", Optional.ofNullable(ref))
+            .buildAndExpand(owner, repo, path)
+            .encode()
+            .toUri();
+    }
+
+    private List<GitHubFile> fetchRepositoryFilesFromPath(String owner, String repo, String ref, String accessToken, String path)
+        throws Exception {
         logger.info("Fetching Java files for repository: {}/{} at path: {}", owner, repo, path);
 
-        String url = UriComponentsBuilder.fromUriString(GITHUB_API_URL)
-            .buildAndExpand(owner, repo, path) // Expanding placeholders
-            .toUriString();
+        URI url = contentsUri(owner, repo, ref, path);
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", "Bearer " + accessToken);
@@ -70,7 +243,7 @@ public class GithubService {
                         if (file.getType().equals("dir")) {
                             // Recursively fetch files from subdirectories
                             try {
-                                return fetchRepositoryFilesFromPath(owner, repo, accessToken, file.getPath()).stream();
+                                return fetchRepositoryFilesFromPath(owner, repo, ref, accessToken, file.getPath()).stream();
                             } catch (Exception e) {
                                 logger.error("Error fetching files from directory: {}", file.getPath());
                                 return Stream.empty(); // Return an empty stream if there is an error
@@ -105,14 +278,14 @@ public class GithubService {
     public String fetchLatestCommitHash(String owner, String repo, String accessToken) throws Exception {
         logger.info("Fetching latest commit hash for repository: {}/{}", owner, repo);
 
-        String url = String.format("https://api.github.com/repos/%s/%s/commits", owner, repo);
+        String url = githubProperties.getApiUrl() + COMMITS_PATH;
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", "Bearer " + accessToken);
         HttpEntity<String> request = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, request, String.class);
+            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, request, String.class, owner, repo);
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 JSONArray commits = new JSONArray(response.getBody());
@@ -133,22 +306,31 @@ public class GithubService {
     }
 
     public RepositoryMetadata fetchRepositoryMetadata(String owner, String repo, String accessToken) throws Exception {
+        return fetchRepositoryMetadata(owner, repo, null, accessToken);
+    }
+
+    /**
+     * Fetch the metadata of a repository whose head commit is already known, with a single request.
+     *
+     * @param commitHash the head commit of the default branch, or null to fetch it too.
+     */
+    public RepositoryMetadata fetchRepositoryMetadata(String owner, String repo, String commitHash, String accessToken) throws Exception {
         logger.info("Fetching metadata for repository: {}/{}", owner, repo);
 
-        String url = String.format("https://api.github.com/repos/%s/%s", owner, repo);
+        String url = githubProperties.getApiUrl() + REPOSITORY_PATH;
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", "Bearer " + accessToken);
         HttpEntity<String> request = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, request, String.class);
+            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, request, String.class, owner, repo);
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 JSONObject json = new JSONObject(response.getBody());
 
                 String description = json.optString("description", "No description available");
-                String latestCommitHash = fetchLatestCommitHash(owner, repo, accessToken);
+                String latestCommitHash = commitHash != null ? commitHash : fetchLatestCommitHash(owner, repo, accessToken);
                 String defaultBranch = json.optString("default_branch", "main");
 
                 RepositoryMetadata metadata = new RepositoryMetadata(owner, repo, description, latestCommitHash, defaultBranch);
@@ -164,11 +346,159 @@ public class GithubService {
         }
     }
 
-    // Fetch content of a file
-    public String fetchFileContent(String owner, String repo, String filePath, String accessToken) throws Exception {
-        logger.info("Fetching file content for file: {} in repository: {}/{}", filePath, owner, repo);
+    /**
+     * List the Java files under {@code src/main/java} changed between two commits.
+     *
+     * @param owner       GitHub repository owner.
+     * @param repo        GitHub repository name.
+     * @param baseCommit  Commit the stored documentation was generated from.
+     * @param headCommit  New commit.
+     * @param accessToken Personal access token for GitHub API.
+     * @return the changed Java files, or empty if the head does not descend from the base (e.g. after a force push) or the
+     * comparison is too large for GitHub to list every file, in which case the repository has to be processed in full.
+     */
+    public Optional<List<GitHubFileChange>> fetchChangedFiles(
+        String owner,
+        String repo,
+        String baseCommit,
+        String headCommit,
+        String accessToken
+    ) throws Exception {
+        logger.info("Comparing repository: {}/{} from commit: {} to commit: {}", owner, repo, baseCommit, headCommit);
+
+        String url = githubProperties.getApiUrl() + COMPARE_PATH;
+
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                authorizedEntity(accessToken),
+                String.class,
+                owner,
+                repo,
+                baseCommit,
+                headCommit
+            );
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                logger.error("Failed to compare commits from GitHub API. Status code: {}", response.getStatusCode());
+                throw new Exception("Failed to compare commits from GitHub API.");
+            }
+
+            JSONObject comparison = new JSONObject(response.getBody());
+            String status = comparison.optString("status");
+            if (!"ahead".equals(status) && !"identical".equals(status)) {
+                logger.info("Commit {} is {} of {} in repository: {}/{}, comparison not usable", headCommit, status, baseCommit, owner, repo);
+                return Optional.empty();
+            }
+            JSONArray files = comparison.optJSONArray("files");
+            if (files == null) {
+                return Optional.of(new ArrayList<>());
+            }
+            if (files.length() >= COMPARE_FILE_LIMIT) {
+                logger.info("Comparison of repository: {}/{} lists {} files, possibly truncated", owner, repo, files.length());
+                return Optional.empty();
+            }
+
+            List<GitHubFileChange> changes = new ArrayList<>();
+            for (int i = 0; i < files.length(); i++) {
+                JSONObject file = files.getJSONObject(i);
+                GitHubFileChange change = new GitHubFileChange(
+                    file.getString("filename"),
+                    file.optString("previous_filename", null),
+                    file.getString("status"),
+                    file.optString("sha", null)
+                );
+                if (isJavaSource(change.getPath()) || isJavaSource(change.getPreviousPath())) {
+                    changes.add(change);
+                }
+            }
+            logger.info("Found {} changed Java files in repository: {}/{}", changes.size(), owner, repo);
+            return Optional.of(changes);
+        } catch (Exception e) {
+            logger.error("Error comparing commits for repository: {}/{} - {}", owner, repo, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * @return true if the path is a Java file under {@code src/main/java}, the only files documentation is generated from.
+     */
+    public static boolean isJavaSource(String path) {
+        return path != null && path.startsWith(BASE_PATH + "/") && path.endsWith(".java");
+    }
+
+    /**
+     * Download the repository archive for a commit and hand every Java file under {@code src/main/java} to the handler.
+     * <p>
+     * The zipball is read straight off the response stream one entry at a time, so only the entry being handled is held in memory
+     * no matter how large the repository is.
+     *
+     * @param owner       GitHub repository owner.
+     * @param repo        GitHub repository name.
+     * @param commitHash  Commit to download.
+     * @param accessToken Personal access token for GitHub API.
+     * @param handler     Receives each Java file path (relative to the repository root) and its content.
+     * @return the number of Java files handed to the handler.
+     */
+    public int streamRepositoryArchive(String owner, String repo, String commitHash, String accessToken, JavaSourceHandler handler)
+        throws Exception {
+        logger.info("Streaming archive for repository: {}/{} at commit: {}", owner, repo, commitHash);
+
+        String url = githubProperties.getApiUrl() + ARCHIVE_PATH;
+
+        try {
+            Integer handled = restTemplate.execute(
+                url,
+                HttpMethod.GET,
+                request -> request.getHeaders().set("Authorization", "Bearer " + accessToken),
+                response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        throw new IllegalStateException("Failed to download archive from GitHub API. Status code: " + response.getStatusCode());
+                    }
+                    return readArchive(response.getBody(), handler);
+                },
+                owner,
+                repo,
+                commitHash
+            );
+            logger.info("Streamed {} Java files from archive of repository: {}/{}", handled, owner, repo);
+            return handled == null ? 0 : handled;
+        } catch (Exception e) {
+            logger.error("Error streaming archive for repository: {}/{} - {}", owner, repo, e.getMessage());
+            throw e;
+        }
+    }
+
+    private int readArchive(InputStream body, JavaSourceHandler handler) throws IOException {
+        int handled = 0;
+        try (ZipInputStream zip = new ZipInputStream(body, StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                // GitHub nests everything under a single "{owner}-{repo}-{sha}/" directory
+                String name = entry.getName();
+                String path = name.substring(name.indexOf('/') + 1);
+                if (entry.isDirectory() || !path.startsWith(BASE_PATH + "/") || !path.endsWith(".java")) {
+                    continue;
+                }
+                String content = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                try {
+                    handler.handle(path, content);
+                } catch (IOException | RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to handle archive entry: " + path, e);
+                }
+                handled++;
+            }
+        }
+        return handled;
+    }
+
+    // Fetch content of a file at a commit
+    public String fetchFileContent(String owner, String repo, String commitHash, String filePath, String accessToken) throws Exception {
+        logger.info("Fetching file content for file: {} in repository: {}/{} at commit: {}", filePath, owner, repo, commitHash);
 
-        String url = GITHUB_API_URL;
+        URI url = contentsUri(owner, repo, commitHash, filePath);
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", "Bearer " + accessToken);
@@ -176,7 +506,7 @@ public class GithubService {
         HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class, owner, repo, filePath);
+            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 try {
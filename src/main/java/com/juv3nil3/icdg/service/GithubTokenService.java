@@ -1,26 +1,137 @@
 package com.juv3nil3.icdg.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * Exchanges Keycloak access tokens for the GitHub tokens Keycloak brokered for their users.
+ * <p>
+ * Brokered tokens are cached by a hash of the Keycloak token until their {@code expires_in}, and loaded once for concurrent callers
+ * with the same token. A token past four fifths of its lifetime is still handed out while a fresh one is fetched in the
+ * background, by a small pool of its own as the request to Keycloak blocks. The cache is published as the {@code cache.*} meters
+ * of {@value #CACHE_NAME}.
+ */
 @Service
 public class GithubTokenService {
 
+    public static final String CACHE_NAME = "githubTokens";
+
+    private static final Logger logger = LoggerFactory.getLogger(GithubTokenService.class);
+
+    // Margin for the time the token takes to reach GitHub
+    private static final Duration EXPIRY_SKEW = Duration.ofSeconds(30);
+
+    private static final int REFRESH_THREADS = 2;
+    // Beyond this, tokens are only refreshed once they expire
+    private static final int MAX_QUEUED_REFRESHES = 100;
+
+    private final RestTemplate restTemplate;
+    private final ApplicationProperties.Github githubProperties;
+    private final ApplicationProperties.TokenCache properties;
+
+    private final Cache<String, BrokeredToken> tokens;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor refreshExecutor;
+
     @Autowired
-    private RestTemplate restTemplate;
+    public GithubTokenService(RestTemplate restTemplate, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.githubProperties = applicationProperties.getGithub();
+        this.properties = applicationProperties.getTokenCache();
+        this.tokens = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxEntries())
+            .expireAfter(new BrokeredTokenExpiry())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokens, CACHE_NAME);
+        this.refreshExecutor = new ThreadPoolExecutor(
+            REFRESH_THREADS,
+            REFRESH_THREADS,
+            1L,
+            TimeUnit.MINUTES,
+            new ArrayBlockingQueue<>(MAX_QUEUED_REFRESHES),
+            new CustomizableThreadFactory("github-token-refresh-")
+        );
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+    }
 
     // Fetch GitHub token from Keycloak
     public String fetchGithubTokenFromKeycloak(String keycloakAccessToken) throws Exception {
-        String url = "http://localhost:9080/realms/jhipster/broker/github/token";
+        if (!properties.isEnabled()) {
+            BrokeredToken token = requestToken(keycloakAccessToken);
+            return token == null ? null : token.accessToken();
+        }
+        String key = sha256(keycloakAccessToken);
+        BrokeredToken token = tokens.get(key, k -> requestToken(keycloakAccessToken));
+        if (token == null) {
+            return null;
+        }
+        if (Instant.now().isAfter(token.refreshAt()) && refreshing.add(key)) {
+            try {
+                refreshExecutor.execute(() -> refresh(key, keycloakAccessToken));
+            } catch (RejectedExecutionException e) {
+                refreshing.remove(key);
+                logger.debug("Too many brokered GitHub tokens being refreshed, keeping the cached one");
+            }
+        }
+        return token.accessToken();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private void refresh(String key, String keycloakAccessToken) {
+        try {
+            BrokeredToken token = requestToken(keycloakAccessToken);
+            if (token != null) {
+                tokens.put(key, token);
+            }
+        } catch (RuntimeException e) {
+            // The cached token stays in use until it expires
+            logger.warn("Could not refresh a brokered GitHub token: {}", e.getMessage());
+        } finally {
+            refreshing.remove(key);
+        }
+    }
 
-        RestTemplate restTemplate = new RestTemplate();
+    /**
+     * Ask Keycloak for the brokered token.
+     *
+     * @return the token, or null if the response has none.
+     */
+    private BrokeredToken requestToken(String keycloakAccessToken) {
         // Set the authorization header with the Keycloak access token
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", "Bearer " + keycloakAccessToken);
@@ -29,30 +140,75 @@ public class GithubTokenService {
         HttpEntity<String> entity = new HttpEntity<>(headers);
 
         // Make the request to Keycloak
-        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+        ResponseEntity<String> response = restTemplate.exchange(githubProperties.getBrokerTokenUrl(), HttpMethod.GET, entity, String.class);
 
         // Get the response body
         String responseBody = response.getBody();
+        if (responseBody == null) {
+            return null;
+        }
 
-        if (responseBody != null) {
+        // The response is URL-encoded, as GitHub returns it
+        Map<String, String> params = new HashMap<>();
+        for (String param : responseBody.split("&")) {
+            int separator = param.indexOf('=');
+            if (separator > 0) {
+                params.put(param.substring(0, separator), URLDecoder.decode(param.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        String accessToken = params.get("access_token");
+        if (accessToken == null || accessToken.isEmpty()) {
+            logger.warn("No access token in the brokered token response");
+            return null;
+        }
+
+        Duration ttl = properties.getDefaultTtl();
+        if (params.containsKey("expires_in")) {
             try {
-                // Decode the URL-encoded response
-                String decodedResponse = URLDecoder.decode(responseBody, StandardCharsets.UTF_8);
-
-                // Now extract the access token from the decoded response
-                String[] params = decodedResponse.split("&");
-                for (String param : params) {
-                    if (param.startsWith("access_token=")) {
-                        // Extract the value after the '=' sign
-                        return param.split("=")[1];
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error decoding response: " + e.getMessage());
+                ttl = Duration.ofSeconds(Long.parseLong(params.get("expires_in"))).minus(EXPIRY_SKEW);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid expires_in in the brokered token response: {}", params.get("expires_in"));
             }
         }
+        if (ttl.isNegative()) {
+            ttl = Duration.ZERO;
+        }
+        Instant now = Instant.now();
+        return new BrokeredToken(accessToken, now.plus(ttl), now.plus(ttl.multipliedBy(4).dividedBy(5)));
+    }
+
+    /**
+     * Hash a token for use as a cache key, so the caches never hold the tokens themselves.
+     */
+    static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A brokered GitHub token, refreshed from {@code refreshAt} and dropped at {@code expiresAt}.
+     */
+    private record BrokeredToken(String accessToken, Instant expiresAt, Instant refreshAt) {}
 
-        // Return null if no access token is found or an error occurs
-        return null;
+    private static class BrokeredTokenExpiry implements Expiry<String, BrokeredToken> {
+
+        @Override
+        public long expireAfterCreate(String key, BrokeredToken token, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, BrokeredToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, BrokeredToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
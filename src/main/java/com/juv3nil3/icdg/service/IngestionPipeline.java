@@ -0,0 +1,394 @@
+package com.juv3nil3.icdg.service;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Staged fetch → parse → persist pipeline for ingesting the Java files of a repository.
+ * <p>
+ * Fetches run on a pool sized to the configured cap on concurrent GitHub requests, parsing runs on its own pool, and each run has
+ * a single persistence stage that writes parsed files in batches, resolving their packages against a {@link PackageTrie} of the
+ * run. The number of files between submission and persistence is bounded, so a producer faster than the database blocks instead
+ * of filling the heap.
+ * <p>
+ * Parse results are looked up in the {@link ParseResultCache} by Git blob SHA first, so a file unchanged since an earlier run is
+ * neither fetched nor parsed.
+ * <p>
+ * A run stores the files of one generation of the repository, see {@link JavaParserService#saveParsedFiles}: files whose blob SHA
+ * is already stored keep their rows, others replace them.
+ */
+@Service
+public class IngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionPipeline.class);
+
+    private static final long PERSIST_POLL_MILLIS = 50;
+
+    private final JavaParserService javaParserService;
+    private final ParseResultCache parseResultCache;
+    private final ApplicationProperties.Ingestion ingestionProperties;
+
+    private final ThreadPoolExecutor fetchExecutor;
+    private final ThreadPoolExecutor parseExecutor;
+    private final ExecutorService persistExecutor;
+
+    private final AtomicInteger persistQueueSize = new AtomicInteger();
+    private final Timer fetchTimer;
+    private final Timer parseTimer;
+    private final Timer persistTimer;
+
+    @Autowired
+    public IngestionPipeline(
+        JavaParserService javaParserService,
+        ParseResultCache parseResultCache,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.javaParserService = javaParserService;
+        this.parseResultCache = parseResultCache;
+        this.ingestionProperties = applicationProperties.getIngestion();
+
+        int parseParallelism = ingestionProperties.getParseParallelism() > 0
+            ? ingestionProperties.getParseParallelism()
+            : Runtime.getRuntime().availableProcessors();
+        this.fetchExecutor = newFixedPool(ingestionProperties.getMaxConcurrentRequests(), "ingestion-fetch-");
+        this.parseExecutor = newFixedPool(parseParallelism, "ingestion-parse-");
+        this.persistExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory("ingestion-persist-"));
+
+        Gauge.builder("ingestion.queue.size", fetchExecutor, executor -> executor.getQueue().size())
+            .tag("stage", "fetch")
+            .description("Files waiting for a GitHub request slot")
+            .register(meterRegistry);
+        Gauge.builder("ingestion.queue.size", parseExecutor, executor -> executor.getQueue().size())
+            .tag("stage", "parse")
+            .description("Files waiting for a parser thread")
+            .register(meterRegistry);
+        Gauge.builder("ingestion.queue.size", persistQueueSize, AtomicInteger::get)
+            .tag("stage", "persist")
+            .description("Parsed files waiting to be written")
+            .register(meterRegistry);
+        this.fetchTimer = stageTimer(meterRegistry, "fetch");
+        this.parseTimer = stageTimer(meterRegistry, "parse");
+        this.persistTimer = stageTimer(meterRegistry, "persist");
+    }
+
+    /**
+     * Start ingesting files for a repository. Submit every file to the returned run, then call {@link Run#awaitCompletion()}.
+     *
+     * @param owner    GitHub repository owner.
+     * @param repoName GitHub repository name.
+     * @return the run to submit files to.
+     */
+    public Run start(String owner, String repoName) {
+        return start(owner, repoName, new GenerationProgress());
+    }
+
+    /**
+     * Start ingesting files for the next generation of a repository, counting them in the given progress as they pass through
+     * each stage.
+     *
+     * @param owner    GitHub repository owner.
+     * @param repoName GitHub repository name.
+     * @param progress the progress to report to.
+     * @return the run to submit files to.
+     */
+    public Run start(String owner, String repoName, GenerationProgress progress) {
+        return start(owner, repoName, javaParserService.beginGeneration(owner, repoName), progress);
+    }
+
+    /**
+     * Start ingesting files for a generation of a repository, counting them in the given progress as they pass through each stage.
+     *
+     * @param owner      GitHub repository owner.
+     * @param repoName   GitHub repository name.
+     * @param generation the generation the files are stored for, from {@link JavaParserService#beginGeneration(String, String)}.
+     * @param progress   the progress to report to.
+     * @return the run to submit files to.
+     */
+    public Run start(String owner, String repoName, long generation, GenerationProgress progress) {
+        return new Run(owner, repoName, generation, progress);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+        parseExecutor.shutdownNow();
+        persistExecutor.shutdownNow();
+    }
+
+    private static ThreadPoolExecutor newFixedPool(int threads, String threadNamePrefix) {
+        return new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            new CustomizableThreadFactory(threadNamePrefix)
+        );
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("ingestion.stage.duration")
+            .tag("stage", stage)
+            .description("Time spent per file in a stage")
+            .register(meterRegistry);
+    }
+
+    /**
+     * A single ingestion of one repository.
+     */
+    public class Run implements AutoCloseable {
+
+        private final String owner;
+        private final String repoName;
+        private final long generation;
+        private final GenerationProgress progress;
+        // The fetch threads send the requests of the run at the priority it was started with
+        private final GithubRequestScheduler.Priority priority = GithubRequestScheduler.currentPriority();
+        private final Semaphore inFlight = new Semaphore(ingestionProperties.getMaxInFlightFiles());
+        private final BlockingQueue<ParsedJavaFile> parsed = new LinkedBlockingQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        // Written by the persistence stage only, read once it is done
+        private final Set<String> persistedPaths = new HashSet<>();
+        private final Future<?> persister;
+        private volatile boolean finished;
+
+        private Run(String owner, String repoName, long generation, GenerationProgress progress) {
+            this.owner = owner;
+            this.repoName = repoName;
+            this.generation = generation;
+            this.progress = progress;
+            this.persister = persistExecutor.submit(this::persistLoop);
+        }
+
+        /**
+         * Fetch a file with a GitHub request slot, then parse and persist it. Both the fetch and the parse are skipped when the
+         * parse result of the blob is cached.
+         *
+         * @param blobSha Git blob SHA of the file as listed, or null if unknown.
+         */
+        public void submitFetch(String filePath, String blobSha, Callable<String> fetcher) throws Exception {
+            admit();
+            if (blobSha != null) {
+                Optional<ParsedJavaFile> cached = parseResultCache.get(blobSha, owner, repoName, filePath);
+                if (cached.isPresent()) {
+                    progress.fetched();
+                    progress.parsed();
+                    enqueue(cached.orElseThrow(), blobSha);
+                    return;
+                }
+            }
+            fetchExecutor.execute(() -> {
+                if (failure.get() != null) {
+                    discard();
+                    return;
+                }
+                try {
+                    String content = fetchTimer.recordCallable(() -> GithubRequestScheduler.withPriority(priority, fetcher));
+                    progress.fetched();
+                    parse(filePath, blobSha, content);
+                } catch (Exception e) {
+                    fail(e);
+                    discard();
+                }
+            });
+        }
+
+        /**
+         * Parse and persist a file whose content is already available.
+         */
+        public void submitParse(String filePath, String content) throws Exception {
+            admit();
+            progress.fetched();
+            parse(filePath, null, content);
+        }
+
+        /**
+         * Wait until every submitted file has been persisted.
+         *
+         * @throws Exception the first failure of any stage, in which case remaining files are skipped.
+         */
+        public void awaitCompletion() throws Exception {
+            finished = true;
+            progress.submissionCompleted();
+            try {
+                persister.get();
+            } catch (ExecutionException e) {
+                fail(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+            }
+            Exception error = failure.get();
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        /**
+         * Retire the stored files of the repository this run did not persist, for a run that was submitted every file of the
+         * repository. Call once {@link #awaitCompletion()} has returned.
+         *
+         * @return the number of files retired.
+         */
+        public int retireOtherFiles() {
+            return javaParserService.retireOtherFiles(owner, repoName, persistedPaths, generation);
+        }
+
+        /**
+         * The generation the files of this run are stored for.
+         */
+        public long getGeneration() {
+            return generation;
+        }
+
+        @Override
+        public void close() {
+            if (!finished) {
+                fail(new IllegalStateException("Ingestion of " + owner + "/" + repoName + " was abandoned"));
+                finished = true;
+            }
+        }
+
+        private void admit() throws Exception {
+            Exception error = failure.get();
+            if (error != null) {
+                throw error;
+            }
+            inFlight.acquire();
+            pending.incrementAndGet();
+            progress.submitted();
+        }
+
+        private void parse(String filePath, String blobSha, String content) {
+            parseExecutor.execute(() -> {
+                if (failure.get() != null) {
+                    discard();
+                    return;
+                }
+                try {
+                    // Archive entries come without a listed SHA, so hash the content and look it up here instead
+                    String sha = ParseResultCache.blobSha(content);
+                    Optional<ParsedJavaFile> cached = blobSha != null
+                        ? Optional.empty()
+                        : parseResultCache.get(sha, owner, repoName, filePath);
+                    if (cached.isPresent()) {
+                        progress.parsed();
+                        enqueue(cached.orElseThrow(), sha);
+                        return;
+                    }
+                    ParsedJavaFile file = parseTimer.recordCallable(() -> javaParserService.parseFile(owner, repoName, filePath, content));
+                    progress.parsed();
+                    if (blobSha == null || blobSha.equals(sha)) {
+                        // Cache before the entities are handed to persistence and get ids and parents
+                        parseResultCache.put(sha, file);
+                    } else {
+                        // Fetched from another commit than the one listed, so the parse is stored for the blob it was made of
+                        logger.warn(
+                            "Content of {} in repository {}/{} is blob {}, not the listed {}, not caching its parse",
+                            filePath,
+                            owner,
+                            repoName,
+                            sha,
+                            blobSha
+                        );
+                    }
+                    enqueue(file, sha);
+                } catch (Exception e) {
+                    fail(e);
+                    discard();
+                }
+            });
+        }
+
+        private void enqueue(ParsedJavaFile file, String blobSha) {
+            file.fileData().setBlobSha(blobSha);
+            persistQueueSize.incrementAndGet();
+            parsed.add(file);
+        }
+
+        private void persistLoop() {
+            // Packages of the run are resolved against this trie, only the ones it creates are written
+            PackageTrie packages;
+            try {
+                packages = javaParserService.loadPackages(owner, repoName);
+            } catch (Exception e) {
+                fail(e);
+                packages = null;
+            }
+            List<ParsedJavaFile> batch = new ArrayList<>(ingestionProperties.getPersistBatchSize());
+            while (failure.get() == null) {
+                ParsedJavaFile first;
+                try {
+                    first = parsed.poll(PERSIST_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fail(e);
+                    return;
+                }
+                if (first == null) {
+                    if (finished && pending.get() == 0) {
+                        return;
+                    }
+                    continue;
+                }
+
+                batch.add(first);
+                parsed.drainTo(batch, ingestionProperties.getPersistBatchSize() - 1);
+                persistQueueSize.addAndGet(-batch.size());
+                try {
+                    long start = System.nanoTime();
+                    javaParserService.saveParsedFiles(packages, batch, generation);
+                    batch.forEach(file -> persistedPaths.add(file.fileData().getFilePath()));
+                    persistTimer.record((System.nanoTime() - start) / batch.size(), TimeUnit.NANOSECONDS);
+                    progress.persisted(batch.size());
+                } catch (Exception e) {
+                    fail(e);
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    discard();
+                }
+                batch.clear();
+            }
+            // Release whatever was parsed after the failure so blocked producers can observe it
+            List<ParsedJavaFile> abandoned = new ArrayList<>();
+            parsed.drainTo(abandoned);
+            persistQueueSize.addAndGet(-abandoned.size());
+            abandoned.forEach(file -> discard());
+        }
+
+        private void discard() {
+            pending.decrementAndGet();
+            inFlight.release();
+        }
+
+        private void fail(Exception e) {
+            if (failure.compareAndSet(null, e)) {
+                logger.error("Ingestion of repository {}/{} failed: {}", owner, repoName, e.getMessage());
+            }
+        }
+    }
+}
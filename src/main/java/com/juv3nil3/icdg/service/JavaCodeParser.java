@@ -2,11 +2,16 @@ package com.juv3nil3.icdg.service;
 
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.Provider;
+import com.github.javaparser.Providers;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.nodeTypes.NodeWithAnnotations;
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.config.ApplicationProperties.Ingestion.ParseMode;
 import com.juv3nil3.icdg.domain.*;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -14,59 +19,112 @@ import java.util.List;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+/**
+ * Extracts the classes of a Java file with their annotations, comments, fields and methods.
+ * <p>
+ * In {@link ParseMode#DECLARATIONS} mode, the bodies of methods, constructors and initializers are emptied by the
+ * {@link BodyStripper} before parsing, so only the declarations are built into an AST. A file the stripped source does not parse
+ * cleanly for is parsed again in full.
+ * <p>
+ * {@link JavaParser} instances are not thread-safe but can parse any number of files in turn, so each thread parsing with this
+ * bean gets its own, created on its first file and reused for the next ones.
+ */
 @Service
 public class JavaCodeParser {
 
     private static final Logger logger = LoggerFactory.getLogger(JavaCodeParser.class);
 
+    private final ParseMode mode;
+    private final ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(JavaParser::new);
+
+    @Autowired
+    public JavaCodeParser(ApplicationProperties applicationProperties) {
+        this(applicationProperties.getIngestion().getParseMode());
+    }
+
+    public JavaCodeParser(ParseMode mode) {
+        this.mode = mode;
+    }
+
     /**
      * Parses a Java file and extracts class, method, annotation, and comment details.
      *
-     * @param inputStream The Java file to parse.
+     * @param inputStream The Java file to parse, read as UTF-8.
      * @return A ParsedFile object containing structured data.
      * @throws Exception if the file cannot be parsed.
      */
     public FileData parseJavaFile(InputStream inputStream) throws Exception {
-        logger.info("Starting Java file parsing...");
+        if (mode == ParseMode.DECLARATIONS) {
+            // The bodies are stripped from the whole text
+            return parseJavaFile(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        return parseJavaFile(Providers.provider(inputStream, StandardCharsets.UTF_8), null);
+    }
+
+    /**
+     * Parses the content of a Java file and extracts class, method, annotation, and comment details.
+     *
+     * @param content The content of the Java file.
+     * @return A ParsedFile object containing structured data.
+     * @throws Exception if the file cannot be parsed.
+     */
+    public FileData parseJavaFile(String content) throws Exception {
+        return parseJavaFile(Providers.provider(content), content);
+    }
+
+    /**
+     * @param provider The Java file to parse.
+     * @param content  The content read by the provider, or null if it is only available through the provider.
+     */
+    private FileData parseJavaFile(Provider provider, String content) throws Exception {
+        logger.debug("Starting Java file parsing...");
 
         // Initialize FileData object
         FileData fileData = new FileData();
 
         try {
             // Parse the Java file content using JavaParser
-            CompilationUnit compilationUnit = parseCompilationUnit(inputStream);
+            CompilationUnit compilationUnit = parseCompilationUnit(provider, content);
             logger.debug("Parsed CompilationUnit successfully.");
 
             // Extract class data and populate FileData
             extractClassData(compilationUnit, fileData);
-            logger.info("Finished extracting class data.");
+            logger.debug("Finished extracting class data.");
 
         } catch (Exception e) {
             logger.error("Error during Java file parsing: {}", e.getMessage(), e);
             throw e;
         }
 
-        logger.info("Java file parsing completed.");
+        logger.debug("Java file parsing completed.");
         return fileData;
     }
 
     /**
-     * Parses the input stream into a CompilationUnit.
+     * Parses Java source code into a CompilationUnit with the parser of the calling thread.
      *
-     * @param inputStream Input stream containing Java source code.
+     * @param provider Provider of the Java source code.
+     * @param content  The Java source code, or null if it is only available through the provider.
      * @return CompilationUnit representing the parsed Java source.
      * @throws Exception If parsing fails.
      */
-    private CompilationUnit parseCompilationUnit(InputStream inputStream) throws Exception {
-        logger.debug("Parsing input stream into CompilationUnit...");
-        JavaParser parser = new JavaParser();
-
-        String content = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-        logger.debug("Java file content read successfully.");
+    private CompilationUnit parseCompilationUnit(Provider provider, String content) throws Exception {
+        logger.debug("Parsing Java source into CompilationUnit...");
+        JavaParser parser = parsers.get();
+
+        if (mode == ParseMode.DECLARATIONS && content != null) {
+            ParseResult<CompilationUnit> declarations = parser.parse(BodyStripper.strip(content));
+            if (declarations.isSuccessful() && declarations.getResult().isPresent()) {
+                return declarations.getResult().get();
+            }
+            logger.debug("Declarations did not parse cleanly, parsing the whole file");
+            provider = Providers.provider(content);
+        }
 
-        ParseResult<CompilationUnit> parseResult = parser.parse(content);
+        ParseResult<CompilationUnit> parseResult = parser.parse(ParseStart.COMPILATION_UNIT, provider);
         if (!parseResult.isSuccessful()) {
             logger.warn("ParseResult contains errors: {}", parseResult.getProblems());
         }
@@ -2,135 +2,214 @@ package com.juv3nil3.icdg.service;
 
 import com.juv3nil3.icdg.domain.*;
 import com.juv3nil3.icdg.repository.*;
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import com.juv3nil3.icdg.repository.FileDataBatchRepository.StoredFile;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @Transactional
 public class JavaParserService {
 
-    private final FileDataRepository fileDataRepository;
+    private final FileDataBatchRepository fileDataBatchRepository;
 
-    private final ClassDataRepository classDataRepository;
-
-    private final MethodDataRepository methodDataRepository;
-
-    private final PackageDataRepository packageDataRepository;
-
-    private final FieldDataRepository fieldDataRepository;
+    private final DocumentationSnapshotRepository snapshotRepository;
 
     private final JavaCodeParser javaCodeParser;
 
+    private final SymbolSearchService symbolSearchService;
+
     private static final Logger logger = LoggerFactory.getLogger(JavaParserService.class);
 
     @Autowired
     public JavaParserService(
-        FileDataRepository fileDataRepository,
-        ClassDataRepository classDataRepository,
-        MethodDataRepository methodDataRepository,
-        PackageDataRepository packageDataRepository,
-        FieldDataRepository fieldDataRepository
+        FileDataBatchRepository fileDataBatchRepository,
+        DocumentationSnapshotRepository snapshotRepository,
+        JavaCodeParser javaCodeParser,
+        SymbolSearchService symbolSearchService
     ) {
-        this.fileDataRepository = fileDataRepository;
-        this.classDataRepository = classDataRepository;
-        this.methodDataRepository = methodDataRepository;
-        this.packageDataRepository = packageDataRepository;
-        this.fieldDataRepository = fieldDataRepository;
-        this.javaCodeParser = new JavaCodeParser();
+        this.fileDataBatchRepository = fileDataBatchRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.javaCodeParser = javaCodeParser;
+        this.symbolSearchService = symbolSearchService;
+    }
+
+    public void parseAndSaveFileFromContent(String owner, String repoName, String filePath, String content) throws Exception {
+        saveParsedFiles(
+            loadPackages(owner, repoName),
+            List.of(parseFile(owner, repoName, filePath, content)),
+            beginGeneration(owner, repoName)
+        );
+    }
+
+    /**
+     * Begins the generation the next files stored for a repository belong to, see {@link DocumentationSnapshotRepository}. The rows
+     * an earlier attempt at the same generation wrote before failing are discarded first, so the generation only holds its own.
+     *
+     * @param owner    The owner of the repository.
+     * @param repoName The name of the repository.
+     * @return The generation following the latest snapshot of the repository.
+     */
+    public long beginGeneration(String owner, String repoName) {
+        long generation = snapshotRepository.nextGeneration(owner, repoName);
+        int discarded = fileDataBatchRepository.discardGeneration(owner, repoName, generation);
+        if (discarded > 0) {
+            symbolSearchService.invalidate(owner, repoName);
+            logger.info("Discarded {} rows of failed generation {} of repository {}/{}", discarded, generation, owner, repoName);
+        }
+        return generation;
     }
 
-    public void parseAndSaveFileFromContent(String repoName, String filePath, String content) throws Exception {
+    /**
+     * Ends a generation once its snapshot is saved, the symbol index taking it as its own if it held the previous one.
+     *
+     * @param owner      The owner of the repository.
+     * @param repoName   The name of the repository.
+     * @param generation The generation saved, from {@link #beginGeneration(String, String)}.
+     */
+    public void endGeneration(String owner, String repoName, long generation) {
+        symbolSearchService.generationSaved(owner, repoName, generation);
+    }
+
+    /**
+     * Parses a Java file without touching the database, so it can run on any thread.
+     *
+     * @param owner    The owner of the repository.
+     * @param repoName The name of the repository.
+     * @param filePath The path of the file in the repository.
+     * @param content  The content of the Java file.
+     * @return The parsed file, ready to be handed to {@link #saveParsedFiles(PackageTrie, List, long)}.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ParsedJavaFile parseFile(String owner, String repoName, String filePath, String content) throws Exception {
         // Extract package name from the file content
         String packageName = extractPackageName(content);
 
-        // Fetch or create the package in the database
-        PackageData packageData = getOrCreatePackage(repoName, packageName);
-
-        try (InputStream inputStream = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))) {
+        try {
             // Parse the Java file content
-            FileData fileData = javaCodeParser.parseJavaFile(inputStream);
+            FileData fileData = javaCodeParser.parseJavaFile(content);
 
             // Populate file metadata
+            fileData.setOwner(owner);
             fileData.setRepoName(repoName);
             fileData.setFilePath(filePath);
-            fileData.setPackageData(packageData);
-
-            // Save the FileData and related entities
-            saveFileData(fileData);
+            fileData.setFileName(filePath.substring(filePath.lastIndexOf('/') + 1));
+            return new ParsedJavaFile(packageName, fileData);
         } catch (Exception e) {
-            logger.error("Error parsing and saving file: repoName={}, filePath={}", repoName, filePath, e);
+            logger.error("Error parsing file: owner={}, repoName={}, filePath={}", owner, repoName, filePath, e);
             throw e;
         }
     }
 
     /**
-     * Saves the parsed FileData, including its associated classes, fields, and methods.
+     * Loads the package hierarchy of a repository, for resolving the packages of the files of an ingestion run.
      *
-     * @param fileData The parsed FileData to save.
+     * @param owner    The owner of the repository.
+     * @param repoName The name of the repository.
+     * @return The stored packages of the repository.
      */
-    private void saveFileData(FileData fileData) {
-        logger.info("Saving FileData: {}", fileData);
-
-        FileData savedFileData = fileDataRepository.save(fileData);
-        logger.info("Filedata saved: {}", savedFileData.getId());
-
-        for (ClassData parsedClass : fileData.getClasses()) {
-            // Ensure the association with FileData is set before saving
-            parsedClass.setFileData(savedFileData);
-            logger.info("Saving ClassData: {}", parsedClass);
-
-            ClassData savedClassData = classDataRepository.save(parsedClass);
-            logger.info("ClassData saved: {}", savedClassData.getId());
+    @Transactional(readOnly = true)
+    public PackageTrie loadPackages(String owner, String repoName) {
+        if (owner == null || owner.isBlank()) {
+            throw new IllegalArgumentException("Repository owner cannot be null or blank");
+        }
+        if (repoName == null || repoName.isBlank()) {
+            throw new IllegalArgumentException("Repository name cannot be null or blank");
+        }
+        return new PackageTrie(owner, repoName, fileDataBatchRepository.findPackageIds(owner, repoName));
+    }
 
-            // Check if ClassData ID is set properly
-            if (savedClassData.getId() == null) {
-                logger.error("ClassData ID is null for class: {}", parsedClass.getName());
-                // Handle the situation where the class ID is not generated
+    /**
+     * Saves a batch of parsed files in one transaction, creating their packages as needed.
+     * <p>
+     * A file whose stored row in the latest generation has the same blob SHA is unchanged and keeps that row, shared with the
+     * earlier snapshots. Any other stored row at the path of a file is retired in favour of the new one.
+     * <p>
+     * The packages created for the batch are written in one JDBC batch, then the files and everything they contain with one JDBC
+     * batch per table rather than one repository save per entity. The symbols of the files are indexed for search once the batch
+     * commits.
+     *
+     * @param packages   The package hierarchy of the repository, from {@link #loadPackages(String, String)}.
+     * @param files      The parsed files to save.
+     * @param generation The generation the files are saved for, from {@link #beginGeneration(String, String)}.
+     */
+    public void saveParsedFiles(PackageTrie packages, List<ParsedJavaFile> files, long generation) {
+        Map<String, StoredFile> storedFiles = fileDataBatchRepository.findCurrentFiles(
+            packages.getOwner(),
+            packages.getRepoName(),
+            files.stream().map(file -> file.fileData().getFilePath()).toList()
+        );
+        List<FileData> fileData = new ArrayList<>(files.size());
+        List<Long> replacedIds = new ArrayList<>();
+        for (ParsedJavaFile file : files) {
+            StoredFile stored = storedFiles.get(file.fileData().getFilePath());
+            if (stored != null && stored.blobSha() != null && stored.blobSha().equals(file.fileData().getBlobSha())) {
+                continue;
             }
-
-            saveMethodData(parsedClass.getMethods(),savedClassData);
-            saveFieldData(parsedClass.getFields(),savedClassData);
+            if (stored != null) {
+                replacedIds.add(stored.id());
+            }
+            file.fileData().setPackageData(packages.resolve(file.packageName()));
+            fileData.add(file.fileData());
         }
-    }
 
+        int replaced = fileDataBatchRepository.retireFiles(replacedIds, generation);
+        int packageRows = fileDataBatchRepository.insertPackages(packages.drainCreated(), generation);
+        int rows = fileDataBatchRepository.insertAll(fileData, generation);
+        symbolSearchService.indexFiles(packages.getOwner(), packages.getRepoName(), fileData);
+        logger.info(
+            "Saved {} files of repository {}/{} in {} rows, {} new packages, {} files replaced, {} unchanged",
+            fileData.size(),
+            packages.getOwner(),
+            packages.getRepoName(),
+            rows,
+            packageRows,
+            replaced,
+            files.size() - fileData.size()
+        );
+    }
 
     /**
-     * Saves FieldData to the database.
+     * Retires the given files of a repository from a generation on, keeping them for the snapshots of earlier generations.
      *
-     * @param fields      The list of FieldData to save.
-     * @param classData   The associated ClassData.
+     * @param owner      The owner of the repository.
+     * @param repoName   The name of the repository.
+     * @param filePaths  The paths of the files removed or replaced.
+     * @param generation The generation removing or replacing them.
+     * @return The number of files retired.
      */
-    private void saveFieldData(List<FieldData> fields, ClassData classData) {
-        for (FieldData field : fields) {
-            // Ensure classData is set for each FieldData
-            field.setClassData(classData);
-            logger.debug("Saving FieldData: {} for ClassData ID: {}", field.getName(), classData.getId());
-            fieldDataRepository.save(field);
-        }
+    public int retireFiles(String owner, String repoName, Collection<String> filePaths, long generation) {
+        int retired = fileDataBatchRepository.retireFiles(owner, repoName, filePaths, generation);
+        symbolSearchService.removeFiles(owner, repoName, filePaths);
+        logger.info("Retired {} files", retired);
+        return retired;
     }
 
     /**
-     * Saves MethodData to the database.
+     * Retires every file of a repository but the given ones from a generation on, once the generation has processed the whole
+     * repository.
      *
-     * @param methods     The list of MethodData to save.
-     * @param classData   The associated ClassData.
+     * @param owner      The owner of the repository.
+     * @param repoName   The name of the repository.
+     * @param keptPaths  The paths of the files of the generation.
+     * @param generation The generation removing the others.
+     * @return The number of files retired.
      */
-    private void saveMethodData(List<MethodData> methods, ClassData classData) {
-        for (MethodData method : methods) {
-            // Ensure classData is set for each MethodData
-            method.setClassData(classData);
-            logger.debug("Saving MethodData: {} for ClassData ID: {}", method.getName(), classData.getId());
-            methodDataRepository.save(method);
-        }
+    public int retireOtherFiles(String owner, String repoName, Set<String> keptPaths, long generation) {
+        List<String> retired = fileDataBatchRepository.retireOtherFiles(owner, repoName, keptPaths, generation);
+        symbolSearchService.removeFiles(owner, repoName, retired);
+        logger.info("Retired {} files", retired.size());
+        return retired.size();
     }
 
     /**
@@ -155,68 +234,4 @@ public class JavaParserService {
 
         return "default"; // Default package if no package declaration found
     }
-
-    /**
-     * Retrieves or creates a PackageData entity in the database.
-     *
-     * @param repoName    The name of the repository.
-     * @param packageName The name of the package.
-     * @return The existing or newly created PackageData.
-     */
-    private synchronized PackageData getOrCreatePackage(String repoName, String packageName) {
-        // Validate input parameters
-        if (repoName == null || repoName.isBlank()) {
-            throw new IllegalArgumentException("Repository name cannot be null or blank");
-        }
-
-        // Avoid reassigning the input parameter, use a new variable instead
-        String effectivePackageName = (packageName == null || packageName.isBlank()) ? "default" : packageName;
-
-        // Check for existing package scoped by repoName
-        PackageData existingPackage = packageDataRepository.findByRepoNameAndPackageName(repoName, effectivePackageName);
-        if (existingPackage != null) {
-            return existingPackage;
-        }
-
-        // Extract the parent package name if available
-        String parentPackageName = extractParentPackage(effectivePackageName);
-
-        // Create the parent package if it exists and set the parent package
-        PackageData parentPackage = null;
-        if (parentPackageName != null) {
-            parentPackage = getOrCreatePackage(repoName, parentPackageName); // Call recursively to get or create parent package
-        }
-
-        // Create and save the current package
-        PackageData newPackage = new PackageData();
-        newPackage.setRepoName(repoName);
-        newPackage.setPackageName(effectivePackageName);
-
-        // Set the parent package if available
-        if (parentPackage != null) {
-            newPackage.setParentPackage(parentPackage);
-        }
-
-        return packageDataRepository.save(newPackage);
-    }
-
-    private String extractParentPackage(String packageName) {
-        // Split the package name by '.'
-        String[] packageParts = packageName.split("\\.");
-
-        // If the package has more than one part, return the parent (all but the last part)
-        if (packageParts.length > 1) {
-            StringBuilder parentPackage = new StringBuilder();
-            for (int i = 0; i < packageParts.length - 1; i++) {
-                if (i > 0) {
-                    parentPackage.append(".");
-                }
-                parentPackage.append(packageParts[i]);
-            }
-            return parentPackage.toString();
-        }
-
-        // If there's no parent (it's a top-level package), return null or "default"
-        return null; // or "default" if you want to return a default package name
-    }
 }
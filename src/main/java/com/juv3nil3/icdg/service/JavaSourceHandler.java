@@ -0,0 +1,14 @@
+package com.juv3nil3.icdg.service;
+
+/**
+ * Callback receiving the Java sources of a repository one file at a time, as they are read from their source.
+ */
+@FunctionalInterface
+public interface JavaSourceHandler {
+    /**
+     * @param filePath path of the file relative to the repository root.
+     * @param content  the decoded file content.
+     * @throws Exception if the file cannot be handled; this aborts the remaining entries.
+     */
+    void handle(String filePath, String content) throws Exception;
+}
@@ -0,0 +1,340 @@
+package com.juv3nil3.icdg.service;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.GitHubFileChange;
+import com.juv3nil3.icdg.domain.RepositoryMetadata;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads repositories from the local filesystem, for builds that already have them checked out.
+ * <p>
+ * A repository is looked up as {@code {local-root}/{owner}/{repo}}, either a plain directory or a working tree that is walked as
+ * is, or as {@code {local-root}/{owner}/{repo}.git}, a bare repository read at {@code local-ref} with the {@code git} command.
+ * Files of a directory are memory-mapped and keyed by their Git blob SHA, so the parse cache is shared with the other sources,
+ * and the directory stands at a commit named after a fingerprint of the paths, sizes and modification times of its Java files.
+ * Changed files can only be listed between two commits of a bare repository, directories are always processed in full.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.ingestion", name = "source", havingValue = "local")
+public class LocalRepositorySource implements RepositorySource {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalRepositorySource.class);
+
+    private static final String BASE_PATH = "src/main/java";
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_.-]+");
+
+    private final Path root;
+    private final String ref;
+
+    @Autowired
+    public LocalRepositorySource(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Ingestion properties = applicationProperties.getIngestion();
+        this.root = Paths.get(properties.getLocalRoot()).toAbsolutePath().normalize();
+        this.ref = properties.getLocalRef();
+    }
+
+    @Override
+    public String resolveCommit(String owner, String repo, String accessToken) throws Exception {
+        Location location = locate(owner, repo);
+        if (location.bare()) {
+            return git(location.path(), "rev-parse", "--verify", ref + "^{commit}").trim();
+        }
+        return fingerprint(location.path());
+    }
+
+    @Override
+    public RepositoryMetadata fetchMetadata(String owner, String repo, String commitHash, String accessToken) throws Exception {
+        Location location = locate(owner, repo);
+        String defaultBranch = null;
+        if (location.bare()) {
+            try {
+                defaultBranch = git(location.path(), "symbolic-ref", "--short", "HEAD").trim();
+            } catch (IOException e) {
+                logger.debug("Repository: {}/{} has a detached HEAD", owner, repo);
+            }
+        }
+        return new RepositoryMetadata(owner, repo, null, commitHash, defaultBranch);
+    }
+
+    @Override
+    public Optional<List<GitHubFileChange>> fetchChangedFiles(
+        String owner,
+        String repo,
+        String baseCommit,
+        String headCommit,
+        String accessToken
+    ) throws Exception {
+        Location location = locate(owner, repo);
+        if (!location.bare()) {
+            return Optional.empty();
+        }
+        String diff;
+        try {
+            diff = git(location.path(), "diff-tree", "-r", "-M", "-z", "--no-commit-id", "--raw", baseCommit, headCommit);
+        } catch (IOException e) {
+            // The base commit may not be in this repository, as when it was generated from another source
+            logger.info("Unable to compare commits of repository: {}/{} - {}", owner, repo, e.getMessage());
+            return Optional.empty();
+        }
+
+        // Each change is ":<modes> <old sha> <new sha> <status>" followed by its path, or by both paths for a rename or copy
+        List<GitHubFileChange> changes = new ArrayList<>();
+        String[] fields = diff.split("\0");
+        for (int i = 0; i + 1 < fields.length; i++) {
+            String[] header = fields[i].split(" ");
+            char status = header[4].charAt(0);
+            String newSha = header[3].matches("0+") ? null : header[3];
+            GitHubFileChange change;
+            if (status == 'R' || status == 'C') {
+                boolean renamed = status == 'R';
+                change = new GitHubFileChange(fields[i + 2], renamed ? fields[i + 1] : null, renamed ? "renamed" : "copied", newSha);
+                i += 2;
+            } else {
+                String changeStatus = status == 'A' ? "added" : status == 'D' ? "removed" : "modified";
+                change = new GitHubFileChange(fields[i + 1], null, changeStatus, newSha);
+                i += 1;
+            }
+            if (GithubService.isJavaSource(change.getPath()) || GithubService.isJavaSource(change.getPreviousPath())) {
+                changes.add(change);
+            }
+        }
+        logger.info("Found {} changed Java files in repository: {}/{}", changes.size(), owner, repo);
+        return Optional.of(changes);
+    }
+
+    @Override
+    public String fetchFileContent(String owner, String repo, String commitHash, String filePath, String accessToken) throws Exception {
+        Location location = locate(owner, repo);
+        if (location.bare()) {
+            return git(location.path(), "cat-file", "blob", commitHash + ":" + filePath);
+        }
+        Path file = location.path().resolve(filePath).normalize();
+        if (!file.startsWith(location.path())) {
+            throw new IllegalArgumentException("Invalid file path: " + filePath);
+        }
+        return Files.readString(file);
+    }
+
+    @Override
+    public void submitFiles(
+        String owner,
+        String repo,
+        String commitHash,
+        String accessToken,
+        IngestionPipeline.Run run,
+        GenerationProgress progress
+    ) throws Exception {
+        Location location = locate(owner, repo);
+        if (location.bare()) {
+            submitCommitFiles(location.path(), commitHash, run, progress);
+        } else {
+            submitDirectoryFiles(location.path(), run, progress);
+        }
+    }
+
+    /**
+     * Submit the Java files of a directory, each mapped into memory once to compute its blob SHA and, unless the parse is cached,
+     * decoded from the same mapping on a fetch thread.
+     */
+    private void submitDirectoryFiles(Path directory, IngestionPipeline.Run run, GenerationProgress progress) throws Exception {
+        List<Path> files = listJavaFiles(directory);
+        progress.expect(files.size());
+        for (Path file : files) {
+            MappedByteBuffer content = map(file);
+            String filePath = relativePath(directory, file);
+            run.submitFetch(filePath, blobSha(content), () -> StandardCharsets.UTF_8.decode(content.duplicate()).toString());
+        }
+        logger.info("Submitted {} Java files from directory: {}", files.size(), directory);
+    }
+
+    /**
+     * Submit the Java files of a commit of a bare repository, read in a single {@code git cat-file --batch}.
+     */
+    private void submitCommitFiles(Path gitDir, String commitHash, IngestionPipeline.Run run, GenerationProgress progress)
+        throws Exception {
+        // Each entry is "<mode> blob <sha>\t<path>"
+        List<String[]> blobs = new ArrayList<>();
+        for (String entry : git(gitDir, "ls-tree", "-r", "-z", commitHash, "--", BASE_PATH).split("\0")) {
+            int tab = entry.indexOf('\t');
+            if (tab < 0) {
+                continue;
+            }
+            String[] header = entry.substring(0, tab).split(" ");
+            String filePath = entry.substring(tab + 1);
+            if ("blob".equals(header[1]) && GithubService.isJavaSource(filePath)) {
+                blobs.add(new String[] { header[2], filePath });
+            }
+        }
+        progress.expect(blobs.size());
+
+        // The objects to read are passed in a file, so git never waits for its input while its output is not being read
+        Path batch = Files.createTempFile("icdg-cat-file-", ".txt");
+        try {
+            Files.write(batch, blobs.stream().map(blob -> blob[0]).collect(Collectors.toList()));
+            Process process = new ProcessBuilder("git", "--git-dir=" + gitDir, "cat-file", "--batch")
+                .redirectInput(batch.toFile())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            try (InputStream output = new BufferedInputStream(process.getInputStream())) {
+                for (String[] blob : blobs) {
+                    // Each object is "<sha> <type> <size>\n<content>\n"
+                    String[] header = readLine(output).split(" ");
+                    if (header.length < 3) {
+                        throw new IOException("Missing object " + blob[0] + " in repository: " + gitDir);
+                    }
+                    byte[] content = output.readNBytes(Integer.parseInt(header[2]));
+                    output.read();
+                    run.submitFetch(blob[1], blob[0], () -> new String(content, StandardCharsets.UTF_8));
+                }
+            } finally {
+                process.destroy();
+            }
+        } finally {
+            Files.deleteIfExists(batch);
+        }
+        logger.info("Submitted {} Java files of commit: {} from repository: {}", blobs.size(), commitHash, gitDir);
+    }
+
+    /**
+     * Name the state of a directory by the paths, sizes and modification times of its Java files.
+     */
+    private String fingerprint(Path directory) throws IOException {
+        MessageDigest digest = sha1();
+        for (Path file : listJavaFiles(directory)) {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            String entry = relativePath(directory, file) + '\0' + Files.size(file) + '\0' + modified + '\n';
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static List<Path> listJavaFiles(Path directory) throws IOException {
+        Path sources = directory.resolve(BASE_PATH);
+        if (!Files.isDirectory(sources)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(sources)) {
+            return paths
+                .filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".java"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static String relativePath(Path directory, Path file) {
+        return directory.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid once the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Compute the SHA Git gives a file with this content, as listed by GitHub for the same file.
+     */
+    private static String blobSha(ByteBuffer content) {
+        MessageDigest digest = sha1();
+        digest.update(("blob " + content.remaining() + '\0').getBytes(StandardCharsets.US_ASCII));
+        digest.update(content.duplicate());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    /**
+     * Find the directory or bare repository of a repository under the local root.
+     *
+     * @throws IllegalArgumentException if there is none.
+     */
+    private Location locate(String owner, String repo) {
+        if (!isName(owner) || !isName(repo)) {
+            throw new IllegalArgumentException("Invalid repository name: " + owner + "/" + repo);
+        }
+        Path directory = root.resolve(owner).resolve(repo);
+        if (Files.isDirectory(directory)) {
+            return new Location(directory, isBareRepository(directory));
+        }
+        Path bare = root.resolve(owner).resolve(repo + ".git");
+        if (Files.isDirectory(bare)) {
+            return new Location(bare, true);
+        }
+        throw new IllegalArgumentException("No local repository for: " + owner + "/" + repo + " under: " + root);
+    }
+
+    private static boolean isName(String name) {
+        return name != null && NAME.matcher(name).matches() && !".".equals(name) && !"..".equals(name);
+    }
+
+    private static boolean isBareRepository(Path directory) {
+        return Files.isRegularFile(directory.resolve("HEAD")) && Files.isDirectory(directory.resolve("objects"));
+    }
+
+    /**
+     * Run a git command against a repository and return its output.
+     *
+     * @throws IOException if the command fails.
+     */
+    private static String git(Path gitDir, String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of("git", "--git-dir=" + gitDir));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        String output;
+        try (InputStream stdout = process.getInputStream()) {
+            output = new String(stdout.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IOException("git " + args[0] + " failed with exit code " + exitCode + " in repository: " + gitDir);
+        }
+        return output;
+    }
+
+    private static String readLine(InputStream input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A repository on disk, either a directory to walk or the Git directory of a bare repository.
+     */
+    private record Location(Path path, boolean bare) {}
+}
@@ -0,0 +1,113 @@
+package com.juv3nil3.icdg.service;
+
+import com.juv3nil3.icdg.domain.PackageData;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The package hierarchy of one repository during an ingestion run, resolved in memory.
+ * <p>
+ * It starts from the packages already stored for the repository. Resolving a package that is not known yet creates it along with
+ * any missing parent, without locking anything but the map bins on the path, and queues it until {@link #drainCreated()} hands it
+ * over for persistence. Packages are queued before their sub-packages, so draining yields them parents first.
+ */
+public class PackageTrie {
+
+    static final String DEFAULT_PACKAGE = "default";
+
+    private final String owner;
+    private final String repoName;
+    private final Node root = new Node(null, null);
+    private final Queue<PackageData> created = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param owner          The owner of the repository.
+     * @param repoName       The name of the repository.
+     * @param storedPackages The ids of the packages already stored for the repository, by package name.
+     */
+    public PackageTrie(String owner, String repoName, Map<String, Long> storedPackages) {
+        this.owner = owner;
+        this.repoName = repoName;
+        // Shortest names first, so stored parents are in place before their sub-packages
+        storedPackages
+            .entrySet()
+            .stream()
+            .sorted(Comparator.comparingInt(entry -> entry.getKey().length()))
+            .forEach(entry -> resolve(entry.getKey()).setId(entry.getValue()));
+        created.clear();
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getRepoName() {
+        return repoName;
+    }
+
+    /**
+     * Get or create a package and its parents. The returned package has no id until it has been drained and persisted.
+     *
+     * @param packageName The fully qualified package name, the default package if null or blank.
+     * @return The package.
+     */
+    public PackageData resolve(String packageName) {
+        String effectivePackageName = (packageName == null || packageName.isBlank()) ? DEFAULT_PACKAGE : packageName;
+        Node node = root;
+        int start = 0;
+        while (start <= effectivePackageName.length()) {
+            int end = effectivePackageName.indexOf('.', start);
+            if (end < 0) {
+                end = effectivePackageName.length();
+            }
+            node = node.child(effectivePackageName.substring(start, end), effectivePackageName.substring(0, end));
+            start = end + 1;
+        }
+        return node.packageData;
+    }
+
+    /**
+     * Take the packages created since the last call, parents before their sub-packages.
+     */
+    public List<PackageData> drainCreated() {
+        List<PackageData> packages = new ArrayList<>();
+        PackageData packageData;
+        while ((packageData = created.poll()) != null) {
+            packages.add(packageData);
+        }
+        return packages;
+    }
+
+    private class Node {
+
+        private final PackageData packageData;
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+
+        private Node(String packageName, Node parent) {
+            if (packageName == null) {
+                this.packageData = null;
+                return;
+            }
+            this.packageData = new PackageData(packageName);
+            this.packageData.setOwner(owner);
+            this.packageData.setRepoName(repoName);
+            if (parent != null && parent.packageData != null) {
+                this.packageData.setParentPackage(parent.packageData);
+            }
+        }
+
+        private Node child(String segment, String packageName) {
+            // The mapping function runs once per name and before the node is visible, so a package is queued once, after its parent
+            return children.computeIfAbsent(segment, name -> {
+                Node child = new Node(packageName, this);
+                created.add(child.packageData);
+                return child;
+            });
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.juv3nil3.icdg.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache of parse results keyed by Git blob SHA, so files unchanged between commits are neither downloaded nor parsed again.
+ * <p>
+ * Entries are kept in their compact {@link ParsedFileCodec} form in a size-bounded in-heap tier backed by a size-bounded directory
+ * on disk. Both tiers evict least recently used entries first. Every hit decodes fresh, unsaved entities.
+ */
+@Service
+public class ParseResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParseResultCache.class);
+
+    private static final String ENTRY_SUFFIX = ".bin";
+
+    private final ApplicationProperties.ParseCache properties;
+
+    private final Cache<String, byte[]> heap;
+
+    /**
+     * Index of the entries on disk and their sizes; evicting from it deletes the file.
+     */
+    private final Cache<String, Integer> disk;
+
+    private final Counter heapHits;
+    private final Counter diskHits;
+    private final Counter misses;
+
+    @Autowired
+    public ParseResultCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getParseCache();
+        this.heap = Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxHeapBytes())
+            .weigher((String sha, byte[] bytes) -> bytes.length)
+            .executor(Runnable::run)
+            .build();
+        this.disk = Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxDiskBytes())
+            .weigher((String sha, Integer size) -> size)
+            .executor(Runnable::run)
+            .removalListener((String sha, Integer size, RemovalCause cause) -> {
+                if (sha != null && cause.wasEvicted()) {
+                    deleteEntry(sha);
+                }
+            })
+            .build();
+
+        this.heapHits = Counter.builder("parse.cache.requests").tag("result", "hit").tag("tier", "heap").register(meterRegistry);
+        this.diskHits = Counter.builder("parse.cache.requests").tag("result", "hit").tag("tier", "disk").register(meterRegistry);
+        this.misses = Counter.builder("parse.cache.requests").tag("result", "miss").tag("tier", "none").register(meterRegistry);
+        Gauge.builder("parse.cache.hit.ratio", this, ParseResultCache::hitRatio)
+            .description("Share of lookups served from either tier")
+            .register(meterRegistry);
+        Gauge.builder("parse.cache.size", heap, ParseResultCache::weightedSize)
+            .tag("tier", "heap")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("parse.cache.size", disk, ParseResultCache::weightedSize)
+            .tag("tier", "disk")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+
+        if (properties.isEnabled()) {
+            loadDiskIndex();
+        }
+    }
+
+    /**
+     * Look up the parse result of a blob.
+     *
+     * @param blobSha  Git blob SHA of the file content.
+     * @param owner    Repository owner to set on the returned file.
+     * @param repoName Repository name to set on the returned file.
+     * @param filePath Path to set on the returned file.
+     * @return fresh, unsaved entities for the blob, if cached.
+     */
+    public Optional<ParsedJavaFile> get(String blobSha, String owner, String repoName, String filePath) {
+        if (!properties.isEnabled() || blobSha == null) {
+            return Optional.empty();
+        }
+        byte[] data = heap.getIfPresent(blobSha);
+        if (data != null) {
+            heapHits.increment();
+        } else {
+            data = readEntry(blobSha);
+            if (data == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            diskHits.increment();
+            heap.put(blobSha, data);
+        }
+
+        try {
+            ParsedJavaFile file = ParsedFileCodec.decode(data);
+            if (file == null) {
+                invalidate(blobSha);
+                return Optional.empty();
+            }
+            file.fileData().setOwner(owner);
+            file.fileData().setRepoName(repoName);
+            file.fileData().setFilePath(filePath);
+            file.fileData().setFileName(filePath.substring(filePath.lastIndexOf('/') + 1));
+            return Optional.of(file);
+        } catch (IOException e) {
+            logger.warn("Discarding unreadable parse cache entry {}: {}", blobSha, e.getMessage());
+            invalidate(blobSha);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store the parse result of a blob in both tiers.
+     */
+    public void put(String blobSha, ParsedJavaFile file) {
+        if (!properties.isEnabled() || blobSha == null) {
+            return;
+        }
+        try {
+            byte[] data = ParsedFileCodec.encode(file);
+            heap.put(blobSha, data);
+            writeEntry(blobSha, data);
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Could not cache parse result of blob {}: {}", blobSha, e.getMessage());
+        }
+    }
+
+    public double hitRatio() {
+        double hits = heapHits.count() + diskHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    /**
+     * Compute the Git blob SHA of a file content, the same value the Git Trees and contents APIs report.
+     */
+    public static String blobSha(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(("blob " + bytes.length + "\0").getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest.digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private static double weightedSize(Cache<String, ?> cache) {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    private void invalidate(String blobSha) {
+        heap.invalidate(blobSha);
+        disk.invalidate(blobSha);
+        deleteEntry(blobSha);
+    }
+
+    private Path entryPath(String blobSha) {
+        // Shard by the first two characters like .git/objects, to keep directories small
+        String shard = blobSha.length() > 2 ? blobSha.substring(0, 2) : "00";
+        return Path.of(properties.getDirectory(), shard, blobSha + ENTRY_SUFFIX);
+    }
+
+    private byte[] readEntry(String blobSha) {
+        if (disk.getIfPresent(blobSha) == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(entryPath(blobSha));
+        } catch (IOException e) {
+            disk.invalidate(blobSha);
+            return null;
+        }
+    }
+
+    private void writeEntry(String blobSha, byte[] data) {
+        if (data.length > properties.getMaxDiskBytes()) {
+            return;
+        }
+        Path path = entryPath(blobSha);
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), blobSha, ".tmp");
+            Files.write(temp, data);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            disk.put(blobSha, data.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteEntry(String blobSha) {
+        try {
+            Files.deleteIfExists(entryPath(blobSha));
+        } catch (IOException e) {
+            logger.warn("Could not delete parse cache entry {}: {}", blobSha, e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the disk index from a previous run, oldest files first so they are the first to be evicted.
+     */
+    private void loadDiskIndex() {
+        Path root = Path.of(properties.getDirectory());
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> entries = Files.walk(root, 2)) {
+            entries
+                .filter(path -> path.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                .sorted(Comparator.comparing(path -> path.toFile().lastModified()))
+                .forEach(path -> {
+                    String name = path.getFileName().toString();
+                    disk.put(name.substring(0, name.length() - ENTRY_SUFFIX.length()), (int) path.toFile().length());
+                });
+            logger.info("Loaded {} parse cache entries from {}", disk.estimatedSize(), root);
+        } catch (IOException e) {
+            logger.warn("Could not load parse cache index from {}: {}", root, e.getMessage());
+        }
+    }
+}
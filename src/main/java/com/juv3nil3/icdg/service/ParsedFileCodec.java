@@ -0,0 +1,129 @@
+package com.juv3nil3.icdg.service;
+
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of a parsed file's class/method/field model, used by the {@link ParseResultCache}.
+ * <p>
+ * Only what the parser extracts is stored; ids, repository name and path are not, since the same blob can appear under many paths.
+ */
+final class ParsedFileCodec {
+
+    /**
+     * Bump whenever the layout or the parser output changes, so stale entries read as misses.
+     */
+    static final byte VERSION = 1;
+
+    private ParsedFileCodec() {}
+
+    static byte[] encode(ParsedJavaFile file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            writeString(out, file.packageName());
+            List<ClassData> classes = file.fileData().getClasses();
+            out.writeInt(classes.size());
+            for (ClassData clazz : classes) {
+                writeString(out, clazz.getName());
+                writeString(out, clazz.getComment());
+                writeStrings(out, clazz.getAnnotations());
+                out.writeInt(clazz.getFields().size());
+                for (FieldData field : clazz.getFields()) {
+                    writeString(out, field.getName());
+                    writeString(out, field.getComment());
+                    writeStrings(out, field.getAnnotations());
+                }
+                out.writeInt(clazz.getMethods().size());
+                for (MethodData method : clazz.getMethods()) {
+                    writeString(out, method.getName());
+                    writeString(out, method.getComment());
+                    writeStrings(out, method.getAnnotations());
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the decoded file with fresh, unsaved entities, or null if the bytes were written by another codec version.
+     */
+    static ParsedJavaFile decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            String packageName = readString(in);
+            FileData fileData = new FileData();
+            int classCount = in.readInt();
+            for (int c = 0; c < classCount; c++) {
+                ClassData clazz = new ClassData();
+                clazz.setName(readString(in));
+                clazz.setComment(readString(in));
+                clazz.setAnnotations(readStrings(in));
+                int fieldCount = in.readInt();
+                for (int f = 0; f < fieldCount; f++) {
+                    FieldData field = new FieldData();
+                    field.setName(readString(in));
+                    field.setComment(readString(in));
+                    field.setAnnotations(readStrings(in));
+                    clazz.getFields().add(field);
+                }
+                int methodCount = in.readInt();
+                for (int m = 0; m < methodCount; m++) {
+                    MethodData method = new MethodData();
+                    method.setName(readString(in));
+                    method.setComment(readString(in));
+                    method.setAnnotations(readStrings(in));
+                    clazz.getMethods().add(method);
+                }
+                fileData.addClass(clazz);
+            }
+            return new ParsedJavaFile(packageName, fileData);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+}
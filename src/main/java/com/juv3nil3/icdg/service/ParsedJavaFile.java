@@ -0,0 +1,11 @@
+package com.juv3nil3.icdg.service;
+
+import com.juv3nil3.icdg.domain.FileData;
+
+/**
+ * A Java file that has been parsed but not yet persisted.
+ *
+ * @param packageName the package declared by the file, or {@code "default"}.
+ * @param fileData    the unsaved file with its classes, methods and fields.
+ */
+public record ParsedJavaFile(String packageName, FileData fileData) {}
@@ -0,0 +1,285 @@
+package com.juv3nil3.icdg.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache of rendered documentation exports keyed by (owner, repository, commit, format), so an export of an unchanged commit is
+ * served as stored bytes instead of being read and rendered again.
+ * <p>
+ * The heap tier is the {@value #CACHE_NAME} JCache cache created in {@link com.juv3nil3.icdg.config.CacheConfiguration}, holding
+ * one entry per export. Small exports are kept in the entry itself, larger ones in a file of a size-bounded directory the entry
+ * points to. Both tiers evict least recently used exports first, so the exports of the latest commit and of historical snapshots
+ * are kept side by side. A file evicted while an entry still points to it is a miss, and one evicted while it is being served is
+ * still read to the end.
+ */
+@Service
+public class RenderedExportCache {
+
+    public static final String CACHE_NAME = "renderedExports";
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderedExportCache.class);
+
+    private final ApplicationProperties.ExportCache properties;
+
+    private final Cache<String, RenderedExport> heap;
+
+    /**
+     * Index of the export files and their sizes; evicting from it deletes the file.
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<String, Long> disk;
+
+    private final Counter heapHits;
+    private final Counter diskHits;
+    private final Counter misses;
+
+    @Autowired
+    public RenderedExportCache(CacheManager cacheManager, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getExportCache();
+        this.heap = cacheManager.getCache(CACHE_NAME, String.class, RenderedExport.class);
+        this.disk = Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxDiskBytes())
+            .weigher((String name, Long size) -> (int) Math.min(size, Integer.MAX_VALUE))
+            .executor(Runnable::run)
+            .removalListener((String name, Long size, RemovalCause cause) -> {
+                if (name != null && cause.wasEvicted()) {
+                    deleteExport(name);
+                }
+            })
+            .build();
+        this.heapHits = Counter.builder("export.cache.requests").tag("result", "hit").tag("tier", "heap").register(meterRegistry);
+        this.diskHits = Counter.builder("export.cache.requests").tag("result", "hit").tag("tier", "disk").register(meterRegistry);
+        this.misses = Counter.builder("export.cache.requests").tag("result", "miss").tag("tier", "none").register(meterRegistry);
+
+        if (properties.isEnabled()) {
+            loadDiskIndex();
+        }
+    }
+
+    /**
+     * The entity tag of an export. Rendering is deterministic for a commit and a version of the format, so it only depends on the
+     * key and is known before anything is rendered.
+     */
+    public static String etag(ExportKey key) {
+        return '"' + sha256(id(key)).substring(0, 32) + '"';
+    }
+
+    /**
+     * Write an export, from the cache if it holds it, otherwise rendering it and caching the result.
+     *
+     * @param key          the export to write.
+     * @param outputStream the stream to write to, left open.
+     * @param renderer     renders the export when it is not cached.
+     */
+    public void write(ExportKey key, OutputStream outputStream, Renderer renderer) throws IOException {
+        if (!properties.isEnabled()) {
+            renderer.render(outputStream);
+            return;
+        }
+        String id = id(key);
+        RenderedExport export = heap.get(id);
+        if (export != null && export.body() != null) {
+            heapHits.increment();
+            outputStream.write(export.body());
+            return;
+        }
+        // Opened once, so the file is read to the end even if it is evicted meanwhile
+        try (InputStream file = openExport(id)) {
+            if (file != null) {
+                if (export != null) {
+                    heapHits.increment();
+                } else {
+                    // Evicted from heap, or from an earlier run, while still on disk
+                    diskHits.increment();
+                    heap.put(id, new RenderedExport(null));
+                }
+                file.transferTo(outputStream);
+                return;
+            }
+        }
+        if (export != null) {
+            heap.remove(id, export);
+        }
+        misses.increment();
+
+        Capture capture = new Capture(id, outputStream);
+        try {
+            renderer.render(capture);
+            capture.flush();
+            heap.put(id, capture.commit());
+        } finally {
+            capture.discard();
+        }
+    }
+
+    private static String id(ExportKey key) {
+        return key.owner() + '/' + key.repo() + '/' + key.commit() + '/' + key.format() + '/' + key.version();
+    }
+
+    private Path exportPath(String name) {
+        return Path.of(properties.getDirectory(), name);
+    }
+
+    /**
+     * The file of an export, or null if it is not on disk.
+     */
+    private InputStream openExport(String id) throws IOException {
+        String name = sha256(id);
+        if (disk.getIfPresent(name) == null) {
+            return null;
+        }
+        try {
+            return Files.newInputStream(exportPath(name));
+        } catch (NoSuchFileException e) {
+            disk.invalidate(name);
+            return null;
+        }
+    }
+
+    private void deleteExport(String name) {
+        try {
+            Files.deleteIfExists(exportPath(name));
+        } catch (IOException e) {
+            logger.warn("Could not delete export {}: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the disk index from a previous run, oldest files first so they are the first to be evicted.
+     */
+    private void loadDiskIndex() {
+        Path root = Path.of(properties.getDirectory());
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> exports = Files.list(root)) {
+            exports
+                .filter(path -> Files.isRegularFile(path) && !path.getFileName().toString().endsWith(".tmp"))
+                .sorted(Comparator.comparing(path -> path.toFile().lastModified()))
+                .forEach(path -> disk.put(path.getFileName().toString(), path.toFile().length()));
+            logger.info("Loaded {} exports from {}", disk.estimatedSize(), root);
+        } catch (IOException e) {
+            logger.warn("Could not load export index from {}: {}", root, e.getMessage());
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Identifies a rendered export, by the version of the rendering of its format as well.
+     */
+    public record ExportKey(String owner, String repo, String commit, String format, int version) {}
+
+    /**
+     * A cached export, its body being in the file of its key when null.
+     */
+    public record RenderedExport(byte[] body) implements Serializable {}
+
+    @FunctionalInterface
+    public interface Renderer {
+        void render(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * Passes the rendered bytes through to the client while keeping a copy, in memory until it outgrows the inline limit and in a
+     * temporary file of the export directory after that.
+     */
+    private class Capture extends OutputStream {
+
+        private final String id;
+        private final OutputStream target;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private Path spillPath;
+        private OutputStream spill;
+
+        Capture(String id, OutputStream target) {
+            this.id = id;
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            target.write(bytes, offset, length);
+            if (spill == null && buffer.size() + length > properties.getMaxInlineBytes()) {
+                Path directory = Path.of(properties.getDirectory());
+                Files.createDirectories(directory);
+                spillPath = Files.createTempFile(directory, "export", ".tmp");
+                spill = Files.newOutputStream(spillPath);
+                buffer.writeTo(spill);
+                buffer = null;
+            }
+            if (spill != null) {
+                spill.write(bytes, offset, length);
+            } else {
+                buffer.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        RenderedExport commit() throws IOException {
+            if (spill == null) {
+                return new RenderedExport(buffer.toByteArray());
+            }
+            spill.close();
+            String name = sha256(id);
+            Path path = exportPath(name);
+            Files.move(spillPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            spillPath = null;
+            disk.put(name, Files.size(path));
+            return new RenderedExport(null);
+        }
+
+        void discard() {
+            try {
+                if (spill != null) {
+                    spill.close();
+                }
+                if (spillPath != null) {
+                    Files.deleteIfExists(spillPath);
+                }
+            } catch (IOException e) {
+                logger.warn("Could not delete partial export {}: {}", spillPath, e.getMessage());
+            }
+        }
+    }
+}
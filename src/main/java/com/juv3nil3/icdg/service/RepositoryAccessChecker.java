@@ -0,0 +1,92 @@
+package com.juv3nil3.icdg.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Tells whether the GitHub token of a user can read a repository, before the documentation stored for the repository is served
+ * to them.
+ * <p>
+ * GitHub is asked for the repository with the token, answering 404 or 403 to a token that cannot see it. The answer is cached by
+ * a hash of the token and the repository for the access cache TTL, and published as the {@code cache.*} meters of
+ * {@value #CACHE_NAME}. Repositories read from local directories have no GitHub permissions, and are readable by everyone.
+ */
+@Service
+public class RepositoryAccessChecker {
+
+    public static final String CACHE_NAME = "repositoryAccess";
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryAccessChecker.class);
+
+    private static final String REPOSITORY_PATH = "/repos/{owner}/{repo}";
+    private static final long MAX_ENTRIES = 10_000;
+
+    private final RestTemplate restTemplate;
+    private final ApplicationProperties.Github githubProperties;
+    private final boolean localSource;
+
+    private final Cache<String, Boolean> access;
+
+    @Autowired
+    public RepositoryAccessChecker(RestTemplate restTemplate, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.githubProperties = applicationProperties.getGithub();
+        this.localSource = applicationProperties.getIngestion().getSource() == ApplicationProperties.Ingestion.Source.LOCAL;
+        this.access = Caffeine.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterWrite(githubProperties.getAccessCacheTtl())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, access, CACHE_NAME);
+    }
+
+    /**
+     * Whether a token can read a repository.
+     *
+     * @param owner       GitHub repository owner.
+     * @param repo        GitHub repository name.
+     * @param accessToken GitHub token of the user, null if they have none.
+     * @return whether the user may read the documentation of the repository.
+     */
+    public boolean canRead(String owner, String repo, String accessToken) {
+        if (localSource) {
+            return true;
+        }
+        if (accessToken == null || accessToken.isEmpty()) {
+            return false;
+        }
+        String key = GithubTokenService.sha256(accessToken) + ':' + owner + '/' + repo;
+        return access.get(key, k -> requestAccess(owner, repo, accessToken));
+    }
+
+    private boolean requestAccess(String owner, String repo, String accessToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + accessToken);
+        try {
+            restTemplate.exchange(
+                githubProperties.getApiUrl() + REPOSITORY_PATH,
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                Void.class,
+                owner,
+                repo
+            );
+            return true;
+        } catch (HttpClientErrorException.NotFound | HttpClientErrorException.Forbidden | HttpClientErrorException.Unauthorized e) {
+            logger.debug("Token cannot read repository: {}/{}, status: {}", owner, repo, e.getStatusCode());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.juv3nil3.icdg.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Finds the head commit of the default branch of a repository as cheaply as GitHub allows.
+ * <p>
+ * The head is read with a single request for the SHA of {@code HEAD}, sent with the {@code ETag} or {@code Last-Modified} of the
+ * previous answer so an unchanged repository gets a 304, which GitHub does not count against the rate limit. Within the
+ * freshness window after a check, the head is not asked for again with the token of that check. Any other token still sends the
+ * conditional request, so GitHub tells whether it can read the repository before it is handed the head.
+ */
+@Service
+public class RepositoryFreshnessChecker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryFreshnessChecker.class);
+
+    private static final String HEAD_COMMIT_PATH = "/repos/{owner}/{repo}/commits/HEAD";
+    // Answers with the bare SHA instead of the whole commit
+    private static final String SHA_MEDIA_TYPE = "application/vnd.github.sha";
+    private static final long MAX_REPOSITORIES = 10_000;
+
+    private final RestTemplate restTemplate;
+    private final ApplicationProperties.Github githubProperties;
+
+    private final Cache<String, Head> heads = Caffeine.newBuilder().maximumSize(MAX_REPOSITORIES).build();
+
+    @Autowired
+    public RepositoryFreshnessChecker(RestTemplate restTemplate, ApplicationProperties applicationProperties) {
+        this.restTemplate = restTemplate;
+        this.githubProperties = applicationProperties.getGithub();
+    }
+
+    /**
+     * Find the head commit of the default branch of a repository.
+     *
+     * @param owner       GitHub repository owner.
+     * @param repo        GitHub repository name.
+     * @param accessToken Personal access token for GitHub API.
+     * @return the SHA of the head commit.
+     * @throws Exception if GitHub could not be asked.
+     */
+    public String fetchHeadCommit(String owner, String repo, String accessToken) throws Exception {
+        String key = owner + '/' + repo;
+        String tokenHash = GithubTokenService.sha256(String.valueOf(accessToken));
+        Head known = heads.getIfPresent(key);
+        if (
+            known != null &&
+            known.checkedWith().equals(tokenHash) &&
+            known.checkedAt().plus(githubProperties.getFreshnessWindow()).isAfter(Instant.now())
+        ) {
+            return known.commitHash();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + accessToken);
+        headers.set(HttpHeaders.ACCEPT, SHA_MEDIA_TYPE);
+        if (known != null && known.etag() != null) {
+            headers.setIfNoneMatch(known.etag());
+        } else if (known != null && known.lastModified() != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, known.lastModified());
+        }
+        String url = githubProperties.getApiUrl() + HEAD_COMMIT_PATH;
+
+        try {
+            HttpEntity<String> request = new HttpEntity<>(headers);
+            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, request, String.class, owner, repo);
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && known != null) {
+                logger.debug("Head of repository: {}/{} is unchanged at commit: {}", owner, repo, known.commitHash());
+                heads.put(key, new Head(known.commitHash(), known.etag(), known.lastModified(), Instant.now(), tokenHash));
+                return known.commitHash();
+            }
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null && !response.getBody().isBlank()) {
+                String commitHash = response.getBody().trim();
+                HttpHeaders responseHeaders = response.getHeaders();
+                String lastModified = responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED);
+                heads.put(key, new Head(commitHash, responseHeaders.getETag(), lastModified, Instant.now(), tokenHash));
+                logger.info("Head of repository: {}/{} is at commit: {}", owner, repo, commitHash);
+                return commitHash;
+            }
+            logger.error("Unable to fetch head commit for repository: {}/{}, status: {}", owner, repo, response.getStatusCode());
+            throw new IllegalStateException("Unable to fetch head commit for repository: " + owner + "/" + repo);
+        } catch (Exception e) {
+            logger.error("Error fetching head commit for repository: {}/{} - {}", owner, repo, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * The head commit of a repository with the validators of the answer it was read from.
+     *
+     * @param checkedWith hash of the token the head was last read or revalidated with.
+     */
+    private record Head(String commitHash, String etag, String lastModified, Instant checkedAt, String checkedWith) {}
+}
@@ -11,11 +11,17 @@ public class RepositoryMetadataService {
 
     private final RepositoryMetadataRepo repositoryMetadataRepository;
     private final GithubService githubService;
+    private final RepositoryFreshnessChecker freshnessChecker;
 
     @Autowired
-    public RepositoryMetadataService(RepositoryMetadataRepo repositoryMetadataRepository, GithubService githubService) {
+    public RepositoryMetadataService(
+        RepositoryMetadataRepo repositoryMetadataRepository,
+        GithubService githubService,
+        RepositoryFreshnessChecker freshnessChecker
+    ) {
         this.repositoryMetadataRepository = repositoryMetadataRepository;
         this.githubService = githubService;
+        this.freshnessChecker = freshnessChecker;
     }
 
     public RepositoryMetadata saveOrUpdateMetadata(
@@ -50,22 +56,23 @@ public class RepositoryMetadataService {
     }
 
     /**
-     * Find or create RepositoryMetadata for a repository.
+     * Find the stored RepositoryMetadata of a repository if it is of the current head commit, or fetch it from GitHub.
      *
      * @param owner    GitHub repository owner.
      * @param repoName GitHub repository name.
      * @return The RepositoryMetadata.
      */
     public RepositoryMetadata findOrfetchMetadata(String owner, String repoName, String accessToken) {
-        return repositoryMetadataRepository
-            .findByOwnerAndRepoName(owner, repoName)
-            .orElseGet(() -> {
-                try {
-                    return githubService.fetchRepositoryMetadata(owner, repoName, accessToken);
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            });
+        try {
+            String commitHash = freshnessChecker.fetchHeadCommit(owner, repoName, accessToken);
+            Optional<RepositoryMetadata> stored = repositoryMetadataRepository.findByOwnerAndRepoName(owner, repoName);
+            if (stored.isPresent() && commitHash.equals(stored.get().getLatestCommitHash())) {
+                return stored.get();
+            }
+            return githubService.fetchRepositoryMetadata(owner, repoName, commitHash, accessToken);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
     }
 
     public Optional<RepositoryMetadata> findByOwnerAndRepoName(String owner, String repoName) {
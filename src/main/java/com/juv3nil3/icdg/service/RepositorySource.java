@@ -0,0 +1,68 @@
+package com.juv3nil3.icdg.service;
+
+import com.juv3nil3.icdg.domain.GitHubFileChange;
+import com.juv3nil3.icdg.domain.RepositoryMetadata;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where the {@link DocumentationGenerationService} reads repositories from, chosen by {@code application.ingestion.source}.
+ *
+ * @see GithubRepositorySource
+ * @see LocalRepositorySource
+ */
+public interface RepositorySource {
+    /**
+     * Find the commit the repository is at.
+     *
+     * @param owner       repository owner.
+     * @param repo        repository name.
+     * @param accessToken GitHub access token, unused by sources that do not talk to GitHub.
+     * @return an identifier of the commit, equal across calls for as long as the Java files are unchanged.
+     * @throws Exception if the repository cannot be read.
+     */
+    String resolveCommit(String owner, String repo, String accessToken) throws Exception;
+
+    /**
+     * Read the metadata of the repository at a commit.
+     *
+     * @throws Exception if the repository cannot be read.
+     */
+    RepositoryMetadata fetchMetadata(String owner, String repo, String commitHash, String accessToken) throws Exception;
+
+    /**
+     * List the Java files changed between two commits.
+     *
+     * @return the changes, or empty if they cannot be listed and the repository has to be processed in full.
+     * @throws Exception if the repository cannot be read.
+     */
+    Optional<List<GitHubFileChange>> fetchChangedFiles(
+        String owner,
+        String repo,
+        String baseCommit,
+        String headCommit,
+        String accessToken
+    ) throws Exception;
+
+    /**
+     * Read the content of a file at a commit.
+     *
+     * @throws Exception if the file cannot be read.
+     */
+    String fetchFileContent(String owner, String repo, String commitHash, String filePath, String accessToken) throws Exception;
+
+    /**
+     * Submit every Java file of the repository at a commit to an ingestion run, recording their number in the progress as soon as
+     * it is known.
+     *
+     * @throws Exception if the repository cannot be read, or the run failed.
+     */
+    void submitFiles(
+        String owner,
+        String repo,
+        String commitHash,
+        String accessToken,
+        IngestionPipeline.Run run,
+        GenerationProgress progress
+    ) throws Exception;
+}
@@ -0,0 +1,428 @@
+package com.juv3nil3.icdg.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository.Snapshot;
+import com.juv3nil3.icdg.repository.SnapshotDiffRepository;
+import com.juv3nil3.icdg.repository.SnapshotDiffRepository.ClassContent;
+import com.juv3nil3.icdg.repository.SnapshotDiffRepository.FileVersion;
+import com.juv3nil3.icdg.repository.SnapshotDiffRepository.MemberContent;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Structural diff between two documentation snapshots of a repository: the files, classes, methods and fields added, removed or
+ * modified from one commit to the other.
+ * <p>
+ * Only the files added or retired by the generations between the two snapshots are read, a page of paths at a time, and a file
+ * whose Git blob SHA is the same in both snapshots is skipped without loading its classes. The diff is written as it is computed,
+ * so its cost follows the number of changed files rather than the size of the repository.
+ */
+@Service
+public class SnapshotDiffService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotDiffService.class);
+
+    /**
+     * Number of changed paths compared at a time.
+     */
+    static final int DIFF_PAGE_SIZE = 100;
+
+    private final SnapshotDiffRepository diffRepository;
+    private final DocumentationGenerator documentationGenerator;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public SnapshotDiffService(
+        SnapshotDiffRepository diffRepository,
+        DocumentationGenerator documentationGenerator,
+        ObjectMapper objectMapper
+    ) {
+        this.diffRepository = diffRepository;
+        this.documentationGenerator = documentationGenerator;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Find the two snapshots to diff.
+     *
+     * @param from the commit of the snapshot to diff from.
+     * @param to   the commit of the snapshot to diff to, or null for the latest one.
+     * @return the snapshots, or empty if the repository has no documentation or either commit was not generated.
+     */
+    public Optional<SnapshotPair> findSnapshots(String owner, String repo, String from, String to) {
+        return documentationGenerator
+            .findSnapshot(owner, repo, from)
+            .flatMap(fromSnapshot ->
+                documentationGenerator.findSnapshot(owner, repo, to).map(toSnapshot -> new SnapshotPair(fromSnapshot, toSnapshot))
+            );
+    }
+
+    /**
+     * Compute the diff between two snapshots, handing over the changed files ordered by path, a page at a time.
+     *
+     * @param snapshots the snapshots to diff, in either order.
+     * @param consumer  the consumer of each changed file.
+     */
+    public void diff(SnapshotPair snapshots, FileDiffConsumer consumer) throws IOException {
+        String owner = snapshots.from().owner();
+        String repoName = snapshots.from().repoName();
+        long from = snapshots.from().generation();
+        long to = snapshots.to().generation();
+        if (from == to) {
+            return;
+        }
+
+        String lastPath = null;
+        List<String> paths;
+        do {
+            paths = diffRepository.findChangedPaths(owner, repoName, from, to, lastPath, DIFF_PAGE_SIZE);
+            if (paths.isEmpty()) {
+                break;
+            }
+            Map<String, FileVersion> oldFiles = diffRepository.findFiles(owner, repoName, from, paths);
+            Map<String, FileVersion> newFiles = diffRepository.findFiles(owner, repoName, to, paths);
+
+            // Load the classes of the files whose content changed only
+            List<String> changedPaths = new ArrayList<>();
+            Set<Long> fileIds = new LinkedHashSet<>();
+            for (String path : paths) {
+                FileVersion oldFile = oldFiles.get(path);
+                FileVersion newFile = newFiles.get(path);
+                if (oldFile != null && newFile != null && oldFile.blobSha() != null && oldFile.blobSha().equals(newFile.blobSha())) {
+                    continue;
+                }
+                changedPaths.add(path);
+                if (oldFile != null) {
+                    fileIds.add(oldFile.id());
+                }
+                if (newFile != null) {
+                    fileIds.add(newFile.id());
+                }
+            }
+            Map<Long, List<ClassContent>> classes = diffRepository.findClasses(fileIds);
+
+            for (String path : changedPaths) {
+                FileDiff fileDiff = diffFile(path, oldFiles.get(path), newFiles.get(path), classes);
+                if (fileDiff != null) {
+                    consumer.accept(fileDiff);
+                }
+            }
+            lastPath = paths.get(paths.size() - 1);
+        } while (paths.size() == DIFF_PAGE_SIZE);
+    }
+
+    /**
+     * Write the diff between two snapshots as a JSON object, the changed files being flushed a page at a time and followed by the
+     * number of files added, removed and modified.
+     *
+     * @param outputStream the stream to write to, left open.
+     */
+    public void writeJson(SnapshotPair snapshots, OutputStream outputStream) throws IOException {
+        logger.debug(
+            "Writing the diff of {} from {} to {} as JSON",
+            snapshots.from().repoName(),
+            snapshots.from().commitHash(),
+            snapshots.to().commitHash()
+        );
+
+        DiffSummary summary = new DiffSummary();
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartObject();
+            generator.writeStringField("repo", snapshots.from().repoName());
+            generator.writeStringField("from", snapshots.from().commitHash());
+            generator.writeStringField("to", snapshots.to().commitHash());
+            generator.writeArrayFieldStart("files");
+            diff(snapshots, fileDiff -> {
+                generator.writeObject(fileDiff);
+                summary.count(fileDiff);
+                if (summary.total() % DIFF_PAGE_SIZE == 0) {
+                    generator.flush();
+                }
+            });
+            generator.writeEndArray();
+            generator.writeObjectField("summary", summary);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Write the diff between two snapshots as Markdown, a section per changed file, followed by the number of files added,
+     * removed and modified.
+     *
+     * @param outputStream the stream to write to, left open.
+     */
+    public void writeMarkdown(SnapshotPair snapshots, OutputStream outputStream) throws IOException {
+        logger.debug(
+            "Writing the diff of {} from {} to {} as Markdown",
+            snapshots.from().repoName(),
+            snapshots.from().commitHash(),
+            snapshots.to().commitHash()
+        );
+
+        Writer output = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        output.append("### Repository: ").append(snapshots.from().repoName()).append("\n\n");
+        output.append("### Diff: ").append(snapshots.from().commitHash()).append(" → ");
+        output.append(snapshots.to().commitHash()).append("\n\n");
+
+        DiffSummary summary = new DiffSummary();
+        diff(snapshots, fileDiff -> {
+            writeFile(output, fileDiff);
+            summary.count(fileDiff);
+            if (summary.total() % DIFF_PAGE_SIZE == 0) {
+                output.flush();
+            }
+        });
+        output
+            .append("**Files**: ")
+            .append(String.valueOf(summary.getAdded()))
+            .append(" added, ")
+            .append(String.valueOf(summary.getRemoved()))
+            .append(" removed, ")
+            .append(String.valueOf(summary.getModified()))
+            .append(" modified\n");
+        output.flush();
+    }
+
+    private static void writeFile(Writer output, FileDiff fileDiff) throws IOException {
+        output.append("#### ").append(label(fileDiff.change())).append(" file: ").append(fileDiff.filePath()).append("\n\n");
+        for (ClassDiff clazz : fileDiff.classes()) {
+            output.append("- ").append(label(clazz.change())).append(" **Class**: ").append(clazz.name());
+            writeChanges(output, clazz.commentChanged(), clazz.addedAnnotations(), clazz.removedAnnotations());
+            for (MemberDiff method : clazz.methods()) {
+                output.append("  - ").append(label(method.change())).append(" **Method**: ").append(method.name());
+                writeChanges(output, method.commentChanged(), method.addedAnnotations(), method.removedAnnotations());
+            }
+            for (MemberDiff field : clazz.fields()) {
+                output.append("  - ").append(label(field.change())).append(" **Field**: ").append(field.name());
+                writeChanges(output, field.commentChanged(), field.addedAnnotations(), field.removedAnnotations());
+            }
+        }
+        output.append("\n");
+    }
+
+    private static void writeChanges(Writer output, boolean commentChanged, List<String> added, List<String> removed)
+        throws IOException {
+        if (!added.isEmpty()) {
+            output.append(" (+").append(added.toString()).append(")");
+        }
+        if (!removed.isEmpty()) {
+            output.append(" (-").append(removed.toString()).append(")");
+        }
+        if (commentChanged) {
+            output.append(" (comment changed)");
+        }
+        output.append("\n");
+    }
+
+    private static String label(Change change) {
+        return switch (change) {
+            case ADDED -> "Added";
+            case REMOVED -> "Removed";
+            case MODIFIED -> "Modified";
+        };
+    }
+
+    /**
+     * Diff the two versions of a file, either of them missing when it was added or removed.
+     *
+     * @return the diff, or null if the classes of the file didn't change.
+     */
+    static FileDiff diffFile(String path, FileVersion oldFile, FileVersion newFile, Map<Long, List<ClassContent>> classes) {
+        List<ClassContent> oldClasses = oldFile == null ? List.of() : classes.getOrDefault(oldFile.id(), List.of());
+        List<ClassContent> newClasses = newFile == null ? List.of() : classes.getOrDefault(newFile.id(), List.of());
+
+        List<ClassDiff> classDiffs = new ArrayList<>();
+        Map<String, ClassContent> remaining = byName(oldClasses);
+        for (ClassContent newClass : newClasses) {
+            ClassDiff classDiff = diffClass(remaining.remove(newClass.name()), newClass);
+            if (classDiff != null) {
+                classDiffs.add(classDiff);
+            }
+        }
+        for (ClassContent oldClass : remaining.values()) {
+            classDiffs.add(diffClass(oldClass, null));
+        }
+
+        if (oldFile != null && newFile != null && classDiffs.isEmpty()) {
+            return null;
+        }
+        Change change = oldFile == null ? Change.ADDED : newFile == null ? Change.REMOVED : Change.MODIFIED;
+        String packageName = newFile != null ? newFile.packageName() : oldFile.packageName();
+        return new FileDiff(path, packageName, change, classDiffs);
+    }
+
+    private static ClassDiff diffClass(ClassContent oldClass, ClassContent newClass) {
+        List<MemberDiff> methods = diffMembers(
+            oldClass == null ? List.of() : oldClass.methods(),
+            newClass == null ? List.of() : newClass.methods()
+        );
+        List<MemberDiff> fields = diffMembers(
+            oldClass == null ? List.of() : oldClass.fields(),
+            newClass == null ? List.of() : newClass.fields()
+        );
+        List<String> oldAnnotations = oldClass == null ? List.of() : oldClass.annotations();
+        List<String> newAnnotations = newClass == null ? List.of() : newClass.annotations();
+        List<String> added = minus(newAnnotations, oldAnnotations);
+        List<String> removed = minus(oldAnnotations, newAnnotations);
+        boolean commentChanged = oldClass != null && newClass != null && !Objects.equals(oldClass.comment(), newClass.comment());
+
+        boolean unchanged = methods.isEmpty() && fields.isEmpty() && added.isEmpty() && removed.isEmpty() && !commentChanged;
+        if (oldClass != null && newClass != null && unchanged) {
+            return null;
+        }
+        Change change = oldClass == null ? Change.ADDED : newClass == null ? Change.REMOVED : Change.MODIFIED;
+        String name = newClass != null ? newClass.name() : oldClass.name();
+        return new ClassDiff(name, change, commentChanged, added, removed, methods, fields);
+    }
+
+    /**
+     * Diff members by name, overloads being matched in the order they were declared.
+     */
+    private static List<MemberDiff> diffMembers(List<MemberContent> oldMembers, List<MemberContent> newMembers) {
+        List<MemberDiff> diffs = new ArrayList<>();
+        Map<String, MemberContent> remaining = byOccurrence(oldMembers);
+        Map<String, MemberContent> current = byOccurrence(newMembers);
+        for (Map.Entry<String, MemberContent> entry : current.entrySet()) {
+            MemberContent oldMember = remaining.remove(entry.getKey());
+            MemberContent newMember = entry.getValue();
+            if (oldMember == null) {
+                diffs.add(new MemberDiff(newMember.name(), Change.ADDED, false, newMember.annotations(), List.of()));
+                continue;
+            }
+            List<String> added = minus(newMember.annotations(), oldMember.annotations());
+            List<String> removed = minus(oldMember.annotations(), newMember.annotations());
+            boolean commentChanged = !Objects.equals(oldMember.comment(), newMember.comment());
+            if (!added.isEmpty() || !removed.isEmpty() || commentChanged) {
+                diffs.add(new MemberDiff(newMember.name(), Change.MODIFIED, commentChanged, added, removed));
+            }
+        }
+        for (MemberContent oldMember : remaining.values()) {
+            diffs.add(new MemberDiff(oldMember.name(), Change.REMOVED, false, List.of(), oldMember.annotations()));
+        }
+        return diffs;
+    }
+
+    private static Map<String, ClassContent> byName(List<ClassContent> classes) {
+        Map<String, ClassContent> byName = new LinkedHashMap<>();
+        for (ClassContent clazz : classes) {
+            byName.putIfAbsent(clazz.name(), clazz);
+        }
+        return byName;
+    }
+
+    private static Map<String, MemberContent> byOccurrence(List<MemberContent> members) {
+        Map<String, MemberContent> byOccurrence = new LinkedHashMap<>();
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (MemberContent member : members) {
+            int occurrence = occurrences.merge(member.name(), 1, Integer::sum);
+            byOccurrence.put(member.name() + "#" + occurrence, member);
+        }
+        return byOccurrence;
+    }
+
+    private static List<String> minus(List<String> annotations, List<String> others) {
+        List<String> difference = new ArrayList<>(annotations);
+        for (String other : others) {
+            difference.remove(other);
+        }
+        return difference;
+    }
+
+    /**
+     * The snapshots a diff goes from and to.
+     */
+    public record SnapshotPair(Snapshot from, Snapshot to) {}
+
+    public enum Change {
+        ADDED,
+        REMOVED,
+        MODIFIED,
+    }
+
+    /**
+     * A changed file, with its changed classes.
+     */
+    public record FileDiff(String filePath, String packageName, Change change, List<ClassDiff> classes) {}
+
+    /**
+     * A changed class, with its changed methods and fields. The annotations of an added class are all added, those of a removed
+     * class all removed.
+     */
+    public record ClassDiff(
+        String name,
+        Change change,
+        boolean commentChanged,
+        List<String> addedAnnotations,
+        List<String> removedAnnotations,
+        List<MemberDiff> methods,
+        List<MemberDiff> fields
+    ) {}
+
+    /**
+     * A changed method or field.
+     */
+    public record MemberDiff(
+        String name,
+        Change change,
+        boolean commentChanged,
+        List<String> addedAnnotations,
+        List<String> removedAnnotations
+    ) {}
+
+    @FunctionalInterface
+    public interface FileDiffConsumer {
+        void accept(FileDiff fileDiff) throws IOException;
+    }
+
+    /**
+     * Number of files of a diff by change.
+     */
+    public static class DiffSummary {
+
+        private int added;
+        private int removed;
+        private int modified;
+
+        void count(FileDiff fileDiff) {
+            switch (fileDiff.change()) {
+                case ADDED -> added++;
+                case REMOVED -> removed++;
+                case MODIFIED -> modified++;
+            }
+        }
+
+        int total() {
+            return added + removed + modified;
+        }
+
+        public int getAdded() {
+            return added;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public int getModified() {
+            return modified;
+        }
+    }
+}
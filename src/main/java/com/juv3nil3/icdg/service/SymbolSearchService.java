@@ -0,0 +1,230 @@
+package com.juv3nil3.icdg.service;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository;
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository.Snapshot;
+import com.juv3nil3.icdg.repository.SymbolSourceRepository;
+import com.juv3nil3.icdg.repository.search.Symbol;
+import com.juv3nil3.icdg.repository.search.Symbol.Kind;
+import com.juv3nil3.icdg.repository.search.SymbolHit;
+import com.juv3nil3.icdg.repository.search.SymbolSearchRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Search of the classes, methods and fields of documented repositories by name, annotation and comment, see
+ * {@link SymbolSearchRepository}.
+ * <p>
+ * The files a generation stores or retires are indexed once their transaction commits, a file at a time, and the index is
+ * marked with the generation once it is saved. A repository the index doesn't hold yet, or holds at an earlier generation than
+ * the latest one, as when the generation ran on another node, is indexed from the database on its next search instead,
+ * generations waiting for it to be done.
+ */
+@Service
+public class SymbolSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SymbolSearchService.class);
+
+    private final SymbolSearchRepository searchRepository;
+    private final SymbolSourceRepository sourceRepository;
+    private final DocumentationSnapshotRepository snapshotRepository;
+    private final DocumentationGenerator documentationGenerator;
+    private final int maxResults;
+
+    // One lock per repository, so a repository being indexed from the database doesn't miss the files of a generation
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SymbolSearchService(
+        SymbolSearchRepository searchRepository,
+        SymbolSourceRepository sourceRepository,
+        DocumentationSnapshotRepository snapshotRepository,
+        DocumentationGenerator documentationGenerator,
+        ApplicationProperties applicationProperties
+    ) {
+        this.searchRepository = searchRepository;
+        this.sourceRepository = sourceRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.documentationGenerator = documentationGenerator;
+        this.maxResults = applicationProperties.getSymbolSearch().getMaxResults();
+    }
+
+    /**
+     * Search the symbols of a documented repository.
+     *
+     * @param query the words to search for, in any case.
+     * @param size  the number of symbols to return, at most {@code application.symbol-search.max-results}.
+     * @return the best matching symbols, best first, or empty if the repository has no documentation.
+     */
+    public Optional<List<SymbolHit>> search(String owner, String repo, String query, int size) {
+        if (documentationGenerator.findDocumentation(owner, repo).isEmpty()) {
+            return Optional.empty();
+        }
+        ensureIndexed(owner, repo, snapshotRepository.findLatest(owner, repo).map(Snapshot::generation).orElse(0L));
+        return Optional.of(searchRepository.search(owner, repo, query, Math.max(1, Math.min(size, maxResults))));
+    }
+
+    /**
+     * Index the symbols of stored files once the current transaction commits, replacing those of their paths.
+     *
+     * @param files the files, with the ids their classes were stored with.
+     */
+    public void indexFiles(String owner, String repoName, List<FileData> files) {
+        Map<String, List<Symbol>> symbols = new LinkedHashMap<>();
+        for (FileData file : files) {
+            symbols.put(file.getFilePath(), symbolsOf(file));
+        }
+        afterCommit(owner, repoName, () ->
+            symbols.forEach((filePath, fileSymbols) -> searchRepository.indexFile(owner, repoName, filePath, fileSymbols))
+        );
+    }
+
+    /**
+     * Remove the symbols of retired files once the current transaction commits.
+     */
+    public void removeFiles(String owner, String repoName, Collection<String> filePaths) {
+        if (filePaths.isEmpty()) {
+            return;
+        }
+        List<String> paths = List.copyOf(filePaths);
+        afterCommit(owner, repoName, () -> searchRepository.removeFiles(owner, repoName, paths));
+    }
+
+    /**
+     * Drop the symbols of a repository once the current transaction commits, for the next search to index it again.
+     */
+    public void invalidate(String owner, String repoName) {
+        afterCommit(owner, repoName, () -> searchRepository.removeRepository(owner, repoName));
+    }
+
+    /**
+     * Mark the index of a repository with a saved generation once the current transaction commits, if it was marked with the
+     * previous one: the files of the generation were indexed on this node as they were stored.
+     */
+    public void generationSaved(String owner, String repoName, long generation) {
+        afterCommit(owner, repoName, () -> {
+            if (searchRepository.indexedGeneration(owner, repoName).equals(OptionalLong.of(generation - 1))) {
+                searchRepository.markIndexed(owner, repoName, generation);
+            }
+        });
+    }
+
+    private void afterCommit(String owner, String repoName, Runnable update) {
+        Runnable guarded = () -> {
+            synchronized (lock(owner, repoName)) {
+                // Left for the first search to index from the database
+                if (searchRepository.indexedGeneration(owner, repoName).isEmpty()) {
+                    return;
+                }
+                try {
+                    update.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to update the symbol index of {}/{}, indexing it again on next search", owner, repoName, e);
+                    searchRepository.removeRepository(owner, repoName);
+                }
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            guarded.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            }
+        );
+    }
+
+    private void ensureIndexed(String owner, String repoName, long generation) {
+        if (searchRepository.indexedGeneration(owner, repoName).equals(OptionalLong.of(generation))) {
+            return;
+        }
+        synchronized (lock(owner, repoName)) {
+            if (searchRepository.indexedGeneration(owner, repoName).equals(OptionalLong.of(generation))) {
+                return;
+            }
+            long start = System.nanoTime();
+            searchRepository.removeRepository(owner, repoName);
+            int[] files = new int[1];
+            sourceRepository.forEachFile(owner, repoName, (filePath, symbols) -> {
+                searchRepository.indexFile(owner, repoName, filePath, symbols);
+                files[0]++;
+            });
+            searchRepository.markIndexed(owner, repoName, generation);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            logger.info(
+                "Indexed the symbols of {} files of {}/{} at generation {} in {} ms",
+                files[0],
+                owner,
+                repoName,
+                generation,
+                millis
+            );
+        }
+    }
+
+    private Object lock(String owner, String repoName) {
+        return locks.computeIfAbsent(owner + '/' + repoName, key -> new Object());
+    }
+
+    /**
+     * The symbols of a file, each class followed by its methods and fields.
+     */
+    static List<Symbol> symbolsOf(FileData file) {
+        String packageName = file.getPackageData() != null ? file.getPackageData().getPackageName() : null;
+        List<Symbol> symbols = new ArrayList<>();
+        for (ClassData clazz : file.getClasses()) {
+            symbols.add(symbol(file, packageName, clazz, Kind.CLASS, clazz.getName(), clazz.getAnnotations(), clazz.getComment()));
+            for (MethodData method : clazz.getMethods()) {
+                symbols.add(symbol(file, packageName, clazz, Kind.METHOD, method.getName(), method.getAnnotations(), method.getComment()));
+            }
+            for (FieldData field : clazz.getFields()) {
+                symbols.add(symbol(file, packageName, clazz, Kind.FIELD, field.getName(), field.getAnnotations(), field.getComment()));
+            }
+        }
+        return symbols;
+    }
+
+    private static Symbol symbol(
+        FileData file,
+        String packageName,
+        ClassData clazz,
+        Kind kind,
+        String name,
+        List<String> annotations,
+        String comment
+    ) {
+        long classId = clazz.getId() != null ? clazz.getId() : 0;
+        return new Symbol(
+            file.getOwner(),
+            file.getRepoName(),
+            file.getFilePath(),
+            packageName,
+            classId,
+            clazz.getName(),
+            kind,
+            name,
+            List.copyOf(annotations),
+            comment
+        );
+    }
+}
@@ -0,0 +1,47 @@
+package com.juv3nil3.icdg.service.dto;
+
+import com.juv3nil3.icdg.service.GenerationJob;
+import com.juv3nil3.icdg.service.GenerationProgress;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The state of a {@link GenerationJob} as reported to clients.
+ *
+ * @param expectedFiles number of files the job processes, null while it is not known yet.
+ * @param etaSeconds    estimated seconds until the files are persisted, null until there is enough progress to tell.
+ */
+public record GenerationJobDTO(
+    String id,
+    String owner,
+    String repo,
+    GenerationJob.Status status,
+    Integer expectedFiles,
+    int fetchedFiles,
+    int parsedFiles,
+    int persistedFiles,
+    Long etaSeconds,
+    String error,
+    Instant submittedAt,
+    Instant finishedAt
+)
+    implements Serializable {
+    public static GenerationJobDTO of(GenerationJob job) {
+        GenerationProgress progress = job.getProgress();
+        return new GenerationJobDTO(
+            job.getId(),
+            job.getOwner(),
+            job.getRepo(),
+            job.getStatus(),
+            progress.getExpected().orElse(null),
+            progress.getFetched(),
+            progress.getParsed(),
+            progress.getPersisted(),
+            job.isDone() ? null : progress.estimateRemaining().map(Duration::toSeconds).orElse(null),
+            job.getError(),
+            job.getSubmittedAt(),
+            job.getFinishedAt()
+        );
+    }
+}
@@ -1,12 +1,39 @@
 package com.juv3nil3.icdg.web.rest;
 
+import com.juv3nil3.icdg.domain.Documentation;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.ClassDetail;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.CursorPage;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.FileSummary;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.PackageSummary;
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository.Snapshot;
+import com.juv3nil3.icdg.repository.search.SymbolHit;
+import com.juv3nil3.icdg.security.SecurityUtils;
+import com.juv3nil3.icdg.service.DocumentationBrowseService;
 import com.juv3nil3.icdg.service.DocumentationGenerationService;
-import com.juv3nil3.icdg.service.GithubService;
+import com.juv3nil3.icdg.service.DocumentationGenerator;
+import com.juv3nil3.icdg.service.GenerationJob;
+import com.juv3nil3.icdg.service.GenerationJobService;
 import com.juv3nil3.icdg.service.GithubTokenService;
+import com.juv3nil3.icdg.service.RenderedExportCache;
+import com.juv3nil3.icdg.service.RepositoryAccessChecker;
+import com.juv3nil3.icdg.service.RenderedExportCache.ExportKey;
+import com.juv3nil3.icdg.service.SnapshotDiffService;
+import com.juv3nil3.icdg.service.SnapshotDiffService.SnapshotPair;
+import com.juv3nil3.icdg.service.SymbolSearchService;
+import com.juv3nil3.icdg.service.dto.GenerationJobDTO;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/documentation")
@@ -16,23 +43,60 @@ public class DocumentationController {
     private static final String REALM_NAME = "jhipster"; // Your Keycloak realm name
     private static final String PROVIDER_ALIAS = "github"; // The alias for GitHub IDP in Keycloak
 
+    private static final MediaType MARKDOWN = new MediaType("text", "markdown", StandardCharsets.UTF_8);
+
+    private static final String DEFAULT_PAGE_SIZE = "50";
+
+    // Clients are expected to reconnect to the event stream of a job running for longer
+    private static final long JOB_EVENTS_TIMEOUT_MILLIS = Duration.ofMinutes(30).toMillis();
+
     @Autowired
     private RestTemplate restTemplate; // Used for making HTTP calls to Keycloak and GitHub
 
     private final DocumentationGenerationService generationService;
+    private final DocumentationGenerator documentationGenerator;
+    private final RenderedExportCache renderedExportCache;
     private final GithubTokenService githubTokenService;
+    private final GenerationJobService generationJobService;
+    private final DocumentationBrowseService browseService;
+    private final SnapshotDiffService snapshotDiffService;
+    private final SymbolSearchService symbolSearchService;
+    private final RepositoryAccessChecker repositoryAccessChecker;
 
     @Autowired
-    public DocumentationController(DocumentationGenerationService generationService, GithubTokenService githubTokenService) {
+    public DocumentationController(
+        DocumentationGenerationService generationService,
+        DocumentationGenerator documentationGenerator,
+        RenderedExportCache renderedExportCache,
+        GithubTokenService githubTokenService,
+        GenerationJobService generationJobService,
+        DocumentationBrowseService browseService,
+        SnapshotDiffService snapshotDiffService,
+        SymbolSearchService symbolSearchService,
+        RepositoryAccessChecker repositoryAccessChecker
+    ) {
         this.generationService = generationService;
+        this.documentationGenerator = documentationGenerator;
+        this.renderedExportCache = renderedExportCache;
         this.githubTokenService = githubTokenService;
+        this.generationJobService = generationJobService;
+        this.browseService = browseService;
+        this.snapshotDiffService = snapshotDiffService;
+        this.symbolSearchService = symbolSearchService;
+        this.repositoryAccessChecker = repositoryAccessChecker;
     }
 
+    /**
+     * Generate the documentation of a repository if it is missing or outdated, then stream it as Markdown as it is rendered.
+     * <p>
+     * The export of a commit is cached and tagged, a matching {@code If-None-Match} getting a 304 without a body.
+     */
     @GetMapping("/generate")
-    public ResponseEntity<?> generateDocumentationForRepo(
+    public ResponseEntity<StreamingResponseBody> generateDocumentationForRepo(
         @RequestHeader("Authorization") String keycloakAccessToken,
         @RequestParam String owner,
-        @RequestParam String repo
+        @RequestParam String repo,
+        WebRequest webRequest
     ) {
         try {
             // Step 1: Extract the access token from the Authorization header
@@ -42,14 +106,305 @@ public class DocumentationController {
             String githubToken = githubTokenService.fetchGithubTokenFromKeycloak(accessToken);
 
             // Step 3: Generate documentation for the GitHub repository
-            String documentation = generationService.generateDocumentationForRepo(owner, repo, githubToken);
+            Documentation documentation = generationService.generateDocumentationForRepo(owner, repo, githubToken);
 
-            // Return success response
-            return ResponseEntity.status(HttpStatus.OK).body(documentation); // HTTP status code for successful retrieval
+            // Step 4: Answer from the client's copy or the export cache when the commit hasn't changed
+            return export(owner, repo, documentation, webRequest);
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+            return message(HttpStatus.BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error generating documentation: " + e.getMessage());
+            return message(HttpStatus.INTERNAL_SERVER_ERROR, "Error generating documentation: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Submit the generation of the documentation of a repository as a background job, answering with the job right away.
+     * <p>
+     * The job is polled at the returned location, or followed as Server-Sent Events at its {@code events}, and its documentation
+     * is read from its {@code result} once it has succeeded.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<GenerationJobDTO> submitGenerationJob(
+        @RequestHeader("Authorization") String keycloakAccessToken,
+        @RequestParam String owner,
+        @RequestParam String repo
+    ) throws Exception {
+        // Jobs are only ever found again by the user who submitted them
+        Optional<String> user = currentUser();
+        if (user.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        // The GitHub token is fetched now, while the Keycloak token of the request is at hand
+        String githubToken = githubTokenService.fetchGithubTokenFromKeycloak(keycloakAccessToken.replace("Bearer ", ""));
+        try {
+            GenerationJob job = generationJobService.submit(owner, repo, githubToken, user.get());
+            return ResponseEntity.accepted().location(URI.create("/api/documentation/jobs/" + job.getId())).body(GenerationJobDTO.of(job));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Get the status and progress of a generation job.
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<GenerationJobDTO> getGenerationJob(@PathVariable String id) {
+        Optional<String> user = currentUser();
+        if (user.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.of(generationJobService.find(id, user.get()).map(GenerationJobDTO::of));
+    }
+
+    /**
+     * Follow a generation job as Server-Sent Events, a {@code progress} event carrying the job at every progress interval until
+     * the stream completes after the one of the job being done.
+     */
+    @GetMapping(path = "/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> followGenerationJob(@PathVariable String id) {
+        Optional<String> user = currentUser();
+        if (user.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Optional<GenerationJob> jobOpt = generationJobService.find(id, user.get());
+        if (jobOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        GenerationJob job = jobOpt.get();
+        SseEmitter emitter = new SseEmitter(JOB_EVENTS_TIMEOUT_MILLIS);
+        GenerationJob.Listener listener = update -> {
+            emitter.send(SseEmitter.event().name("progress").data(GenerationJobDTO.of(update), MediaType.APPLICATION_JSON));
+            if (update.isDone()) {
+                emitter.complete();
+            }
+        };
+        emitter.onCompletion(() -> job.unsubscribe(listener));
+        emitter.onTimeout(() -> job.unsubscribe(listener));
+        emitter.onError(e -> job.unsubscribe(listener));
+        job.subscribe(listener);
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Stream the documentation generated by a job as Markdown, tagged like the export of {@code /generate}.
+     */
+    @GetMapping("/jobs/{id}/result")
+    public ResponseEntity<StreamingResponseBody> getGenerationJobResult(@PathVariable String id, WebRequest webRequest) {
+        Optional<String> user = currentUser();
+        if (user.isEmpty()) {
+            return message(HttpStatus.UNAUTHORIZED, "Generation jobs need an authenticated user");
+        }
+        Optional<GenerationJob> jobOpt = generationJobService.find(id, user.get());
+        if (jobOpt.isEmpty()) {
+            return message(HttpStatus.NOT_FOUND, "No generation job " + id);
+        }
+        GenerationJob job = jobOpt.get();
+        if (job.getStatus() == GenerationJob.Status.FAILED) {
+            return message(HttpStatus.INTERNAL_SERVER_ERROR, "Error generating documentation: " + job.getError());
+        }
+        Optional<Documentation> documentation = job.getDocumentation();
+        if (documentation.isEmpty()) {
+            return message(HttpStatus.CONFLICT, "Generation job " + id + " is " + job.getStatus());
+        }
+        return export(job.getOwner(), job.getRepo(), documentation.get(), webRequest);
+    }
+
+    /**
+     * List the generated commits of a repository, latest first, each readable with the {@code commit} parameter of the export and
+     * browsing endpoints.
+     */
+    @GetMapping("/snapshots")
+    public ResponseEntity<List<Snapshot>> listSnapshots(
+        @RequestHeader("Authorization") String keycloakAccessToken,
+        @RequestParam String owner,
+        @RequestParam String repo
+    ) throws Exception {
+        if (!canRead(keycloakAccessToken, owner, repo)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.of(documentationGenerator.findSnapshots(owner, repo));
+    }
+
+    /**
+     * Stream the stored documentation of a repository as Markdown, as of the given commit or the latest generated one, without
+     * generating anything. Tagged like the export of {@code /generate}.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportSnapshot(
+        @RequestHeader("Authorization") String keycloakAccessToken,
+        @RequestParam String owner,
+        @RequestParam String repo,
+        @RequestParam(required = false) String commit,
+        WebRequest webRequest
+    ) throws Exception {
+        if (!canRead(keycloakAccessToken, owner, repo)) {
+            return message(HttpStatus.NOT_FOUND, "No documentation of " + owner + "/" + repo);
+        }
+        Optional<Documentation> documentation = documentationGenerator.findDocumentation(owner, repo);
+        Optional<Snapshot> snapshot = documentationGenerator.findSnapshot(owner, repo, commit);
+        if (documentation.isEmpty() || snapshot.isEmpty()) {
+            return message(HttpStatus.NOT_FOUND, "No documentation of " + owner + "/" + repo + (commit != null ? " at " + commit : ""));
+        }
+        return export(
+            owner,
+            repo,
+            snapshot.get().commitHash(),
+            output -> documentationGenerator.exportDocumentation(documentation.get(), snapshot.get(), output),
+            webRequest
+        );
+    }
+
+    /**
+     * Stream the structural diff between the documentation of two generated commits of a repository, {@code to} defaulting to
+     * the latest one: the files, classes, methods and fields added, removed or modified, as JSON or Markdown.
+     */
+    @GetMapping("/diff")
+    public ResponseEntity<StreamingResponseBody> diffSnapshots(
+        @RequestHeader("Authorization") String keycloakAccessToken,
+        @RequestParam String owner,
+        @RequestParam String repo,
+        @RequestParam String from,
+        @RequestParam(required = false) String to,
+        @RequestParam(defaultValue = "json") String format
+    ) throws Exception {
+        if (!canRead(keycloakAccessToken, owner, repo)) {
+            return message(HttpStatus.NOT_FOUND, "No documentation of " + owner + "/" + repo);
+        }
+        boolean markdown = "markdown".equalsIgnoreCase(format);
+        if (!markdown && !"json".equalsIgnoreCase(format)) {
+            return message(HttpStatus.BAD_REQUEST, "Unsupported diff format: " + format);
+        }
+        Optional<SnapshotPair> snapshots = snapshotDiffService.findSnapshots(owner, repo, from, to);
+        if (snapshots.isEmpty()) {
+            String commits = from + (to != null ? " and " + to : "");
+            return message(HttpStatus.NOT_FOUND, "No documentation of " + owner + "/" + repo + " at " + commits);
+        }
+
+        // The diff is written to the response as it is computed
+        if (markdown) {
+            return ResponseEntity.ok()
+                .contentType(MARKDOWN)
+                .body(outputStream -> snapshotDiffService.writeMarkdown(snapshots.get(), outputStream));
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(outputStream -> snapshotDiffService.writeJson(snapshots.get(), outputStream));
+    }
+
+    /**
+     * List the packages of a generated repository by name, a page at a time: the {@code next} of a page is the {@code after} of
+     * the following one, and is null on the last page.
+     */
+    @GetMapping("/packages")
+    public ResponseEntity<CursorPage<PackageSummary>> listPackages(
+        @RequestHeader("Authorization") String keycloakAccessToken,
+        @RequestParam String owner,
+        @RequestParam String repo,
+        @RequestParam(required = false) String commit,
+        @RequestParam(required = false) String after,
+        @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size
+    ) throws Exception {
+        if (!canRead(keycloakAccessToken, owner, repo)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.of(browseService.findPackages(owner, repo, commit, after, size));
+    }
+
+    /**
+     * List the files of a package of a generated repository with their classes, a page at a time like the packages.
+     */
+    @GetMapping("/packages/{packageName}/files")
+    public ResponseEntity<CursorPage<FileSummary>> listFiles(
+        @RequestHeader("Authorization") String keycloakAccessToken,
+        @PathVariable String packageName,
+        @RequestParam String owner,
+        @RequestParam String repo,
+        @RequestParam(required = false) String commit,
+        @RequestParam(required = false) Long after,
+        @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size
+    ) throws Exception {
+        if (!canRead(keycloakAccessToken, owner, repo)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.of(browseService.findFiles(owner, repo, commit, packageName, after, size));
+    }
+
+    /**
+     * Get a class of a generated repository with its methods and fields.
+     */
+    @GetMapping("/classes/{id}")
+    public ResponseEntity<ClassDetail> getDocumentedClass(
+        @RequestHeader("Authorization") String keycloakAccessToken,
+        @PathVariable long id,
+        @RequestParam String owner,
+        @RequestParam String repo,
+        @RequestParam(required = false) String commit
+    ) throws Exception {
+        if (!canRead(keycloakAccessToken, owner, repo)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.of(browseService.findClass(owner, repo, commit, id));
+    }
+
+    /**
+     * Search the classes, methods and fields of the latest generated commit of a repository by the words of their names,
+     * annotations and comments, best matches first. Each word of {@code q} has to match, exactly, as a prefix or with a typo.
+     */
+    @GetMapping("/symbols")
+    public ResponseEntity<List<SymbolHit>> searchSymbols(
+        @RequestHeader("Authorization") String keycloakAccessToken,
+        @RequestParam String owner,
+        @RequestParam String repo,
+        @RequestParam String q,
+        @RequestParam(defaultValue = "20") int size
+    ) throws Exception {
+        if (!canRead(keycloakAccessToken, owner, repo)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.of(symbolSearchService.search(owner, repo, q, size));
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(String owner, String repo, Documentation documentation, WebRequest webRequest) {
+        String commitHash = documentation.getRepositoryMetadata().getLatestCommitHash();
+        return export(owner, repo, commitHash, output -> documentationGenerator.exportDocumentation(documentation, output), webRequest);
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(
+        String owner,
+        String repo,
+        String commitHash,
+        RenderedExportCache.Renderer renderer,
+        WebRequest webRequest
+    ) {
+        ExportKey key = new ExportKey(owner, repo, commitHash, DocumentationGenerator.EXPORT_FORMAT, DocumentationGenerator.EXPORT_VERSION);
+        String etag = RenderedExportCache.etag(key);
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
         }
+
+        // Return success response, the export being written to the response as it is read
+        return ResponseEntity.status(HttpStatus.OK)
+            .eTag(etag)
+            .contentType(MARKDOWN)
+            .body(outputStream -> renderedExportCache.write(key, outputStream, renderer));
+    }
+
+    /**
+     * Whether the GitHub user of a request can read a repository. Stored documentation is only served to them, and looks missing
+     * to anyone else, as the repository does on GitHub.
+     */
+    private boolean canRead(String keycloakAccessToken, String owner, String repo) throws Exception {
+        String githubToken = githubTokenService.fetchGithubTokenFromKeycloak(keycloakAccessToken.replace("Bearer ", ""));
+        return repositoryAccessChecker.canRead(owner, repo, githubToken);
+    }
+
+    private static Optional<String> currentUser() {
+        return SecurityUtils.getCurrentUserLogin();
+    }
+
+    private static ResponseEntity<StreamingResponseBody> message(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+            .contentType(MediaType.TEXT_PLAIN)
+            .body(outputStream -> outputStream.write(String.valueOf(message).getBytes(StandardCharsets.UTF_8)));
     }
 }
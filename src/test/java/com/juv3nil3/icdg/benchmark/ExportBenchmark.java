@@ -0,0 +1,149 @@
+package com.juv3nil3.icdg.benchmark;
+
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.Documentation;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import com.juv3nil3.icdg.domain.PackageData;
+import com.juv3nil3.icdg.domain.RepositoryMetadata;
+import com.juv3nil3.icdg.repository.DocumentationExportRepository;
+import com.juv3nil3.icdg.repository.DocumentationExportRepository.FileView;
+import com.juv3nil3.icdg.repository.DocumentationExportRepository.PackageView;
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository.Snapshot;
+import com.juv3nil3.icdg.repository.FileDataBatchRepository;
+import com.juv3nil3.icdg.service.DocumentationGenerator;
+import com.juv3nil3.icdg.test.util.MigratedH2Database;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to read and export the documentation of a generated repository of 1k, 10k or 50k classes, stored in H2 through the
+ * Liquibase schema.
+ * <p>
+ * {@code loadPackages} pages through the packages with their files, classes and members, the read every export starts with.
+ * {@code exportMarkdown} is the whole {@link DocumentationGenerator#exportDocumentation} download, written to a discarding stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportBenchmark {
+
+    private static final int CLASSES_PER_FILE = 5;
+    private static final int FILES_PER_PACKAGE = 20;
+    private static final int METHODS_PER_CLASS = 10;
+    private static final int FIELDS_PER_CLASS = 2;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({ "1000", "10000", "50000" })
+    public int classes;
+
+    private DocumentationExportRepository exportRepository;
+    private DocumentationGenerator documentationGenerator;
+    private Documentation documentation;
+    private Snapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void createRepository() throws Exception {
+        DataSource dataSource = MigratedH2Database.create();
+        FileDataBatchRepository batchRepository = new FileDataBatchRepository(dataSource);
+        exportRepository = new DocumentationExportRepository(dataSource);
+        // Exports of a given snapshot only read through the export repository
+        documentationGenerator = new DocumentationGenerator(null, null, exportRepository, null, null);
+
+        documentation = new Documentation();
+        documentation.setRepositoryMetadata(new RepositoryMetadata("owner", "repo", "A generated repository", "commit", "main"));
+        snapshot = new Snapshot("owner", "repo", 0, "commit", Instant.now());
+
+        int files = classes / CLASSES_PER_FILE;
+        List<PackageData> packages = new ArrayList<>();
+        for (int p = 0; p * FILES_PER_PACKAGE < files; p++) {
+            PackageData packageData = new PackageData("com.example.package" + p);
+            packageData.setOwner("owner");
+            packageData.setRepoName("repo");
+            packages.add(packageData);
+        }
+        batchRepository.insertPackages(packages, 0);
+        batchRepository.insertAll(syntheticFiles(packages, files), 0);
+    }
+
+    @Benchmark
+    public int loadPackages() {
+        int loaded = 0;
+        String lastPackageName = null;
+        List<PackageView> page;
+        do {
+            page = exportRepository.findPackagePage(
+                snapshot.owner(),
+                snapshot.repoName(),
+                snapshot.generation(),
+                lastPackageName,
+                PAGE_SIZE
+            );
+            for (PackageView packageView : page) {
+                for (FileView file : packageView.files()) {
+                    loaded += file.classes().size();
+                }
+                lastPackageName = packageView.packageName();
+            }
+        } while (page.size() == PAGE_SIZE);
+        return loaded;
+    }
+
+    @Benchmark
+    public void exportMarkdown() throws Exception {
+        documentationGenerator.exportDocumentation(documentation, snapshot, OutputStream.nullOutputStream());
+    }
+
+    private static List<FileData> syntheticFiles(List<PackageData> packages, int count) {
+        List<FileData> files = new ArrayList<>(count);
+        for (int f = 0; f < count; f++) {
+            FileData file = new FileData();
+            file.setFileName("Type" + f + ".java");
+            file.setOwner("owner");
+            file.setRepoName("repo");
+            file.setFilePath("src/main/java/Type" + f + ".java");
+            file.setPackageData(packages.get(f / FILES_PER_PACKAGE));
+            for (int c = 0; c < CLASSES_PER_FILE; c++) {
+                ClassData clazz = new ClassData();
+                clazz.setName("Type" + f + "$" + c);
+                clazz.setComment("/** Generated class " + c + " */");
+                clazz.getAnnotations().add("@Component");
+                for (int m = 0; m < METHODS_PER_CLASS; m++) {
+                    MethodData method = new MethodData();
+                    method.setName("method" + m);
+                    method.setComment("/** Generated method " + m + " */");
+                    method.getAnnotations().add("@Override");
+                    clazz.getMethods().add(method);
+                }
+                for (int d = 0; d < FIELDS_PER_CLASS; d++) {
+                    FieldData field = new FieldData();
+                    field.setName("field" + d);
+                    clazz.getFields().add(field);
+                }
+                file.addClass(clazz);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+}
@@ -0,0 +1,136 @@
+package com.juv3nil3.icdg.benchmark;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.config.ApplicationProperties.Ingestion.ParseMode;
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository;
+import com.juv3nil3.icdg.repository.FileDataBatchRepository;
+import com.juv3nil3.icdg.repository.SymbolSourceRepository;
+import com.juv3nil3.icdg.repository.search.LuceneSymbolSearchRepository;
+import com.juv3nil3.icdg.service.IngestionPipeline;
+import com.juv3nil3.icdg.service.JavaCodeParser;
+import com.juv3nil3.icdg.service.JavaParserService;
+import com.juv3nil3.icdg.service.ParseResultCache;
+import com.juv3nil3.icdg.service.SymbolSearchService;
+import com.juv3nil3.icdg.test.util.MigratedH2Database;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Time to ingest a whole repository into an empty H2 database: every Java file of the corpus is submitted to the
+ * {@link IngestionPipeline}, parsed on its parser threads and written in batches by its persistence stage, as a generation does
+ * once the files are fetched.
+ * <p>
+ * The corpus defaults to the sources of this application, and can be pointed at any checkout with {@code -p corpus=<dir>}. The
+ * parse cache is off, so every file is parsed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class IngestionBenchmark {
+
+    private static final String OWNER = "owner";
+    private static final String REPO_NAME = "repo";
+
+    @Param({ "FULL", "DECLARATIONS" })
+    public ParseMode mode;
+
+    @Param({ "src/main/java" })
+    public String corpus;
+
+    private JdbcTemplate jdbcTemplate;
+    private IngestionPipeline ingestionPipeline;
+    private Map<String, String> sources;
+
+    @Setup(Level.Trial)
+    public void createPipeline() throws Exception {
+        DataSource dataSource = MigratedH2Database.create();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getParseCache().setEnabled(false);
+        applicationProperties.getIngestion().setParseMode(mode);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DocumentationSnapshotRepository snapshotRepository = new DocumentationSnapshotRepository(dataSource);
+        JavaParserService javaParserService = new JavaParserService(
+            new FileDataBatchRepository(dataSource),
+            snapshotRepository,
+            new JavaCodeParser(applicationProperties),
+            // Never searched, so never indexed
+            new SymbolSearchService(
+                new LuceneSymbolSearchRepository(Files.createTempDirectory("icdg-symbol-index"), 8),
+                new SymbolSourceRepository(dataSource),
+                snapshotRepository,
+                null,
+                applicationProperties
+            )
+        );
+        ingestionPipeline = new IngestionPipeline(
+            javaParserService,
+            new ParseResultCache(applicationProperties, meterRegistry),
+            applicationProperties,
+            meterRegistry
+        );
+
+        Path root = Paths.get(corpus);
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(path -> path.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+        }
+        if (files.isEmpty()) {
+            throw new IllegalStateException("No Java files under " + corpus);
+        }
+        sources = new LinkedHashMap<>();
+        for (Path file : files) {
+            sources.put(root.relativize(file).toString().replace('\\', '/'), Files.readString(file));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopPipeline() {
+        ingestionPipeline.shutdown();
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTables() {
+        // Classes, members and annotations go with their files through the ON DELETE CASCADE foreign keys
+        jdbcTemplate.update("DELETE FROM file_data");
+        jdbcTemplate.update("UPDATE package_data SET parent_package_id = NULL");
+        jdbcTemplate.update("DELETE FROM package_data");
+    }
+
+    @Benchmark
+    public void ingestRepository() throws Exception {
+        try (IngestionPipeline.Run run = ingestionPipeline.start(OWNER, REPO_NAME)) {
+            for (Map.Entry<String, String> source : sources.entrySet()) {
+                run.submitParse(source.getKey(), source.getValue());
+            }
+            run.awaitCompletion();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.juv3nil3.icdg.benchmark;
+
+import com.juv3nil3.icdg.config.ApplicationProperties.Ingestion.ParseMode;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.service.JavaCodeParser;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Files per second parsed by the {@link JavaCodeParser}, in full or declarations only, over a corpus of Java sources.
+ * <p>
+ * The corpus is either a single generated file, {@code small}, {@code large} or {@code pathological}, or a directory of real
+ * sources: the sources of this application by default, or any checkout with {@code -p corpus=<dir>}. Files are parsed in turn
+ * from memory, so only the parse is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({ "FULL", "DECLARATIONS" })
+    public ParseMode mode;
+
+    @Param({ "small", "large", "pathological", "src/main/java" })
+    public String corpus;
+
+    private JavaCodeParser parser;
+    private List<String> sources;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void readCorpus() throws Exception {
+        parser = new JavaCodeParser(mode);
+        sources = new ArrayList<>();
+        switch (corpus) {
+            case "small" -> sources.add(smallFile());
+            case "large" -> sources.add(largeFile());
+            case "pathological" -> sources.add(pathologicalFile());
+            default -> readDirectory();
+        }
+        if (sources.isEmpty()) {
+            throw new IllegalStateException("No Java files under " + corpus);
+        }
+    }
+
+    private void readDirectory() throws Exception {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(Paths.get(corpus))) {
+            files = paths.filter(path -> path.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            sources.add(Files.readString(file));
+        }
+    }
+
+    @Benchmark
+    public FileData parse() throws Exception {
+        String source = sources.get(next);
+        next = (next + 1) % sources.size();
+        return parser.parseJavaFile(source);
+    }
+
+    /**
+     * A service of a few one-line methods, the common case.
+     */
+    private static String smallFile() {
+        StringBuilder source = new StringBuilder("package com.example;\n\n/** A small service. */\n@Service\npublic class Small {\n\n");
+        source.append("    private final Repository repository;\n\n");
+        for (int m = 0; m < 5; m++) {
+            source.append("    /** Method ").append(m).append(". */\n");
+            source.append("    public int method").append(m).append("(int value) {\n");
+            source.append("        return repository.find(value) + ").append(m).append(";\n    }\n\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * A class of 500 documented methods with loops and branches, about 200 KB.
+     */
+    private static String largeFile() {
+        StringBuilder source = new StringBuilder("package com.example;\n\nimport java.util.List;\n\n");
+        source.append("/** A large class. */\npublic class Large {\n\n");
+        for (int f = 0; f < 100; f++) {
+            source.append("    /** Field ").append(f).append(". */\n");
+            source.append("    private List<String> field").append(f).append(" = List.of(\"").append(f).append("\");\n\n");
+        }
+        for (int m = 0; m < 500; m++) {
+            source.append("    /** Method ").append(m).append(". */\n    @Deprecated\n");
+            source.append("    public String method").append(m).append("(List<String> values, int limit) {\n");
+            source.append("        StringBuilder result = new StringBuilder();\n");
+            source.append("        for (int i = 0; i < Math.min(limit, values.size()); i++) {\n");
+            source.append("            if (values.get(i).isEmpty()) {\n                continue;\n            }\n");
+            source.append("            result.append(values.get(i)).append(\"").append(m).append("\");\n        }\n");
+            source.append("        return result.toString();\n    }\n\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * Deeply nested blocks and lambdas, a long expression, braces in literals and comments, and many local classes.
+     */
+    private static String pathologicalFile() {
+        StringBuilder source = new StringBuilder("package com.example;\n\n/** Pathological. */\npublic class Pathological {\n\n");
+        source.append("    int nested(int value) {\n        ");
+        for (int d = 0; d < 100; d++) {
+            source.append("if (value > ").append(d).append(") { ");
+        }
+        source.append("return value;").append(" }".repeat(100)).append("\n        return 0;\n    }\n\n");
+        source.append("    String concatenated() {\n        return \"{\"");
+        for (int t = 0; t < 2000; t++) {
+            source.append(" + \"} ").append(t).append(" {\"");
+        }
+        source.append(";\n    }\n\n");
+        source.append("    java.util.function.Supplier<Object> lambdas() {\n        return ");
+        source.append("() -> { return (java.util.function.Supplier<Object>) ".repeat(50));
+        source.append("() -> '{'").append("; }".repeat(50)).append(";\n    }\n\n");
+        for (int c = 0; c < 200; c++) {
+            source.append("    /* } */ // {\n    class Inner").append(c);
+            source.append(" { /** Inner method. */ void run() { char brace = '}'; } }\n\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
@@ -0,0 +1,214 @@
+package com.juv3nil3.icdg.benchmark;
+
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import com.juv3nil3.icdg.domain.PackageData;
+import com.juv3nil3.icdg.repository.FileDataBatchRepository;
+import com.juv3nil3.icdg.test.util.MigratedH2Database;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Rows per second written for a repository of 100k methods, one row per entity or annotation.
+ * <p>
+ * {@code identityInserts} issues what Hibernate issues for {@code GenerationType.IDENTITY} entities: one insert per row, each
+ * reading back its generated key, which rules out JDBC batching. {@code batchInserts} is the {@link FileDataBatchRepository} path.
+ * Both write in a single transaction against the Liquibase schema on H2, either in memory or through a local TCP server, the latter
+ * paying a network round trip per statement execution like PostgreSQL does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    private static final int FILES = 1_000;
+    private static final int CLASSES_PER_FILE = 5;
+    private static final int METHODS_PER_CLASS = 20;
+    private static final int FIELDS_PER_CLASS = 2;
+
+    /**
+     * Files, classes and their annotation, methods and their annotation, fields.
+     */
+    private static final int ROWS =
+        FILES +
+        2 * FILES * CLASSES_PER_FILE +
+        2 * FILES * CLASSES_PER_FILE * METHODS_PER_CLASS +
+        FILES * CLASSES_PER_FILE * FIELDS_PER_CLASS;
+
+    @Param({ "mem", "tcp" })
+    public String database;
+
+    private Server server;
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private FileDataBatchRepository batchRepository;
+    private List<FileData> files;
+
+    @Setup(Level.Trial)
+    public void createDatabase() throws Exception {
+        if ("tcp".equals(database)) {
+            server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            dataSource = MigratedH2Database.create("jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:benchmark;DB_CLOSE_DELAY=-1");
+        } else {
+            dataSource = MigratedH2Database.create();
+        }
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        batchRepository = new FileDataBatchRepository(dataSource);
+
+        jdbcTemplate.update("INSERT INTO package_data (package_name, owner, repo_name) VALUES ('com.example', 'owner', 'repo')");
+        PackageData packageData = new PackageData("com.example");
+        packageData.setId(jdbcTemplate.queryForObject("SELECT id FROM package_data", Long.class));
+        files = syntheticFiles(packageData);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTables() {
+        // Classes, members and annotations go with their files through the ON DELETE CASCADE foreign keys
+        jdbcTemplate.update("DELETE FROM file_data");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void identityInserts() {
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.execute((Connection connection) -> {
+                insertOneByOne(connection);
+                return null;
+            })
+        );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int batchInserts() {
+        return transactionTemplate.execute(status -> batchRepository.insertAll(files, 0));
+    }
+
+    private void insertOneByOne(Connection connection) throws SQLException {
+        try (
+            PreparedStatement file = connection.prepareStatement(
+                "INSERT INTO file_data (file_name, repo_name, file_path, package_id) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS
+            );
+            PreparedStatement clazz = connection.prepareStatement(
+                "INSERT INTO class_data (name, comment, file_id) VALUES (?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS
+            );
+            PreparedStatement method = connection.prepareStatement(
+                "INSERT INTO method_data (name, comment, class_id) VALUES (?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS
+            );
+            PreparedStatement field = connection.prepareStatement(
+                "INSERT INTO field_data (name, comment, class_id) VALUES (?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS
+            );
+            PreparedStatement classAnnotation = connection.prepareStatement(
+                "INSERT INTO class_data_annotations (class_data_id, annotation) VALUES (?, ?)"
+            );
+            PreparedStatement methodAnnotation = connection.prepareStatement(
+                "INSERT INTO method_data_annotations (method_data_id, annotation) VALUES (?, ?)"
+            )
+        ) {
+            for (FileData fileData : files) {
+                long fileId = insert(file, fileData.getFileName(), fileData.getRepoName(), fileData.getFilePath(), fileData.getPackageData().getId());
+                for (ClassData classData : fileData.getClasses()) {
+                    long classId = insert(clazz, classData.getName(), classData.getComment(), fileId);
+                    for (String annotation : classData.getAnnotations()) {
+                        insert(classAnnotation, classId, annotation);
+                    }
+                    for (MethodData methodData : classData.getMethods()) {
+                        long methodId = insert(method, methodData.getName(), methodData.getComment(), classId);
+                        for (String annotation : methodData.getAnnotations()) {
+                            insert(methodAnnotation, methodId, annotation);
+                        }
+                    }
+                    for (FieldData fieldData : classData.getFields()) {
+                        insert(field, fieldData.getName(), fieldData.getComment(), classId);
+                    }
+                }
+            }
+        }
+    }
+
+    private static long insert(PreparedStatement statement, Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            statement.setObject(i + 1, values[i]);
+        }
+        statement.executeUpdate();
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            return keys.next() ? keys.getLong(1) : 0;
+        }
+    }
+
+    private static List<FileData> syntheticFiles(PackageData packageData) {
+        List<FileData> files = new ArrayList<>(FILES);
+        for (int f = 0; f < FILES; f++) {
+            FileData file = new FileData();
+            file.setFileName("Type" + f + ".java");
+            file.setOwner("owner");
+            file.setRepoName("repo");
+            file.setFilePath("src/main/java/com/example/Type" + f + ".java");
+            file.setPackageData(packageData);
+            for (int c = 0; c < CLASSES_PER_FILE; c++) {
+                ClassData clazz = new ClassData();
+                clazz.setName("Type" + f + "$" + c);
+                clazz.setComment("/** Generated class " + c + " */");
+                clazz.getAnnotations().add("@Component");
+                for (int m = 0; m < METHODS_PER_CLASS; m++) {
+                    MethodData method = new MethodData();
+                    method.setName("method" + m);
+                    method.setComment("/** Generated method " + m + " */");
+                    method.getAnnotations().add("@Override");
+                    clazz.getMethods().add(method);
+                }
+                for (int d = 0; d < FIELDS_PER_CLASS; d++) {
+                    FieldData field = new FieldData();
+                    field.setName("field" + d);
+                    clazz.getFields().add(field);
+                }
+                file.addClass(clazz);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+}
@@ -0,0 +1,151 @@
+package com.juv3nil3.icdg.benchmark;
+
+import com.juv3nil3.icdg.repository.search.LuceneSymbolSearchRepository;
+import com.juv3nil3.icdg.repository.search.Symbol;
+import com.juv3nil3.icdg.repository.search.Symbol.Kind;
+import com.juv3nil3.icdg.repository.search.SymbolHit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Latency of a search of the Lucene symbol index of a repository of 100k or 1M symbols, sampled for its percentiles.
+ * <p>
+ * Names are made of two to four words of a vocabulary of Java identifiers, so common words match a large share of the symbols.
+ * {@code searchWord} is a single word, {@code searchPrefix} the start of a name as typed, {@code searchTypo} a misspelled word
+ * and {@code searchWords} two words anywhere in a name. {@code indexFile} replaces the symbols of a file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SymbolSearchBenchmark {
+
+    private static final String[] WORDS = {
+        "abstract", "account", "adapter", "async", "batch", "buffer", "builder", "cache", "channel", "client", "config", "connection",
+        "context", "converter", "count", "date", "decoder", "default", "document", "encoder", "entity", "event", "exception", "export",
+        "factory", "field", "file", "filter", "generator", "handler", "http", "index", "input", "item", "job", "json", "key", "listener",
+        "loader", "lock", "manager", "mapper", "message", "metadata", "method", "node", "order", "output", "package", "page", "parser",
+        "path", "pool", "processor", "provider", "query", "queue", "reader", "record", "registry", "request", "resolver", "resource",
+        "response", "result", "schema", "scheduler", "security", "service", "session", "size", "snapshot", "source", "state", "stream",
+        "task", "template", "token", "transaction", "user", "util", "validator", "value", "version", "writer",
+    };
+    private static final String[] ANNOTATIONS = { "@Override", "@Transactional", "@Autowired", "@Bean", "@Nullable", "@Deprecated" };
+    private static final int CLASSES_PER_FILE = 5;
+    private static final int METHODS_PER_CLASS = 15;
+    private static final int FIELDS_PER_CLASS = 4;
+    private static final int SYMBOLS_PER_FILE = CLASSES_PER_FILE * (1 + METHODS_PER_CLASS + FIELDS_PER_CLASS);
+    private static final int LIMIT = 20;
+
+    @Param({ "100000", "1000000" })
+    public int symbols;
+
+    private Path directory;
+    private LuceneSymbolSearchRepository repository;
+    private List<Symbol> replacement;
+    private String replacedPath;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("icdg-symbol-index");
+        repository = new LuceneSymbolSearchRepository(directory, 8);
+        Random random = new Random(42);
+        int files = symbols / SYMBOLS_PER_FILE;
+        for (int i = 0; i < files; i++) {
+            String filePath = "src/main/java/com/example/p" + (i % 500) + "/File" + i + ".java";
+            repository.indexFile("owner", "repo", filePath, file(random, filePath, i));
+        }
+        repository.markIndexed("owner", "repo", 1);
+        replacedPath = "src/main/java/com/example/p0/File0.java";
+        replacement = file(random, replacedPath, 0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<SymbolHit> searchWord() {
+        return repository.search("owner", "repo", "parser", LIMIT);
+    }
+
+    @Benchmark
+    public List<SymbolHit> searchPrefix() {
+        return repository.search("owner", "repo", "requestHa", LIMIT);
+    }
+
+    @Benchmark
+    public List<SymbolHit> searchTypo() {
+        return repository.search("owner", "repo", "tranzaction", LIMIT);
+    }
+
+    @Benchmark
+    public List<SymbolHit> searchWords() {
+        return repository.search("owner", "repo", "cache loader", LIMIT);
+    }
+
+    @Benchmark
+    public void indexFile() {
+        repository.indexFile("owner", "repo", replacedPath, replacement);
+    }
+
+    private static List<Symbol> file(Random random, String filePath, int index) {
+        List<Symbol> symbols = new ArrayList<>(SYMBOLS_PER_FILE);
+        for (int c = 0; c < CLASSES_PER_FILE; c++) {
+            long classId = (long) index * CLASSES_PER_FILE + c;
+            String className = capitalize(name(random));
+            symbols.add(symbol(filePath, classId, className, Kind.CLASS, className, random));
+            for (int m = 0; m < METHODS_PER_CLASS; m++) {
+                symbols.add(symbol(filePath, classId, className, Kind.METHOD, name(random), random));
+            }
+            for (int f = 0; f < FIELDS_PER_CLASS; f++) {
+                symbols.add(symbol(filePath, classId, className, Kind.FIELD, name(random), random));
+            }
+        }
+        return symbols;
+    }
+
+    private static Symbol symbol(String filePath, long classId, String className, Kind kind, String name, Random random) {
+        List<String> annotations = random.nextInt(3) == 0 ? List.of(ANNOTATIONS[random.nextInt(ANNOTATIONS.length)]) : List.of();
+        String comment = random.nextInt(2) == 0 ? "/** The " + word(random) + " of the " + word(random) + ". */" : null;
+        return new Symbol("owner", "repo", filePath, "com.example", classId, className, kind, name, annotations, comment);
+    }
+
+    private static String name(Random random) {
+        StringBuilder name = new StringBuilder(word(random));
+        int words = 1 + random.nextInt(3);
+        for (int i = 0; i < words; i++) {
+            name.append(capitalize(word(random)));
+        }
+        return name.toString();
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
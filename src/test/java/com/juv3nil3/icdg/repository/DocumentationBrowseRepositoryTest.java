@@ -0,0 +1,183 @@
+package com.juv3nil3.icdg.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import com.juv3nil3.icdg.domain.PackageData;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.ClassSummary;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.CursorPage;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.FileSummary;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.MemberDetail;
+import com.juv3nil3.icdg.repository.DocumentationBrowseRepository.PackageSummary;
+import com.juv3nil3.icdg.repository.FileDataBatchRepository.StoredFile;
+import com.juv3nil3.icdg.test.util.MigratedH2Database;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link DocumentationBrowseRepository}, run against the Liquibase schema on H2.
+ */
+class DocumentationBrowseRepositoryTest {
+
+    private DocumentationBrowseRepository repository;
+    private FileDataBatchRepository batchRepository;
+    private Map<String, PackageData> packages;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = MigratedH2Database.create();
+        repository = new DocumentationBrowseRepository(dataSource);
+        batchRepository = new FileDataBatchRepository(dataSource);
+
+        List<PackageData> stored = new ArrayList<>();
+        for (String packageName : List.of("com.example.c", "com.example.a", "com.example.b")) {
+            stored.add(packageData(packageName, "repo"));
+        }
+        stored.add(packageData("org.other", "other"));
+        batchRepository.insertPackages(stored, 0);
+        packages = stored.stream().collect(Collectors.toMap(PackageData::getPackageName, Function.identity()));
+
+        PackageData a = packages.get("com.example.a");
+        List<FileData> files = new ArrayList<>();
+        for (String name : List.of("First", "Second", "Third")) {
+            files.add(file(a, name));
+        }
+        files.add(file(packages.get("org.other"), "Other"));
+        batchRepository.insertAll(files, 0);
+    }
+
+    @Test
+    void pagesThroughThePackagesOfARepositoryByName() {
+        CursorPage<PackageSummary> first = repository.findPackages("owner", "repo", 0, null, 2);
+        CursorPage<PackageSummary> second = repository.findPackages("owner", "repo", 0, first.next(), 2);
+
+        assertThat(first.items()).extracting(PackageSummary::packageName).containsExactly("com.example.a", "com.example.b");
+        assertThat(first.next()).isEqualTo("com.example.b");
+        assertThat(second.items()).extracting(PackageSummary::packageName).containsExactly("com.example.c");
+        assertThat(second.next()).isNull();
+        assertThat(repository.findPackages("owner", "repo", 0, null, 3).next()).isNull();
+        assertThat(repository.findPackages("owner", "missing", 0, null, 2).items()).isEmpty();
+        assertThat(repository.findPackages("fork", "repo", 0, null, 2).items()).isEmpty();
+    }
+
+    @Test
+    void pagesThroughTheFilesOfAPackageWithTheirClasses() {
+        long packageId = repository.findPackageId("owner", "repo", 0, "com.example.a").orElseThrow();
+        assertThat(repository.findPackageId("owner", "repo", 0, "org.other")).isEmpty();
+        assertThat(repository.findPackageId("fork", "repo", 0, "com.example.a")).isEmpty();
+
+        CursorPage<FileSummary> first = repository.findFiles(packageId, 0, null, 2);
+        CursorPage<FileSummary> second = repository.findFiles(packageId, 0, Long.valueOf(first.next()), 2);
+
+        assertThat(first.items()).extracting(FileSummary::fileName).containsExactly("First.java", "Second.java");
+        assertThat(first.items().get(0).classes()).extracting(ClassSummary::name).containsExactly("First", "First$Inner");
+        assertThat(second.items()).extracting(FileSummary::fileName).containsExactly("Third.java");
+        assertThat(second.next()).isNull();
+        assertThat(repository.findFiles(packages.get("com.example.b").getId(), 0, null, 2).items()).isEmpty();
+    }
+
+    @Test
+    void findsAClassWithItsMembers() {
+        long packageId = repository.findPackageId("owner", "repo", 0, "com.example.a").orElseThrow();
+        long classId = repository.findFiles(packageId, 0, null, 1).items().get(0).classes().get(0).id();
+
+        assertThat(repository.findClass("owner", "repo", 0, classId)).hasValueSatisfying(clazz -> {
+            assertThat(clazz.name()).isEqualTo("First");
+            assertThat(clazz.comment()).isEqualTo("/** First. */");
+            assertThat(clazz.annotations()).containsExactly("@Service");
+            assertThat(clazz.packageName()).isEqualTo("com.example.a");
+            assertThat(clazz.filePath()).isEqualTo("src/main/java/com/example/a/First.java");
+            assertThat(clazz.methods()).extracting(MemberDetail::name).containsExactly("run", "stop");
+            assertThat(clazz.methods().get(0).annotations()).containsExactly("@Override");
+            assertThat(clazz.methods().get(1).annotations()).isEmpty();
+            assertThat(clazz.fields()).extracting(MemberDetail::name).containsExactly("count");
+        });
+        assertThat(repository.findClass("owner", "other", 0, classId)).isEmpty();
+        assertThat(repository.findClass("fork", "repo", 0, classId)).isEmpty();
+    }
+
+    @Test
+    void readsEachSnapshotAsOfItsGeneration() {
+        long packageId = repository.findPackageId("owner", "repo", 0, "com.example.a").orElseThrow();
+        long oldClassId = repository.findFiles(packageId, 0, null, 1).items().get(0).classes().get(0).id();
+
+        // Generation 1 replaces First, removes Third and adds a package
+        Map<String, StoredFile> stored = batchRepository.findCurrentFiles(
+            "owner",
+            "repo",
+            List.of(path(packages.get("com.example.a"), "First"))
+        );
+        batchRepository.retireFiles(stored.values().stream().map(StoredFile::id).toList(), 1);
+        batchRepository.retireFiles("owner", "repo", List.of(path(packages.get("com.example.a"), "Third")), 1);
+        PackageData added = packageData("com.example.d", "repo");
+        batchRepository.insertPackages(List.of(added), 1);
+        batchRepository.insertAll(List.of(file(packages.get("com.example.a"), "First"), file(added, "Fourth")), 1);
+
+        assertThat(repository.findPackages("owner", "repo", 0, null, 10).items())
+            .extracting(PackageSummary::packageName)
+            .containsExactly("com.example.a", "com.example.b", "com.example.c");
+        assertThat(repository.findPackages("owner", "repo", 1, null, 10).items())
+            .extracting(PackageSummary::packageName)
+            .containsExactly("com.example.a", "com.example.b", "com.example.c", "com.example.d");
+        assertThat(repository.findPackageId("owner", "repo", 0, "com.example.d")).isEmpty();
+
+        assertThat(repository.findFiles(packageId, 0, null, 10).items())
+            .extracting(FileSummary::fileName)
+            .containsExactly("First.java", "Second.java", "Third.java");
+        assertThat(repository.findFiles(packageId, 1, null, 10).items())
+            .extracting(FileSummary::fileName)
+            .containsExactly("Second.java", "First.java");
+        assertThat(repository.findClass("owner", "repo", 0, oldClassId)).isPresent();
+        assertThat(repository.findClass("owner", "repo", 1, oldClassId)).isEmpty();
+    }
+
+    private static PackageData packageData(String packageName, String repoName) {
+        PackageData packageData = new PackageData(packageName);
+        packageData.setOwner("owner");
+        packageData.setRepoName(repoName);
+        return packageData;
+    }
+
+    private static String path(PackageData packageData, String name) {
+        return "src/main/java/" + packageData.getPackageName().replace('.', '/') + "/" + name + ".java";
+    }
+
+    private static FileData file(PackageData packageData, String name) {
+        FileData file = new FileData();
+        file.setFileName(name + ".java");
+        file.setOwner(packageData.getOwner());
+        file.setRepoName(packageData.getRepoName());
+        file.setFilePath(path(packageData, name));
+        file.setPackageData(packageData);
+
+        ClassData clazz = new ClassData();
+        clazz.setName(name);
+        clazz.setComment("/** " + name + ". */");
+        clazz.getAnnotations().add("@Service");
+        MethodData run = new MethodData();
+        run.setName("run");
+        run.getAnnotations().add("@Override");
+        clazz.getMethods().add(run);
+        MethodData stop = new MethodData();
+        stop.setName("stop");
+        clazz.getMethods().add(stop);
+        FieldData count = new FieldData();
+        count.setName("count");
+        clazz.getFields().add(count);
+        file.addClass(clazz);
+
+        ClassData inner = new ClassData();
+        inner.setName(name + "$Inner");
+        file.addClass(inner);
+        return file;
+    }
+}
@@ -0,0 +1,110 @@
+package com.juv3nil3.icdg.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import com.juv3nil3.icdg.domain.PackageData;
+import com.juv3nil3.icdg.repository.DocumentationExportRepository.ClassView;
+import com.juv3nil3.icdg.repository.DocumentationExportRepository.MemberView;
+import com.juv3nil3.icdg.repository.DocumentationExportRepository.PackageView;
+import com.juv3nil3.icdg.test.util.MigratedH2Database;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link DocumentationExportRepository}, run against the Liquibase schema on H2.
+ */
+class DocumentationExportRepositoryTest {
+
+    private DocumentationExportRepository repository;
+    private FileDataBatchRepository batchRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = MigratedH2Database.create();
+        repository = new DocumentationExportRepository(dataSource);
+        batchRepository = new FileDataBatchRepository(dataSource);
+
+        List<PackageData> packages = new ArrayList<>();
+        for (String packageName : List.of("com.example.b", "com.example.a", "com.example.c")) {
+            PackageData packageData = new PackageData(packageName);
+            packageData.setOwner("owner");
+            packageData.setRepoName("repo");
+            packages.add(packageData);
+        }
+        batchRepository.insertPackages(packages, 0);
+        List<FileData> files = new ArrayList<>();
+        for (PackageData packageData : packages) {
+            files.add(file(packageData));
+        }
+        batchRepository.insertAll(files, 0);
+    }
+
+    @Test
+    void pagesThroughPackagesByName() {
+        List<PackageView> first = repository.findPackagePage("owner", "repo", 0, null, 2);
+        List<PackageView> second = repository.findPackagePage("owner", "repo", 0, "com.example.b", 2);
+
+        assertThat(first).extracting(PackageView::packageName).containsExactly("com.example.a", "com.example.b");
+        assertThat(second).extracting(PackageView::packageName).containsExactly("com.example.c");
+        assertThat(repository.findPackagePage("owner", "repo", 0, "com.example.c", 2)).isEmpty();
+        assertThat(repository.findPackagePage("owner", "other", 0, null, 2)).isEmpty();
+        assertThat(repository.findPackagePage("fork", "repo", 0, null, 2)).isEmpty();
+    }
+
+    @Test
+    void loadsFilesClassesAndMembersOfEachPackage() {
+        PackageView packageView = repository.findPackagePage("owner", "repo", 0, null, 1).get(0);
+
+        assertThat(packageView.files()).singleElement().satisfies(file -> assertThat(file.fileName()).isEqualTo("A.java"));
+        ClassView clazz = packageView.files().get(0).classes().get(0);
+        assertThat(clazz.name()).isEqualTo("A");
+        assertThat(clazz.annotations()).containsExactly("@Service");
+        assertThat(clazz.methods()).extracting(MemberView::name).containsExactly("first", "second");
+        assertThat(clazz.methods().get(0).annotations()).containsExactly("@Override");
+        assertThat(clazz.methods().get(1).annotations()).isEmpty();
+        assertThat(clazz.fields()).extracting(MemberView::name).containsExactly("field");
+    }
+
+    @Test
+    void loadsOnlyTheFilesOfTheSnapshot() {
+        batchRepository.retireFiles("owner", "repo", List.of("A.java"), 1);
+
+        assertThat(repository.findPackagePage("owner", "repo", 0, null, 1).get(0).files()).hasSize(1);
+        assertThat(repository.findPackagePage("owner", "repo", 1, null, 1).get(0).files()).isEmpty();
+        assertThat(repository.findPackagePage("owner", "repo", 1, null, 3).get(1).files()).singleElement().satisfies(file ->
+            assertThat(file.classes()).singleElement().satisfies(clazz -> assertThat(clazz.methods()).hasSize(2))
+        );
+    }
+
+    private FileData file(PackageData packageData) {
+        String name = packageData.getPackageName().substring(packageData.getPackageName().lastIndexOf('.') + 1).toUpperCase();
+        FileData file = new FileData();
+        file.setFileName(name + ".java");
+        file.setOwner("owner");
+        file.setRepoName("repo");
+        file.setFilePath(name + ".java");
+        file.setPackageData(packageData);
+        ClassData clazz = new ClassData();
+        clazz.setName(name);
+        clazz.getAnnotations().add("@Service");
+        MethodData first = new MethodData();
+        first.setName("first");
+        first.getAnnotations().add("@Override");
+        clazz.getMethods().add(first);
+        MethodData second = new MethodData();
+        second.setName("second");
+        clazz.getMethods().add(second);
+        FieldData field = new FieldData();
+        field.setName("field");
+        clazz.getFields().add(field);
+        file.addClass(clazz);
+        return file;
+    }
+}
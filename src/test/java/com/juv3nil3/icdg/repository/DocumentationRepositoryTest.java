@@ -0,0 +1,187 @@
+package com.juv3nil3.icdg.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.Documentation;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import com.juv3nil3.icdg.domain.PackageData;
+import com.juv3nil3.icdg.domain.RepositoryMetadata;
+import com.juv3nil3.icdg.test.util.MigratedH2Database;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Test class for the {@link DocumentationRepository} and {@link PackageDataRepository}, checking with Hibernate statistics that
+ * loading a documentation or the packages of a repository reads the same number of rows and statements whatever the size of the
+ * repository, rather than its whole entity graph.
+ */
+class DocumentationRepositoryTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private FileDataBatchRepository batchRepository;
+    private SessionFactory sessionFactory;
+    private EntityManager entityManager;
+    private Statistics statistics;
+    private DocumentationRepository documentationRepository;
+    private PackageDataRepository packageDataRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = MigratedH2Database.create();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        batchRepository = new FileDataBatchRepository(dataSource);
+
+        Configuration configuration = new Configuration();
+        List.of(
+            Documentation.class,
+            RepositoryMetadata.class,
+            PackageData.class,
+            FileData.class,
+            ClassData.class,
+            MethodData.class,
+            FieldData.class
+        ).forEach(configuration::addAnnotatedClass);
+        configuration.setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy());
+        configuration.getProperties().put(AvailableSettings.DATASOURCE, dataSource);
+        configuration.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false");
+        configuration.setProperty(AvailableSettings.GENERATE_STATISTICS, "true");
+        sessionFactory = configuration.buildSessionFactory();
+        statistics = sessionFactory.getStatistics();
+        entityManager = sessionFactory.createEntityManager();
+
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        documentationRepository = repositoryFactory.getRepository(DocumentationRepository.class);
+        packageDataRepository = repositoryFactory.getRepository(PackageDataRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManager.close();
+        sessionFactory.close();
+    }
+
+    @Test
+    void loadsADocumentationWithoutItsPackages() {
+        long small = store("small", 1, 1);
+        long large = store("large", 10, 10);
+
+        Documentation documentation = findDocumentation(large);
+        long statements = statistics.getPrepareStatementCount();
+
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(2);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(sessionFactory.getPersistenceUnitUtil().isLoaded(documentation, "packages")).isFalse();
+
+        findDocumentation(small);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(2);
+    }
+
+    @Test
+    void loadsPackagesWithoutTheirFiles() {
+        long large = store("large", 10, 10);
+        Documentation documentation = findDocumentation(large);
+        statistics.clear();
+
+        assertThat(documentation.getPackages()).hasSize(10);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(10);
+
+        entityManager.clear();
+        statistics.clear();
+        assertThat(packageDataRepository.findByOwnerAndRepoName("owner", "large")).hasSize(10);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(10);
+    }
+
+    private Documentation findDocumentation(long metadataId) {
+        entityManager.clear();
+        statistics.clear();
+        RepositoryMetadata metadata = entityManager.find(RepositoryMetadata.class, metadataId);
+        return documentationRepository.findByRepositoryMetadata(metadata).orElseThrow();
+    }
+
+    /**
+     * Store the documentation of a repository whose packages each hold files of 3 classes of 5 methods and 2 fields.
+     *
+     * @return the id of its metadata.
+     */
+    private long store(String repoName, int packageCount, int filesPerPackage) {
+        jdbcTemplate.update("INSERT INTO repository_metadata (owner, repo_name) VALUES ('owner', ?)", repoName);
+        long metadataId = jdbcTemplate.queryForObject("SELECT id FROM repository_metadata WHERE repo_name = ?", Long.class, repoName);
+        jdbcTemplate.update("INSERT INTO documentation (repository_metadata_id, export_path) VALUES (?, '/export')", metadataId);
+        long documentationId = jdbcTemplate.queryForObject(
+            "SELECT id FROM documentation WHERE repository_metadata_id = ?",
+            Long.class,
+            metadataId
+        );
+
+        List<PackageData> packages = new ArrayList<>();
+        for (int p = 0; p < packageCount; p++) {
+            PackageData packageData = new PackageData("com." + repoName + ".package" + p);
+            packageData.setOwner("owner");
+            packageData.setRepoName(repoName);
+            packages.add(packageData);
+        }
+        batchRepository.insertPackages(packages, 0);
+
+        List<FileData> files = new ArrayList<>();
+        for (PackageData packageData : packages) {
+            jdbcTemplate.update(
+                "INSERT INTO documentation_packages (documentation_id, package_data_id) VALUES (?, ?)",
+                documentationId,
+                packageData.getId()
+            );
+            for (int f = 0; f < filesPerPackage; f++) {
+                files.add(file(packageData, "Type" + f));
+            }
+        }
+        batchRepository.insertAll(files, 0);
+        return metadataId;
+    }
+
+    private static FileData file(PackageData packageData, String name) {
+        FileData file = new FileData();
+        file.setFileName(name + ".java");
+        file.setOwner(packageData.getOwner());
+        file.setRepoName(packageData.getRepoName());
+        file.setFilePath(packageData.getPackageName().replace('.', '/') + "/" + name + ".java");
+        file.setPackageData(packageData);
+        for (int c = 0; c < 3; c++) {
+            ClassData clazz = new ClassData();
+            clazz.setName(name + "$" + c);
+            clazz.getAnnotations().add("@Service");
+            for (int m = 0; m < 5; m++) {
+                MethodData method = new MethodData();
+                method.setName("method" + m);
+                clazz.getMethods().add(method);
+            }
+            for (int d = 0; d < 2; d++) {
+                FieldData field = new FieldData();
+                field.setName("field" + d);
+                clazz.getFields().add(field);
+            }
+            file.addClass(clazz);
+        }
+        return file;
+    }
+}
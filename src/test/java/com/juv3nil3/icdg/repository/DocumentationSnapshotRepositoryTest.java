@@ -0,0 +1,68 @@
+package com.juv3nil3.icdg.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository.Snapshot;
+import com.juv3nil3.icdg.test.util.MigratedH2Database;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link DocumentationSnapshotRepository}, run against the Liquibase schema on H2.
+ */
+class DocumentationSnapshotRepositoryTest {
+
+    private DocumentationSnapshotRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repository = new DocumentationSnapshotRepository(MigratedH2Database.create());
+    }
+
+    @Test
+    void numbersTheGenerationsOfEachRepository() {
+        assertThat(repository.nextGeneration("owner", "repo")).isEqualTo(1);
+
+        repository.save("owner", "repo", 1, "first");
+        repository.save("owner", "repo", 2, "second");
+
+        assertThat(repository.nextGeneration("owner", "repo")).isEqualTo(3);
+        assertThat(repository.nextGeneration("owner", "other")).isEqualTo(1);
+        assertThat(repository.nextGeneration("fork", "repo")).isEqualTo(1);
+    }
+
+    @Test
+    void findsTheSnapshotsOfACommit() {
+        repository.save("owner", "repo", 1, "first");
+        repository.save("owner", "repo", 2, "second");
+        // Back to the first commit, stored again by a later generation
+        repository.save("owner", "repo", 3, "first");
+        repository.save("owner", "other", 1, "second");
+
+        assertThat(repository.findLatest("owner", "repo")).hasValueSatisfying(snapshot -> assertThat(snapshot.generation()).isEqualTo(3));
+        assertThat(repository.findByCommit("owner", "repo", "first")).hasValueSatisfying(snapshot ->
+            assertThat(snapshot.generation()).isEqualTo(3)
+        );
+        assertThat(repository.findByCommit("owner", "repo", "second")).hasValueSatisfying(snapshot -> {
+            assertThat(snapshot.generation()).isEqualTo(2);
+            assertThat(snapshot.owner()).isEqualTo("owner");
+            assertThat(snapshot.repoName()).isEqualTo("repo");
+            assertThat(snapshot.createdAt()).isNotNull();
+        });
+        assertThat(repository.findByCommit("owner", "repo", "missing")).isEmpty();
+        assertThat(repository.findLatest("owner", "missing")).isEmpty();
+        assertThat(repository.findAll("owner", "repo")).extracting(Snapshot::commitHash).containsExactly("first", "second", "first");
+    }
+
+    @Test
+    void keepsTheSnapshotsOfSameNamedRepositoriesApart() {
+        repository.save("owner", "repo", 1, "first");
+        repository.save("fork", "repo", 1, "forked");
+
+        assertThat(repository.findLatest("fork", "repo")).hasValueSatisfying(snapshot ->
+            assertThat(snapshot.commitHash()).isEqualTo("forked")
+        );
+        assertThat(repository.findByCommit("fork", "repo", "first")).isEmpty();
+        assertThat(repository.findAll("owner", "repo")).extracting(Snapshot::commitHash).containsExactly("first");
+    }
+}
@@ -0,0 +1,241 @@
+package com.juv3nil3.icdg.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import com.juv3nil3.icdg.domain.PackageData;
+import com.juv3nil3.icdg.repository.FileDataBatchRepository.StoredFile;
+import com.juv3nil3.icdg.test.util.MigratedH2Database;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Test class for the {@link FileDataBatchRepository}, run against the Liquibase schema on H2.
+ */
+class FileDataBatchRepositoryTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private FileDataBatchRepository repository;
+    private PackageData packageData;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = MigratedH2Database.create();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new FileDataBatchRepository(dataSource);
+
+        jdbcTemplate.update("INSERT INTO package_data (package_name, owner, repo_name) VALUES ('com.example', 'owner', 'repo')");
+        packageData = new PackageData("com.example");
+        packageData.setId(jdbcTemplate.queryForObject("SELECT id FROM package_data", Long.class));
+    }
+
+    @Test
+    void insertsWholeModelOfEveryFile() {
+        List<FileData> files = new ArrayList<>();
+        for (int f = 0; f < 30; f++) {
+            files.add(file("Type" + f, 3, 4, 2));
+        }
+
+        int rows = repository.insertAll(files, 0);
+
+        // 30 files, 90 classes with 1 annotation each, 360 methods with 1 annotation each, 180 fields without
+        assertThat(rows).isEqualTo(30 + 90 + 90 + 360 + 360 + 180);
+        assertThat(count("file_data")).isEqualTo(30);
+        assertThat(count("class_data")).isEqualTo(90);
+        assertThat(count("method_data")).isEqualTo(360);
+        assertThat(count("field_data")).isEqualTo(180);
+        assertThat(count("class_data_annotations")).isEqualTo(90);
+        assertThat(count("method_data_annotations")).isEqualTo(360);
+        assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM method_data m JOIN class_data c ON m.class_id = c.id JOIN file_data f ON c.file_id = f.id " +
+                "WHERE f.file_name = 'Type7.java' AND f.package_id = ?",
+                Integer.class,
+                packageData.getId()
+            )
+        ).isEqualTo(12);
+    }
+
+    @Test
+    void allocatesIdsInSequenceBlocksWithoutOverlap() {
+        repository.insertAll(List.of(file("First", 1, 10, 0)), 0);
+        repository.insertAll(List.of(file("Second", 1, 100, 0)), 0);
+
+        List<Long> ids = jdbcTemplate.queryForList(
+            "SELECT id FROM file_data UNION ALL SELECT id FROM class_data UNION ALL SELECT id FROM method_data",
+            Long.class
+        );
+        assertThat(ids).hasSize(2 + 2 + 110).doesNotHaveDuplicates();
+        // The first block after the Liquibase start value, the second call starting a block of its own
+        assertThat(ids).allSatisfy(id -> assertThat(id).isGreaterThan(1000));
+        Long nextBlock = jdbcTemplate.queryForObject("VALUES NEXT VALUE FOR sequence_generator", Long.class);
+        assertThat(ids).allSatisfy(id -> assertThat(id).isLessThanOrEqualTo(nextBlock - FileDataBatchRepository.SEQUENCE_INCREMENT));
+    }
+
+    @Test
+    void insertsPackagesWithTheirParents() {
+        PackageData example = new PackageData("com.example.web");
+        example.setOwner("owner");
+        example.setRepoName("repo");
+        example.setParentPackage(packageData);
+        PackageData rest = new PackageData("com.example.web.rest");
+        rest.setOwner("owner");
+        rest.setRepoName("repo");
+        rest.setParentPackage(example);
+
+        assertThat(repository.insertPackages(List.of(example, rest), 0)).isEqualTo(2);
+
+        assertThat(rest.getId()).isNotNull();
+        assertThat(
+            jdbcTemplate.queryForObject("SELECT parent_package_id FROM package_data WHERE package_name = 'com.example.web.rest'", Long.class)
+        ).isEqualTo(example.getId());
+        assertThat(repository.findPackageIds("owner", "repo")).containsOnlyKeys(
+            "com.example",
+            "com.example.web",
+            "com.example.web.rest"
+        );
+        assertThat(repository.findPackageIds("owner", "other")).isEmpty();
+        assertThat(repository.findPackageIds("fork", "repo")).isEmpty();
+
+        // Package names are only unique within a repository, of a given owner
+        PackageData other = new PackageData("com.example");
+        other.setOwner("owner");
+        other.setRepoName("other");
+        PackageData fork = new PackageData("com.example");
+        fork.setOwner("fork");
+        fork.setRepoName("repo");
+        assertThat(repository.insertPackages(List.of(other, fork), 3)).isEqualTo(2);
+        assertThat(repository.findPackageIds("owner", "other")).containsOnlyKeys("com.example");
+        assertThat(repository.findPackageIds("fork", "repo")).containsExactly(Map.entry("com.example", fork.getId()));
+        assertThat(jdbcTemplate.queryForObject("SELECT added_in FROM package_data WHERE id = ?", Long.class, other.getId())).isEqualTo(
+            3
+        );
+    }
+
+    @Test
+    void retiresFilesKeepingEverythingTheyContain() {
+        repository.insertAll(List.of(file("Kept", 2, 3, 1), file("Replaced", 2, 3, 1), file("Removed", 1, 1, 1)), 1);
+
+        Map<String, StoredFile> stored = repository.findCurrentFiles(
+            "owner",
+            "repo",
+            List.of(path("Kept"), path("Replaced"), "missing.java")
+        );
+        assertThat(stored).containsOnlyKeys(path("Kept"), path("Replaced"));
+        assertThat(stored.get(path("Kept")).blobSha()).isEqualTo("sha-Kept");
+
+        assertThat(repository.retireFiles(List.of(stored.get(path("Replaced")).id()), 2)).isEqualTo(1);
+        repository.insertAll(List.of(file("Replaced", 1, 1, 0)), 2);
+        assertThat(repository.retireOtherFiles("owner", "repo", Set.of(path("Kept"), path("Replaced")), 2)).containsExactly(
+            path("Removed")
+        );
+        assertThat(repository.retireFiles("owner", "repo", List.of(path("Removed"), "missing.java"), 3)).isZero();
+        assertThat(repository.retireFiles("owner", "repo", List.of(), 3)).isZero();
+
+        assertThat(jdbcTemplate.queryForList("SELECT file_name FROM file_data WHERE removed_in IS NULL", String.class)).containsOnly(
+            "Kept.java",
+            "Replaced.java"
+        );
+        assertThat(jdbcTemplate.queryForObject("SELECT removed_in FROM file_data WHERE file_name = 'Removed.java'", Long.class)).isEqualTo(
+            2
+        );
+        assertThat(repository.findCurrentFiles("owner", "repo", List.of(path("Replaced"))).get(path("Replaced")).id()).isNotEqualTo(
+            stored.get(path("Replaced")).id()
+        );
+        // Retired files keep their classes and members for the earlier snapshots
+        assertThat(count("file_data")).isEqualTo(4);
+        assertThat(count("class_data")).isEqualTo(6);
+        assertThat(count("method_data")).isEqualTo(14);
+    }
+
+    @Test
+    void retiresTheFilesOfOneOwnerOnly() {
+        FileData forked = file("Forked", 1, 1, 0);
+        forked.setOwner("fork");
+        repository.insertAll(List.of(file("Kept", 1, 1, 0), forked), 1);
+
+        assertThat(repository.findCurrentFiles("owner", "repo", List.of(path("Forked")))).isEmpty();
+        assertThat(repository.retireOtherFiles("owner", "repo", Set.of(path("Kept")), 2)).isEmpty();
+        assertThat(repository.retireFiles("owner", "repo", List.of(path("Forked")), 2)).isZero();
+
+        assertThat(repository.findCurrentFiles("fork", "repo", List.of(path("Forked")))).containsOnlyKeys(path("Forked"));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM file_data WHERE removed_in IS NULL", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void discardsTheRowsOfAFailedGeneration() {
+        repository.insertAll(List.of(file("Kept", 1, 1, 0), file("Replaced", 1, 1, 0)), 1);
+        long replacedId = repository.findCurrentFiles("owner", "repo", List.of(path("Replaced"))).get(path("Replaced")).id();
+
+        // Generation 2 fails after writing some of its rows
+        PackageData web = new PackageData("com.example.web");
+        web.setOwner("owner");
+        web.setRepoName("repo");
+        web.setParentPackage(packageData);
+        PackageData rest = new PackageData("com.example.web.rest");
+        rest.setOwner("owner");
+        rest.setRepoName("repo");
+        rest.setParentPackage(web);
+        repository.insertPackages(List.of(web, rest), 2);
+        repository.retireFiles(List.of(replacedId), 2);
+        FileData forked = file("Forked", 1, 1, 0);
+        forked.setOwner("fork");
+        repository.insertAll(List.of(file("Replaced", 2, 2, 0), file("Added", 1, 1, 0), forked), 2);
+
+        assertThat(repository.discardGeneration("owner", "repo", 2)).isEqualTo(5);
+
+        assertThat(repository.findCurrentFiles("owner", "repo", List.of(path("Kept"), path("Replaced"), path("Added"))))
+            .containsOnlyKeys(path("Kept"), path("Replaced"))
+            .hasEntrySatisfying(path("Replaced"), file -> assertThat(file.id()).isEqualTo(replacedId));
+        assertThat(repository.findPackageIds("owner", "repo")).containsOnlyKeys("com.example");
+        assertThat(repository.findCurrentFiles("fork", "repo", List.of(path("Forked")))).containsOnlyKeys(path("Forked"));
+        assertThat(count("class_data")).isEqualTo(3);
+        assertThat(repository.discardGeneration("owner", "repo", 2)).isZero();
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private static String path(String name) {
+        return "src/main/java/com/example/" + name + ".java";
+    }
+
+    private FileData file(String name, int classes, int methodsPerClass, int fieldsPerClass) {
+        FileData file = new FileData();
+        file.setFileName(name + ".java");
+        file.setOwner("owner");
+        file.setRepoName("repo");
+        file.setFilePath(path(name));
+        file.setBlobSha("sha-" + name);
+        file.setPackageData(packageData);
+        for (int c = 0; c < classes; c++) {
+            ClassData clazz = new ClassData();
+            clazz.setName(name + "$" + c);
+            clazz.setComment("Class " + c);
+            clazz.getAnnotations().add("@Service");
+            for (int m = 0; m < methodsPerClass; m++) {
+                MethodData method = new MethodData();
+                method.setName("method" + m);
+                method.getAnnotations().add("@Override");
+                clazz.getMethods().add(method);
+            }
+            for (int f = 0; f < fieldsPerClass; f++) {
+                FieldData field = new FieldData();
+                field.setName("field" + f);
+                clazz.getFields().add(field);
+            }
+            file.addClass(clazz);
+        }
+        return file;
+    }
+}
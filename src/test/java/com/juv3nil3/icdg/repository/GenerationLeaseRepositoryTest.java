@@ -0,0 +1,55 @@
+package com.juv3nil3.icdg.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.test.util.MigratedH2Database;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link GenerationLeaseRepository}, run against the Liquibase schema on H2.
+ */
+class GenerationLeaseRepositoryTest {
+
+    private GenerationLeaseRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repository = new GenerationLeaseRepository(MigratedH2Database.create());
+    }
+
+    @Test
+    void grantsALeaseToOneHolderAtATime() {
+        Duration duration = Duration.ofMinutes(1);
+
+        assertThat(repository.tryAcquire("owner", "repo", "a", "commit", duration)).isTrue();
+        assertThat(repository.tryAcquire("owner", "repo", "b", "commit", duration)).isFalse();
+        assertThat(repository.tryAcquire("owner", "other", "b", "commit", duration)).isTrue();
+
+        repository.release("owner", "repo", "b");
+        assertThat(repository.tryAcquire("owner", "repo", "b", "commit", duration)).isFalse();
+        repository.release("owner", "repo", "a");
+        assertThat(repository.tryAcquire("owner", "repo", "b", "commit", duration)).isTrue();
+    }
+
+    @Test
+    void takesOverExpiredLeases() {
+        // Already expired by the clock of the database
+        assertThat(repository.tryAcquire("owner", "repo", "a", "commit", Duration.ofSeconds(-1))).isTrue();
+
+        assertThat(repository.tryAcquire("owner", "repo", "b", "commit", Duration.ofMinutes(1))).isTrue();
+        assertThat(repository.renew("owner", "repo", "a", Duration.ofMinutes(1))).isFalse();
+        assertThat(repository.renew("owner", "repo", "b", Duration.ofMinutes(1))).isTrue();
+    }
+
+    @Test
+    void keepsALiveLeaseUntilItExpires() {
+        assertThat(repository.tryAcquire("owner", "repo", "a", "commit", Duration.ofMinutes(1))).isTrue();
+        assertThat(repository.renew("owner", "repo", "a", Duration.ofSeconds(-1))).isTrue();
+
+        // Renewed into the past, so expired
+        assertThat(repository.tryAcquire("owner", "repo", "b", "other", Duration.ofMinutes(1))).isTrue();
+        assertThat(repository.tryAcquire("owner", "repo", "a", "commit", Duration.ofMinutes(1))).isFalse();
+    }
+}
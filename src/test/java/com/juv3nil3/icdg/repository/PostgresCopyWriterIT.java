@@ -0,0 +1,222 @@
+package com.juv3nil3.icdg.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.config.PostgreSqlTestContainer;
+import com.juv3nil3.icdg.service.JavaCodeParser;
+import com.juv3nil3.icdg.service.JavaParserService;
+import com.juv3nil3.icdg.service.ParsedJavaFile;
+import com.juv3nil3.icdg.service.SymbolSearchService;
+import com.juv3nil3.icdg.test.util.MigratedH2Database;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.JdbcDatabaseContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Integration tests for the {@link PostgresCopyWriter}, ingesting parsed files into the Liquibase schema on a PostgreSQL test
+ * container and comparing the stored rows with those of the JDBC batches.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresCopyWriterIT {
+
+    private static final String OWNER = "owner";
+
+    private static final Map<String, String> SOURCES = Map.of(
+        "src/main/java/com/example/Parser.java",
+        """
+        package com.example;
+
+        /**
+         * Says "hi", twice, then a backslash \\ and \\N.
+         */
+        @SuppressWarnings("unchecked, \\"rawtypes\\"")
+        public class Parser {
+
+            /** Maximum size, in "bytes". */
+            @Deprecated
+            private int maxSize;
+
+            /**
+             * Parses
+             * over several lines.
+             */
+            @Override
+            public String parse(String input) {
+                return "";
+            }
+
+            public void reset() {}
+        }
+        """,
+        "src/main/java/com/example/util/Strings.java",
+        """
+        package com.example.util;
+
+        /** Élégant string helpers, with a comma. */
+        public final class Strings {
+
+            private Strings() {}
+        }
+        """
+    );
+
+    // All rows of the files of a repository of owner, without their ids
+    private static final String STORED_ROWS =
+        "SELECT f.file_path, f.file_name, f.blob_sha, f.added_in, p.package_name, 'class' AS kind, c.name, c.comment, " +
+        "(SELECT STRING_AGG(a.annotation, '|' ORDER BY a.annotation) FROM class_data_annotations a WHERE a.class_data_id = c.id) " +
+        "AS annotations FROM file_data f JOIN package_data p ON f.package_id = p.id JOIN class_data c ON c.file_id = f.id " +
+        "WHERE f.owner = 'owner' AND f.repo_name = ? " +
+        "UNION ALL SELECT f.file_path, f.file_name, f.blob_sha, f.added_in, p.package_name, 'method', m.name, m.comment, " +
+        "(SELECT STRING_AGG(a.annotation, '|' ORDER BY a.annotation) FROM method_data_annotations a WHERE a.method_data_id = m.id) " +
+        "FROM file_data f JOIN package_data p ON f.package_id = p.id JOIN class_data c ON c.file_id = f.id " +
+        "JOIN method_data m ON m.class_id = c.id WHERE f.owner = 'owner' AND f.repo_name = ? " +
+        "UNION ALL SELECT f.file_path, f.file_name, f.blob_sha, f.added_in, p.package_name, 'field', d.name, d.comment, " +
+        "(SELECT STRING_AGG(a.annotation, '|' ORDER BY a.annotation) FROM field_data_annotations a WHERE a.field_data_id = d.id) " +
+        "FROM file_data f JOIN package_data p ON f.package_id = p.id JOIN class_data c ON c.file_id = f.id " +
+        "JOIN field_data d ON d.class_id = c.id WHERE f.owner = 'owner' AND f.repo_name = ? " +
+        "ORDER BY 1, 6, 7";
+
+    private static final PostgreSqlTestContainer container = new PostgreSqlTestContainer();
+
+    private static DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private JavaParserService copyService;
+    private JavaParserService batchService;
+    private JavaCodeParser javaCodeParser;
+
+    @BeforeAll
+    @Timeout(value = 5, unit = TimeUnit.MINUTES)
+    static void startDatabase() throws Exception {
+        container.afterPropertiesSet();
+        JdbcDatabaseContainer<?> postgres = container.getTestContainer();
+        dataSource = MigratedH2Database.migrate(
+            new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+        );
+    }
+
+    @AfterAll
+    static void stopDatabase() {
+        container.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIngestion().setCopyWrites(true);
+        javaCodeParser = new JavaCodeParser(applicationProperties);
+        copyService = service(new FileDataBatchRepository(dataSource, applicationProperties));
+        batchService = service(new FileDataBatchRepository(dataSource));
+    }
+
+    @Test
+    void storesTheSameRowsAsTheJdbcBatches() throws Exception {
+        ingest(copyService, "copied", parse(copyService, "copied"));
+        ingest(batchService, "batched", parse(batchService, "batched"));
+
+        List<Map<String, Object>> copied = storedRows("copied");
+        List<Map<String, Object>> batched = storedRows("batched");
+
+        assertThat(copied).isNotEmpty().isEqualTo(batched);
+        assertThat(copied)
+            .filteredOn(row -> "Parser".equals(row.get("name")))
+            .singleElement()
+            .satisfies(row -> {
+                assertThat((String) row.get("comment")).contains("Says \"hi\", twice, then a backslash \\ and \\N.");
+                assertThat(row.get("annotations")).isEqualTo("SuppressWarnings");
+                assertThat(row.get("package_name")).isEqualTo("com.example");
+            });
+        assertThat(copied)
+            .filteredOn(row -> "maxSize".equals(row.get("name")))
+            .singleElement()
+            .satisfies(row -> assertThat((String) row.get("comment")).contains("Maximum size, in \"bytes\"."));
+        assertThat(copied)
+            .filteredOn(row -> "reset".equals(row.get("name")))
+            .singleElement()
+            .satisfies(row -> {
+                // Null stays null rather than becoming an empty string
+                assertThat(row.get("comment")).isNull();
+                assertThat(row.get("annotations")).isNull();
+            });
+        assertThat(
+            jdbcTemplate.queryForList("SELECT package_name FROM package_data WHERE owner = 'owner' AND repo_name = 'copied'", String.class)
+        )
+            .contains("com.example", "com.example.util");
+    }
+
+    @Test
+    void reusesTheStagingTablesWithinATransaction() throws Exception {
+        List<ParsedJavaFile> files = parse(copyService, "staged");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            save(copyService, "staged", files.subList(0, 1));
+            save(copyService, "staged", files.subList(1, 2));
+        });
+
+        assertThat(storedRows("staged")).extracting(row -> row.get("name")).contains("Parser", "maxSize", "parse", "reset", "Strings");
+    }
+
+    @Test
+    void leavesNoRowsOfARolledBackTransaction() throws Exception {
+        List<ParsedJavaFile> files = parse(copyService, "rolledBack");
+
+        assertThatThrownBy(() ->
+            transactionTemplate.executeWithoutResult(status -> {
+                save(copyService, "rolledBack", files);
+                throw new IllegalStateException("Generation failed");
+            })
+        ).isInstanceOf(IllegalStateException.class);
+
+        assertThat(storedRows("rolledBack")).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM package_data WHERE repo_name = 'rolledBack'", Integer.class)).isZero();
+    }
+
+    private JavaParserService service(FileDataBatchRepository fileDataBatchRepository) {
+        return new JavaParserService(
+            fileDataBatchRepository,
+            new DocumentationSnapshotRepository(dataSource),
+            javaCodeParser,
+            mock(SymbolSearchService.class)
+        );
+    }
+
+    private List<ParsedJavaFile> parse(JavaParserService service, String repoName) throws Exception {
+        List<ParsedJavaFile> files = new ArrayList<>();
+        for (String path : SOURCES.keySet().stream().sorted().toList()) {
+            files.add(service.parseFile(OWNER, repoName, path, SOURCES.get(path)));
+        }
+        return files;
+    }
+
+    private void ingest(JavaParserService service, String repoName, List<ParsedJavaFile> files) {
+        transactionTemplate.executeWithoutResult(status -> save(service, repoName, files));
+    }
+
+    private static void save(JavaParserService service, String repoName, List<ParsedJavaFile> files) {
+        service.saveParsedFiles(service.loadPackages(OWNER, repoName), files, 0);
+    }
+
+    private List<Map<String, Object>> storedRows(String repoName) {
+        return jdbcTemplate.queryForList(STORED_ROWS, repoName, repoName, repoName);
+    }
+}
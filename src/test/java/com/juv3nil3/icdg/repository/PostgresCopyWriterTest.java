@@ -0,0 +1,27 @@
+package com.juv3nil3.icdg.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the CSV encoding of the {@link PostgresCopyWriter}.
+ */
+class PostgresCopyWriterTest {
+
+    @Test
+    void writesNullAsUnquotedEmptyField() {
+        assertThat(PostgresCopyWriter.csvValue(null)).isEmpty();
+        assertThat(PostgresCopyWriter.csvValue("")).isEqualTo("\"\"");
+    }
+
+    @Test
+    void writesNumbersUnquoted() {
+        assertThat(PostgresCopyWriter.csvValue(1050L)).isEqualTo("1050");
+    }
+
+    @Test
+    void quotesStringsAndDoublesTheirQuotes() {
+        assertThat(PostgresCopyWriter.csvValue("/**\n * Says \"hi\", twice\n */")).isEqualTo("\"/**\n * Says \"\"hi\"\", twice\n */\"");
+    }
+}
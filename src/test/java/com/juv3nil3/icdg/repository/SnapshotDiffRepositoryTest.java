@@ -0,0 +1,146 @@
+package com.juv3nil3.icdg.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import com.juv3nil3.icdg.domain.PackageData;
+import com.juv3nil3.icdg.repository.FileDataBatchRepository.StoredFile;
+import com.juv3nil3.icdg.repository.SnapshotDiffRepository.ClassContent;
+import com.juv3nil3.icdg.repository.SnapshotDiffRepository.FileVersion;
+import com.juv3nil3.icdg.repository.SnapshotDiffRepository.MemberContent;
+import com.juv3nil3.icdg.test.util.MigratedH2Database;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link SnapshotDiffRepository}, run against the Liquibase schema on H2.
+ */
+class SnapshotDiffRepositoryTest {
+
+    private SnapshotDiffRepository repository;
+    private FileDataBatchRepository batchRepository;
+    private PackageData packageData;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = MigratedH2Database.create();
+        repository = new SnapshotDiffRepository(dataSource);
+        batchRepository = new FileDataBatchRepository(dataSource);
+
+        packageData = new PackageData("com.example");
+        packageData.setOwner("owner");
+        packageData.setRepoName("repo");
+        batchRepository.insertPackages(List.of(packageData), 0);
+        batchRepository.insertAll(List.of(file("Kept", "1"), file("Changed", "1"), file("Removed", "1")), 0);
+
+        // Generation 1 changes a file, removes another and adds a third
+        replace("Changed", 1);
+        batchRepository.retireFiles("owner", "repo", List.of(path("Removed")), 1);
+        batchRepository.insertAll(List.of(file("Changed", "2"), file("Added", "1")), 1);
+
+        // Generation 2 changes the file back
+        replace("Changed", 2);
+        batchRepository.insertAll(List.of(file("Changed", "1")), 2);
+    }
+
+    @Test
+    void findsThePathsChangedBetweenTwoGenerationsInEitherOrder() {
+        assertThat(repository.findChangedPaths("owner", "repo", 0, 1, null, 10)).containsExactly(
+            path("Added"),
+            path("Changed"),
+            path("Removed")
+        );
+        assertThat(repository.findChangedPaths("owner", "repo", 1, 0, null, 10)).containsExactly(
+            path("Added"),
+            path("Changed"),
+            path("Removed")
+        );
+        assertThat(repository.findChangedPaths("owner", "repo", 1, 2, null, 10)).containsExactly(path("Changed"));
+        assertThat(repository.findChangedPaths("owner", "repo", 0, 0, null, 10)).isEmpty();
+        assertThat(repository.findChangedPaths("owner", "other", 0, 1, null, 10)).isEmpty();
+        assertThat(repository.findChangedPaths("fork", "repo", 0, 1, null, 10)).isEmpty();
+    }
+
+    @Test
+    void pagesThroughTheChangedPaths() {
+        assertThat(repository.findChangedPaths("owner", "repo", 0, 1, null, 2)).containsExactly(path("Added"), path("Changed"));
+        assertThat(repository.findChangedPaths("owner", "repo", 0, 1, path("Changed"), 2)).containsExactly(path("Removed"));
+    }
+
+    @Test
+    void findsTheFilesOfEachSnapshot() {
+        List<String> paths = List.of(path("Added"), path("Changed"), path("Removed"));
+
+        Map<String, FileVersion> before = repository.findFiles("owner", "repo", 0, paths);
+        Map<String, FileVersion> after = repository.findFiles("owner", "repo", 2, paths);
+
+        assertThat(before).containsOnlyKeys(path("Changed"), path("Removed"));
+        assertThat(after).containsOnlyKeys(path("Added"), path("Changed"));
+        assertThat(before.get(path("Changed")).blobSha()).isEqualTo(after.get(path("Changed")).blobSha()).isEqualTo("sha-Changed-1");
+        assertThat(before.get(path("Changed")).id()).isNotEqualTo(after.get(path("Changed")).id());
+        assertThat(after.get(path("Added")).packageName()).isEqualTo("com.example");
+        assertThat(repository.findFiles("owner", "repo", 1, List.of())).isEmpty();
+        assertThat(repository.findFiles("fork", "repo", 2, paths)).isEmpty();
+    }
+
+    @Test
+    void loadsTheClassesOfFilesWithTheirMembers() {
+        FileVersion changed = repository.findFiles("owner", "repo", 1, List.of(path("Changed"))).get(path("Changed"));
+        FileVersion kept = repository.findFiles("owner", "repo", 1, List.of(path("Kept"))).get(path("Kept"));
+
+        Map<Long, List<ClassContent>> classes = repository.findClasses(List.of(changed.id(), kept.id()));
+
+        assertThat(classes).containsOnlyKeys(changed.id(), kept.id());
+        ClassContent clazz = classes.get(changed.id()).get(0);
+        assertThat(clazz.name()).isEqualTo("Changed");
+        assertThat(clazz.comment()).isEqualTo("/** Version 2. */");
+        assertThat(clazz.annotations()).containsExactly("@Service");
+        assertThat(clazz.methods()).extracting(MemberContent::name).containsExactly("run", "stop");
+        assertThat(clazz.methods().get(0).annotations()).containsExactly("@Override");
+        assertThat(clazz.methods().get(1).annotations()).isEmpty();
+        assertThat(clazz.fields()).extracting(MemberContent::name).containsExactly("count");
+        assertThat(repository.findClasses(List.of())).isEmpty();
+    }
+
+    private void replace(String name, long generation) {
+        Map<String, StoredFile> stored = batchRepository.findCurrentFiles("owner", "repo", List.of(path(name)));
+        batchRepository.retireFiles(stored.values().stream().map(StoredFile::id).toList(), generation);
+    }
+
+    private static String path(String name) {
+        return "src/main/java/com/example/" + name + ".java";
+    }
+
+    private FileData file(String name, String version) {
+        FileData file = new FileData();
+        file.setFileName(name + ".java");
+        file.setOwner("owner");
+        file.setRepoName("repo");
+        file.setFilePath(path(name));
+        file.setBlobSha("sha-" + name + "-" + version);
+        file.setPackageData(packageData);
+
+        ClassData clazz = new ClassData();
+        clazz.setName(name);
+        clazz.setComment("/** Version " + version + ". */");
+        clazz.getAnnotations().add("@Service");
+        MethodData run = new MethodData();
+        run.setName("run");
+        run.getAnnotations().add("@Override");
+        clazz.getMethods().add(run);
+        MethodData stop = new MethodData();
+        stop.setName("stop");
+        clazz.getMethods().add(stop);
+        FieldData count = new FieldData();
+        count.setName("count");
+        clazz.getFields().add(count);
+        file.addClass(clazz);
+        return file;
+    }
+}
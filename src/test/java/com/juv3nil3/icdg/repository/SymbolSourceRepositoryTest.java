@@ -0,0 +1,117 @@
+package com.juv3nil3.icdg.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import com.juv3nil3.icdg.domain.PackageData;
+import com.juv3nil3.icdg.repository.search.Symbol;
+import com.juv3nil3.icdg.repository.search.Symbol.Kind;
+import com.juv3nil3.icdg.test.util.MigratedH2Database;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link SymbolSourceRepository}, run against the Liquibase schema on H2.
+ */
+class SymbolSourceRepositoryTest {
+
+    private SymbolSourceRepository repository;
+    private FileDataBatchRepository batchRepository;
+    private PackageData packageData;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = MigratedH2Database.create();
+        repository = new SymbolSourceRepository(dataSource);
+        batchRepository = new FileDataBatchRepository(dataSource);
+
+        packageData = new PackageData("com.example");
+        packageData.setOwner("owner");
+        packageData.setRepoName("repo");
+        batchRepository.insertPackages(List.of(packageData), 0);
+    }
+
+    @Test
+    void readsTheSymbolsOfTheCurrentFiles() {
+        FileData parser = file("Parser");
+        batchRepository.insertAll(List.of(parser, file("Removed")), 0);
+        batchRepository.retireFiles("owner", "repo", List.of(path("Removed")), 1);
+
+        Map<String, List<Symbol>> files = read("owner", "repo");
+
+        assertThat(files).containsOnlyKeys(path("Parser"));
+        List<Symbol> symbols = files.get(path("Parser"));
+        assertThat(symbols).extracting(Symbol::name).containsExactly("Parser", "parse", "reset", "maxSize");
+        assertThat(symbols).extracting(Symbol::kind).containsExactly(Kind.CLASS, Kind.METHOD, Kind.METHOD, Kind.FIELD);
+        assertThat(symbols).extracting(Symbol::className).containsOnly("Parser");
+        assertThat(symbols).extracting(Symbol::classId).containsOnly(parser.getClasses().get(0).getId());
+        assertThat(symbols.get(0).owner()).isEqualTo("owner");
+        assertThat(symbols.get(0).packageName()).isEqualTo("com.example");
+        assertThat(symbols.get(0).comment()).isEqualTo("/** Parser. */");
+        assertThat(symbols.get(0).annotations()).containsExactly("@Service");
+        assertThat(symbols.get(1).annotations()).containsExactly("@Transactional");
+        assertThat(symbols.get(2).annotations()).isEmpty();
+        assertThat(read("owner", "other")).isEmpty();
+        assertThat(read("fork", "repo")).isEmpty();
+    }
+
+    @Test
+    void pagesThroughTheFilesInPathOrder() {
+        List<FileData> files = new ArrayList<>();
+        for (int i = 0; i < SymbolSourceRepository.FILE_PAGE_SIZE + 1; i++) {
+            files.add(file(String.format("Class%04d", i)));
+        }
+        batchRepository.insertAll(files, 0);
+
+        Map<String, List<Symbol>> read = read("owner", "repo");
+
+        assertThat(read).hasSize(SymbolSourceRepository.FILE_PAGE_SIZE + 1);
+        assertThat(new ArrayList<>(read.keySet())).isSorted();
+        assertThat(read.values()).allSatisfy(symbols -> assertThat(symbols).hasSize(4));
+    }
+
+    private Map<String, List<Symbol>> read(String owner, String repoName) {
+        Map<String, List<Symbol>> files = new LinkedHashMap<>();
+        repository.forEachFile(owner, repoName, files::put);
+        return files;
+    }
+
+    private static String path(String name) {
+        return "src/main/java/com/example/" + name + ".java";
+    }
+
+    private FileData file(String name) {
+        FileData file = new FileData();
+        file.setFileName(name + ".java");
+        file.setOwner("owner");
+        file.setRepoName("repo");
+        file.setFilePath(path(name));
+        file.setBlobSha("sha-" + name);
+        file.setPackageData(packageData);
+
+        ClassData clazz = new ClassData();
+        clazz.setName(name);
+        clazz.setComment("/** " + name + ". */");
+        clazz.getAnnotations().add("@Service");
+        MethodData parse = new MethodData();
+        parse.setName("parse");
+        parse.getAnnotations().add("@Transactional");
+        clazz.getMethods().add(parse);
+        MethodData reset = new MethodData();
+        reset.setName("reset");
+        clazz.getMethods().add(reset);
+        FieldData maxSize = new FieldData();
+        maxSize.setName("maxSize");
+        clazz.getFields().add(maxSize);
+        file.addClass(clazz);
+        return file;
+    }
+}
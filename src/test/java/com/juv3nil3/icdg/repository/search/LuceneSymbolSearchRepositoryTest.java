@@ -0,0 +1,220 @@
+package com.juv3nil3.icdg.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.repository.search.Symbol.Kind;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for the {@link LuceneSymbolSearchRepository}.
+ */
+class LuceneSymbolSearchRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private LuceneSymbolSearchRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new LuceneSymbolSearchRepository(directory, 8);
+        repository.indexFile(
+            "owner",
+            "repo",
+            "Parser.java",
+            List.of(
+                symbol("Parser.java", Kind.CLASS, "HttpResponseParser", List.of("@Service"), "/** Reads HTTP responses. */"),
+                symbol("Parser.java", Kind.METHOD, "parseHTTPResponse2", List.of("@Transactional(readOnly = true)"), null),
+                symbol("Parser.java", Kind.FIELD, "maxBodySize", List.of(), "/** Largest body read, in bytes. */")
+            )
+        );
+        repository.indexFile("owner", "repo", "Cache.java", List.of(symbol("Cache.java", Kind.CLASS, "ResponseCache", List.of(), null)));
+        repository.indexFile("fork", "repo", "Parser.java", List.of(symbol("Parser.java", Kind.CLASS, "OtherParser", List.of(), null)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void splitsIdentifiersIntoWords() {
+        assertThat(SymbolTokenizer.words("parseHTTPResponse2")).containsExactly("parse", "http", "response", "2");
+        assertThat(SymbolTokenizer.words("MAX_BODY_SIZE")).containsExactly("max", "body", "size");
+        assertThat(SymbolTokenizer.words("@Transactional(readOnly = true)")).containsExactly("transactional", "read", "only", "true");
+        assertThat(SymbolTokenizer.identifierWords("maxBodySize")).containsExactly("max", "body", "size", "maxbodysize");
+        assertThat(SymbolTokenizer.words(null)).isEmpty();
+    }
+
+    @Test
+    void findsSymbolsByTheWordsOfTheirNames() {
+        assertThat(names(repository.search("owner", "repo", "response", 10))).containsExactly(
+            "ResponseCache",
+            "HttpResponseParser",
+            "parseHTTPResponse2"
+        );
+        assertThat(names(repository.search("owner", "repo", "parse http", 10))).containsExactly("parseHTTPResponse2", "HttpResponseParser");
+        assertThat(names(repository.search("owner", "repo", "ResponseCache", 10))).containsExactly("ResponseCache");
+        assertThat(names(repository.search("owner", "repo", "parser", 10))).containsExactly("HttpResponseParser");
+        assertThat(names(repository.search("fork", "repo", "parser", 10))).containsExactly("OtherParser");
+        assertThat(repository.search("owner", "missing", "parser", 10)).isEmpty();
+    }
+
+    @Test
+    void findsSymbolsByPrefixesAndTypos() {
+        assertThat(names(repository.search("owner", "repo", "maxBo", 10))).containsExactly("maxBodySize");
+        assertThat(names(repository.search("owner", "repo", "resp cach", 10))).containsExactly("ResponseCache");
+        assertThat(names(repository.search("owner", "repo", "respnse cache", 10))).containsExactly("ResponseCache");
+        assertThat(repository.search("owner", "repo", "xyz", 10)).isEmpty();
+    }
+
+    @Test
+    void findsSymbolsByAnnotationsAndComments() {
+        assertThat(names(repository.search("owner", "repo", "transactional", 10))).containsExactly("parseHTTPResponse2");
+        assertThat(names(repository.search("owner", "repo", "bytes", 10))).containsExactly("maxBodySize");
+        assertThat(names(repository.search("owner", "repo", "reads", 10))).containsExactly("HttpResponseParser");
+        // A name starting with the search ranks first
+        assertThat(names(repository.search("owner", "repo", "http", 10))).containsExactly("HttpResponseParser", "parseHTTPResponse2");
+    }
+
+    @Test
+    void keepsTheBestHitsOnly() {
+        List<SymbolHit> hits = repository.search("owner", "repo", "response", 2);
+
+        assertThat(names(hits)).containsExactly("ResponseCache", "HttpResponseParser");
+        assertThat(hits.get(0).score()).isGreaterThanOrEqualTo(hits.get(1).score());
+    }
+
+    @Test
+    void replacesAndRemovesTheSymbolsOfAFile() {
+        repository.indexFile("owner", "repo", "Cache.java", List.of(symbol("Cache.java", Kind.CLASS, "RequestCache", List.of(), null)));
+
+        assertThat(names(repository.search("owner", "repo", "cache", 10))).containsExactly("RequestCache");
+
+        repository.removeFiles("owner", "repo", List.of("Cache.java", "missing.java"));
+
+        assertThat(repository.search("owner", "repo", "cache", 10)).isEmpty();
+        assertThat(repository.search("owner", "repo", "parser", 10)).hasSize(1);
+    }
+
+    @Test
+    void returnsTheSymbolsAsIndexed() {
+        assertThat(repository.search("owner", "repo", "parse http", 1)).singleElement().satisfies(hit ->
+            assertThat(hit.symbol()).isEqualTo(
+                new Symbol(
+                    "owner",
+                    "repo",
+                    "Parser.java",
+                    "com.example",
+                    1,
+                    "parseHTTPResponse2",
+                    Kind.METHOD,
+                    "parseHTTPResponse2",
+                    List.of("@Transactional(readOnly = true)"),
+                    null
+                )
+            )
+        );
+    }
+
+    @Test
+    void tracksTheGenerationEachRepositoryIsFullyIndexedAt() {
+        assertThat(repository.indexedGeneration("owner", "repo")).isEmpty();
+
+        repository.markIndexed("owner", "repo", 3);
+
+        assertThat(repository.indexedGeneration("owner", "repo")).isEqualTo(OptionalLong.of(3));
+        assertThat(repository.indexedGeneration("fork", "repo")).isEmpty();
+        assertThat(repository.indexedGeneration("owner", "missing")).isEmpty();
+
+        repository.removeRepository("owner", "repo");
+
+        assertThat(repository.indexedGeneration("owner", "repo")).isEmpty();
+        assertThat(repository.search("owner", "repo", "parser", 10)).isEmpty();
+    }
+
+    @Test
+    void keepsTheIndexedGenerationsAcrossRestarts() {
+        repository.markIndexed("owner", "repo", 3);
+        repository.indexFile("owner", "repo", "Writer.java", List.of(symbol("Writer.java", Kind.CLASS, "Writer", List.of(), null)));
+        repository.close();
+
+        repository = new LuceneSymbolSearchRepository(directory, 8);
+
+        assertThat(repository.indexedGeneration("owner", "repo")).isEqualTo(OptionalLong.of(3));
+        assertThat(names(repository.search("owner", "repo", "parser", 10))).containsExactly("HttpResponseParser");
+        // Only committed with the next generation
+        assertThat(repository.search("owner", "repo", "writer", 10)).isEmpty();
+        assertThat(repository.indexedGeneration("fork", "repo")).isEmpty();
+        assertThat(repository.search("fork", "repo", "parser", 10)).isEmpty();
+    }
+
+    @Test
+    void closesTheLeastRecentlyUsedIndexesBeyondTheLimit() {
+        repository.close();
+        repository = new LuceneSymbolSearchRepository(directory, 1);
+        repository.indexFile("owner", "repo", "Writer.java", List.of(symbol("Writer.java", Kind.CLASS, "Writer", List.of(), null)));
+        repository.markIndexed("owner", "repo", 3);
+        repository.indexFile("owner", "repo", "Reader.java", List.of(symbol("Reader.java", Kind.CLASS, "Reader", List.of(), null)));
+
+        // Closes the index of owner/repo, and the one of fork/repo once owner/repo is opened again
+        repository.indexFile("fork", "repo", "Parser.java", List.of(symbol("Parser.java", Kind.CLASS, "OtherParser", List.of(), null)));
+
+        assertThat(repository.indexedGeneration("owner", "repo")).isEqualTo(OptionalLong.of(3));
+        assertThat(names(repository.search("owner", "repo", "reader", 10))).containsExactly("Reader");
+        assertThat(names(repository.search("fork", "repo", "parser", 10))).containsExactly("OtherParser");
+        assertThat(repository.indexedGeneration("fork", "repo")).isEmpty();
+
+        // Committed with the files of the next generation, so indexed again after a restart
+        repository.close();
+        repository = new LuceneSymbolSearchRepository(directory, 1);
+        assertThat(repository.indexedGeneration("owner", "repo")).isEmpty();
+    }
+
+    @Test
+    void searchesRepositoriesConcurrentlyWhileTheirIndexesAreClosed() throws Exception {
+        repository.close();
+        repository = new LuceneSymbolSearchRepository(directory, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int task = 0; task < 4; task++) {
+                String repoName = "repo" + task;
+                tasks.add(
+                    executor.submit(() -> {
+                        for (int i = 0; i < 50; i++) {
+                            String filePath = "Type" + i + ".java";
+                            Symbol symbol = symbol(filePath, Kind.CLASS, "Type" + i, List.of(), null);
+                            repository.indexFile("owner", repoName, filePath, List.of(symbol));
+                            assertThat(repository.search("owner", repoName, "type" + i, 10)).hasSize(1);
+                        }
+                        return null;
+                    })
+                );
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static List<String> names(List<SymbolHit> hits) {
+        return hits.stream().map(hit -> hit.symbol().name()).toList();
+    }
+
+    private static Symbol symbol(String filePath, Kind kind, String name, List<String> annotations, String comment) {
+        return new Symbol("owner", "repo", filePath, "com.example", 1, name, kind, name, annotations, comment);
+    }
+}
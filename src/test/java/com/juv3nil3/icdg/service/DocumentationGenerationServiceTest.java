@@ -0,0 +1,216 @@
+package com.juv3nil3.icdg.service;
+
+import static com.juv3nil3.icdg.test.util.GithubStubServer.respond;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.Documentation;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.GitHubFile;
+import com.juv3nil3.icdg.domain.GitHubFileChange;
+import com.juv3nil3.icdg.domain.RepositoryMetadata;
+import com.juv3nil3.icdg.repository.GenerationLeaseRepository;
+import com.juv3nil3.icdg.test.util.GithubStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Test class for the regeneration decisions of {@link DocumentationGenerationService}.
+ */
+class DocumentationGenerationServiceTest {
+
+    private static final String OLD_COMMIT = "old";
+    private static final String NEW_COMMIT = "new";
+    private static final long GENERATION = 4;
+
+    private JavaParserService javaParserService;
+    private GithubService githubService;
+    private RepositoryFreshnessChecker freshnessChecker;
+    private DocumentationGenerator documentationGenerator;
+    private RepositoryMetadataService repositoryMetadataService;
+    private IngestionPipeline ingestionPipeline;
+    private GenerationCoalescer generationCoalescer;
+    private DocumentationGenerationService service;
+    private final List<String> parsedPaths = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getParseCache().setEnabled(false);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        javaParserService = mock(JavaParserService.class);
+        when(javaParserService.parseFile(eq("owner"), eq("repo"), anyString(), anyString())).thenAnswer(invocation -> {
+            synchronized (parsedPaths) {
+                parsedPaths.add(invocation.getArgument(2));
+            }
+            return new ParsedJavaFile("com.example", new FileData());
+        });
+        when(javaParserService.loadPackages("owner", "repo")).thenReturn(new PackageTrie("owner", "repo", Map.of()));
+        when(javaParserService.beginGeneration("owner", "repo")).thenReturn(GENERATION);
+        githubService = mock(GithubService.class);
+        when(githubService.fetchRepositoryMetadata("owner", "repo", NEW_COMMIT, "token")).thenReturn(
+            new RepositoryMetadata("owner", "repo", "description", NEW_COMMIT, "main")
+        );
+        freshnessChecker = mock(RepositoryFreshnessChecker.class);
+        when(freshnessChecker.fetchHeadCommit("owner", "repo", "token")).thenReturn(NEW_COMMIT);
+        when(githubService.fetchFileContent(eq("owner"), eq("repo"), eq(NEW_COMMIT), anyString(), eq("token"))).thenReturn("class Type {}");
+        documentationGenerator = mock(DocumentationGenerator.class);
+        repositoryMetadataService = mock(RepositoryMetadataService.class);
+        when(repositoryMetadataService.findByOwnerAndRepoName("owner", "repo")).thenReturn(
+            Optional.of(new RepositoryMetadata("owner", "repo", "description", OLD_COMMIT, "main"))
+        );
+
+        ingestionPipeline = new IngestionPipeline(
+            javaParserService,
+            new ParseResultCache(applicationProperties, meterRegistry),
+            applicationProperties,
+            meterRegistry
+        );
+        GenerationLeaseRepository leaseRepository = mock(GenerationLeaseRepository.class);
+        when(leaseRepository.tryAcquire(anyString(), anyString(), anyString(), anyString(), any())).thenReturn(true);
+        generationCoalescer = new GenerationCoalescer(leaseRepository, applicationProperties);
+        service = new DocumentationGenerationService(
+            javaParserService,
+            new GithubRepositorySource(githubService, freshnessChecker, applicationProperties),
+            ingestionPipeline,
+            generationCoalescer,
+            documentationGenerator,
+            repositoryMetadataService
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingestionPipeline.shutdown();
+        generationCoalescer.shutdown();
+    }
+
+    @Test
+    void reprocessesOnlyFilesChangedSincePreviousCommit() throws Exception {
+        when(documentationGenerator.findDocumentation("owner", "repo")).thenReturn(Optional.of(new Documentation()));
+        when(githubService.fetchChangedFiles("owner", "repo", OLD_COMMIT, NEW_COMMIT, "token")).thenReturn(
+            Optional.of(
+                List.of(
+                    new GitHubFileChange("src/main/java/com/example/Added.java", null, "added", "a"),
+                    new GitHubFileChange("src/main/java/com/example/Modified.java", null, "modified", "m"),
+                    new GitHubFileChange("src/main/java/com/example/Removed.java", null, "removed", null),
+                    new GitHubFileChange("docs/Moved.java", "src/main/java/com/example/Moved.java", "renamed", "r")
+                )
+            )
+        );
+
+        service.generateDocumentationForRepo("owner", "repo", "token");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> retired = ArgumentCaptor.forClass(Collection.class);
+        verify(javaParserService).retireFiles(eq("owner"), eq("repo"), retired.capture(), eq(GENERATION));
+        assertThat(retired.getValue()).containsExactlyInAnyOrder(
+            "src/main/java/com/example/Added.java",
+            "src/main/java/com/example/Modified.java",
+            "src/main/java/com/example/Removed.java",
+            "docs/Moved.java",
+            "src/main/java/com/example/Moved.java"
+        );
+        assertThat(parsedPaths).containsExactlyInAnyOrder("src/main/java/com/example/Added.java", "src/main/java/com/example/Modified.java");
+        verify(javaParserService, never()).retireOtherFiles(anyString(), anyString(), any(), anyLong());
+        verify(githubService, never()).fetchRepositoryFiles(anyString(), anyString(), anyString(), anyString());
+        verify(documentationGenerator).saveSnapshot("owner", "repo", GENERATION, NEW_COMMIT);
+        verify(repositoryMetadataService).saveOrUpdateMetadata("owner", "repo", "description", NEW_COMMIT, "main");
+    }
+
+    @Test
+    void readsChangedFilesAtTheComparedCommit() throws Exception {
+        GithubStubServer stub = new GithubStubServer();
+        try {
+            // The head of the default branch moved past the compared commit
+            stub.handle("/repos/owner/repo/contents/", exchange ->
+                respond(
+                    exchange,
+                    200,
+                    "application/vnd.github.v3.raw",
+                    ("ref=" + NEW_COMMIT).equals(exchange.getRequestURI().getQuery()) ? "class Type { int compared; }" : "class Type {}"
+                )
+            );
+            ApplicationProperties applicationProperties = new ApplicationProperties();
+            applicationProperties.getGithub().setApiUrl(stub.url());
+            GithubService stubbedService = new GithubService(new RestTemplate(), applicationProperties);
+            when(githubService.fetchFileContent(anyString(), anyString(), any(), anyString(), anyString())).thenAnswer(invocation ->
+                stubbedService.fetchFileContent(
+                    invocation.getArgument(0),
+                    invocation.getArgument(1),
+                    invocation.getArgument(2),
+                    invocation.getArgument(3),
+                    invocation.getArgument(4)
+                )
+            );
+            when(documentationGenerator.findDocumentation("owner", "repo")).thenReturn(Optional.of(new Documentation()));
+            when(githubService.fetchChangedFiles("owner", "repo", OLD_COMMIT, NEW_COMMIT, "token")).thenReturn(
+                Optional.of(List.of(new GitHubFileChange("src/main/java/com/example/Type.java", null, "modified", "t")))
+            );
+
+            service.generateDocumentationForRepo("owner", "repo", "token");
+
+            verify(javaParserService).parseFile("owner", "repo", "src/main/java/com/example/Type.java", "class Type { int compared; }");
+            verify(documentationGenerator).saveSnapshot("owner", "repo", GENERATION, NEW_COMMIT);
+        } finally {
+            stub.close();
+        }
+    }
+
+    @Test
+    void regeneratesInFullWhenChangesCannotBeListed() throws Exception {
+        when(documentationGenerator.findDocumentation("owner", "repo")).thenReturn(Optional.of(new Documentation()));
+        when(githubService.fetchChangedFiles("owner", "repo", OLD_COMMIT, NEW_COMMIT, "token")).thenReturn(Optional.empty());
+        GitHubFile file = new GitHubFile();
+        file.setPath("src/main/java/com/example/Type.java");
+        file.setType("file");
+        when(githubService.fetchRepositoryFiles("owner", "repo", NEW_COMMIT, "token")).thenReturn(List.of(file));
+
+        service.generateDocumentationForRepo("owner", "repo", "token");
+
+        verify(javaParserService).saveParsedFiles(
+            argThat(packages -> "owner".equals(packages.getOwner()) && "repo".equals(packages.getRepoName())),
+            anyList(),
+            eq(GENERATION)
+        );
+        verify(javaParserService).retireOtherFiles(eq("owner"), eq("repo"), any(), eq(GENERATION));
+        verify(documentationGenerator).saveSnapshot("owner", "repo", GENERATION, NEW_COMMIT);
+        assertThat(parsedPaths).containsExactly("src/main/java/com/example/Type.java");
+    }
+
+    @Test
+    void keepsDocumentationOfUnchangedCommit() throws Exception {
+        Documentation documentation = new Documentation();
+        when(documentationGenerator.findDocumentation("owner", "repo")).thenReturn(Optional.of(documentation));
+        when(freshnessChecker.fetchHeadCommit("owner", "repo", "token")).thenReturn(OLD_COMMIT);
+
+        assertThat(service.generateDocumentationForRepo("owner", "repo", "token")).isSameAs(documentation);
+
+        verify(githubService, never()).fetchRepositoryMetadata(anyString(), anyString(), anyString(), anyString());
+
+        verify(githubService, never()).fetchChangedFiles(anyString(), anyString(), anyString(), anyString(), anyString());
+        verify(documentationGenerator, never()).generateAndSaveDocumentationForRepo(anyString(), anyString(), any());
+        verify(documentationGenerator, never()).saveSnapshot(anyString(), anyString(), anyLong(), anyString());
+        assertThat(parsedPaths).isEmpty();
+    }
+}
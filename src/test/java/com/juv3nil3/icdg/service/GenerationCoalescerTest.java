@@ -0,0 +1,139 @@
+package com.juv3nil3.icdg.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.Documentation;
+import com.juv3nil3.icdg.repository.GenerationLeaseRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link GenerationCoalescer}.
+ */
+class GenerationCoalescerTest {
+
+    private static final int CALLERS = 5;
+
+    private GenerationLeaseRepository leaseRepository;
+    private ApplicationProperties applicationProperties;
+    private GenerationCoalescer coalescer;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        leaseRepository = mock(GenerationLeaseRepository.class);
+        when(leaseRepository.tryAcquire(anyString(), anyString(), anyString(), anyString(), any())).thenReturn(true);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getGenerationLease().setPollInterval(Duration.ofMillis(5));
+        coalescer = new GenerationCoalescer(leaseRepository, applicationProperties);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersOfACommitShareOneRun() throws Exception {
+        Documentation documentation = new Documentation();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<GenerationProgress> progresses = new ArrayList<>();
+        List<Future<Documentation>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            GenerationProgress progress = new GenerationProgress();
+            progresses.add(progress);
+            results.add(
+                executor.submit(() ->
+                    coalescer.run("owner", "repo", "commit", progress, () -> {
+                        runs.incrementAndGet();
+                        progress.expect(10);
+                        release.await();
+                        return documentation;
+                    })
+                )
+            );
+        }
+        // Let every caller reach the flight before the run completes
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<Documentation> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(documentation);
+        }
+        assertThat(runs).hasValue(1);
+        assertThat(progresses).allSatisfy(progress -> assertThat(progress.getExpected()).contains(10));
+        verify(leaseRepository, times(1)).release(eq("owner"), eq("repo"), anyString());
+    }
+
+    @Test
+    void joinedCallersGetTheFailureOfTheRun() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Documentation> first = executor.submit(() ->
+            coalescer.run("owner", "repo", "commit", new GenerationProgress(), () -> {
+                started.countDown();
+                release.await();
+                throw new IllegalStateException("Rate limited");
+            })
+        );
+        started.await();
+        Future<Documentation> second = executor.submit(() ->
+            coalescer.run("owner", "repo", "commit", new GenerationProgress(), Documentation::new)
+        );
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasRootCauseMessage("Rate limited");
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasRootCauseMessage("Rate limited");
+
+        // The flight is over, so the next call runs again
+        Documentation documentation = new Documentation();
+        assertThat(coalescer.run("owner", "repo", "commit", new GenerationProgress(), () -> documentation)).isSameAs(documentation);
+    }
+
+    @Test
+    void waitsForTheLeaseHeldElsewhere() throws Exception {
+        when(leaseRepository.tryAcquire(anyString(), anyString(), anyString(), anyString(), any())).thenReturn(false, false, true);
+        Documentation documentation = new Documentation();
+
+        assertThat(coalescer.run("owner", "repo", "commit", new GenerationProgress(), () -> documentation)).isSameAs(documentation);
+
+        verify(leaseRepository, times(3)).tryAcquire(eq("owner"), eq("repo"), anyString(), eq("commit"), eq(Duration.ofMinutes(2)));
+    }
+
+    @Test
+    void givesUpWaitingForTheLeaseAfterTheTimeout() {
+        when(leaseRepository.tryAcquire(anyString(), anyString(), anyString(), anyString(), any())).thenReturn(false);
+        applicationProperties.getGenerationLease().setAcquireTimeout(Duration.ofMillis(50));
+
+        assertThatThrownBy(() -> coalescer.run("owner", "repo", "commit", new GenerationProgress(), Documentation::new)).isInstanceOf(
+            TimeoutException.class
+        );
+        verify(leaseRepository, never()).release(anyString(), anyString(), anyString());
+    }
+}
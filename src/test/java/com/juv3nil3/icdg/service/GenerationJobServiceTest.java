@@ -0,0 +1,129 @@
+package com.juv3nil3.icdg.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.Documentation;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link GenerationJobService}.
+ */
+class GenerationJobServiceTest {
+
+    private DocumentationGenerationService generationService;
+    private ApplicationProperties applicationProperties;
+    private ExecutorService executor;
+    private GenerationJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        generationService = mock(DocumentationGenerationService.class);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getJobs().setProgressInterval(Duration.ofMillis(10));
+        executor = Executors.newSingleThreadExecutor();
+        jobService = new GenerationJobService(generationService, executor, applicationProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void runsTheGenerationInTheBackgroundAndReportsProgress() throws Exception {
+        Documentation documentation = new Documentation();
+        CountDownLatch persisted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(generationService.generateDocumentationForRepo(any(), any(), any(), any())).thenAnswer(invocation -> {
+            GenerationProgress progress = invocation.getArgument(3);
+            progress.expect(2);
+            progress.submitted();
+            progress.persisted(1);
+            persisted.countDown();
+            release.await();
+            return documentation;
+        });
+        List<GenerationJob.Status> updates = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        GenerationJob job = jobService.submit("owner", "repo", "token", "user");
+        job.subscribe(update -> {
+            updates.add(update.getStatus());
+            if (update.isDone()) {
+                done.countDown();
+            }
+        });
+        assertThat(persisted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(job.getStatus()).isEqualTo(GenerationJob.Status.RUNNING);
+        assertThat(job.getProgress().getPersisted()).isEqualTo(1);
+        assertThat(job.getProgress().estimateRemaining()).isPresent();
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(job.getStatus()).isEqualTo(GenerationJob.Status.SUCCEEDED);
+        assertThat(job.getDocumentation()).containsSame(documentation);
+        assertThat(updates).contains(GenerationJob.Status.RUNNING).endsWith(GenerationJob.Status.SUCCEEDED);
+        assertThat(updates).filteredOn(GenerationJob.Status.SUCCEEDED::equals).hasSize(1);
+    }
+
+    @Test
+    void recordsTheFailureOfAJob() throws Exception {
+        when(generationService.generateDocumentationForRepo(any(), any(), any(), any())).thenThrow(new IllegalStateException("Not found"));
+
+        GenerationJob job = jobService.submit("owner", "repo", "token", "user");
+
+        awaitStatus(job, GenerationJob.Status.FAILED);
+        assertThat(job.getError()).isEqualTo("Not found");
+        assertThat(job.getDocumentation()).isEmpty();
+    }
+
+    @Test
+    void findsJobsOnlyForTheUserWhoSubmittedThem() {
+        GenerationJob job = jobService.submit("owner", "repo", "token", "user");
+
+        assertThat(jobService.find(job.getId(), "user")).containsSame(job);
+        assertThat(jobService.find(job.getId(), "other")).isEmpty();
+        assertThat(jobService.find("unknown", "user")).isEmpty();
+        assertThat(jobService.find(job.getId(), null)).isEmpty();
+    }
+
+    @Test
+    void rejectsJobsWithoutAUser() {
+        assertThatThrownBy(() -> jobService.submit("owner", "repo", "token", null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void forgetsJobsFinishedLongerAgoThanTheRetention() throws Exception {
+        applicationProperties.getJobs().setRetention(Duration.ZERO);
+        GenerationJob job = jobService.submit("owner", "repo", "token", "user");
+        awaitStatus(job, GenerationJob.Status.SUCCEEDED);
+
+        // Forgotten once the clock has moved past the time the job finished at
+        await()
+            .atMost(Duration.ofSeconds(5))
+            .untilAsserted(() -> {
+                jobService.publishProgress();
+                assertThat(jobService.find(job.getId(), "user")).isEmpty();
+            });
+    }
+
+    private static void awaitStatus(GenerationJob job, GenerationJob.Status status) {
+        await().atMost(Duration.ofSeconds(5)).until(job::getStatus, status::equals);
+    }
+}
@@ -0,0 +1,145 @@
+package com.juv3nil3.icdg.service;
+
+import static com.juv3nil3.icdg.test.util.GithubStubServer.respondJson;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.service.GithubRequestScheduler.Priority;
+import com.juv3nil3.icdg.test.util.GithubStubServer;
+import com.sun.net.httpserver.HttpExchange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Test class for the {@link GithubRequestScheduler}, run against a local stub of the GitHub API that reports rate limits.
+ */
+class GithubRequestSchedulerTest {
+
+    private GithubStubServer stub;
+    private SimpleMeterRegistry meterRegistry;
+    private RestTemplate restTemplate;
+    private final AtomicInteger remaining = new AtomicInteger(5000);
+    private final AtomicInteger rejections = new AtomicInteger();
+    private volatile String rejection = "429";
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new GithubStubServer();
+        stub.handle("/repos/owner/repo", exchange -> {
+            if (rejections.getAndDecrement() > 0) {
+                reject(exchange);
+                return;
+            }
+            rateLimitHeaders(exchange, 5000, remaining.get());
+            respondJson(exchange, "{\"name\":\"repo\"}");
+        });
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getGithub().setApiUrl(stub.url());
+        applicationProperties.getGithub().setRateLimitMaxWait(Duration.ofSeconds(10));
+        meterRegistry = new SimpleMeterRegistry();
+        restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(new GithubRequestScheduler(applicationProperties, meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    private void reject(HttpExchange exchange) throws IOException {
+        switch (rejection) {
+            case "retry-after" -> exchange.getResponseHeaders().set("Retry-After", "1");
+            case "exhausted" -> rateLimitHeaders(exchange, 5000, 0);
+            default -> {}
+        }
+        exchange.sendResponseHeaders("429".equals(rejection) ? 429 : 403, -1);
+        exchange.close();
+    }
+
+    private static void rateLimitHeaders(HttpExchange exchange, int limit, int remaining) {
+        exchange.getResponseHeaders().set("X-RateLimit-Limit", String.valueOf(limit));
+        exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(remaining));
+        exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(Instant.now().plus(Duration.ofHours(1)).getEpochSecond()));
+    }
+
+    private String fetch() {
+        return restTemplate.getForObject(stub.url() + "/repos/owner/repo", String.class);
+    }
+
+    @Test
+    void retriesAfterTheRetryAfterOfASecondaryLimit() {
+        rejection = "retry-after";
+        rejections.set(1);
+
+        long start = System.nanoTime();
+        assertThat(fetch()).contains("repo");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(900));
+        assertThat(stub.requestCount()).isEqualTo(2);
+        assertThat(meterRegistry.get("github.requests.retries").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void backsOffFromASecondaryLimitWithoutRetryAfter() {
+        rejections.set(2);
+
+        assertThat(fetch()).contains("repo");
+
+        assertThat(stub.requestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void doesNotRetryAPlainRefusal() {
+        rejection = "forbidden";
+        rejections.set(1);
+
+        assertThatThrownBy(this::fetch).isInstanceOf(HttpClientErrorException.Forbidden.class);
+        assertThat(stub.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void failsFastOnceTheBudgetIsSpentForLongerThanTheMaximumWait() {
+        rejection = "exhausted";
+        rejections.set(1);
+
+        assertThatThrownBy(this::fetch).isInstanceOf(HttpClientErrorException.Forbidden.class);
+        assertThatThrownBy(this::fetch).isInstanceOf(ResourceAccessException.class).hasMessageContaining("rate limit");
+        assertThat(stub.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void leavesTheReserveToInteractiveRequests() throws Exception {
+        remaining.set(500);
+        assertThat(fetch()).contains("repo");
+
+        // 500 left, all of them the reserve of 10%
+        assertThatThrownBy(() -> GithubRequestScheduler.withPriority(Priority.BACKGROUND, this::fetch))
+            .isInstanceOf(ResourceAccessException.class)
+            .hasMessageContaining("rate limit");
+        assertThat(fetch()).contains("repo");
+        assertThat(stub.requestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void pacesBackgroundRequestsOnceHalfOfTheBudgetIsSpent() throws Exception {
+        // An hour for the 1800 requests beyond the reserve, 2 seconds apart
+        remaining.set(2300);
+        assertThat(fetch()).contains("repo");
+
+        assertThat(GithubRequestScheduler.withPriority(Priority.BACKGROUND, this::fetch)).contains("repo");
+        long start = System.nanoTime();
+        assertThat(GithubRequestScheduler.withPriority(Priority.BACKGROUND, this::fetch)).contains("repo");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(1500));
+    }
+}
@@ -0,0 +1,292 @@
+package com.juv3nil3.icdg.service;
+
+import static com.juv3nil3.icdg.test.util.GithubStubServer.respond;
+import static com.juv3nil3.icdg.test.util.GithubStubServer.respondJson;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.GitHubFile;
+import com.juv3nil3.icdg.domain.GitHubFileChange;
+import com.juv3nil3.icdg.test.util.GithubStubServer;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Test class for the repository listing and download calls of {@link GithubService}, run against a local stub of the GitHub API.
+ */
+class GithubServiceTest {
+
+    private static final int PACKAGES = 2_000;
+    private static final int FILES = 5_000;
+    private static final String COMMIT = "c0ffee";
+
+    private GithubStubServer stub;
+    private ApplicationProperties applicationProperties;
+    private GithubService githubService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new GithubStubServer();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getGithub().setApiUrl(stub.url());
+        githubService = new GithubService(new RestTemplate(), applicationProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void listsSyntheticRepositoryWithOneTreeRequest() throws Exception {
+        JSONArray tree = syntheticTree();
+        stub
+            .handle("/repos/owner/repo/commits", exchange -> respondJson(exchange, new JSONArray().put(new JSONObject().put("sha", COMMIT)).toString()))
+            .handle("/repos/owner/repo/git/trees/", exchange -> respondJson(exchange, treeResponse(tree, false)));
+
+        List<GitHubFile> files = githubService.fetchRepositoryFiles("owner", "repo", "token");
+
+        assertThat(files).hasSize(FILES);
+        assertThat(files).allSatisfy(file -> {
+            assertThat(file.getType()).isEqualTo("file");
+            assertThat(file.getPath()).startsWith("src/main/java/").endsWith(".java");
+            assertThat(file.getName()).isEqualTo(file.getPath().substring(file.getPath().lastIndexOf('/') + 1));
+            assertThat(file.getSha()).isNotBlank();
+            assertThat(file.getSize()).isPositive();
+        });
+        assertThat(stub.requests()).containsExactly("/repos/owner/repo/commits", "/repos/owner/repo/git/trees/" + COMMIT + "?recursive=1");
+    }
+
+    @Test
+    void listsBasePathSubtreeWhenRootTreeIsTruncated() throws Exception {
+        JSONArray baseTree = new JSONArray();
+        syntheticTree().forEach(entry -> {
+            JSONObject json = (JSONObject) entry;
+            String path = json.getString("path");
+            if (path.startsWith("src/main/java/")) {
+                baseTree.put(new JSONObject(json.toMap()).put("path", path.substring("src/main/java/".length())));
+            }
+        });
+        stub.handle("/repos/owner/repo/git/trees/", exchange -> {
+            String uri = exchange.getRequestURI().toString();
+            String sha = uri.substring(uri.lastIndexOf('/') + 1).replace("?recursive=1", "");
+            boolean recursive = uri.endsWith("?recursive=1");
+            switch (sha) {
+                case COMMIT -> respondJson(exchange, recursive ? treeResponse(new JSONArray(), true) : treeResponse(dirs("src", "README.md"), false));
+                case "tree-src" -> respondJson(exchange, treeResponse(dirs("main", "test"), false));
+                case "tree-main" -> respondJson(exchange, treeResponse(dirs("java", "resources"), false));
+                case "tree-java" -> respondJson(exchange, treeResponse(baseTree, false));
+                default -> GithubStubServer.respond(exchange, 404, "application/json", "{}");
+            }
+        });
+
+        List<GitHubFile> files = githubService.fetchRepositoryFiles("owner", "repo", COMMIT, "token");
+
+        assertThat(files).hasSize(FILES);
+        assertThat(files).allSatisfy(file -> assertThat(file.getPath()).startsWith("src/main/java/com/example/"));
+        assertThat(stub.requestCount()).isEqualTo(5);
+    }
+
+    @Test
+    void fallsBackToDirectoryWalkWhenSubtreeIsTruncated() throws Exception {
+        stub
+            .handle("/repos/owner/repo/git/trees/", exchange -> {
+                String uri = exchange.getRequestURI().toString();
+                if (uri.endsWith("?recursive=1")) {
+                    respondJson(exchange, treeResponse(new JSONArray(), true));
+                } else if (uri.contains("/" + COMMIT)) {
+                    respondJson(exchange, treeResponse(dirs("src"), false));
+                } else if (uri.contains("/tree-src")) {
+                    respondJson(exchange, treeResponse(dirs("main"), false));
+                } else {
+                    respondJson(exchange, treeResponse(dirs("java"), false));
+                }
+            })
+            .handle("/repos/owner/repo/contents/", exchange -> {
+                String path = exchange.getRequestURI().getPath().substring("/repos/owner/repo/contents/".length());
+                JSONArray listing = new JSONArray();
+                if (path.equals("src/main/java")) {
+                    listing.put(content("dir", path + "/pkg"));
+                    listing.put(content("file", path + "/App.java"));
+                } else {
+                    listing.put(content("file", path + "/Service.java"));
+                    listing.put(content("file", path + "/notes.txt"));
+                }
+                respondJson(exchange, listing.toString());
+            });
+
+        List<GitHubFile> files = githubService.fetchRepositoryFiles("owner", "repo", COMMIT, "token");
+
+        assertThat(files).extracting(GitHubFile::getPath).containsExactlyInAnyOrder("src/main/java/App.java", "src/main/java/pkg/Service.java");
+        assertThat(stub.requests()).filteredOn(uri -> uri.contains("/contents/")).hasSize(2);
+    }
+
+    @Test
+    void walksContentsWhenTreeListingIsDisabled() throws Exception {
+        applicationProperties.getGithub().setTreeListing(false);
+        stub.handle("/repos/owner/repo/contents/", exchange ->
+            respondJson(exchange, new JSONArray().put(content("file", "src/main/java/App.java")).toString())
+        );
+
+        List<GitHubFile> files = githubService.fetchRepositoryFiles("owner", "repo", "token");
+
+        assertThat(files).extracting(GitHubFile::getPath).containsExactly("src/main/java/App.java");
+        assertThat(stub.requests()).containsExactly("/repos/owner/repo/contents/src/main/java");
+    }
+
+    @Test
+    void readsContentsAtTheListedCommit() throws Exception {
+        applicationProperties.getGithub().setTreeListing(false);
+        stub.handle("/repos/owner/repo/contents/", exchange -> {
+            if (exchange.getRequestURI().getPath().endsWith(".java")) {
+                respond(exchange, 200, "application/vnd.github.v3.raw", "class App {}");
+            } else {
+                respondJson(exchange, new JSONArray().put(content("file", "src/main/java/App.java")).toString());
+            }
+        });
+
+        List<GitHubFile> files = githubService.fetchRepositoryFiles("owner", "repo", COMMIT, "token");
+        String content = githubService.fetchFileContent("owner", "repo", COMMIT, files.get(0).getPath(), "token");
+
+        assertThat(content).isEqualTo("class App {}");
+        assertThat(stub.requests()).containsExactly(
+            "/repos/owner/repo/contents/src/main/java?ref=" + COMMIT,
+            "/repos/owner/repo/contents/src/main/java/App.java?ref=" + COMMIT
+        );
+    }
+
+    @Test
+    void streamsJavaEntriesOfRepositoryArchive() throws Exception {
+        stub
+            .handle("/repos/owner/repo/zipball/", exchange -> {
+                exchange.getResponseHeaders().set("Location", stub.url() + "/codeload/owner/repo/zip/" + COMMIT);
+                exchange.sendResponseHeaders(302, -1);
+            })
+            .handle("/codeload/", exchange -> {
+                exchange.getResponseHeaders().set("Content-Type", "application/zip");
+                // Chunked response, written entry by entry like codeload does
+                exchange.sendResponseHeaders(200, 0);
+                try (ZipOutputStream zip = new ZipOutputStream(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+                    String root = "owner-repo-" + COMMIT + "/";
+                    zip.putNextEntry(new ZipEntry(root));
+                    writeEntry(zip, root + "README.md", "# repo");
+                    writeEntry(zip, root + "src/test/java/AppTest.java", "class AppTest {}");
+                    zip.putNextEntry(new ZipEntry(root + "src/main/java/com/example/"));
+                    for (int i = 0; i < FILES; i++) {
+                        writeEntry(zip, root + "src/main/java/com/example/Type" + i + ".java", "package com.example;\nclass Type" + i + " {}\n");
+                    }
+                }
+            });
+
+        Map<String, String> sources = new LinkedHashMap<>();
+        int handled = githubService.streamRepositoryArchive("owner", "repo", COMMIT, "token", sources::put);
+
+        assertThat(handled).isEqualTo(FILES);
+        assertThat(sources).hasSize(FILES);
+        assertThat(sources).containsEntry("src/main/java/com/example/Type42.java", "package com.example;\nclass Type42 {}\n");
+        assertThat(stub.requests()).containsExactly("/repos/owner/repo/zipball/" + COMMIT, "/codeload/owner/repo/zip/" + COMMIT);
+    }
+
+    @Test
+    void listsChangedJavaFilesBetweenCommits() throws Exception {
+        JSONArray files = new JSONArray()
+            .put(change("src/main/java/com/example/Added.java", null, "added"))
+            .put(change("src/main/java/com/example/Modified.java", null, "modified"))
+            .put(change("src/main/java/com/example/Removed.java", null, "removed"))
+            .put(change("src/main/java/com/example/Renamed.java", "src/main/java/com/example/Old.java", "renamed"))
+            .put(change("src/test/java/com/example/AddedTest.java", null, "added"))
+            .put(change("README.md", null, "modified"));
+        stub.handle("/repos/owner/repo/compare/", exchange ->
+            respondJson(exchange, new JSONObject().put("status", "ahead").put("files", files).toString())
+        );
+
+        Optional<List<GitHubFileChange>> changes = githubService.fetchChangedFiles("owner", "repo", "base", COMMIT, "token");
+
+        assertThat(changes).isPresent();
+        assertThat(changes.get())
+            .extracting(GitHubFileChange::getStatus)
+            .containsExactly("added", "modified", "removed", "renamed");
+        assertThat(changes.get().get(3).getPreviousPath()).isEqualTo("src/main/java/com/example/Old.java");
+        assertThat(changes.get().get(2).isRemoved()).isTrue();
+        assertThat(stub.requests()).containsExactly("/repos/owner/repo/compare/base..." + COMMIT);
+    }
+
+    @Test
+    void rejectsDivergedOrTruncatedComparisons() throws Exception {
+        JSONArray manyFiles = new JSONArray();
+        for (int i = 0; i < 300; i++) {
+            manyFiles.put(change("src/main/java/Type" + i + ".java", null, "modified"));
+        }
+        stub.handle("/repos/owner/repo/compare/", exchange -> {
+            boolean diverged = exchange.getRequestURI().getPath().contains("forced");
+            JSONObject body = new JSONObject().put("status", diverged ? "diverged" : "ahead").put("files", diverged ? new JSONArray() : manyFiles);
+            respondJson(exchange, body.toString());
+        });
+
+        assertThat(githubService.fetchChangedFiles("owner", "repo", "forced", COMMIT, "token")).isEmpty();
+        assertThat(githubService.fetchChangedFiles("owner", "repo", "base", COMMIT, "token")).isEmpty();
+    }
+
+    private static JSONObject change(String path, String previousPath, String status) {
+        JSONObject change = new JSONObject().put("filename", path).put("status", status).put("sha", "sha-" + path);
+        if (previousPath != null) {
+            change.put("previous_filename", previousPath);
+        }
+        return change;
+    }
+
+    private static void writeEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static JSONArray syntheticTree() {
+        JSONArray tree = new JSONArray();
+        tree.put(new JSONObject().put("path", "README.md").put("mode", "100644").put("type", "blob").put("sha", "readme").put("size", 12));
+        tree.put(new JSONObject().put("path", "src/test/java/AppTest.java").put("mode", "100644").put("type", "blob").put("sha", "t").put("size", 10));
+        for (int p = 0; p < PACKAGES; p++) {
+            tree.put(new JSONObject().put("path", "src/main/java/com/example/p" + p).put("mode", "040000").put("type", "tree").put("sha", "d" + p));
+        }
+        for (int f = 0; f < FILES; f++) {
+            String path = "src/main/java/com/example/p" + (f % PACKAGES) + "/Type" + f + ".java";
+            tree.put(new JSONObject().put("path", path).put("mode", "100644").put("type", "blob").put("sha", "b" + f).put("size", 100 + f));
+        }
+        return tree;
+    }
+
+    private static JSONArray dirs(String... names) {
+        JSONArray tree = new JSONArray();
+        for (String name : names) {
+            boolean file = name.contains(".");
+            tree.put(
+                new JSONObject()
+                    .put("path", name)
+                    .put("mode", file ? "100644" : "040000")
+                    .put("type", file ? "blob" : "tree")
+                    .put("sha", "tree-" + name)
+            );
+        }
+        return tree;
+    }
+
+    private static JSONObject content(String type, String path) {
+        return new JSONObject().put("type", type).put("path", path).put("name", path.substring(path.lastIndexOf('/') + 1)).put("sha", path);
+    }
+
+    private static String treeResponse(JSONArray tree, boolean truncated) {
+        return new JSONObject().put("sha", COMMIT).put("tree", tree).put("truncated", truncated).toString();
+    }
+}
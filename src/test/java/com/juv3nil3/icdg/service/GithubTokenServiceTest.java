@@ -0,0 +1,100 @@
+package com.juv3nil3.icdg.service;
+
+import static com.juv3nil3.icdg.test.util.GithubStubServer.respond;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.test.util.GithubStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Test class for the token cache of {@link GithubTokenService}, run against a local stub of the Keycloak broker endpoint.
+ */
+class GithubTokenServiceTest {
+
+    private static final String BROKER_PATH = "/realms/jhipster/broker/github/token";
+
+    private GithubStubServer stub;
+    private SimpleMeterRegistry meterRegistry;
+    private GithubTokenService tokenService;
+    private final AtomicInteger issued = new AtomicInteger();
+    private final AtomicReference<String> expiresIn = new AtomicReference<>("");
+    private final List<String> requestThreads = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new GithubStubServer();
+        stub.handle(BROKER_PATH, exchange -> {
+            String keycloakToken = exchange.getRequestHeaders().getFirst("Authorization").substring("Bearer ".length());
+            String token = "gho_" + issued.incrementAndGet() + "-" + keycloakToken;
+            respond(exchange, 200, "application/x-www-form-urlencoded", "access_token=" + token + "&token_type=bearer" + expiresIn.get());
+        });
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getGithub().setBrokerTokenUrl(stub.url() + BROKER_PATH);
+        meterRegistry = new SimpleMeterRegistry();
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate
+            .getInterceptors()
+            .add((request, body, execution) -> {
+                requestThreads.add(Thread.currentThread().getName());
+                return execution.execute(request, body);
+            });
+        tokenService = new GithubTokenService(restTemplate, applicationProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenService.shutdown();
+        stub.close();
+    }
+
+    @Test
+    void asksKeycloakOncePerAccessToken() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> tokens = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                tokens.add(executor.submit(() -> tokenService.fetchGithubTokenFromKeycloak("keycloak-a")));
+            }
+            for (Future<String> token : tokens) {
+                assertThat(token.get()).isEqualTo("gho_1-keycloak-a");
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(tokenService.fetchGithubTokenFromKeycloak("keycloak-b")).isEqualTo("gho_2-keycloak-b");
+        assertThat(stub.requestCount()).isEqualTo(2);
+        double hits = meterRegistry.get("cache.gets").tag("cache", GithubTokenService.CACHE_NAME).tag("result", "hit").functionCounter().count();
+        assertThat(hits).isPositive();
+    }
+
+    @Test
+    void refreshesTokensCloseToExpiryInTheBackground() throws Exception {
+        // Cached for 2 seconds once the expiry skew is taken off, and refreshed from 1.6 seconds
+        expiresIn.set("&expires_in=32");
+        assertThat(tokenService.fetchGithubTokenFromKeycloak("keycloak")).isEqualTo("gho_1-keycloak");
+
+        Thread.sleep(1_700);
+        // Still handed out while the next one is fetched
+        assertThat(tokenService.fetchGithubTokenFromKeycloak("keycloak")).isEqualTo("gho_1-keycloak");
+        await().atMost(Duration.ofSeconds(5)).until(() -> "gho_2-keycloak".equals(tokenService.fetchGithubTokenFromKeycloak("keycloak")));
+        assertThat(stub.requestCount()).isEqualTo(2);
+        // Off the common pool, which the rest of the application shares
+        assertThat(requestThreads.get(1)).startsWith("github-token-refresh-");
+    }
+}
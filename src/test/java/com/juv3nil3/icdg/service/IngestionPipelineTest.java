@@ -0,0 +1,218 @@
+package com.juv3nil3.icdg.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.FileData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for the {@link IngestionPipeline}.
+ */
+class IngestionPipelineTest {
+
+    private static final int FILES = 200;
+
+    private JavaParserService javaParserService;
+    private SimpleMeterRegistry meterRegistry;
+    private IngestionPipeline pipeline;
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final List<String> persistedPaths = new CopyOnWriteArrayList<>();
+    private final List<String> persistedBlobShas = new CopyOnWriteArrayList<>();
+
+    @TempDir
+    Path cacheDirectory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIngestion().setMaxConcurrentRequests(4);
+        applicationProperties.getIngestion().setParseParallelism(2);
+        applicationProperties.getIngestion().setPersistBatchSize(25);
+        applicationProperties.getIngestion().setMaxInFlightFiles(32);
+        applicationProperties.getParseCache().setDirectory(cacheDirectory.toString());
+
+        javaParserService = mock(JavaParserService.class);
+        when(javaParserService.parseFile(eq("owner"), eq("repo"), anyString(), anyString())).thenAnswer(invocation -> {
+            FileData fileData = new FileData();
+            fileData.setFilePath(invocation.getArgument(2));
+            return new ParsedJavaFile("com.example", fileData);
+        });
+        when(javaParserService.loadPackages("owner", "repo")).thenReturn(new PackageTrie("owner", "repo", Map.of()));
+        doAnswer(invocation -> {
+            List<ParsedJavaFile> batch = invocation.getArgument(1);
+            batchSizes.add(batch.size());
+            batch.forEach(file -> {
+                persistedPaths.add(file.fileData().getFilePath());
+                persistedBlobShas.add(file.fileData().getBlobSha());
+            });
+            return null;
+        })
+            .when(javaParserService)
+            .saveParsedFiles(any(PackageTrie.class), anyList(), anyLong());
+
+        meterRegistry = new SimpleMeterRegistry();
+        ParseResultCache parseResultCache = new ParseResultCache(applicationProperties, meterRegistry);
+        pipeline = new IngestionPipeline(javaParserService, parseResultCache, applicationProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void capsConcurrentFetchesAndPersistsEveryFileInBatches() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        try (IngestionPipeline.Run run = pipeline.start("owner", "repo")) {
+            for (int i = 0; i < FILES; i++) {
+                String path = "src/main/java/Type" + i + ".java";
+                run.submitFetch(path, null, () -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.sleep(2);
+                    inFlight.decrementAndGet();
+                    return "class " + path + " {}";
+                });
+            }
+            run.awaitCompletion();
+        }
+
+        assertThat(persistedPaths).hasSize(FILES).doesNotHaveDuplicates();
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(4);
+        assertThat(batchSizes).allSatisfy(size -> assertThat(size).isBetween(1, 25));
+        assertThat(meterRegistry.get("ingestion.stage.duration").tag("stage", "fetch").timer().count()).isEqualTo(FILES);
+        assertThat(meterRegistry.get("ingestion.stage.duration").tag("stage", "parse").timer().count()).isEqualTo(FILES);
+        assertThat(meterRegistry.get("ingestion.queue.size").tag("stage", "persist").gauge().value()).isZero();
+    }
+
+    @Test
+    void parsesSubmittedContentWithoutFetching() throws Exception {
+        try (IngestionPipeline.Run run = pipeline.start("owner", "repo")) {
+            for (int i = 0; i < FILES; i++) {
+                run.submitParse("src/main/java/Type" + i + ".java", "class Type" + i + " {}");
+            }
+            run.awaitCompletion();
+        }
+
+        assertThat(persistedPaths).hasSize(FILES);
+        assertThat(persistedBlobShas).contains(ParseResultCache.blobSha("class Type0 {}")).doesNotHaveDuplicates();
+        assertThat(meterRegistry.get("ingestion.stage.duration").tag("stage", "fetch").timer().count()).isZero();
+    }
+
+    @Test
+    void retiresTheFilesARunDidNotPersist() throws Exception {
+        when(javaParserService.beginGeneration("owner", "repo")).thenReturn(7L);
+        try (IngestionPipeline.Run run = pipeline.start("owner", "repo", new GenerationProgress())) {
+            run.submitParse("src/main/java/Kept.java", "class Kept {}");
+            run.awaitCompletion();
+            run.retireOtherFiles();
+        }
+
+        verify(javaParserService).saveParsedFiles(any(PackageTrie.class), anyList(), eq(7L));
+        verify(javaParserService).retireOtherFiles("owner", "repo", Set.of("src/main/java/Kept.java"), 7L);
+    }
+
+    @Test
+    void skipsFetchAndParseOfCachedBlobs() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        for (int pass = 0; pass < 2; pass++) {
+            try (IngestionPipeline.Run run = pipeline.start("owner", "repo")) {
+                for (int i = 0; i < FILES; i++) {
+                    String path = "src/main/java/Type" + i + ".java";
+                    String content = "class " + path + " {}";
+                    run.submitFetch(path, ParseResultCache.blobSha(content), () -> {
+                        fetches.incrementAndGet();
+                        return content;
+                    });
+                }
+                run.awaitCompletion();
+            }
+        }
+
+        assertThat(fetches.get()).isEqualTo(FILES);
+        assertThat(persistedPaths).hasSize(2 * FILES);
+        assertThat(persistedBlobShas.subList(FILES, 2 * FILES)).containsExactlyInAnyOrderElementsOf(persistedBlobShas.subList(0, FILES));
+        assertThat(persistedPaths.subList(FILES, 2 * FILES)).containsExactlyInAnyOrderElementsOf(persistedPaths.subList(0, FILES));
+        assertThat(meterRegistry.get("ingestion.stage.duration").tag("stage", "parse").timer().count()).isEqualTo(FILES);
+        assertThat(meterRegistry.get("parse.cache.requests").tag("result", "hit").tag("tier", "heap").counter().count()).isEqualTo(FILES);
+    }
+
+    @Test
+    void doesNotCacheContentOfAnotherBlobThanListed() throws Exception {
+        String listed = ParseResultCache.blobSha("class Type {}");
+        String fetched = "class Type { int field; }";
+        for (int pass = 0; pass < 2; pass++) {
+            try (IngestionPipeline.Run run = pipeline.start("owner", "repo")) {
+                run.submitFetch("src/main/java/Type.java", listed, () -> fetched);
+                run.awaitCompletion();
+            }
+        }
+
+        // Stored for the blob that was parsed, and parsed again as the listed blob is still not cached
+        assertThat(persistedBlobShas).containsExactly(ParseResultCache.blobSha(fetched), ParseResultCache.blobSha(fetched));
+        assertThat(meterRegistry.get("ingestion.stage.duration").tag("stage", "parse").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void looksUpArchiveEntriesByContentHash() throws Exception {
+        parseAll();
+        parseAll();
+
+        assertThat(persistedPaths).hasSize(2 * FILES);
+        assertThat(meterRegistry.get("ingestion.stage.duration").tag("stage", "parse").timer().count()).isEqualTo(FILES);
+    }
+
+    @Test
+    void surfacesFirstFetchFailure() {
+        try (IngestionPipeline.Run run = pipeline.start("owner", "repo")) {
+            // Submissions fail fast once a stage has failed, so the error may surface from either call
+            assertThatThrownBy(() -> {
+                for (int i = 0; i < FILES; i++) {
+                    int index = i;
+                    run.submitFetch("src/main/java/Type" + i + ".java", null, () -> {
+                        if (index == 10) {
+                            throw new IllegalStateException("rate limited");
+                        }
+                        return "class Type" + index + " {}";
+                    });
+                }
+                run.awaitCompletion();
+            })
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("rate limited");
+        }
+
+        assertThat(persistedPaths).hasSizeLessThan(FILES);
+    }
+
+    private void parseAll() throws Exception {
+        try (IngestionPipeline.Run run = pipeline.start("owner", "repo")) {
+            for (int i = 0; i < FILES; i++) {
+                run.submitParse("src/main/java/Type" + i + ".java", "class Type" + i + " {}");
+            }
+            run.awaitCompletion();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.juv3nil3.icdg.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.config.ApplicationProperties.Ingestion.ParseMode;
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link JavaCodeParser}, checking that parsing declarations only extracts the same data as a full parse.
+ */
+class JavaCodeParserTest {
+
+    private static final String SOURCE = """
+        package com.example;
+
+        /** A type. */
+        @Service
+        public class Type<T> extends Base implements Runnable {
+
+            /** The field. */
+            @Autowired
+            private int[] values = { 1, 2 };
+
+            private final Runnable task = () -> {
+                System.out.println("}");
+            };
+
+            static {
+                load();
+            }
+
+            {
+                init();
+            }
+
+            /** Builds a type. */
+            public Type(int size) throws IllegalStateException {
+                super(size);
+            }
+
+            @Override
+            @Ann(value = Base.class, names = { "a", "b" })
+            public void run() {
+                // "{" is not a brace
+                char brace = '{';
+                String text = "} still text {";
+                class Local {
+                    void local() {}
+                }
+                new Local().local();
+            }
+
+            /** Generic. */
+            <R extends Comparable<R>> R map(java.util.function.Function<T, R> mapper) {
+                if (values.length > 0) {
+                    return mapper.apply(null);
+                }
+                return null;
+            }
+
+            void record(String s) {
+                s.length();
+            }
+
+            enum Kind {
+                A {
+                    void apply() {}
+                },
+                B;
+
+                void apply() {}
+            }
+
+            interface Listener {
+                /** Default. */
+                default void onEvent() {
+                    onEvent();
+                }
+            }
+        }
+        """;
+
+    private static FileData parse(ParseMode mode, String source) throws Exception {
+        return new JavaCodeParser(mode).parseJavaFile(source);
+    }
+
+    /**
+     * Write out everything the parser extracts, for comparing two parses.
+     */
+    private static String describe(FileData fileData) {
+        StringBuilder description = new StringBuilder();
+        for (ClassData classData : fileData.getClasses()) {
+            description.append(classData.getName()).append(classData.getAnnotations()).append(classData.getComment()).append('\n');
+            for (FieldData field : classData.getFields()) {
+                description.append("  ").append(field.getName()).append(field.getAnnotations()).append(field.getComment()).append('\n');
+            }
+            for (MethodData method : classData.getMethods()) {
+                description.append("  ").append(method.getName()).append(method.getAnnotations()).append(method.getComment()).append('\n');
+            }
+        }
+        return description.toString();
+    }
+
+    @Test
+    void stripsBodiesButKeepsDeclarations() {
+        String stripped = BodyStripper.strip(SOURCE);
+
+        assertThat(stripped).hasSameSizeAs(SOURCE);
+        assertThat(stripped.lines().count()).isEqualTo(SOURCE.lines().count());
+        assertThat(stripped).doesNotContain("load();", "init();", "super(size);", "mapper.apply", "s.length()", "onEvent();");
+        // Kept: field initializers, a body declaring a class, enum constant bodies
+        assertThat(stripped).contains("{ 1, 2 }", "System.out.println", "class Local", "void apply() {}");
+    }
+
+    @Test
+    void stripsRecordsAndTextBlocks() {
+        String source = """
+            record Point(int x, int y) {
+                Point {
+                    if (x < 0) throw new IllegalArgumentException();
+                }
+
+                String describe() {
+                    return \"""
+                        } {
+                        \""" + x;
+                }
+            }
+            """;
+
+        String stripped = BodyStripper.strip(source);
+
+        // Compact constructors have no parameter list and are kept
+        assertThat(stripped).contains("throw new IllegalArgumentException").doesNotContain("return", "+ x");
+    }
+
+    @Test
+    void leavesUnbalancedSourcesAlone() {
+        String source = "class Type { void run() { if (true) { } }";
+
+        assertThat(BodyStripper.strip(source)).isSameAs(source);
+    }
+
+    @Test
+    void extractsTheSameDeclarationsAsAFullParse() throws Exception {
+        FileData full = parse(ParseMode.FULL, SOURCE);
+
+        assertThat(describe(parse(ParseMode.DECLARATIONS, SOURCE))).isEqualTo(describe(full));
+        assertThat(full.getClasses()).extracting(ClassData::getName).contains("Type", "Local", "Listener");
+    }
+
+    @Test
+    void parsesAStreamLikeItsContent() throws Exception {
+        for (ParseMode mode : ParseMode.values()) {
+            FileData streamed = new JavaCodeParser(mode).parseJavaFile(new ByteArrayInputStream(SOURCE.getBytes(StandardCharsets.UTF_8)));
+
+            assertThat(describe(streamed)).isEqualTo(describe(parse(mode, SOURCE)));
+        }
+    }
+
+    @Test
+    void reusesOneParserPerThread() throws Exception {
+        JavaCodeParser parser = new JavaCodeParser(ParseMode.FULL);
+        String expected = describe(parser.parseJavaFile(SOURCE));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> describe(parser.parseJavaFile(SOURCE))));
+            }
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo(expected);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void extractsTheSameDeclarationsAsAFullParseFromTheSourcesOfThisRepository() throws Exception {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(Paths.get("src/main/java"))) {
+            files = paths.filter(path -> path.toString().endsWith(".java")).collect(Collectors.toList());
+        }
+        assertThat(files).isNotEmpty();
+
+        for (Path file : files) {
+            String source = Files.readString(file);
+            String full = describe(parse(ParseMode.FULL, source));
+            assertThat(describe(parse(ParseMode.DECLARATIONS, source))).as(file.toString()).isEqualTo(full);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.juv3nil3.icdg.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.GitHubFileChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for the {@link LocalRepositorySource}, reading a directory and a bare repository built with the {@code git} command.
+ */
+class LocalRepositorySourceTest {
+
+    private static final String TYPE_PATH = "src/main/java/com/example/Type.java";
+
+    @TempDir
+    Path root;
+
+    private LocalRepositorySource source;
+    private IngestionPipeline ingestionPipeline;
+    private final Map<String, String> parsed = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getParseCache().setEnabled(false);
+        applicationProperties.getIngestion().setLocalRoot(root.toString());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        JavaParserService javaParserService = mock(JavaParserService.class);
+        when(javaParserService.parseFile(eq("owner"), eq("repo"), anyString(), anyString())).thenAnswer(invocation -> {
+            parsed.put(invocation.getArgument(2), invocation.getArgument(3));
+            return new ParsedJavaFile("com.example", new FileData());
+        });
+        ingestionPipeline = new IngestionPipeline(
+            javaParserService,
+            new ParseResultCache(applicationProperties, meterRegistry),
+            applicationProperties,
+            meterRegistry
+        );
+        source = new LocalRepositorySource(applicationProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingestionPipeline.shutdown();
+    }
+
+    private void submitFiles(String commitHash) throws Exception {
+        try (IngestionPipeline.Run run = ingestionPipeline.start("owner", "repo", new GenerationProgress())) {
+            source.submitFiles("owner", "repo", commitHash, null, run, new GenerationProgress());
+            run.awaitCompletion();
+        }
+    }
+
+    private static Path write(Path directory, String filePath, String content) throws Exception {
+        Path file = directory.resolve(filePath);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+
+    private static String git(Path directory, String... args) throws Exception {
+        List<String> command = new ArrayList<>(List.of("git", "-c", "user.name=test", "-c", "user.email=test@example.com"));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(process.waitFor(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(process.exitValue()).as(output).isZero();
+        return output.trim();
+    }
+
+    private static void assumeGit() {
+        try {
+            Assumptions.assumeTrue(new ProcessBuilder("git", "--version").start().waitFor() == 0);
+        } catch (Exception e) {
+            Assumptions.abort("git is not available");
+        }
+    }
+
+    @Test
+    void readsTheJavaFilesOfADirectory() throws Exception {
+        Path directory = root.resolve("owner/repo");
+        write(directory, TYPE_PATH, "class Type {}\n");
+        write(directory, "src/test/java/com/example/TypeTest.java", "class TypeTest {}\n");
+        write(directory, "README.md", "# repo\n");
+
+        String commitHash = source.resolveCommit("owner", "repo", null);
+        submitFiles(commitHash);
+
+        assertThat(parsed).containsExactly(Map.entry(TYPE_PATH, "class Type {}\n"));
+        assertThat(source.fetchFileContent("owner", "repo", commitHash, TYPE_PATH, null)).isEqualTo("class Type {}\n");
+        assertThat(source.fetchChangedFiles("owner", "repo", "a", "b", null)).isEmpty();
+    }
+
+    @Test
+    void fingerprintsADirectoryByItsJavaFiles() throws Exception {
+        Path directory = root.resolve("owner/repo");
+        Path type = write(directory, TYPE_PATH, "class Type {}\n");
+        String commitHash = source.resolveCommit("owner", "repo", null);
+
+        write(directory, "README.md", "# repo\n");
+        assertThat(source.resolveCommit("owner", "repo", null)).isEqualTo(commitHash);
+
+        Files.writeString(type, "class Type { int field; }\n");
+        Files.setLastModifiedTime(type, FileTime.fromMillis(Files.getLastModifiedTime(type).toMillis() + 1000));
+        assertThat(source.resolveCommit("owner", "repo", null)).isNotEqualTo(commitHash);
+    }
+
+    @Test
+    void rejectsNamesOutsideTheRoot() {
+        assertThatThrownBy(() -> source.resolveCommit("..", "repo", null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> source.resolveCommit("owner", "missing", null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void readsABareRepositoryAtACommit() throws Exception {
+        assumeGit();
+        Path work = Files.createDirectories(root.resolve("work"));
+        git(work, "init", "-q");
+        write(work, TYPE_PATH, "class Type {}\n");
+        write(work, "src/main/java/com/example/Removed.java", "class Removed {}\n");
+        git(work, "add", ".");
+        git(work, "commit", "-q", "-m", "first");
+        String first = git(work, "rev-parse", "HEAD");
+        write(work, TYPE_PATH, "class Type { int field; }\n");
+        write(work, "src/main/java/com/example/Added.java", "interface Added {\n    void run();\n}\n");
+        Files.delete(work.resolve("src/main/java/com/example/Removed.java"));
+        git(work, "add", "-A");
+        git(work, "commit", "-q", "-m", "second");
+        String second = git(work, "rev-parse", "HEAD");
+        Files.createDirectories(root.resolve("owner"));
+        git(root, "clone", "-q", "--bare", work.toString(), root.resolve("owner/repo.git").toString());
+
+        assertThat(source.resolveCommit("owner", "repo", null)).isEqualTo(second);
+
+        submitFiles(first);
+        assertThat(parsed).containsOnly(
+            Map.entry(TYPE_PATH, "class Type {}\n"),
+            Map.entry("src/main/java/com/example/Removed.java", "class Removed {}\n")
+        );
+
+        assertThat(source.fetchChangedFiles("owner", "repo", first, second, null))
+            .hasValueSatisfying(changes ->
+                assertThat(changes)
+                    .extracting(GitHubFileChange::getPath, GitHubFileChange::getStatus)
+                    .containsExactlyInAnyOrder(
+                        tuple("src/main/java/com/example/Added.java", "added"),
+                        tuple("src/main/java/com/example/Removed.java", "removed"),
+                        tuple(TYPE_PATH, "modified")
+                    )
+            );
+        assertThat(source.fetchFileContent("owner", "repo", second, TYPE_PATH, null)).isEqualTo("class Type { int field; }\n");
+    }
+}
@@ -0,0 +1,72 @@
+package com.juv3nil3.icdg.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.domain.PackageData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link PackageTrie}.
+ */
+class PackageTrieTest {
+
+    @Test
+    void createsMissingParentsBeforeTheirSubPackages() {
+        PackageTrie packages = new PackageTrie("owner", "repo", Map.of("com", 1L));
+
+        PackageData service = packages.resolve("com.example.service");
+
+        assertThat(packages.drainCreated()).extracting(PackageData::getPackageName).containsExactly("com.example", "com.example.service");
+        assertThat(service.getId()).isNull();
+        assertThat(service.getOwner()).isEqualTo("owner");
+        assertThat(service.getRepoName()).isEqualTo("repo");
+        assertThat(service.getParentPackage().getPackageName()).isEqualTo("com.example");
+        assertThat(service.getParentPackage().getParentPackage().getId()).isEqualTo(1L);
+        assertThat(packages.drainCreated()).isEmpty();
+    }
+
+    @Test
+    void resolvesStoredPackagesWithoutCreatingThem() {
+        PackageTrie packages = new PackageTrie("owner", "repo", Map.of("com.example", 2L, "com", 1L));
+
+        assertThat(packages.resolve("com.example").getId()).isEqualTo(2L);
+        assertThat(packages.resolve("com.example").getParentPackage().getId()).isEqualTo(1L);
+        assertThat(packages.drainCreated()).isEmpty();
+    }
+
+    @Test
+    void resolvesBlankPackageNameToDefaultPackage() {
+        PackageTrie packages = new PackageTrie("owner", "repo", Map.of());
+
+        assertThat(packages.resolve(null)).isSameAs(packages.resolve(" "));
+        assertThat(packages.drainCreated()).extracting(PackageData::getPackageName).containsExactly("default");
+    }
+
+    @Test
+    void createsEachPackageOnceUnderConcurrentResolution() throws Exception {
+        PackageTrie packages = new PackageTrie("owner", "repo", Map.of());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<PackageData>> resolved = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                String packageName = "com.example.module" + (i % 10);
+                resolved.add(executor.submit(() -> packages.resolve(packageName)));
+            }
+            for (Future<PackageData> future : resolved) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<PackageData> created = packages.drainCreated();
+        assertThat(created).hasSize(12);
+        assertThat(created.subList(0, 2)).extracting(PackageData::getPackageName).containsExactly("com", "com.example");
+    }
+}
@@ -0,0 +1,125 @@
+package com.juv3nil3.icdg.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for the {@link ParseResultCache}.
+ */
+class ParseResultCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private ApplicationProperties applicationProperties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getParseCache().setDirectory(directory.toString());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void computesGitBlobSha() {
+        // git hash-object of a file containing "hello world\n"
+        assertThat(ParseResultCache.blobSha("hello world\n")).isEqualTo("3b18e512dba79e4c8300dd08aeb37f8e728b8dad");
+    }
+
+    @Test
+    void returnsFreshCopyOfCachedModel() {
+        ParseResultCache cache = new ParseResultCache(applicationProperties, meterRegistry);
+        cache.put("abc123", parsedFile());
+
+        ParsedJavaFile hit = cache.get("abc123", "owner", "other-repo", "src/main/java/com/example/Moved.java").orElseThrow();
+
+        assertThat(hit.packageName()).isEqualTo("com.example");
+        assertThat(hit.fileData().getOwner()).isEqualTo("owner");
+        assertThat(hit.fileData().getRepoName()).isEqualTo("other-repo");
+        assertThat(hit.fileData().getFileName()).isEqualTo("Moved.java");
+        ClassData clazz = hit.fileData().getClasses().get(0);
+        assertThat(clazz.getId()).isNull();
+        assertThat(clazz.getFileData()).isSameAs(hit.fileData());
+        assertThat(clazz.getName()).isEqualTo("Service");
+        assertThat(clazz.getComment()).isNull();
+        assertThat(clazz.getAnnotations()).containsExactly("@Service");
+        assertThat(clazz.getMethods()).extracting(MethodData::getName).containsExactly("run");
+        assertThat(clazz.getFields()).extracting(FieldData::getComment).containsExactly("Ünïcode comment");
+        assertThat(cache.get("missing", "owner", "repo", "A.java")).isEmpty();
+        assertThat(cache.hitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void servesEntriesFromDiskAfterRestart() {
+        new ParseResultCache(applicationProperties, meterRegistry).put("abc123", parsedFile());
+
+        ParseResultCache restarted = new ParseResultCache(applicationProperties, new SimpleMeterRegistry());
+
+        assertThat(restarted.get("abc123", "owner", "repo", "src/main/java/Service.java")).isPresent();
+    }
+
+    @Test
+    void evictsFromDiskBeyondSizeBound() throws IOException {
+        int entrySize = ParsedFileCodec.encode(parsedFile()).length;
+        applicationProperties.getParseCache().setMaxHeapBytes(0);
+        applicationProperties.getParseCache().setMaxDiskBytes(10L * entrySize);
+        ParseResultCache cache = new ParseResultCache(applicationProperties, new SimpleMeterRegistry());
+        for (int i = 0; i < 100; i++) {
+            cache.put("sha" + i, parsedFile());
+        }
+
+        assertThat(countEntries()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void missesWhenDisabled() {
+        applicationProperties.getParseCache().setEnabled(false);
+        ParseResultCache cache = new ParseResultCache(applicationProperties, meterRegistry);
+        cache.put("abc123", parsedFile());
+
+        assertThat(cache.get("abc123", "owner", "repo", "A.java")).isEmpty();
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    private long countEntries() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(path -> path.toString().endsWith(".bin")).count();
+        }
+    }
+
+    private static ParsedJavaFile parsedFile() {
+        FieldData field = new FieldData();
+        field.setName("repository");
+        field.setComment("Ünïcode comment");
+        field.setAnnotations(List.of());
+        MethodData method = new MethodData();
+        method.setName("run");
+        method.setComment("Runs it.");
+        method.setAnnotations(List.of("@Override"));
+        ClassData clazz = new ClassData();
+        clazz.setName("Service");
+        clazz.setAnnotations(List.of("@Service"));
+        clazz.getFields().add(field);
+        clazz.getMethods().add(method);
+        FileData fileData = new FileData();
+        fileData.setRepoName("repo");
+        fileData.setFilePath("src/main/java/com/example/Service.java");
+        fileData.addClass(clazz);
+        return new ParsedJavaFile("com.example", fileData);
+    }
+}
@@ -0,0 +1,171 @@
+package com.juv3nil3.icdg.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.service.RenderedExportCache.ExportKey;
+import com.juv3nil3.icdg.service.RenderedExportCache.RenderedExport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for the {@link RenderedExportCache}.
+ */
+class RenderedExportCacheTest {
+
+    private static final String BODY = "### Repository: repo\n\n".repeat(10);
+
+    @TempDir
+    Path cacheDirectory;
+
+    private CacheManager cacheManager;
+    private ApplicationProperties applicationProperties;
+    private RenderedExportCache cache;
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = Caching.getCachingProvider("org.ehcache.jsr107.EhcacheCachingProvider").getCacheManager();
+        cacheManager.createCache(
+            RenderedExportCache.CACHE_NAME,
+            new MutableConfiguration<String, RenderedExport>().setTypes(String.class, RenderedExport.class).setStoreByValue(false)
+        );
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getExportCache().setDirectory(cacheDirectory.toString());
+        cache = new RenderedExportCache(cacheManager, applicationProperties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.destroyCache(RenderedExportCache.CACHE_NAME);
+    }
+
+    @Test
+    void rendersOncePerCommit() throws IOException {
+        assertThat(write(key("a"))).isEqualTo(BODY);
+        assertThat(write(key("a"))).isEqualTo(BODY);
+        assertThat(renders).hasValue(1);
+
+        assertThat(write(key("b"))).isEqualTo(BODY);
+        assertThat(renders).hasValue(2);
+
+        // A historical snapshot and the latest commit are cached side by side
+        assertThat(write(key("a"))).isEqualTo(BODY);
+        assertThat(write(key("b"))).isEqualTo(BODY);
+        assertThat(renders).hasValue(2);
+    }
+
+    @Test
+    void keepsLargeExportsOnDisk() throws IOException {
+        applicationProperties.getExportCache().setMaxInlineBytes(16);
+
+        assertThat(write(key("a"))).isEqualTo(BODY);
+        assertThat(heap().get("owner/repo/a/markdown/1").body()).isNull();
+        assertThat(exportFiles()).isEqualTo(1);
+
+        // Still served from disk once evicted from heap
+        heap().clear();
+        assertThat(write(key("a"))).isEqualTo(BODY);
+        assertThat(renders).hasValue(1);
+
+        write(key("b"));
+        assertThat(exportFiles()).isEqualTo(2);
+    }
+
+    @Test
+    void boundsTheExportsOnDisk() throws IOException {
+        applicationProperties.getExportCache().setMaxInlineBytes(16);
+        applicationProperties.getExportCache().setMaxDiskBytes(2L * BODY.length());
+        cache = new RenderedExportCache(cacheManager, applicationProperties, new SimpleMeterRegistry());
+
+        write(key("a"));
+        write(key("b"));
+        write(key("c"));
+        assertThat(exportFiles()).isEqualTo(2);
+
+        // Evicted exports are rendered again, the others served from disk
+        heap().clear();
+        for (String commit : new String[] { "a", "b", "c" }) {
+            assertThat(write(key(commit))).isEqualTo(BODY);
+        }
+        assertThat(renders.get()).isBetween(4, 5);
+        assertThat(exportFiles()).isEqualTo(2);
+    }
+
+    @Test
+    void rendersAgainWhenTheFileOfAnExportIsGone() throws IOException {
+        applicationProperties.getExportCache().setMaxInlineBytes(16);
+        write(key("a"));
+
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+
+        assertThat(write(key("a"))).isEqualTo(BODY);
+        assertThat(renders).hasValue(2);
+        assertThat(write(key("a"))).isEqualTo(BODY);
+        assertThat(renders).hasValue(2);
+    }
+
+    @Test
+    void doesNotCacheFailedRenders() throws IOException {
+        ExportKey key = key("a");
+        assertThatThrownBy(() ->
+            cache.write(key, new ByteArrayOutputStream(), output -> {
+                throw new IOException("Connection reset");
+            })
+        ).isInstanceOf(IOException.class);
+
+        assertThat(write(key)).isEqualTo(BODY);
+        assertThat(renders).hasValue(1);
+    }
+
+    @Test
+    void tagsExportsByCommit() {
+        assertThat(RenderedExportCache.etag(key("a"))).isEqualTo(RenderedExportCache.etag(key("a"))).startsWith("\"").endsWith("\"");
+        assertThat(RenderedExportCache.etag(key("a"))).isNotEqualTo(RenderedExportCache.etag(key("b")));
+        assertThat(RenderedExportCache.etag(key("a"))).isNotEqualTo(
+            RenderedExportCache.etag(new ExportKey("owner", "repo", "a", DocumentationGenerator.EXPORT_FORMAT, 2))
+        );
+    }
+
+    private String write(ExportKey key) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        cache.write(key, output, outputStream -> {
+            renders.incrementAndGet();
+            outputStream.write(BODY.getBytes(StandardCharsets.UTF_8));
+        });
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private Cache<String, RenderedExport> heap() {
+        return cacheManager.getCache(RenderedExportCache.CACHE_NAME, String.class, RenderedExport.class);
+    }
+
+    private long exportFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(cacheDirectory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static ExportKey key(String commit) {
+        return new ExportKey("owner", "repo", commit, DocumentationGenerator.EXPORT_FORMAT, 1);
+    }
+}
@@ -0,0 +1,75 @@
+package com.juv3nil3.icdg.service;
+
+import static com.juv3nil3.icdg.test.util.GithubStubServer.respond;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.test.util.GithubStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Test class for the {@link RepositoryAccessChecker}, run against a local stub of the GitHub API.
+ */
+class RepositoryAccessCheckerTest {
+
+    private GithubStubServer stub;
+    private ApplicationProperties applicationProperties;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new GithubStubServer();
+        stub.handle("/repos/owner/private", exchange -> {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            respond(exchange, "Bearer member".equals(authorization) ? 200 : 404, "application/json", "{}");
+        });
+        stub.handle("/repos/owner/broken", exchange -> respond(exchange, 502, "application/json", "{}"));
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getGithub().setApiUrl(stub.url());
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void asksGithubOncePerTokenAndRepository() {
+        RepositoryAccessChecker checker = checker();
+
+        assertThat(checker.canRead("owner", "private", "member")).isTrue();
+        assertThat(checker.canRead("owner", "private", "member")).isTrue();
+        assertThat(checker.canRead("owner", "private", "outsider")).isFalse();
+        assertThat(checker.canRead("owner", "private", "outsider")).isFalse();
+        assertThat(checker.canRead("owner", "private", null)).isFalse();
+
+        assertThat(stub.requestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotRememberFailuresOfGithub() {
+        RepositoryAccessChecker checker = checker();
+
+        assertThatThrownBy(() -> checker.canRead("owner", "broken", "member")).isInstanceOf(HttpServerErrorException.class);
+        assertThatThrownBy(() -> checker.canRead("owner", "broken", "member")).isInstanceOf(HttpServerErrorException.class);
+
+        assertThat(stub.requestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void letsEveryoneReadLocalRepositories() {
+        applicationProperties.getIngestion().setSource(ApplicationProperties.Ingestion.Source.LOCAL);
+
+        assertThat(checker().canRead("owner", "private", "outsider")).isTrue();
+        assertThat(stub.requestCount()).isZero();
+    }
+
+    private RepositoryAccessChecker checker() {
+        return new RepositoryAccessChecker(new RestTemplate(), applicationProperties, new SimpleMeterRegistry());
+    }
+}
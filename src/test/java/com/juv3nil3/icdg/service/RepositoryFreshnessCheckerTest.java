@@ -0,0 +1,93 @@
+package com.juv3nil3.icdg.service;
+
+import static com.juv3nil3.icdg.test.util.GithubStubServer.respond;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.test.util.GithubStubServer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Test class for the {@link RepositoryFreshnessChecker}, run against a local stub of the GitHub API.
+ */
+class RepositoryFreshnessCheckerTest {
+
+    private static final String SHA_MEDIA_TYPE = "application/vnd.github.sha";
+
+    private GithubStubServer stub;
+    private ApplicationProperties applicationProperties;
+    private RepositoryFreshnessChecker checker;
+    private final AtomicReference<String> head = new AtomicReference<>("c0ffee");
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new GithubStubServer();
+        stub.handle("/repos/owner/repo/commits/HEAD", exchange -> {
+            String etag = '"' + head.get() + '"';
+            String validator = exchange.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatch.add(String.valueOf(validator));
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(validator)) {
+                respond(exchange, 304, SHA_MEDIA_TYPE, "");
+            } else {
+                respond(exchange, 200, SHA_MEDIA_TYPE, head.get());
+            }
+        });
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getGithub().setApiUrl(stub.url());
+        applicationProperties.getGithub().setFreshnessWindow(Duration.ZERO);
+        checker = new RepositoryFreshnessChecker(new RestTemplate(), applicationProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void revalidatesTheHeadWithItsEtag() throws Exception {
+        assertThat(checker.fetchHeadCommit("owner", "repo", "token")).isEqualTo("c0ffee");
+        assertThat(checker.fetchHeadCommit("owner", "repo", "token")).isEqualTo("c0ffee");
+        head.set("beef");
+        assertThat(checker.fetchHeadCommit("owner", "repo", "token")).isEqualTo("beef");
+
+        assertThat(ifNoneMatch).containsExactly("null", "\"c0ffee\"", "\"c0ffee\"");
+    }
+
+    @Test
+    void trustsTheHeadWithinTheFreshnessWindow() throws Exception {
+        applicationProperties.getGithub().setFreshnessWindow(Duration.ofMinutes(1));
+
+        assertThat(checker.fetchHeadCommit("owner", "repo", "token")).isEqualTo("c0ffee");
+        head.set("beef");
+        assertThat(checker.fetchHeadCommit("owner", "repo", "token")).isEqualTo("c0ffee");
+
+        assertThat(stub.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void revalidatesTheHeadWithinTheFreshnessWindowForAnotherToken() throws Exception {
+        applicationProperties.getGithub().setFreshnessWindow(Duration.ofMinutes(1));
+        stub.handle("/repos/owner/private/commits/HEAD", exchange -> {
+            boolean member = "Bearer member".equals(exchange.getRequestHeaders().getFirst("Authorization"));
+            respond(exchange, member ? 200 : 404, SHA_MEDIA_TYPE, member ? "c0ffee" : "");
+        });
+
+        assertThat(checker.fetchHeadCommit("owner", "private", "member")).isEqualTo("c0ffee");
+        assertThatThrownBy(() -> checker.fetchHeadCommit("owner", "private", "outsider")).isInstanceOf(
+            HttpClientErrorException.NotFound.class
+        );
+
+        assertThat(stub.requestCount()).isEqualTo(2);
+    }
+}
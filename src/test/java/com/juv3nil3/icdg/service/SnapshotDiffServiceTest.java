@@ -0,0 +1,193 @@
+package com.juv3nil3.icdg.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository.Snapshot;
+import com.juv3nil3.icdg.repository.SnapshotDiffRepository;
+import com.juv3nil3.icdg.repository.SnapshotDiffRepository.ClassContent;
+import com.juv3nil3.icdg.repository.SnapshotDiffRepository.FileVersion;
+import com.juv3nil3.icdg.repository.SnapshotDiffRepository.MemberContent;
+import com.juv3nil3.icdg.service.SnapshotDiffService.Change;
+import com.juv3nil3.icdg.service.SnapshotDiffService.ClassDiff;
+import com.juv3nil3.icdg.service.SnapshotDiffService.FileDiff;
+import com.juv3nil3.icdg.service.SnapshotDiffService.MemberDiff;
+import com.juv3nil3.icdg.service.SnapshotDiffService.SnapshotPair;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link SnapshotDiffService}.
+ */
+class SnapshotDiffServiceTest {
+
+    private static final SnapshotPair SNAPSHOTS = new SnapshotPair(snapshot(1, "old"), snapshot(2, "new"));
+    private static final List<String> PATHS = List.of("Added.java", "Changed.java", "Removed.java", "Same.java");
+
+    private SnapshotDiffRepository diffRepository;
+    private DocumentationGenerator documentationGenerator;
+    private SnapshotDiffService service;
+
+    @BeforeEach
+    void setUp() {
+        diffRepository = mock(SnapshotDiffRepository.class);
+        documentationGenerator = mock(DocumentationGenerator.class);
+        service = new SnapshotDiffService(diffRepository, documentationGenerator, new ObjectMapper());
+
+        when(diffRepository.findChangedPaths("owner", "repo", 1, 2, null, SnapshotDiffService.DIFF_PAGE_SIZE)).thenReturn(PATHS);
+        when(diffRepository.findFiles("owner", "repo", 1, PATHS)).thenReturn(
+            Map.of(
+                "Changed.java",
+                new FileVersion(10, "Changed.java", "a", "com.example"),
+                "Removed.java",
+                new FileVersion(11, "Removed.java", "b", "com.example"),
+                "Same.java",
+                new FileVersion(12, "Same.java", "c", "com.example")
+            )
+        );
+        when(diffRepository.findFiles("owner", "repo", 2, PATHS)).thenReturn(
+            Map.of(
+                "Added.java",
+                new FileVersion(20, "Added.java", "d", "com.example"),
+                "Changed.java",
+                new FileVersion(21, "Changed.java", "e", "com.example"),
+                "Same.java",
+                new FileVersion(22, "Same.java", "c", "com.example")
+            )
+        );
+        when(diffRepository.findClasses(anyCollection())).thenReturn(
+            Map.of(
+                10L,
+                List.of(
+                    new ClassContent(
+                        "Changed",
+                        "/** Old. */",
+                        List.of("@Service"),
+                        List.of(member("run", "@Override"), member("stop")),
+                        List.of(member("count"))
+                    ),
+                    new ClassContent("Gone", null, List.of(), List.of(), List.of())
+                ),
+                11L,
+                List.of(new ClassContent("Removed", null, List.of(), List.of(member("run")), List.of())),
+                20L,
+                List.of(new ClassContent("Added", null, List.of("@Component"), List.of(), List.of(member("name")))),
+                21L,
+                List.of(
+                    new ClassContent(
+                        "Changed",
+                        "/** New. */",
+                        List.of("@Service", "@Transactional"),
+                        List.of(member("run"), member("stop"), member("stop")),
+                        List.of(member("count"))
+                    )
+                )
+            )
+        );
+    }
+
+    @Test
+    void findsBothSnapshots() {
+        when(documentationGenerator.findSnapshot("owner", "repo", "old")).thenReturn(Optional.of(SNAPSHOTS.from()));
+        when(documentationGenerator.findSnapshot("owner", "repo", null)).thenReturn(Optional.of(SNAPSHOTS.to()));
+
+        assertThat(service.findSnapshots("owner", "repo", "old", null)).contains(SNAPSHOTS);
+        assertThat(service.findSnapshots("owner", "repo", "missing", null)).isEmpty();
+    }
+
+    @Test
+    void diffsTheChangedFilesOnly() throws IOException {
+        List<FileDiff> diffs = diff(SNAPSHOTS);
+
+        assertThat(diffs).extracting(FileDiff::filePath).containsExactly("Added.java", "Changed.java", "Removed.java");
+        assertThat(diffs).extracting(FileDiff::change).containsExactly(Change.ADDED, Change.MODIFIED, Change.REMOVED);
+        // The unchanged file isn't loaded
+        verify(diffRepository).findClasses(argThat(ids -> ids.size() == 4 && !ids.contains(12L) && !ids.contains(22L)));
+
+        ClassDiff added = diffs.get(0).classes().get(0);
+        assertThat(added.change()).isEqualTo(Change.ADDED);
+        assertThat(added.addedAnnotations()).containsExactly("@Component");
+        assertThat(added.fields()).extracting(MemberDiff::change).containsExactly(Change.ADDED);
+    }
+
+    @Test
+    void diffsTheClassesAndMembersOfAModifiedFile() throws IOException {
+        List<ClassDiff> classes = diff(SNAPSHOTS).get(1).classes();
+
+        assertThat(classes).extracting(ClassDiff::name).containsExactly("Changed", "Gone");
+        ClassDiff changed = classes.get(0);
+        assertThat(changed.change()).isEqualTo(Change.MODIFIED);
+        assertThat(changed.commentChanged()).isTrue();
+        assertThat(changed.addedAnnotations()).containsExactly("@Transactional");
+        assertThat(changed.removedAnnotations()).isEmpty();
+        assertThat(changed.methods()).extracting(MemberDiff::name).containsExactly("run", "stop");
+        assertThat(changed.methods()).extracting(MemberDiff::change).containsExactly(Change.MODIFIED, Change.ADDED);
+        assertThat(changed.methods().get(0).removedAnnotations()).containsExactly("@Override");
+        assertThat(changed.fields()).isEmpty();
+        assertThat(classes.get(1).change()).isEqualTo(Change.REMOVED);
+    }
+
+    @Test
+    void diffsInEitherDirection() throws IOException {
+        List<FileDiff> diffs = diff(new SnapshotPair(SNAPSHOTS.to(), SNAPSHOTS.from()));
+
+        assertThat(diffs).extracting(FileDiff::change).containsExactly(Change.REMOVED, Change.MODIFIED, Change.ADDED);
+    }
+
+    @Test
+    void writesTheDiffAsJson() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.writeJson(SNAPSHOTS, output);
+
+        JsonNode json = new ObjectMapper().readTree(output.toByteArray());
+        assertThat(json.get("from").asText()).isEqualTo("old");
+        assertThat(json.get("to").asText()).isEqualTo("new");
+        assertThat(json.get("files")).hasSize(3);
+        assertThat(json.get("files").get(1).get("classes").get(0).get("addedAnnotations").get(0).asText()).isEqualTo("@Transactional");
+        assertThat(json.get("summary").get("added").asInt()).isEqualTo(1);
+        assertThat(json.get("summary").get("removed").asInt()).isEqualTo(1);
+        assertThat(json.get("summary").get("modified").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    void writesTheDiffAsMarkdown() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.writeMarkdown(SNAPSHOTS, output);
+
+        String markdown = output.toString(StandardCharsets.UTF_8);
+        assertThat(markdown).contains("#### Added file: Added.java");
+        assertThat(markdown).contains("- Modified **Class**: Changed (+[@Transactional]) (comment changed)");
+        assertThat(markdown).contains("  - Added **Method**: stop");
+        assertThat(markdown).doesNotContain("Same.java");
+        assertThat(markdown).endsWith("**Files**: 1 added, 1 removed, 1 modified\n");
+    }
+
+    private List<FileDiff> diff(SnapshotPair snapshots) throws IOException {
+        when(diffRepository.findChangedPaths("owner", "repo", 2, 1, null, SnapshotDiffService.DIFF_PAGE_SIZE)).thenReturn(PATHS);
+        List<FileDiff> diffs = new ArrayList<>();
+        service.diff(snapshots, diffs::add);
+        return diffs;
+    }
+
+    private static MemberContent member(String name, String... annotations) {
+        return new MemberContent(name, null, List.of(annotations));
+    }
+
+    private static Snapshot snapshot(long generation, String commitHash) {
+        return new Snapshot("owner", "repo", generation, commitHash, Instant.EPOCH);
+    }
+}
@@ -0,0 +1,203 @@
+package com.juv3nil3.icdg.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.juv3nil3.icdg.config.ApplicationProperties;
+import com.juv3nil3.icdg.domain.ClassData;
+import com.juv3nil3.icdg.domain.Documentation;
+import com.juv3nil3.icdg.domain.FieldData;
+import com.juv3nil3.icdg.domain.FileData;
+import com.juv3nil3.icdg.domain.MethodData;
+import com.juv3nil3.icdg.domain.PackageData;
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository;
+import com.juv3nil3.icdg.repository.DocumentationSnapshotRepository.Snapshot;
+import com.juv3nil3.icdg.repository.SymbolSourceRepository;
+import com.juv3nil3.icdg.repository.search.LuceneSymbolSearchRepository;
+import com.juv3nil3.icdg.repository.search.Symbol;
+import com.juv3nil3.icdg.repository.search.Symbol.Kind;
+import com.juv3nil3.icdg.repository.search.SymbolHit;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.BiConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for the {@link SymbolSearchService}, over a Lucene index.
+ */
+class SymbolSearchServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private LuceneSymbolSearchRepository searchRepository;
+    private SymbolSourceRepository sourceRepository;
+    private DocumentationSnapshotRepository snapshotRepository;
+    private DocumentationGenerator documentationGenerator;
+    private SymbolSearchService service;
+
+    @BeforeEach
+    void setUp() {
+        searchRepository = new LuceneSymbolSearchRepository(directory, 8);
+        sourceRepository = mock(SymbolSourceRepository.class);
+        snapshotRepository = mock(DocumentationSnapshotRepository.class);
+        documentationGenerator = mock(DocumentationGenerator.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSymbolSearch().setMaxResults(2);
+        service = new SymbolSearchService(
+            searchRepository,
+            sourceRepository,
+            snapshotRepository,
+            documentationGenerator,
+            applicationProperties
+        );
+
+        when(documentationGenerator.findDocumentation("owner", "repo")).thenReturn(Optional.of(new Documentation()));
+        doAnswer(invocation -> {
+            BiConsumer<String, List<Symbol>> consumer = invocation.getArgument(2);
+            consumer.accept("Parser.java", SymbolSearchService.symbolsOf(file("Parser.java", "Parser")));
+            consumer.accept("Cache.java", SymbolSearchService.symbolsOf(file("Cache.java", "Cache")));
+            return null;
+        })
+            .when(sourceRepository)
+            .forEachFile(eq("owner"), eq("repo"), any());
+        latestGeneration(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchRepository.close();
+    }
+
+    @Test
+    void indexesARepositoryFromTheDatabaseOnItsFirstSearch() {
+        assertThat(names(service.search("owner", "repo", "parser", 10))).containsExactly("Parser");
+        assertThat(names(service.search("owner", "repo", "cache", 10))).containsExactly("Cache");
+
+        verify(sourceRepository, times(1)).forEachFile(eq("owner"), eq("repo"), any());
+        assertThat(searchRepository.indexedGeneration("owner", "repo")).isEqualTo(OptionalLong.of(1));
+    }
+
+    @Test
+    void searchesDocumentedRepositoriesOnly() {
+        when(documentationGenerator.findDocumentation("owner", "missing")).thenReturn(Optional.empty());
+
+        assertThat(service.search("owner", "missing", "parser", 10)).isEmpty();
+        verify(sourceRepository, never()).forEachFile(eq("owner"), eq("missing"), any());
+    }
+
+    @Test
+    void returnsAtMostTheConfiguredNumberOfSymbols() {
+        assertThat(service.search("owner", "repo", "count", 10).orElseThrow()).hasSize(2);
+        assertThat(service.search("owner", "repo", "count", 0).orElseThrow()).hasSize(1);
+    }
+
+    @Test
+    void updatesTheFilesOfIndexedRepositoriesOnly() {
+        service.indexFiles("owner", "repo", List.of(file("Writer.java", "Writer")));
+
+        assertThat(searchRepository.indexedGeneration("owner", "repo")).isEmpty();
+        assertThat(searchRepository.search("owner", "repo", "writer", 10)).isEmpty();
+
+        service.search("owner", "repo", "parser", 10);
+        service.indexFiles("owner", "repo", List.of(file("Writer.java", "Writer")));
+        service.removeFiles("owner", "repo", List.of("Cache.java"));
+
+        assertThat(names(service.search("owner", "repo", "writer", 10))).containsExactly("Writer");
+        assertThat(names(service.search("owner", "repo", "cache", 10))).isEmpty();
+    }
+
+    @Test
+    void indexesAnInvalidatedRepositoryAgainOnItsNextSearch() {
+        service.search("owner", "repo", "parser", 10);
+        service.invalidate("owner", "repo");
+
+        assertThat(searchRepository.indexedGeneration("owner", "repo")).isEmpty();
+        assertThat(names(service.search("owner", "repo", "parser", 10))).containsExactly("Parser");
+        verify(sourceRepository, times(2)).forEachFile(eq("owner"), eq("repo"), any());
+    }
+
+    @Test
+    void keepsTheIndexOfTheGenerationsSavedOnThisNode() {
+        service.search("owner", "repo", "parser", 10);
+        service.indexFiles("owner", "repo", List.of(file("Writer.java", "Writer")));
+        service.generationSaved("owner", "repo", 2);
+        latestGeneration(2);
+
+        assertThat(names(service.search("owner", "repo", "writer", 10))).containsExactly("Writer");
+        assertThat(searchRepository.indexedGeneration("owner", "repo")).isEqualTo(OptionalLong.of(2));
+        verify(sourceRepository, times(1)).forEachFile(eq("owner"), eq("repo"), any());
+
+        // Skipping a generation saved on another node
+        service.generationSaved("owner", "repo", 4);
+
+        assertThat(searchRepository.indexedGeneration("owner", "repo")).isEqualTo(OptionalLong.of(2));
+    }
+
+    @Test
+    void indexesARepositoryAgainOnceAnotherNodeSavedAGeneration() {
+        service.search("owner", "repo", "parser", 10);
+        latestGeneration(2);
+
+        assertThat(names(service.search("owner", "repo", "cache", 10))).containsExactly("Cache");
+        assertThat(searchRepository.indexedGeneration("owner", "repo")).isEqualTo(OptionalLong.of(2));
+        verify(sourceRepository, times(2)).forEachFile(eq("owner"), eq("repo"), any());
+    }
+
+    @Test
+    void listsEachClassFollowedByItsMembers() {
+        FileData file = file("Parser.java", "Parser");
+        file.getClasses().get(0).setId(7L);
+
+        List<Symbol> symbols = SymbolSearchService.symbolsOf(file);
+
+        assertThat(symbols).extracting(Symbol::name).containsExactly("Parser", "parse", "count");
+        assertThat(symbols).extracting(Symbol::kind).containsExactly(Kind.CLASS, Kind.METHOD, Kind.FIELD);
+        assertThat(symbols).extracting(Symbol::classId).containsOnly(7L);
+        assertThat(symbols.get(0).packageName()).isEqualTo("com.example");
+        assertThat(symbols.get(1).annotations()).containsExactly("@Override");
+    }
+
+    private void latestGeneration(long generation) {
+        when(snapshotRepository.findLatest("owner", "repo")).thenReturn(
+            Optional.of(new Snapshot("owner", "repo", generation, "commit-" + generation, Instant.EPOCH))
+        );
+    }
+
+    private static List<String> names(Optional<List<SymbolHit>> hits) {
+        return hits.orElseThrow().stream().map(hit -> hit.symbol().name()).toList();
+    }
+
+    private static FileData file(String filePath, String className) {
+        FileData file = new FileData();
+        file.setOwner("owner");
+        file.setRepoName("repo");
+        file.setFilePath(filePath);
+        file.setPackageData(new PackageData("com.example"));
+
+        ClassData clazz = new ClassData();
+        clazz.setName(className);
+        MethodData parse = new MethodData();
+        parse.setName("parse");
+        parse.getAnnotations().add("@Override");
+        clazz.getMethods().add(parse);
+        FieldData count = new FieldData();
+        count.setName("count");
+        clazz.getFields().add(count);
+        file.addClass(clazz);
+        return file;
+    }
+}
@@ -0,0 +1,78 @@
+package com.juv3nil3.icdg.test.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Local HTTP server standing in for the GitHub API in unit tests. Records every request path so tests can assert on the number of
+ * round trips a code path makes.
+ */
+public class GithubStubServer implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private final HttpServer server;
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    public GithubStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.start();
+    }
+
+    public GithubStubServer handle(String pathPrefix, Handler handler) {
+        server.createContext(pathPrefix, exchange -> {
+            requests.add(exchange.getRequestURI().toString());
+            try {
+                handler.handle(exchange);
+            } finally {
+                exchange.close();
+            }
+        });
+        return this;
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public List<String> requests() {
+        return requests;
+    }
+
+    public int requestCount() {
+        return requests.size();
+    }
+
+    public static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        respond(exchange, status, contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    public static void respondJson(HttpExchange exchange, String body) throws IOException {
+        respond(exchange, 200, "application/json", body);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
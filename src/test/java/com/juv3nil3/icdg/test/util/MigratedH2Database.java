@@ -0,0 +1,43 @@
+package com.juv3nil3.icdg.test.util;
+
+import java.util.UUID;
+import javax.sql.DataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * In-memory H2 database migrated with the application's Liquibase changelog, for testing JDBC code against the real schema without
+ * starting the application context.
+ */
+public final class MigratedH2Database {
+
+    private MigratedH2Database() {}
+
+    /**
+     * Create a new, empty database. It lives until the JVM exits.
+     */
+    public static DataSource create() throws Exception {
+        return create("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    /**
+     * Migrate the database at the given URL.
+     */
+    public static DataSource create(String url) throws Exception {
+        return migrate(new DriverManagerDataSource(url, "DocumentationGenerator", ""));
+    }
+
+    /**
+     * Migrate another database with the same changelog, such as a PostgreSQL test container.
+     */
+    public static DataSource migrate(DataSource dataSource) throws Exception {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.setChangeLog("classpath:config/liquibase/master.xml");
+        liquibase.setContexts("test");
+        liquibase.afterPropertiesSet();
+        return dataSource;
+    }
+}